@@ -618,7 +618,8 @@ class TestCqlshCompletion(CqlshCompletionCase):
                             choices=['SizeTieredCompactionStrategy',
                                      'LeveledCompactionStrategy',
                                      'DateTieredCompactionStrategy',
-                                     'TimeWindowCompactionStrategy'])
+                                     'TimeWindowCompactionStrategy',
+                                     'UnifiedCompactionStrategy'])
         self.trycompletions(prefix + " new_table (col_a int PRIMARY KEY) WITH compaction = "
                             + "{'class': 'S",
                             immediate="izeTieredCompactionStrategy'")
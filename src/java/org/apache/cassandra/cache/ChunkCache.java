@@ -21,6 +21,11 @@
 package org.apache.cassandra.cache;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -29,13 +34,26 @@ import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.MoreExecutors;
 
 import com.github.benmanes.caffeine.cache.*;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.io.sstable.CorruptSSTableException;
+import org.apache.cassandra.io.sstable.Descriptor;
 import org.apache.cassandra.io.util.*;
 import org.apache.cassandra.metrics.CacheMissMetrics;
+import org.apache.cassandra.schema.Schema;
+import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.utils.memory.BufferPool;
 
+/**
+ * Cache of the chunks of sstable files, in buffers taken from the {@link BufferPool}.
+ * <p>
+ * The sstables of the keyspaces and tables listed in {@code file_cache_quotas_in_mb} are cached in their own part of
+ * the cache, so that reads of other tables can't evict them; all other tables share the rest of the cache.
+ * Sequential scans (range reads, compaction) use the chunks already cached but don't add the chunks they read to the
+ * cache, as they would otherwise push out the working set of point reads for chunks that are read once.
+ */
 public class ChunkCache
         implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer>, RemovalListener<ChunkCache.Key, ChunkCache.Buffer>, CacheSize
 {
@@ -46,7 +64,10 @@ public class ChunkCache
     private static boolean enabled = cacheSize > 0;
     public static final ChunkCache instance = enabled ? new ChunkCache() : null;
 
+    // the cache shared by the tables without a quota
     private final LoadingCache<Key, Buffer> cache;
+    // the caches of the keyspaces and tables with a quota, by "keyspace" or "keyspace.table"
+    private final Map<String, LoadingCache<Key, Buffer>> quotaCaches;
     public final CacheMissMetrics metrics;
 
     static class Key
@@ -137,13 +158,70 @@ public class ChunkCache
 
     public ChunkCache()
     {
-        cache = Caffeine.newBuilder()
-                .maximumWeight(cacheSize)
+        this(DatabaseDescriptor.getFileCacheQuotasInMB());
+    }
+
+    @VisibleForTesting
+    ChunkCache(Map<String, Integer> quotasInMB)
+    {
+        long sharedSize = cacheSize;
+        Map<String, LoadingCache<Key, Buffer>> quotaCaches = new HashMap<>();
+        for (Map.Entry<String, Integer> quota : quotasInMB.entrySet())
+        {
+            long quotaSize = 1024L * 1024L * quota.getValue();
+            quotaCaches.put(quota.getKey(), newCache(quotaSize));
+            sharedSize -= quotaSize;
+        }
+        this.quotaCaches = Collections.unmodifiableMap(quotaCaches);
+        cache = newCache(Math.max(0, sharedSize));
+        metrics = new CacheMissMetrics("ChunkCache", this);
+    }
+
+    private LoadingCache<Key, Buffer> newCache(long maximumWeight)
+    {
+        return Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
                 .executor(MoreExecutors.directExecutor())
                 .weigher((key, buffer) -> ((Buffer) buffer).buffer.capacity())
                 .removalListener(this)
                 .build(this);
-        metrics = new CacheMissMetrics("ChunkCache", this);
+    }
+
+    private List<LoadingCache<Key, Buffer>> caches()
+    {
+        List<LoadingCache<Key, Buffer>> caches = new ArrayList<>(quotaCaches.size() + 1);
+        caches.add(cache);
+        caches.addAll(quotaCaches.values());
+        return caches;
+    }
+
+    /**
+     * @return the cache the chunks of the sstable file belong to: the one of its table if it has a quota, or else the
+     * one of its keyspace if it has a quota, or else the shared one.
+     */
+    private LoadingCache<Key, Buffer> cacheFor(Descriptor descriptor)
+    {
+        if (descriptor == null || quotaCaches.isEmpty())
+            return cache;
+
+        LoadingCache<Key, Buffer> tableCache = quotaCaches.get(descriptor.ksname + '.' + descriptor.cfname);
+        if (tableCache != null)
+            return tableCache;
+
+        return quotaCaches.getOrDefault(descriptor.ksname, cache);
+    }
+
+    private static Descriptor descriptorFor(ChunkReader file)
+    {
+        try
+        {
+            return Descriptor.fromFilename(file.channel().filePath());
+        }
+        catch (IllegalArgumentException e)
+        {
+            // not an sstable component, e.g. a file read by a test
+            return null;
+        }
     }
 
     @Override
@@ -168,7 +246,7 @@ public class ChunkCache
 
     public void close()
     {
-        cache.invalidateAll();
+        caches().forEach(Cache::invalidateAll);
     }
 
     public RebuffererFactory wrap(ChunkReader file)
@@ -194,14 +272,15 @@ public class ChunkCache
 
     public void invalidateFile(String fileName)
     {
-        cache.invalidateAll(Iterables.filter(cache.asMap().keySet(), x -> x.path.equals(fileName)));
+        for (LoadingCache<Key, Buffer> cache : caches())
+            cache.invalidateAll(Iterables.filter(cache.asMap().keySet(), x -> x.path.equals(fileName)));
     }
 
     @VisibleForTesting
     public void enable(boolean enabled)
     {
         ChunkCache.enabled = enabled;
-        cache.invalidateAll();
+        close();
         metrics.reset();
     }
 
@@ -215,6 +294,12 @@ public class ChunkCache
     {
         private final ChunkReader source;
         final long alignmentMask;
+        private final Descriptor descriptor;
+        private final LoadingCache<Key, Buffer> cache;
+        // resolved lazily, as the table may not be initialized when its sstables are opened; only the meters are kept,
+        // as the table metrics reference the table, which references its sstables and thus this rebufferer
+        private volatile Meter tableRequests;
+        private volatile Meter tableMisses;
 
         public CachingRebufferer(ChunkReader file)
         {
@@ -222,6 +307,8 @@ public class ChunkCache
             int chunkSize = file.chunkSize();
             assert Integer.bitCount(chunkSize) == 1 : String.format("%d must be a power of two", chunkSize);
             alignmentMask = -chunkSize;
+            descriptor = descriptorFor(file);
+            cache = cacheFor(descriptor);
         }
 
         @Override
@@ -229,12 +316,15 @@ public class ChunkCache
         {
             try
             {
-                metrics.requests.mark();
+                markRequest();
                 long pageAlignedPos = position & alignmentMask;
-                Buffer buf;
-                do
-                    buf = cache.get(new Key(source, pageAlignedPos)).reference();
-                while (buf == null);
+                Key key = new Key(source, pageAlignedPos);
+                Buffer buf = cache.getIfPresent(key);
+                if (buf == null)
+                    markTableMiss();
+                buf = buf == null ? null : buf.reference();
+                while (buf == null)
+                    buf = cache.get(key).reference();
 
                 return buf;
             }
@@ -251,12 +341,47 @@ public class ChunkCache
             cache.invalidate(new Key(source, pageAlignedPos));
         }
 
+        private void markRequest()
+        {
+            metrics.requests.mark();
+            resolveTableMetrics();
+            if (tableRequests != null)
+                tableRequests.mark();
+        }
+
+        private void markTableMiss()
+        {
+            resolveTableMetrics();
+            if (tableMisses != null)
+                tableMisses.mark();
+        }
+
+        private void resolveTableMetrics()
+        {
+            if (tableMisses == null && descriptor != null)
+            {
+                TableMetadata table = Schema.instance.getTableMetadata(descriptor.ksname, descriptor.cfname);
+                ColumnFamilyStore cfs = table == null ? null : Schema.instance.getColumnFamilyStoreInstance(table.id);
+                if (cfs != null)
+                {
+                    tableRequests = cfs.metric.chunkCacheRequests;
+                    tableMisses = cfs.metric.chunkCacheMisses;
+                }
+            }
+        }
+
         @Override
         public Rebufferer instantiateRebufferer()
         {
             return this;
         }
 
+        @Override
+        public Rebufferer instantiateScanRebufferer()
+        {
+            return new ScanRebufferer(this, source.instantiateRebufferer());
+        }
+
         @Override
         public void close()
         {
@@ -294,6 +419,74 @@ public class ChunkCache
         }
     }
 
+    /**
+     * Rebufferer for a sequential scan: chunks are served from the cache when present, and otherwise read from disk
+     * into a buffer of the reader, without being added to the cache. One instance per reader.
+     */
+    class ScanRebufferer implements Rebufferer
+    {
+        private final CachingRebufferer cached;
+        private final Rebufferer uncached;
+
+        ScanRebufferer(CachingRebufferer cached, Rebufferer uncached)
+        {
+            this.cached = cached;
+            this.uncached = uncached;
+        }
+
+        @Override
+        public BufferHolder rebuffer(long position)
+        {
+            cached.markRequest();
+            Buffer buf = cached.cache.getIfPresent(new Key(cached.source, position & cached.alignmentMask));
+            if (buf != null && (buf = buf.reference()) != null)
+                return buf;
+
+            metrics.misses.mark();
+            cached.markTableMiss();
+            try (Timer.Context ctx = metrics.missLatency.time())
+            {
+                return uncached.rebuffer(position);
+            }
+        }
+
+        @Override
+        public void closeReader()
+        {
+            uncached.closeReader();
+        }
+
+        @Override
+        public void close()
+        {
+            // the source is shared with the caching rebufferer, which closes it
+        }
+
+        @Override
+        public ChannelProxy channel()
+        {
+            return cached.channel();
+        }
+
+        @Override
+        public long fileLength()
+        {
+            return cached.fileLength();
+        }
+
+        @Override
+        public double getCrcCheckChance()
+        {
+            return cached.getCrcCheckChance();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "ScanRebufferer:" + cached.source;
+        }
+    }
+
     @Override
     public long capacity()
     {
@@ -309,11 +502,40 @@ public class ChunkCache
     @Override
     public int size()
     {
-        return cache.asMap().size();
+        int size = 0;
+        for (LoadingCache<Key, Buffer> cache : caches())
+            size += cache.asMap().size();
+        return size;
     }
 
     @Override
     public long weightedSize()
+    {
+        long size = 0;
+        for (LoadingCache<Key, Buffer> cache : caches())
+            size += weightedSize(cache);
+        return size;
+    }
+
+    /**
+     * @return the size of the part of the cache the given sstable file belongs to, in bytes.
+     */
+    @VisibleForTesting
+    long weightedSize(String sstableFile)
+    {
+        Descriptor descriptor;
+        try
+        {
+            descriptor = Descriptor.fromFilename(sstableFile);
+        }
+        catch (IllegalArgumentException e)
+        {
+            descriptor = null;
+        }
+        return weightedSize(cacheFor(descriptor));
+    }
+
+    private static long weightedSize(LoadingCache<Key, Buffer> cache)
     {
         return cache.policy().eviction()
                 .map(policy -> policy.weightedSize().orElseGet(cache::estimatedSize))
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.concurrent;
+
+import org.apache.cassandra.dht.Token;
+
+/**
+ * A task operating on a single partition, which a {@link ThreadPerCoreExecutor} runs on the thread owning the token
+ * of that partition unless it may block.
+ */
+public interface CoreAffineTask extends Runnable
+{
+    /**
+     * @return the token of the partition the task operates on, or null if it is not bound to a single partition.
+     */
+    public Token affinityToken();
+
+    /**
+     * @return whether running the task may block, e.g. reading from disk or waiting for the commit log, in which
+     * case it is run by the shared pool rather than by the owning core.
+     */
+    public boolean mayBlock();
+}
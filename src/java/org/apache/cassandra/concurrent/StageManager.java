@@ -23,6 +23,7 @@ import java.util.concurrent.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.config.Config;
 import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.utils.FBUtilities;
 
@@ -44,10 +45,10 @@ public class StageManager
 
     static
     {
-        stages.put(Stage.MUTATION, multiThreadedLowSignalStage(Stage.MUTATION, getConcurrentWriters()));
+        stages.put(Stage.MUTATION, requestStage(Stage.MUTATION, getConcurrentWriters()));
         stages.put(Stage.COUNTER_MUTATION, multiThreadedLowSignalStage(Stage.COUNTER_MUTATION, getConcurrentCounterWriters()));
         stages.put(Stage.VIEW_MUTATION, multiThreadedLowSignalStage(Stage.VIEW_MUTATION, getConcurrentViewWriters()));
-        stages.put(Stage.READ, multiThreadedLowSignalStage(Stage.READ, getConcurrentReaders()));
+        stages.put(Stage.READ, requestStage(Stage.READ, getConcurrentReaders()));
         stages.put(Stage.REQUEST_RESPONSE, multiThreadedLowSignalStage(Stage.REQUEST_RESPONSE, FBUtilities.getAvailableProcessors()));
         stages.put(Stage.INTERNAL_RESPONSE, multiThreadedStage(Stage.INTERNAL_RESPONSE, FBUtilities.getAvailableProcessors()));
         // the rest are all single-threaded
@@ -92,6 +93,19 @@ public class StageManager
         return SharedExecutorPool.SHARED.newExecutor(numThreads, Integer.MAX_VALUE, stage.getJmxType(), stage.getJmxName());
     }
 
+    /**
+     * A stage for local reads and writes, which depending on the {@code stage_execution_model} either runs all its
+     * tasks on the shared pool, or runs the tasks bound to a partition on the thread owning its token.
+     */
+    private static LocalAwareExecutorService requestStage(Stage stage, int numThreads)
+    {
+        LocalAwareExecutorService pool = multiThreadedLowSignalStage(stage, numThreads);
+        if (getStageExecutionModel() != Config.StageExecutionModel.thread_per_core)
+            return pool;
+
+        return new ThreadPerCoreExecutor(stage.getJmxName(), FBUtilities.getAvailableProcessors(), pool);
+    }
+
     /**
      * Retrieve a stage from the StageManager
      * @param stage name of the stage to be retrieved.
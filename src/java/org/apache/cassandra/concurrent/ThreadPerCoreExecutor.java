@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Splitter;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.utils.concurrent.SimpleCondition;
+
+/**
+ * An executor for request stages which splits the token space between a fixed number of "core" threads, each
+ * running the {@link CoreAffineTask}s of its part of the token space to completion, in submission order. Tasks that
+ * may block, or that are not bound to a partition, are handed to the shared pool executor of the stage instead, so
+ * that a core never waits on disk while tasks queue behind it.
+ * <p>
+ * Compared to the shared pool, the data of a partition is always accessed from the same thread, and a task submitted
+ * from the thread owning its partition is run immediately rather than handed over.
+ */
+public class ThreadPerCoreExecutor extends AbstractLocalAwareExecutorService
+{
+    private final Core[] cores;
+    private final LocalAwareExecutorService spillExecutor;
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicInteger runningCores;
+    private final SimpleCondition shutdown = new SimpleCondition();
+    private volatile boolean shuttingDown = false;
+
+    // the maximum token of each core's part of the token space, or empty if the partitioner cannot split it and
+    // tokens are assigned by hash instead; computed lazily, as the partitioner may not be set when stages are created
+    private volatile Token[] boundaries;
+
+    public ThreadPerCoreExecutor(String name, int coreCount, LocalAwareExecutorService spillExecutor)
+    {
+        assert coreCount > 0;
+        this.spillExecutor = spillExecutor;
+        NamedThreadFactory threadFactory = new NamedThreadFactory(name + "Core");
+        runningCores = new AtomicInteger(coreCount);
+        cores = new Core[coreCount];
+        for (int i = 0; i < coreCount; i++)
+            cores[i] = new Core(threadFactory);
+    }
+
+    protected void addTask(FutureTask<?> task)
+    {
+        spillExecutor.execute(task, null);
+    }
+
+    protected void onCompletion()
+    {
+        completedTasks.incrementAndGet();
+    }
+
+    @Override
+    public void execute(Runnable command)
+    {
+        execute(command, ExecutorLocals.create());
+    }
+
+    @Override
+    public void execute(Runnable command, ExecutorLocals locals)
+    {
+        Core core = coreFor(command);
+        if (core == null)
+            spillExecutor.execute(command, locals);
+        else
+            core.add(newTaskFor(command, null, locals));
+    }
+
+    public void maybeExecuteImmediately(Runnable command)
+    {
+        Core core = coreFor(command);
+        if (core == null)
+            spillExecutor.maybeExecuteImmediately(command);
+        else if (Thread.currentThread() == core.thread)
+            command.run();
+        else
+            core.add(newTaskFor(command, null, ExecutorLocals.create()));
+    }
+
+    private Core coreFor(Runnable command)
+    {
+        if (shuttingDown || !(command instanceof CoreAffineTask))
+            return null;
+
+        CoreAffineTask task = (CoreAffineTask) command;
+        Token token = task.affinityToken();
+        if (token == null || task.mayBlock())
+            return null;
+
+        return cores[coreIndex(token)];
+    }
+
+    @VisibleForTesting
+    int coreIndex(Token token)
+    {
+        Token[] boundaries = this.boundaries;
+        if (boundaries == null)
+            this.boundaries = boundaries = computeBoundaries(token.getPartitioner(), cores.length);
+
+        if (boundaries.length == 0)
+            return Math.floorMod(token.hashCode(), cores.length);
+
+        int low = 0, high = boundaries.length - 1;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (boundaries[mid].compareTo(token) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private static Token[] computeBoundaries(IPartitioner partitioner, int coreCount)
+    {
+        if (!partitioner.splitter().isPresent())
+            return new Token[0];
+
+        Splitter splitter = partitioner.splitter().get();
+        Token min = partitioner.getMinimumToken();
+        List<Token> boundaries = splitter.splitOwnedRanges(coreCount, Collections.singletonList(new Range<>(min, min)), false);
+        return boundaries.toArray(new Token[0]);
+    }
+
+    public synchronized void shutdown()
+    {
+        if (shuttingDown)
+            return;
+
+        shuttingDown = true;
+        wakeCores();
+        spillExecutor.shutdown();
+    }
+
+    public synchronized List<Runnable> shutdownNow()
+    {
+        shuttingDown = true;
+        List<Runnable> aborted = new ArrayList<>();
+        for (Core core : cores)
+            core.tasks.drainTo(aborted);
+        wakeCores();
+        aborted.addAll(spillExecutor.shutdownNow());
+        return aborted;
+    }
+
+    // cores only notice the shutdown once their queue is empty, so make sure none stays blocked on an empty one
+    private void wakeCores()
+    {
+        for (Core core : cores)
+            core.add(newTaskFor(() -> {}, null, null));
+    }
+
+    public boolean isShutdown()
+    {
+        return shuttingDown;
+    }
+
+    public boolean isTerminated()
+    {
+        return shuttingDown && shutdown.isSignaled() && spillExecutor.isTerminated();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long start = System.nanoTime();
+        shutdown.await(timeout, unit);
+        return spillExecutor.awaitTermination(Math.max(0, unit.toNanos(timeout) - (System.nanoTime() - start)), TimeUnit.NANOSECONDS)
+               && isTerminated();
+    }
+
+    /**
+     * @return the number of tasks queued on the cores, not counting the tasks handed to the shared pool.
+     */
+    public long getPendingTasks()
+    {
+        long pending = 0;
+        for (Core core : cores)
+            pending += core.tasks.size();
+        return pending;
+    }
+
+    /**
+     * @return the number of tasks run by the cores, not counting the tasks handed to the shared pool.
+     */
+    public long getCompletedTasks()
+    {
+        return completedTasks.get();
+    }
+
+    private class Core implements Runnable
+    {
+        private final LinkedBlockingQueue<FutureTask<?>> tasks = new LinkedBlockingQueue<>();
+        private final Thread thread;
+
+        Core(NamedThreadFactory threadFactory)
+        {
+            thread = threadFactory.newThread(this);
+            thread.start();
+        }
+
+        void add(FutureTask<?> task)
+        {
+            tasks.add(task);
+        }
+
+        public void run()
+        {
+            try
+            {
+                while (!shuttingDown || !tasks.isEmpty())
+                {
+                    FutureTask<?> task;
+                    try
+                    {
+                        task = tasks.take();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        continue;
+                    }
+                    task.run();
+                }
+            }
+            finally
+            {
+                if (runningCores.decrementAndGet() == 0)
+                    shutdown.signalAll();
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.cassandra.config;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -99,6 +100,7 @@ public class Config
 
     public Integer streaming_connections_per_host = 1;
     public Integer streaming_keep_alive_period_in_secs = 300; //5 minutes
+    public boolean stream_entire_sstables = true;
 
     public boolean cross_node_timeout = false;
 
@@ -111,6 +113,10 @@ public class Config
     public int concurrent_counter_writes = 32;
     public int concurrent_materialized_view_writes = 32;
 
+    public ReadExecutionMode read_execution_mode = ReadExecutionMode.sync;
+    public int concurrent_read_prefetches = 32;
+    public StageExecutionModel stage_execution_model = StageExecutionModel.shared_pool;
+
     @Deprecated
     public Integer concurrent_replicates = null;
 
@@ -143,6 +149,8 @@ public class Config
     public int native_transport_max_frame_size_in_mb = 256;
     public volatile long native_transport_max_concurrent_connections = -1L;
     public volatile long native_transport_max_concurrent_connections_per_ip = -1L;
+    public volatile int native_transport_max_concurrent_requests_per_connection = 2048;
+    public volatile long native_transport_max_concurrent_requests_in_bytes_per_connection = -1L;
 
     /**
      * Max size of values in SSTables, in MegaBytes.
@@ -160,8 +168,17 @@ public class Config
     public volatile int batch_size_warn_threshold_in_kb = 5;
     public volatile int batch_size_fail_threshold_in_kb = 50;
     public Integer unlogged_batch_across_partitions_warn_threshold = 10;
+    public volatile int max_page_size_in_kb = 0;
     public volatile Integer concurrent_compactors;
+    public volatile int concurrent_compaction_subranges = 1;
+    public volatile int min_compaction_subrange_size_in_mb = 1024;
     public volatile int compaction_throughput_mb_per_sec = 16;
+    public volatile boolean adaptive_compaction_throughput = false;
+    public volatile int min_compaction_throughput_mb_per_sec = 8;
+    public volatile int max_compaction_throughput_mb_per_sec = 256;
+    public volatile int adaptive_compaction_read_latency_target_ms = 50;
+    public volatile int adaptive_compaction_write_latency_target_ms = 20;
+    public volatile int tombstone_compaction_budget_in_mb = 0;
     public volatile int compaction_large_partition_warning_threshold_mb = 100;
     public int min_free_space_per_drive_in_mb = 50;
 
@@ -185,6 +202,7 @@ public class Config
     public Integer commitlog_total_space_in_mb;
     public CommitLogSync commitlog_sync;
     public double commitlog_sync_batch_window_in_ms = Double.NaN;
+    public double commitlog_sync_group_window_in_ms = Double.NaN;
     public int commitlog_sync_period_in_ms;
     public int commitlog_segment_size_in_mb = 32;
     public ParameterizedClass commitlog_compression;
@@ -214,10 +232,14 @@ public class Config
     public EncryptionOptions.ServerEncryptionOptions encryption_options;
 
     public InternodeCompression internode_compression = InternodeCompression.none;
+    public InternodeCompressor internode_compressor = InternodeCompressor.lz4;
+    public int internode_compression_dictionary_size_in_kb = 16;
 
     public int hinted_handoff_throttle_in_kb = 1024;
     public int batchlog_replay_throttle_in_kb = 1024;
     public int max_hints_delivery_threads = 2;
+    public int hints_dispatch_batch_size = 32;
+    public int max_hints_dispatch_pages_in_flight = 4;
     public int hints_flush_period_in_ms = 10000;
     public int max_hints_file_size_in_mb = 128;
     public ParameterizedClass hints_compression;
@@ -255,6 +277,12 @@ public class Config
      */
     public Boolean file_cache_round_up;
 
+    /**
+     * Parts of the file cache reserved to the sstables of a keyspace ("keyspace") or of a table ("keyspace.table"),
+     * which the sstables of other tables cannot evict. The rest of the file cache is shared by all other tables.
+     */
+    public Map<String, Integer> file_cache_quotas_in_mb = new HashMap<>();
+
     public boolean buffer_pool_use_heap_if_exhausted = true;
 
     public DiskOptimizationStrategy disk_optimization_strategy = DiskOptimizationStrategy.ssd;
@@ -263,6 +291,11 @@ public class Config
 
     public double disk_optimization_page_cross_chance = 0.1;
 
+    /**
+     * The format new sstables are written in: "big", or "trie" to index partitions with an on-disk trie.
+     */
+    public String sstable_format = "big";
+
     public boolean inter_dc_tcp_nodelay = true;
 
     public MemtableAllocationType memtable_allocation_type = MemtableAllocationType.heap_buffers;
@@ -288,7 +321,7 @@ public class Config
 
     /*
      * Strategy to use for coalescing messages in {@link OutboundMessagingPool}.
-     * Can be fixed, movingaverage, timehorizon, disabled. Setting is case and leading/trailing
+     * Can be fixed, movingaverage, timehorizon, adaptive, disabled. Setting is case and leading/trailing
      * whitespace insensitive. You can also specify a subclass of
      * {@link org.apache.cassandra.utils.CoalescingStrategies.CoalescingStrategy} by name.
      */
@@ -298,7 +331,8 @@ public class Config
      * How many microseconds to wait for coalescing. For fixed strategy this is the amount of time after the first
      * message is received before it will be sent with any accompanying messages. For moving average this is the
      * maximum amount of time that will be waited as well as the interval at which messages must arrive on average
-     * for coalescing to be enabled.
+     * for coalescing to be enabled. For adaptive this is the maximum amount of time that will be waited as well as the
+     * 99th percentile message latency the window is sized to stay within.
      */
     public static final int otc_coalescing_window_us_default = 200;
     public int otc_coalescing_window_us = otc_coalescing_window_us_default;
@@ -384,13 +418,19 @@ public class Config
     public enum CommitLogSync
     {
         periodic,
-        batch
+        batch,
+        group
     }
     public enum InternodeCompression
     {
         all, none, dc
     }
 
+    public enum InternodeCompressor
+    {
+        lz4, deflate
+    }
+
     public enum DiskAccessMode
     {
         auto,
@@ -443,6 +483,18 @@ public class Config
         reject
     }
 
+    public enum ReadExecutionMode
+    {
+        sync,
+        async
+    }
+
+    public enum StageExecutionModel
+    {
+        shared_pool,
+        thread_per_core
+    }
+
     private static final List<String> SENSITIVE_KEYS = new ArrayList<String>() {{
         add("client_encryption_options");
         add("server_encryption_options");
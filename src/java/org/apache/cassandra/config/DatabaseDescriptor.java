@@ -42,11 +42,13 @@ import org.apache.cassandra.auth.IAuthenticator;
 import org.apache.cassandra.auth.IAuthorizer;
 import org.apache.cassandra.auth.IInternodeAuthenticator;
 import org.apache.cassandra.auth.IRoleManager;
+import org.apache.cassandra.cache.ChunkCache;
 import org.apache.cassandra.config.Config.CommitLogSync;
 import org.apache.cassandra.db.ConsistencyLevel;
 import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.sstable.format.SSTableFormat;
 import org.apache.cassandra.io.util.DiskOptimizationStrategy;
 import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.io.util.SpinningDiskOptimizationStrategy;
@@ -115,6 +117,7 @@ public class DatabaseDescriptor
 
     private static BackPressureStrategy backPressureStrategy;
     private static DiskOptimizationStrategy diskOptimizationStrategy;
+    private static SSTableFormat.Type sstableFormat = SSTableFormat.Type.BIG;
 
     private static boolean clientInitialized;
     private static boolean toolInitialized;
@@ -341,6 +344,22 @@ public class DatabaseDescriptor
             }
             logger.debug("Syncing log with a batch window of {}", conf.commitlog_sync_batch_window_in_ms);
         }
+        else if (conf.commitlog_sync == Config.CommitLogSync.group)
+        {
+            if (Double.isNaN(conf.commitlog_sync_group_window_in_ms) || conf.commitlog_sync_group_window_in_ms <= 0d)
+            {
+                throw new ConfigurationException("Missing value for commitlog_sync_group_window_in_ms: positive double value expected.", false);
+            }
+            else if (conf.commitlog_sync_period_in_ms != 0)
+            {
+                throw new ConfigurationException("Group sync specified, but commitlog_sync_period_in_ms found. Only specify commitlog_sync_group_window_in_ms when using group sync", false);
+            }
+            else if (!Double.isNaN(conf.commitlog_sync_batch_window_in_ms))
+            {
+                throw new ConfigurationException("Group sync specified, but commitlog_sync_batch_window_in_ms found. Only specify commitlog_sync_group_window_in_ms when using group sync", false);
+            }
+            logger.debug("Syncing log with a group window of at most {}", conf.commitlog_sync_group_window_in_ms);
+        }
         else
         {
             if (conf.commitlog_sync_period_in_ms <= 0)
@@ -351,6 +370,10 @@ public class DatabaseDescriptor
             {
                 throw new ConfigurationException("commitlog_sync_period_in_ms specified, but commitlog_sync_batch_window_in_ms found.  Only specify commitlog_sync_period_in_ms when using periodic sync.", false);
             }
+            else if (!Double.isNaN(conf.commitlog_sync_group_window_in_ms))
+            {
+                throw new ConfigurationException("commitlog_sync_period_in_ms specified, but commitlog_sync_group_window_in_ms found.  Only specify commitlog_sync_period_in_ms when using periodic sync.", false);
+            }
             logger.debug("Syncing log with a period of {}", conf.commitlog_sync_period_in_ms);
         }
 
@@ -398,12 +421,28 @@ public class DatabaseDescriptor
         if (conf.concurrent_counter_writes < 2)
             throw new ConfigurationException("concurrent_counter_writes must be at least 2, but was " + conf.concurrent_counter_writes, false);
 
+        if (conf.concurrent_read_prefetches < 1)
+            throw new ConfigurationException("concurrent_read_prefetches must be at least 1, but was " + conf.concurrent_read_prefetches, false);
+
         if (conf.concurrent_replicates != null)
             logger.warn("concurrent_replicates has been deprecated and should be removed from cassandra.yaml");
 
         if (conf.file_cache_size_in_mb == null)
             conf.file_cache_size_in_mb = Math.min(512, (int) (Runtime.getRuntime().maxMemory() / (4 * 1048576)));
 
+        if (conf.file_cache_quotas_in_mb == null)
+            conf.file_cache_quotas_in_mb = new HashMap<>();
+        long fileCacheQuotas = 0;
+        for (Map.Entry<String, Integer> quota : conf.file_cache_quotas_in_mb.entrySet())
+        {
+            if (quota.getValue() == null || quota.getValue() <= 0)
+                throw new ConfigurationException("file_cache_quotas_in_mb must be positive, but was " + quota.getValue() + " for " + quota.getKey(), false);
+            fileCacheQuotas += quota.getValue();
+        }
+        if (fileCacheQuotas > 0 && fileCacheQuotas > conf.file_cache_size_in_mb - ChunkCache.RESERVED_POOL_SPACE_IN_MB)
+            throw new ConfigurationException(String.format("file_cache_quotas_in_mb add up to %d MB, which is more than the %d MB of file_cache_size_in_mb available to the chunk cache",
+                                                           fileCacheQuotas, conf.file_cache_size_in_mb - ChunkCache.RESERVED_POOL_SPACE_IN_MB), false);
+
         // round down for SSDs and round up for spinning disks
         if (conf.file_cache_round_up == null)
             conf.file_cache_round_up = conf.disk_optimization_strategy == Config.DiskOptimizationStrategy.spinning;
@@ -431,6 +470,9 @@ public class DatabaseDescriptor
             throw new ConfigurationException("native_transport_max_frame_size_in_mb must be smaller than 2048, but was "
                     + conf.native_transport_max_frame_size_in_mb, false);
 
+        if (conf.native_transport_max_concurrent_requests_in_bytes_per_connection <= 0)
+            conf.native_transport_max_concurrent_requests_in_bytes_per_connection = Runtime.getRuntime().maxMemory() / 40;
+
         // if data dirs, commitlog dir, or saved caches dir are set in cassandra.yaml, use that.  Otherwise,
         // use -Dcassandra.storagedir (set in cassandra-env.sh) as the parent dir for data/, commitlog/, and saved_caches/
         if (conf.commitlog_directory == null)
@@ -555,6 +597,15 @@ public class DatabaseDescriptor
         if (conf.hints_directory.equals(conf.saved_caches_directory))
             throw new ConfigurationException("saved_caches_directory must not be the same as the hints_directory", false);
 
+        if (conf.hints_dispatch_batch_size < 1)
+            throw new ConfigurationException("hints_dispatch_batch_size must be at least 1, but was " + conf.hints_dispatch_batch_size, false);
+
+        if (conf.max_hints_dispatch_pages_in_flight < 1)
+            throw new ConfigurationException("max_hints_dispatch_pages_in_flight must be at least 1, but was " + conf.max_hints_dispatch_pages_in_flight, false);
+
+        if (conf.internode_compression_dictionary_size_in_kb < 0 || conf.internode_compression_dictionary_size_in_kb > 32)
+            throw new ConfigurationException("internode_compression_dictionary_size_in_kb must be between 0 and 32, but was " + conf.internode_compression_dictionary_size_in_kb, false);
+
         if (conf.memtable_flush_writers == 0)
         {
             conf.memtable_flush_writers = conf.data_file_directories.length == 1 ? 2 : 1;
@@ -588,6 +639,22 @@ public class DatabaseDescriptor
         if (conf.concurrent_compactors <= 0)
             throw new ConfigurationException("concurrent_compactors should be strictly greater than 0, but was " + conf.concurrent_compactors, false);
 
+        if (conf.min_compaction_throughput_mb_per_sec <= 0)
+            throw new ConfigurationException("min_compaction_throughput_mb_per_sec should be strictly greater than 0, but was " + conf.min_compaction_throughput_mb_per_sec, false);
+
+        if (conf.max_compaction_throughput_mb_per_sec < conf.min_compaction_throughput_mb_per_sec)
+            throw new ConfigurationException(String.format("max_compaction_throughput_mb_per_sec (%d) should not be lower than min_compaction_throughput_mb_per_sec (%d)",
+                                                           conf.max_compaction_throughput_mb_per_sec, conf.min_compaction_throughput_mb_per_sec), false);
+
+        if (conf.tombstone_compaction_budget_in_mb < 0)
+            throw new ConfigurationException("tombstone_compaction_budget_in_mb should not be negative, but was " + conf.tombstone_compaction_budget_in_mb, false);
+
+        if (conf.concurrent_compaction_subranges <= 0)
+            throw new ConfigurationException("concurrent_compaction_subranges should be strictly greater than 0, but was " + conf.concurrent_compaction_subranges, false);
+
+        if (conf.min_compaction_subrange_size_in_mb < 0)
+            throw new ConfigurationException("min_compaction_subrange_size_in_mb must be non-negative, but was " + conf.min_compaction_subrange_size_in_mb, false);
+
         if (conf.num_tokens > MAX_NUM_TOKENS)
             throw new ConfigurationException(String.format("A maximum number of %d tokens per node is supported", MAX_NUM_TOKENS), false);
 
@@ -689,6 +756,10 @@ public class DatabaseDescriptor
             throw new ConfigurationException("max_value_size_in_mb must be smaller than 2048, but was "
                     + conf.max_value_size_in_mb, false);
 
+        if (conf.max_page_size_in_kb < 0 || conf.max_page_size_in_kb > Integer.MAX_VALUE / 1024)
+            throw new ConfigurationException("max_page_size_in_kb must be between 0 and " + Integer.MAX_VALUE / 1024 + ", but was "
+                    + conf.max_page_size_in_kb, false);
+
         switch (conf.disk_optimization_strategy)
         {
             case ssd:
@@ -699,6 +770,15 @@ public class DatabaseDescriptor
                 break;
         }
 
+        try
+        {
+            sstableFormat = SSTableFormat.Type.validate(conf.sstable_format);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new ConfigurationException("Unknown sstable_format " + conf.sstable_format, false);
+        }
+
         try
         {
             ParameterizedClass strategy = conf.back_pressure_strategy != null ? conf.back_pressure_strategy : RateBasedBackPressure.withDefaultParams();
@@ -1282,6 +1362,26 @@ public class DatabaseDescriptor
         conf.batch_size_fail_threshold_in_kb = threshold;
     }
 
+    /**
+     * @return the maximum size of the row data of a page of query results, or 0 if pages are only limited in rows.
+     */
+    public static int getMaxPageSizeInBytes()
+    {
+        return conf.max_page_size_in_kb * 1024;
+    }
+
+    public static int getMaxPageSizeInKB()
+    {
+        return conf.max_page_size_in_kb;
+    }
+
+    public static void setMaxPageSizeInKB(int maxPageSizeInKB)
+    {
+        if (maxPageSizeInKB < 0 || maxPageSizeInKB > Integer.MAX_VALUE / 1024)
+            throw new IllegalArgumentException("max_page_size_in_kb must be between 0 and " + Integer.MAX_VALUE / 1024);
+        conf.max_page_size_in_kb = maxPageSizeInKB;
+    }
+
     public static Collection<String> getInitialTokens()
     {
         return tokensFromString(System.getProperty(Config.PROPERTY_PREFIX + "initial_token", conf.initial_token));
@@ -1476,6 +1576,27 @@ public class DatabaseDescriptor
         return conf.concurrent_materialized_view_writes;
     }
 
+    public static Config.ReadExecutionMode getReadExecutionMode()
+    {
+        return conf.read_execution_mode;
+    }
+
+    @VisibleForTesting
+    public static void setReadExecutionMode(Config.ReadExecutionMode mode)
+    {
+        conf.read_execution_mode = mode;
+    }
+
+    public static int getConcurrentReadPrefetches()
+    {
+        return conf.concurrent_read_prefetches;
+    }
+
+    public static Config.StageExecutionModel getStageExecutionModel()
+    {
+        return conf.stage_execution_model;
+    }
+
     public static int getFlushWriters()
     {
             return conf.memtable_flush_writers;
@@ -1491,6 +1612,26 @@ public class DatabaseDescriptor
         conf.concurrent_compactors = value;
     }
 
+    public static int getConcurrentCompactionSubRanges()
+    {
+        return conf.concurrent_compaction_subranges;
+    }
+
+    public static void setConcurrentCompactionSubRanges(int value)
+    {
+        conf.concurrent_compaction_subranges = value;
+    }
+
+    public static long getMinCompactionSubRangeSize()
+    {
+        return conf.min_compaction_subrange_size_in_mb * 1024L * 1024L;
+    }
+
+    public static void setMinCompactionSubRangeSizeInMB(int value)
+    {
+        conf.min_compaction_subrange_size_in_mb = value;
+    }
+
     public static int getCompactionThroughputMbPerSec()
     {
         return conf.compaction_throughput_mb_per_sec;
@@ -1501,6 +1642,46 @@ public class DatabaseDescriptor
         conf.compaction_throughput_mb_per_sec = value;
     }
 
+    public static boolean getAdaptiveCompactionThroughput()
+    {
+        return conf.adaptive_compaction_throughput;
+    }
+
+    public static void setAdaptiveCompactionThroughput(boolean enabled)
+    {
+        conf.adaptive_compaction_throughput = enabled;
+    }
+
+    public static int getMinCompactionThroughputMbPerSec()
+    {
+        return conf.min_compaction_throughput_mb_per_sec;
+    }
+
+    public static int getMaxCompactionThroughputMbPerSec()
+    {
+        return conf.max_compaction_throughput_mb_per_sec;
+    }
+
+    public static int getAdaptiveCompactionReadLatencyTargetMs()
+    {
+        return conf.adaptive_compaction_read_latency_target_ms;
+    }
+
+    public static int getAdaptiveCompactionWriteLatencyTargetMs()
+    {
+        return conf.adaptive_compaction_write_latency_target_ms;
+    }
+
+    public static long getTombstoneCompactionBudget()
+    {
+        return conf.tombstone_compaction_budget_in_mb * 1024L * 1024L;
+    }
+
+    public static void setTombstoneCompactionBudgetInMB(int value)
+    {
+        conf.tombstone_compaction_budget_in_mb = value;
+    }
+
     public static long getCompactionLargePartitionWarningThreshold() { return conf.compaction_large_partition_warning_threshold_mb * 1024L * 1024L; }
 
     public static int getConcurrentValidations()
@@ -1759,6 +1940,26 @@ public class DatabaseDescriptor
         conf.native_transport_max_concurrent_connections_per_ip = native_transport_max_concurrent_connections_per_ip;
     }
 
+    public static int getNativeTransportMaxConcurrentRequestsPerConnection()
+    {
+        return conf.native_transport_max_concurrent_requests_per_connection;
+    }
+
+    public static void setNativeTransportMaxConcurrentRequestsPerConnection(int maxConcurrentRequests)
+    {
+        conf.native_transport_max_concurrent_requests_per_connection = maxConcurrentRequests;
+    }
+
+    public static long getNativeTransportMaxConcurrentRequestsInBytesPerConnection()
+    {
+        return conf.native_transport_max_concurrent_requests_in_bytes_per_connection;
+    }
+
+    public static void setNativeTransportMaxConcurrentRequestsInBytesPerConnection(long maxConcurrentBytes)
+    {
+        conf.native_transport_max_concurrent_requests_in_bytes_per_connection = maxConcurrentBytes;
+    }
+
     public static double getCommitLogSyncBatchWindow()
     {
         return conf.commitlog_sync_batch_window_in_ms;
@@ -1769,6 +1970,16 @@ public class DatabaseDescriptor
         conf.commitlog_sync_batch_window_in_ms = windowMillis;
     }
 
+    public static double getCommitLogSyncGroupWindow()
+    {
+        return conf.commitlog_sync_group_window_in_ms;
+    }
+
+    public static void setCommitLogSyncGroupWindow(double windowMillis)
+    {
+        conf.commitlog_sync_group_window_in_ms = windowMillis;
+    }
+
     public static int getCommitLogSyncPeriod()
     {
         return conf.commitlog_sync_period_in_ms;
@@ -1969,6 +2180,26 @@ public class DatabaseDescriptor
         return conf.max_hints_delivery_threads;
     }
 
+    public static int getHintsDispatchBatchSize()
+    {
+        return conf.hints_dispatch_batch_size;
+    }
+
+    public static void setHintsDispatchBatchSize(int batchSize)
+    {
+        conf.hints_dispatch_batch_size = batchSize;
+    }
+
+    public static int getMaxHintsDispatchPagesInFlight()
+    {
+        return conf.max_hints_dispatch_pages_in_flight;
+    }
+
+    public static void setMaxHintsDispatchPagesInFlight(int pages)
+    {
+        conf.max_hints_dispatch_pages_in_flight = pages;
+    }
+
     public static int getHintsFlushPeriodInMS()
     {
         return conf.hints_flush_period_in_ms;
@@ -2011,6 +2242,11 @@ public class DatabaseDescriptor
         return conf.file_cache_size_in_mb;
     }
 
+    public static Map<String, Integer> getFileCacheQuotasInMB()
+    {
+        return conf.file_cache_quotas_in_mb == null ? Collections.emptyMap() : conf.file_cache_quotas_in_mb;
+    }
+
     public static boolean getFileCacheRoundUp()
     {
         if (conf.file_cache_round_up == null)
@@ -2033,6 +2269,17 @@ public class DatabaseDescriptor
         return diskOptimizationStrategy;
     }
 
+    public static SSTableFormat.Type getSSTableFormat()
+    {
+        return sstableFormat;
+    }
+
+    @VisibleForTesting
+    public static void setSSTableFormat(SSTableFormat.Type format)
+    {
+        sstableFormat = format;
+    }
+
     public static double getDiskOptimizationEstimatePercentile()
     {
         return conf.disk_optimization_estimate_percentile;
@@ -2163,6 +2410,17 @@ public class DatabaseDescriptor
         return conf.streaming_connections_per_host;
     }
 
+    public static boolean streamEntireSSTables()
+    {
+        return conf.stream_entire_sstables;
+    }
+
+    @VisibleForTesting
+    public static void setStreamEntireSSTables(boolean value)
+    {
+        conf.stream_entire_sstables = value;
+    }
+
     public static String getLocalDataCenter()
     {
         return localDC;
@@ -2183,6 +2441,26 @@ public class DatabaseDescriptor
         conf.internode_compression = compression;
     }
 
+    public static Config.InternodeCompressor getInternodeCompressor()
+    {
+        return conf.internode_compressor;
+    }
+
+    public static void setInternodeCompressor(Config.InternodeCompressor compressor)
+    {
+        conf.internode_compressor = compressor;
+    }
+
+    public static int getInternodeCompressionDictionarySize()
+    {
+        return conf.internode_compression_dictionary_size_in_kb * 1024;
+    }
+
+    public static void setInternodeCompressionDictionarySizeInKB(int sizeInKB)
+    {
+        conf.internode_compression_dictionary_size_in_kb = sizeInKB;
+    }
+
     public static boolean getInterDCTcpNoDelay()
     {
         return conf.inter_dc_tcp_nodelay;
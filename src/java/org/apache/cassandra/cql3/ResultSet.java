@@ -20,6 +20,7 @@ package org.apache.cassandra.cql3;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -29,6 +30,7 @@ import java.util.List;
 import java.util.Objects;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.apache.cassandra.cql3.statements.ParsedStatement;
 import org.apache.cassandra.cql3.statements.SelectStatement;
 import org.apache.cassandra.db.marshal.AbstractType;
@@ -58,6 +60,18 @@ public class ResultSet
         this.rows = rows;
     }
 
+    /**
+     * @param encodeRows whether to keep the rows in their native protocol encoding (see {@link EncodedRows}), which is
+     * only done if all the values of the rows are sent to clients.
+     */
+    public static ResultSet create(ResultMetadata resultMetadata, boolean encodeRows)
+    {
+        List<List<ByteBuffer>> rows = encodeRows && resultMetadata.columnCount == resultMetadata.valueCount()
+                                    ? new EncodedRows(resultMetadata.columnCount)
+                                    : new ArrayList<>();
+        return new ResultSet(resultMetadata, rows);
+    }
+
     public int size()
     {
         return rows.size();
@@ -164,6 +178,12 @@ public class ResultSet
         {
             ResultMetadata.codec.encode(rs.metadata, dest, version);
             dest.writeInt(rs.rows.size());
+            if (isEncoded(rs))
+            {
+                ((EncodedRows) rs.rows).writeTo(dest);
+                return;
+            }
+
             for (List<ByteBuffer> row : rs.rows)
             {
                 // Note that we do only want to serialize only the first columnCount values, even if the row
@@ -176,6 +196,9 @@ public class ResultSet
         public int encodedSize(ResultSet rs, ProtocolVersion version)
         {
             int size = ResultMetadata.codec.encodedSize(rs.metadata, version) + 4;
+            if (isEncoded(rs))
+                return size + ((EncodedRows) rs.rows).encodedSize();
+
             for (List<ByteBuffer> row : rs.rows)
             {
                 for (int i = 0; i < rs.metadata.columnCount; i++)
@@ -185,6 +208,87 @@ public class ResultSet
         }
     }
 
+    private static boolean isEncoded(ResultSet rs)
+    {
+        return rs.rows instanceof EncodedRows && ((EncodedRows) rs.rows).columnCount == rs.metadata.columnCount;
+    }
+
+    /**
+     * Rows kept in their native protocol encoding as they are added, rather than as lists of values.
+     * <p>
+     * This avoids keeping a list and a buffer per row and per value, and the buffers the values were read from, until
+     * a response is sent, and makes encoding the response a copy of the encoded rows. Rows are decoded back when
+     * accessed, so this is only meant for results that are sent to a client as they are: rows can only be added, or
+     * removed from the end.
+     */
+    public static final class EncodedRows extends AbstractList<List<ByteBuffer>>
+    {
+        private final int columnCount;
+        private final ByteBuf encoded = Unpooled.buffer();
+        // the offset of each row in encoded
+        private int[] offsets = new int[16];
+        private int size;
+
+        public EncodedRows(int columnCount)
+        {
+            this.columnCount = columnCount;
+        }
+
+        @Override
+        public boolean add(List<ByteBuffer> row)
+        {
+            assert row.size() == columnCount;
+            if (size == offsets.length)
+                offsets = Arrays.copyOf(offsets, size * 2);
+            offsets[size++] = encoded.writerIndex();
+            for (ByteBuffer value : row)
+                CBUtil.writeValue(value, encoded);
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public List<ByteBuffer> get(int index)
+        {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+            ByteBuf in = encoded.duplicate().readerIndex(offsets[index]);
+            List<ByteBuffer> row = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++)
+                row.add(CBUtil.readValue(in));
+            return row;
+        }
+
+        @Override
+        public List<ByteBuffer> remove(int index)
+        {
+            if (index != size - 1)
+                throw new UnsupportedOperationException("Only the last row can be removed");
+
+            List<ByteBuffer> row = get(index);
+            encoded.writerIndex(offsets[--size]);
+            modCount++;
+            return row;
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        int encodedSize()
+        {
+            return encoded.readableBytes();
+        }
+
+        void writeTo(ByteBuf dest)
+        {
+            dest.writeBytes(encoded, encoded.readerIndex(), encoded.readableBytes());
+        }
+    }
+
     /**
      * The metadata for the results of executing a query or prepared statement.
      */
@@ -66,7 +66,16 @@ public final class ResultSetBuilder
 
     public ResultSetBuilder(ResultMetadata metadata, Selectors selectors, GroupMaker groupMaker)
     {
-        this.resultSet = new ResultSet(metadata.copy(), new ArrayList<List<ByteBuffer>>());
+        this(metadata, selectors, groupMaker, false);
+    }
+
+    /**
+     * @param encodeRows whether to keep the rows in their native protocol encoding as they are built, rather than as
+     * lists of values (see {@link ResultSet.EncodedRows}).
+     */
+    public ResultSetBuilder(ResultMetadata metadata, Selectors selectors, GroupMaker groupMaker, boolean encodeRows)
+    {
+        this.resultSet = ResultSet.create(metadata.copy(), encodeRows);
         this.selectors = selectors;
         this.groupMaker = groupMaker;
         this.timestamps = selectors.collectTimestamps() ? new long[selectors.numberOfFetchedColumns()] : null;
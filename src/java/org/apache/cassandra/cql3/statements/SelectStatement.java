@@ -241,6 +241,7 @@ public class SelectStatement implements CQLStatement
                        pageSize,
                        nowInSec,
                        userLimit,
+                       true,
                        queryStartNanoTime);
     }
 
@@ -281,7 +282,7 @@ public class SelectStatement implements CQLStatement
     {
         try (PartitionIterator data = query.execute(options.getConsistency(), state.getClientState(), queryStartNanoTime))
         {
-            return processResults(data, options, selectors, nowInSec, userLimit);
+            return processResults(data, options, selectors, nowInSec, userLimit, true);
         }
     }
 
@@ -358,6 +359,7 @@ public class SelectStatement implements CQLStatement
                                        int pageSize,
                                        int nowInSec,
                                        int userLimit,
+                                       boolean encodeRows,
                                        long queryStartNanoTime) throws RequestValidationException, RequestExecutionException
     {
         if (aggregationSpec != null)
@@ -381,7 +383,7 @@ public class SelectStatement implements CQLStatement
         ResultMessage.Rows msg;
         try (PartitionIterator page = pager.fetchPage(pageSize, queryStartNanoTime))
         {
-            msg = processResults(page, options, selectors, nowInSec, userLimit);
+            msg = processResults(page, options, selectors, nowInSec, userLimit, encodeRows);
         }
 
         // Please note that the isExhausted state of the pager only gets updated when we've closed the page, so this
@@ -398,13 +400,18 @@ public class SelectStatement implements CQLStatement
         ClientWarn.instance.warn(msg);
     }
 
+    /**
+     * @param encodeRows whether the rows are going to be sent to a client, and should thus be kept in their native
+     * protocol encoding (see {@link ResultSet.EncodedRows}).
+     */
     private ResultMessage.Rows processResults(PartitionIterator partitions,
                                               QueryOptions options,
                                               Selectors selectors,
                                               int nowInSec,
-                                              int userLimit) throws RequestValidationException
+                                              int userLimit,
+                                              boolean encodeRows) throws RequestValidationException
     {
-        ResultSet rset = process(partitions, options, selectors, nowInSec, userLimit);
+        ResultSet rset = process(partitions, options, selectors, nowInSec, userLimit, encodeRows);
         return new ResultMessage.Rows(rset);
     }
 
@@ -428,7 +435,7 @@ public class SelectStatement implements CQLStatement
             {
                 try (PartitionIterator data = query.executeInternal(executionController))
                 {
-                    return processResults(data, options, selectors, nowInSec, userLimit);
+                    return processResults(data, options, selectors, nowInSec, userLimit, false);
                 }
             }
 
@@ -440,6 +447,7 @@ public class SelectStatement implements CQLStatement
                            pageSize,
                            nowInSec,
                            userLimit,
+                           false,
                            queryStartNanoTime);
         }
     }
@@ -458,7 +466,7 @@ public class SelectStatement implements CQLStatement
     {
         QueryOptions options = QueryOptions.DEFAULT;
         Selectors selectors = selection.newSelectors(options);
-        return process(partitions, options, selectors, nowInSec, getLimit(options));
+        return process(partitions, options, selectors, nowInSec, getLimit(options), false);
     }
 
     public String keyspace()
@@ -755,10 +763,12 @@ public class SelectStatement implements CQLStatement
                               QueryOptions options,
                               Selectors selectors,
                               int nowInSec,
-                              int userLimit) throws InvalidRequestException
+                              int userLimit,
+                              boolean encodeRows) throws InvalidRequestException
     {
         GroupMaker groupMaker = aggregationSpec == null ? null : aggregationSpec.newGroupMaker();
-        ResultSetBuilder result = new ResultSetBuilder(getResultMetadata(), selectors, groupMaker);
+        // rows needing to be sorted afterwards can't be encoded as they are produced
+        ResultSetBuilder result = new ResultSetBuilder(getResultMetadata(), selectors, groupMaker, encodeRows && !needsPostQueryOrdering());
 
         while (partitions.hasNext())
         {
@@ -115,6 +115,9 @@ public final class TableAttributes extends PropertyDefinitions
         if (hasOption(Option.MAX_INDEX_INTERVAL))
             builder.maxIndexInterval(getInt(Option.MAX_INDEX_INTERVAL));
 
+        if (hasOption(Option.MEMTABLE))
+            builder.memtable(MemtableParams.fromMap(getMap(Option.MEMTABLE)));
+
         if (hasOption(Option.MEMTABLE_FLUSH_PERIOD_IN_MS))
             builder.memtableFlushPeriodInMs(getInt(Option.MEMTABLE_FLUSH_PERIOD_IN_MS));
 
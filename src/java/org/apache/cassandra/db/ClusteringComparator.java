@@ -30,6 +30,7 @@ import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.serializers.MarshalException;
 
 import org.apache.cassandra.io.sstable.IndexInfo;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /**
  * A comparator of clustering prefixes (or more generally of {@link Clusterable}}.
@@ -40,6 +41,8 @@ import org.apache.cassandra.io.sstable.IndexInfo;
  */
 public class ClusteringComparator implements Comparator<Clusterable>
 {
+    private static final int STATIC_CLUSTERING_BYTE = 0x30;
+
     private final List<AbstractType<?>> clusteringTypes;
 
     private final Comparator<IndexInfo> indexComparator;
@@ -177,6 +180,41 @@ public class ClusteringComparator implements Comparator<Clusterable>
         return clusteringTypes.get(i).compare(v1, v2);
     }
 
+    /**
+     * Returns a byte-comparable representation of the given clustering prefix, whose unsigned lexicographic order
+     * is the same as the order defined by {@link #compare(ClusteringPrefix, ClusteringPrefix)}. Each value is written
+     * as a component of its type, followed by a byte encoding the kind of the prefix: bounds sorting before their
+     * values end with {@link ByteSource#LT_NEXT_COMPONENT}, those sorting after with
+     * {@link ByteSource#GT_NEXT_COMPONENT}, and clusterings with {@link ByteSource#TERMINATOR}.
+     */
+    public ByteSource asComparableBytes(ClusteringPrefix prefix)
+    {
+        int size = prefix.size();
+        ByteSource[] sources = new ByteSource[size + 1];
+        for (int i = 0; i < size; i++)
+            sources[i] = clusteringTypes.get(i).asComparableComponent(prefix.get(i));
+        sources[size] = ByteSource.oneByte(kindAsComparableByte(prefix.kind()));
+        return ByteSource.concat(sources);
+    }
+
+    private static int kindAsComparableByte(ClusteringPrefix.Kind kind)
+    {
+        switch (kind)
+        {
+            case EXCL_END_BOUND:
+            case INCL_START_BOUND:
+            case EXCL_END_INCL_START_BOUNDARY:
+                return ByteSource.LT_NEXT_COMPONENT;
+            case STATIC_CLUSTERING:
+                // after the bottom bound, but before any clustering
+                return STATIC_CLUSTERING_BYTE;
+            case CLUSTERING:
+                return ByteSource.TERMINATOR;
+            default:
+                return ByteSource.GT_NEXT_COMPONENT;
+        }
+    }
+
     /**
      * Returns whether this clustering comparator is compatible with the provided one,
      * that is if the provided one can be safely replaced by this new one.
@@ -283,7 +283,9 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
 
         // If the CF comparator has changed, we need to change the memtable,
         // because the old one still aliases the previous comparator.
-        if (data.getView().getCurrentMemtable().initialComparator != metadata().comparator)
+        // Likewise if the memtable implementation has changed, for the new one to take effect.
+        Memtable current = data.getView().getCurrentMemtable();
+        if (current.initialComparator != metadata().comparator || current.getClass() != metadata().params.memtable.klass())
             switchMemtable();
     }
 
@@ -423,7 +425,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
         // Create Memtable only on online
         Memtable initialMemtable = null;
         if (DatabaseDescriptor.isDaemonInitialized())
-            initialMemtable = new Memtable(new AtomicReference<>(CommitLog.instance.getCurrentPosition()), this);
+            initialMemtable = createMemtable(new AtomicReference<>(CommitLog.instance.getCurrentPosition()));
         data = new Tracker(initialMemtable, loadSSTables);
 
         // scan for sstables corresponding to this cf and load them
@@ -843,6 +845,23 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
         }
     }
 
+    /**
+     * Creates a memtable of the class configured in the table's {@link MemtableParams}.
+     */
+    public Memtable createMemtable(AtomicReference<CommitLogPosition> commitLogLowerBound)
+    {
+        try
+        {
+            Constructor<? extends Memtable> constructor =
+                metadata().params.memtable.klass().getConstructor(AtomicReference.class, ColumnFamilyStore.class, Map.class);
+            return constructor.newInstance(commitLogLowerBound, this, metadata().params.memtable.options());
+        }
+        catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException | InstantiationException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Deprecated
     public String getColumnFamilyName()
     {
@@ -864,7 +883,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
         return newSSTableDescriptor(directory, format.info.getLatestVersion(), format);
     }
 
-    private Descriptor newSSTableDescriptor(File directory, Version version, SSTableFormat.Type format)
+    public Descriptor newSSTableDescriptor(File directory, Version version, SSTableFormat.Type format)
     {
         return new Descriptor(version,
                               directory,
@@ -1082,7 +1101,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
                 // switch all memtables, regardless of their dirty status, setting the barrier
                 // so that we can reach a coordinated decision about cleanliness once they
                 // are no longer possible to be modified
-                Memtable newMemtable = new Memtable(commitLogUpperBound, cfs);
+                Memtable newMemtable = cfs.createMemtable(commitLogUpperBound);
                 Memtable oldMemtable = cfs.data.switchMemtable(truncate, newMemtable);
                 oldMemtable.setDiscarding(writeBarrier, commitLogUpperBound);
                 memtables.add(oldMemtable);
@@ -2163,7 +2182,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
             {
                 public Void call()
                 {
-                    cfs.data.reset(new Memtable(new AtomicReference<>(CommitLogPosition.NONE), cfs));
+                    cfs.data.reset(cfs.createMemtable(new AtomicReference<>(CommitLogPosition.NONE)));
                     return null;
                 }
             }, true, false);
@@ -316,6 +316,7 @@ public class ColumnFamilyStoreCQLHelper
         builder.append("\n\tAND caching = ").append(toCQL(tableParams.caching.asMap()));
         builder.append("\n\tAND compaction = ").append(toCQL(tableParams.compaction.asMap()));
         builder.append("\n\tAND compression = ").append(toCQL(tableParams.compression.asMap()));
+        builder.append("\n\tAND memtable = ").append(toCQL(tableParams.memtable.asMap()));
         builder.append("\n\tAND cdc = ").append(tableParams.cdc);
 
         builder.append("\n\tAND extensions = { ");
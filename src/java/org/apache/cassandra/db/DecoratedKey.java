@@ -26,6 +26,7 @@ import org.apache.cassandra.dht.Token.KeyBound;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.MurmurHash;
 import org.apache.cassandra.utils.IFilter.FilterKey;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /**
  * Represents a decorated key, handy for certain operations
@@ -118,6 +119,15 @@ public abstract class DecoratedKey implements PartitionPosition, FilterKey
         return PartitionPosition.Kind.ROW_KEY;
     }
 
+    public ByteSource asComparableBytes()
+    {
+        // the terminator makes the encoding prefix-free, which tries rely on
+        return ByteSource.concat(getToken().asComparableBytes(),
+                                 ByteSource.oneByte(ByteSource.NEXT_COMPONENT),
+                                 ByteSource.of(getKey()),
+                                 ByteSource.oneByte(ByteSource.TERMINATOR));
+    }
+
     @Override
     public String toString()
     {
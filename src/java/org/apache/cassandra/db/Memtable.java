@@ -20,7 +20,7 @@ package org.apache.cassandra.db;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -43,16 +43,13 @@ import org.apache.cassandra.db.partitions.*;
 import org.apache.cassandra.db.rows.EncodingStats;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
 import org.apache.cassandra.dht.*;
-import org.apache.cassandra.dht.Murmur3Partitioner.LongToken;
 import org.apache.cassandra.index.transactions.UpdateTransaction;
 import org.apache.cassandra.io.sstable.Descriptor;
 import org.apache.cassandra.io.sstable.SSTableMultiWriter;
 import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
 import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.service.ActiveRepairService;
-import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
-import org.apache.cassandra.utils.ObjectSizes;
 import org.apache.cassandra.service.StorageService;
 import org.apache.cassandra.utils.concurrent.OpOrder;
 import org.apache.cassandra.utils.memory.HeapPool;
@@ -61,7 +58,16 @@ import org.apache.cassandra.utils.memory.MemtablePool;
 import org.apache.cassandra.utils.memory.NativePool;
 import org.apache.cassandra.utils.memory.SlabPool;
 
-public class Memtable implements Comparable<Memtable>
+/**
+ * The in-memory store of recent writes to a table, flushed to an sstable once it grows too big.
+ *
+ * This class handles the memory accounting, the commit log bounds and the flush of a memtable, while the subclasses
+ * choose how partitions are indexed. The implementation used by a table is set by its
+ * {@link org.apache.cassandra.schema.MemtableParams}; subclasses must have a public constructor taking the commit
+ * log lower bound, the {@link ColumnFamilyStore} and the memtable options, and may declare a static
+ * {@code validateOptions} method like compaction strategies do.
+ */
+public abstract class Memtable implements Comparable<Memtable>
 {
     private static final Logger logger = LoggerFactory.getLogger(Memtable.class);
 
@@ -90,11 +96,10 @@ public class Memtable implements Comparable<Memtable>
         }
     }
 
-    private static final int ROW_OVERHEAD_HEAP_SIZE = estimateRowOverhead(Integer.parseInt(System.getProperty("cassandra.memtable_row_overhead_computation_step", "100000")));
-
     private final MemtableAllocator allocator;
-    private final AtomicLong liveDataSize = new AtomicLong(0);
-    private final AtomicLong currentOperations = new AtomicLong(0);
+    // striped, as every write to the memtable updates them
+    private final LongAdder liveDataSize = new LongAdder();
+    private final LongAdder currentOperations = new LongAdder();
 
     // the write barrier for directing writes to this memtable during a switch
     private volatile OpOrder.Barrier writeBarrier;
@@ -120,10 +125,6 @@ public class Memtable implements Comparable<Memtable>
         }
     }
 
-    // We index the memtable by PartitionPosition only for the purpose of being able
-    // to select key range using Token.KeyBound. However put() ensures that we
-    // actually only store DecoratedKey.
-    private final ConcurrentNavigableMap<PartitionPosition, AtomicBTreePartition> partitions = new ConcurrentSkipListMap<>();
     public final ColumnFamilyStore cfs;
     private final long creationNano = System.nanoTime();
 
@@ -138,8 +139,7 @@ public class Memtable implements Comparable<Memtable>
     private final ColumnsCollector columnsCollector;
     private final StatsCollector statsCollector = new StatsCollector();
 
-    // only to be used by init(), to setup the very first memtable for the cfs
-    public Memtable(AtomicReference<CommitLogPosition> commitLogLowerBound, ColumnFamilyStore cfs)
+    protected Memtable(AtomicReference<CommitLogPosition> commitLogLowerBound, ColumnFamilyStore cfs)
     {
         this.cfs = cfs;
         this.commitLogLowerBound = commitLogLowerBound;
@@ -151,7 +151,7 @@ public class Memtable implements Comparable<Memtable>
 
     // ONLY to be used for testing, to create a mock Memtable
     @VisibleForTesting
-    public Memtable(TableMetadata metadata)
+    protected Memtable(TableMetadata metadata)
     {
         this.initialComparator = metadata.comparator;
         this.cfs = null;
@@ -159,6 +159,15 @@ public class Memtable implements Comparable<Memtable>
         this.columnsCollector = new ColumnsCollector(metadata.regularAndStaticColumns());
     }
 
+    /**
+     * Validates the options of a memtable implementation, returning those it does not understand. Subclasses
+     * accepting options should hide this method.
+     */
+    public static Map<String, String> validateOptions(Map<String, String> options)
+    {
+        return new HashMap<>(options);
+    }
+
     public MemtableAllocator getAllocator()
     {
         return allocator;
@@ -166,12 +175,12 @@ public class Memtable implements Comparable<Memtable>
 
     public long getLiveDataSize()
     {
-        return liveDataSize.get();
+        return liveDataSize.sum();
     }
 
     public long getOperations()
     {
-        return currentOperations.get();
+        return currentOperations.sum();
     }
 
     @VisibleForTesting
@@ -233,10 +242,7 @@ public class Memtable implements Comparable<Memtable>
         return allocator.isLive();
     }
 
-    public boolean isClean()
-    {
-        return partitions.isEmpty();
-    }
+    public abstract boolean isClean();
 
     public boolean mayContainDataBefore(CommitLogPosition position)
     {
@@ -260,7 +266,7 @@ public class Memtable implements Comparable<Memtable>
      */
     long put(PartitionUpdate update, UpdateTransaction indexer, OpOrder.Group opGroup)
     {
-        AtomicBTreePartition previous = partitions.get(update.partitionKey());
+        AtomicBTreePartition previous = get(update.partitionKey());
 
         long initialSize = 0;
         if (previous == null)
@@ -268,31 +274,48 @@ public class Memtable implements Comparable<Memtable>
             final DecoratedKey cloneKey = allocator.clone(update.partitionKey(), opGroup);
             AtomicBTreePartition empty = new AtomicBTreePartition(cfs.metadata, cloneKey, allocator);
             // We'll add the columns later. This avoids wasting works if we get beaten in the putIfAbsent
-            previous = partitions.putIfAbsent(cloneKey, empty);
+            previous = putIfAbsent(cloneKey, empty, opGroup);
             if (previous == null)
             {
                 previous = empty;
                 // allocate the row overhead after the fact; this saves over allocating and having to free after, but
                 // means we can overshoot our declared limit.
-                int overhead = (int) (cloneKey.getToken().getHeapSize() + ROW_OVERHEAD_HEAP_SIZE);
-                allocator.onHeap().allocate(overhead, opGroup);
+                allocator.onHeap().allocate(partitionOverhead(cloneKey), opGroup);
                 initialSize = 8;
             }
         }
 
         long[] pair = previous.addAllWithSizeDelta(update, opGroup, indexer);
         minTimestamp = Math.min(minTimestamp, previous.stats().minTimestamp);
-        liveDataSize.addAndGet(initialSize + pair[0]);
+        liveDataSize.add(initialSize + pair[0]);
         columnsCollector.update(update.columns());
         statsCollector.update(update.stats());
-        currentOperations.addAndGet(update.operationCount());
+        currentOperations.add(update.operationCount());
         return pair[1];
     }
 
-    public int partitionCount()
-    {
-        return partitions.size();
-    }
+    public abstract int partitionCount();
+
+    /**
+     * Returns the partition for the key, or null if there is none. Must not block on concurrent writes.
+     */
+    protected abstract AtomicBTreePartition get(DecoratedKey key);
+
+    /**
+     * Adds the partition unless one already exists for its key, in which case the existing one is returned.
+     */
+    protected abstract AtomicBTreePartition putIfAbsent(DecoratedKey key, AtomicBTreePartition partition, OpOrder.Group opGroup);
+
+    /**
+     * Returns the on-heap size used to index a new partition with the given key, excluding its content.
+     */
+    protected abstract long partitionOverhead(DecoratedKey key);
+
+    /**
+     * Returns the partitions between the given positions, in order. A null position is unbounded.
+     */
+    protected abstract Iterator<AtomicBTreePartition> partitionIterator(PartitionPosition left, boolean includeLeft,
+                                                                        PartitionPosition right, boolean includeRight);
 
     public List<FlushRunnable> flushRunnables(LifecycleTransaction txn)
     {
@@ -339,7 +362,7 @@ public class Memtable implements Comparable<Memtable>
     public String toString()
     {
         return String.format("Memtable-%s@%s(%s serialized bytes, %s ops, %.0f%%/%.0f%% of on/off-heap limit)",
-                             cfs.name, hashCode(), FBUtilities.prettyPrintMemory(liveDataSize.get()), currentOperations,
+                             cfs.name, hashCode(), FBUtilities.prettyPrintMemory(liveDataSize.sum()), currentOperations.sum(),
                              100 * allocator.onHeap().ownershipRatio(), 100 * allocator.offHeap().ownershipRatio());
     }
 
@@ -353,39 +376,31 @@ public class Memtable implements Comparable<Memtable>
         boolean isBound = keyRange instanceof Bounds;
         boolean includeStart = isBound || keyRange instanceof IncludingExcludingBounds;
         boolean includeStop = isBound || keyRange instanceof Range;
-        Map<PartitionPosition, AtomicBTreePartition> subMap;
-        if (startIsMin)
-            subMap = stopIsMin ? partitions : partitions.headMap(keyRange.right, includeStop);
-        else
-            subMap = stopIsMin
-                   ? partitions.tailMap(keyRange.left, includeStart)
-                   : partitions.subMap(keyRange.left, includeStart, keyRange.right, includeStop);
+        PartitionPosition left = startIsMin ? null : keyRange.left;
+        PartitionPosition right = stopIsMin ? null : keyRange.right;
 
         int minLocalDeletionTime = Integer.MAX_VALUE;
 
         // avoid iterating over the memtable if we purge all tombstones
         if (cfs.getCompactionStrategyManager().onlyPurgeRepairedTombstones())
-            minLocalDeletionTime = findMinLocalDeletionTime(subMap.entrySet().iterator());
+            minLocalDeletionTime = findMinLocalDeletionTime(partitionIterator(left, includeStart, right, includeStop));
 
-        final Iterator<Map.Entry<PartitionPosition, AtomicBTreePartition>> iter = subMap.entrySet().iterator();
+        final Iterator<AtomicBTreePartition> iter = partitionIterator(left, includeStart, right, includeStop);
 
         return new MemtableUnfilteredPartitionIterator(cfs, iter, minLocalDeletionTime, columnFilter, dataRange);
     }
 
-    private int findMinLocalDeletionTime(Iterator<Map.Entry<PartitionPosition, AtomicBTreePartition>> iterator)
+    private int findMinLocalDeletionTime(Iterator<AtomicBTreePartition> iterator)
     {
         int minLocalDeletionTime = Integer.MAX_VALUE;
         while (iterator.hasNext())
-        {
-            Map.Entry<PartitionPosition, AtomicBTreePartition> entry = iterator.next();
-            minLocalDeletionTime = Math.min(minLocalDeletionTime, entry.getValue().stats().minLocalDeletionTime);
-        }
+            minLocalDeletionTime = Math.min(minLocalDeletionTime, iterator.next().stats().minLocalDeletionTime);
         return minLocalDeletionTime;
     }
 
     public Partition getPartition(DecoratedKey key)
     {
-        return partitions.get(key);
+        return get(key);
     }
 
     public long getMinTimestamp()
@@ -399,13 +414,13 @@ public class Memtable implements Comparable<Memtable>
     @VisibleForTesting
     public void makeUnflushable()
     {
-        liveDataSize.addAndGet(1L * 1024 * 1024 * 1024 * 1024 * 1024);
+        liveDataSize.add(1L * 1024 * 1024 * 1024 * 1024 * 1024);
     }
 
     class FlushRunnable implements Callable<SSTableMultiWriter>
     {
         private final long estimatedSize;
-        private final ConcurrentNavigableMap<PartitionPosition, AtomicBTreePartition> toFlush;
+        private final int partitionCount;
 
         private final boolean isBatchLogTable;
         private final SSTableMultiWriter writer;
@@ -414,31 +429,26 @@ public class Memtable implements Comparable<Memtable>
         private final PartitionPosition from;
         private final PartitionPosition to;
 
-        FlushRunnable(PartitionPosition from, PartitionPosition to, Directories.DataDirectory flushLocation, LifecycleTransaction txn)
-        {
-            this(partitions.subMap(from, to), flushLocation, from, to, txn);
-        }
-
         FlushRunnable(LifecycleTransaction txn)
         {
-            this(partitions, null, null, null, txn);
+            this(null, null, null, txn);
         }
 
-        FlushRunnable(ConcurrentNavigableMap<PartitionPosition, AtomicBTreePartition> toFlush, Directories.DataDirectory flushLocation, PartitionPosition from, PartitionPosition to, LifecycleTransaction txn)
+        FlushRunnable(PartitionPosition from, PartitionPosition to, Directories.DataDirectory flushLocation, LifecycleTransaction txn)
         {
-            this.toFlush = toFlush;
             this.from = from;
             this.to = to;
             long keySize = 0;
-            for (PartitionPosition key : toFlush.keySet())
+            int partitionCount = 0;
+            for (Iterator<AtomicBTreePartition> iter = toFlush(); iter.hasNext(); )
             {
-                //  make sure we don't write non-sensical keys
-                assert key instanceof DecoratedKey;
-                keySize += ((DecoratedKey) key).getKey().remaining();
+                keySize += iter.next().partitionKey().getKey().remaining();
+                ++partitionCount;
             }
+            this.partitionCount = partitionCount;
             estimatedSize = (long) ((keySize // index entries
                                     + keySize // keys in data file
-                                    + liveDataSize.get()) // data
+                                    + liveDataSize.sum()) // data
                                     * 1.2); // bloom filter and row index overhead
 
             this.isBatchLogTable = cfs.name.equals(SystemKeyspace.BATCHES) && cfs.keyspace.getName().equals(SchemaConstants.SYSTEM_KEYSPACE_NAME);
@@ -455,6 +465,11 @@ public class Memtable implements Comparable<Memtable>
             return cfs.getDirectories();
         }
 
+        private Iterator<AtomicBTreePartition> toFlush()
+        {
+            return partitionIterator(from, true, to, false);
+        }
+
         private void writeSortedContents()
         {
             logger.debug("Writing {}, flushed range = ({}, {}]", Memtable.this.toString(), from, to);
@@ -463,8 +478,9 @@ public class Memtable implements Comparable<Memtable>
             int heavilyContendedRowCount = 0;
             // (we can't clear out the map as-we-go to free up memory,
             //  since the memtable is being used for queries in the "pending flush" category)
-            for (AtomicBTreePartition partition : toFlush.values())
+            for (Iterator<AtomicBTreePartition> partitions = toFlush(); partitions.hasNext(); )
             {
+                AtomicBTreePartition partition = partitions.next();
                 // Each batchlog partition is a separate entry in the log. And for an entry, we only do 2
                 // operations: 1) we insert the entry and 2) we delete it. Further, BL data is strictly local,
                 // we don't need to preserve tombstones for repair. So if both operation are in this
@@ -494,7 +510,7 @@ public class Memtable implements Comparable<Memtable>
             cfs.metric.bytesFlushed.inc(bytesFlushed);
 
             if (heavilyContendedRowCount > 0)
-                logger.trace("High update contention in {}/{} partitions of {} ", heavilyContendedRowCount, toFlush.size(), Memtable.this);
+                logger.trace("High update contention in {}/{} partitions of {} ", heavilyContendedRowCount, partitionCount, Memtable.this);
         }
 
         public SSTableMultiWriter createFlushWriter(LifecycleTransaction txn,
@@ -506,7 +522,7 @@ public class Memtable implements Comparable<Memtable>
                     .commitLogIntervals(new IntervalSet<>(commitLogLowerBound.get(), commitLogUpperBound.get()));
 
             return cfs.createSSTableMultiWriter(descriptor,
-                                                toFlush.size(),
+                                                partitionCount,
                                                 ActiveRepairService.UNREPAIRED_SSTABLE,
                                                 ActiveRepairService.NO_PENDING_REPAIR,
                                                 sstableMetadataCollector,
@@ -521,36 +537,15 @@ public class Memtable implements Comparable<Memtable>
         }
     }
 
-    private static int estimateRowOverhead(final int count)
-    {
-        // calculate row overhead
-        try (final OpOrder.Group group = new OpOrder().start())
-        {
-            int rowOverhead;
-            MemtableAllocator allocator = MEMORY_POOL.newAllocator();
-            ConcurrentNavigableMap<PartitionPosition, Object> partitions = new ConcurrentSkipListMap<>();
-            final Object val = new Object();
-            for (int i = 0 ; i < count ; i++)
-                partitions.put(allocator.clone(new BufferDecoratedKey(new LongToken(i), ByteBufferUtil.EMPTY_BYTE_BUFFER), group), val);
-            double avgSize = ObjectSizes.measureDeep(partitions) / (double) count;
-            rowOverhead = (int) ((avgSize - Math.floor(avgSize)) < 0.05 ? Math.floor(avgSize) : Math.ceil(avgSize));
-            rowOverhead -= ObjectSizes.measureDeep(new LongToken(0));
-            rowOverhead += AtomicBTreePartition.EMPTY_SIZE;
-            allocator.setDiscarding();
-            allocator.setDiscarded();
-            return rowOverhead;
-        }
-    }
-
     public static class MemtableUnfilteredPartitionIterator extends AbstractUnfilteredPartitionIterator
     {
         private final ColumnFamilyStore cfs;
-        private final Iterator<Map.Entry<PartitionPosition, AtomicBTreePartition>> iter;
+        private final Iterator<AtomicBTreePartition> iter;
         private final int minLocalDeletionTime;
         private final ColumnFilter columnFilter;
         private final DataRange dataRange;
 
-        public MemtableUnfilteredPartitionIterator(ColumnFamilyStore cfs, Iterator<Map.Entry<PartitionPosition, AtomicBTreePartition>> iter, int minLocalDeletionTime, ColumnFilter columnFilter, DataRange dataRange)
+        public MemtableUnfilteredPartitionIterator(ColumnFamilyStore cfs, Iterator<AtomicBTreePartition> iter, int minLocalDeletionTime, ColumnFilter columnFilter, DataRange dataRange)
         {
             this.cfs = cfs;
             this.iter = iter;
@@ -576,13 +571,10 @@ public class Memtable implements Comparable<Memtable>
 
         public UnfilteredRowIterator next()
         {
-            Map.Entry<PartitionPosition, AtomicBTreePartition> entry = iter.next();
-            // Actual stored key should be true DecoratedKey
-            assert entry.getKey() instanceof DecoratedKey;
-            DecoratedKey key = (DecoratedKey)entry.getKey();
-            ClusteringIndexFilter filter = dataRange.clusteringIndexFilter(key);
+            AtomicBTreePartition partition = iter.next();
+            ClusteringIndexFilter filter = dataRange.clusteringIndexFilter(partition.partitionKey());
 
-            return filter.getUnfilteredRowIterator(columnFilter, entry.getValue());
+            return filter.getUnfilteredRowIterator(columnFilter, partition);
         }
     }
 
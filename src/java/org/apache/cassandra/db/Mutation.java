@@ -18,17 +18,21 @@
 package org.apache.cassandra.db;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.apache.cassandra.config.Config;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.db.rows.SerializationHelper;
 import org.apache.cassandra.io.IVersionedSerializer;
 import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputBufferFixed;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.net.MessageOut;
 import org.apache.cassandra.net.MessagingService;
@@ -46,6 +50,15 @@ public class Mutation implements IMutation
     public static final String FORWARD_TO = "FWD_TO";
     public static final String FORWARD_FROM = "FWD_FRM";
 
+    /**
+     * Mutations serializing to more than this many bytes don't have their serialized form cached, as that would double
+     * the memory they use for as long as they are being written.
+     */
+    static final int CACHEABLE_MUTATION_SIZE_LIMIT = Integer.getInteger(Config.PROPERTY_PREFIX + "cacheable_mutation_size_limit_bytes", 1024 * 1024);
+
+    // cached in place of the serialized form of a mutation too large to be cached
+    private static final byte[] NOT_CACHEABLE = new byte[0];
+
     // todo this is redundant
     // when we remove it, also restore SerializationsTest.testMutationRead to not regenerate new Mutations each test
     private final String keyspaceName;
@@ -61,6 +74,9 @@ public class Mutation implements IMutation
 
     private boolean cdcEnabled = false;
 
+    // serialized forms of this mutation, indexed by messaging version, once cacheSerialization() has been called
+    private volatile AtomicReferenceArray<byte[]> cachedSerializations;
+
     public Mutation(String keyspaceName, DecoratedKey key)
     {
         this(keyspaceName, key, new HashMap<>());
@@ -146,6 +162,7 @@ public class Mutation implements IMutation
 
         cdcEnabled |= update.metadata().params.cdc;
 
+        assert cachedSerializations == null : "Cannot modify a mutation once its serialization is cached";
         PartitionUpdate prev = modifications.put(update.metadata().id, update);
         if (prev != null)
             // developer error
@@ -245,6 +262,39 @@ public class Mutation implements IMutation
         apply(false);
     }
 
+    /**
+     * Whether applying this mutation may block: unless the commit log is synced periodically, it waits for the sync,
+     * updating views requires reading the existing data under a lock, and the memtables wait for a flush to free some
+     * memory once the memtable space is used up.
+     */
+    public boolean mayBlockOnApply()
+    {
+        Keyspace keyspace = Schema.instance.getKeyspaceInstance(keyspaceName);
+        if (keyspace == null
+            || DatabaseDescriptor.getCommitLogSync() != Config.CommitLogSync.periodic
+            || keyspace.viewManager.updatesAffectView(Collections.singleton(this), false))
+            return true;
+
+        long size = 0;
+        for (PartitionUpdate update : modifications.values())
+            size += update.dataSize();
+        return Memtable.MEMORY_POOL.mayBlockOnAllocation(size);
+    }
+
+    /**
+     * Makes this mutation cache its serialized form, for each messaging version, the first time it gets serialized,
+     * so it is only serialized once however many replicas it is sent to, and written to the commit log and to hints
+     * from the same bytes. Neither this mutation nor its partition updates may be modified afterwards.
+     *
+     * @return this mutation
+     */
+    public Mutation cacheSerialization()
+    {
+        if (cachedSerializations == null)
+            cachedSerializations = new AtomicReferenceArray<>(MessagingService.current_version - MessagingService.VERSION_30 + 1);
+        return this;
+    }
+
     public MessageOut<Mutation> createMessage()
     {
         return createMessage(MessagingService.Verb.MUTATION);
@@ -370,6 +420,15 @@ public class Mutation implements IMutation
     public static class MutationSerializer implements IVersionedSerializer<Mutation>
     {
         public void serialize(Mutation mutation, DataOutputPlus out, int version) throws IOException
+        {
+            byte[] serialized = cachedSerialization(mutation, version);
+            if (serialized != null)
+                out.write(serialized);
+            else
+                serializeInternal(mutation, out, version);
+        }
+
+        private static void serializeInternal(Mutation mutation, DataOutputPlus out, int version) throws IOException
         {
             /* serialize the modifications in the mutation */
             int size = mutation.modifications.size();
@@ -380,6 +439,43 @@ public class Mutation implements IMutation
                 PartitionUpdate.serializer.serialize(entry.getValue(), out, version);
         }
 
+        /**
+         * @return the serialized form of {@code mutation} for {@code version}, serializing and caching it if it isn't
+         * yet, or {@code null} if it isn't to be cached.
+         */
+        private static byte[] cachedSerialization(Mutation mutation, int version) throws IOException
+        {
+            AtomicReferenceArray<byte[]> cache = mutation.cachedSerializations;
+            int index = version - MessagingService.VERSION_30;
+            if (cache == null || index < 0 || index >= cache.length())
+                return null;
+
+            // racing threads may both serialize the mutation, which is harmless as they produce the same bytes; the
+            // array publishes the bytes safely to the threads that read them from the cache
+            byte[] serialized = cache.get(index);
+            if (serialized == null)
+            {
+                long size = serializedSizeInternal(mutation, version);
+                if (size > CACHEABLE_MUTATION_SIZE_LIMIT)
+                {
+                    serialized = NOT_CACHEABLE;
+                }
+                else
+                {
+                    // not using the scratch buffer, as the caller may be serializing into it
+                    serialized = new byte[(int) size];
+                    try (DataOutputBufferFixed out = new DataOutputBufferFixed(ByteBuffer.wrap(serialized)))
+                    {
+                        serializeInternal(mutation, out, version);
+                        assert out.getLength() == size;
+                    }
+                }
+                if (!cache.compareAndSet(index, null, serialized))
+                    serialized = cache.get(index);
+            }
+            return serialized == NOT_CACHEABLE ? null : serialized;
+        }
+
         public Mutation deserialize(DataInputPlus in, int version, SerializationHelper.Flag flag) throws IOException
         {
             int size = (int)in.readUnsignedVInt();
@@ -408,6 +504,22 @@ public class Mutation implements IMutation
         }
 
         public long serializedSize(Mutation mutation, int version)
+        {
+            try
+            {
+                byte[] serialized = cachedSerialization(mutation, version);
+                if (serialized != null)
+                    return serialized.length;
+            }
+            catch (IOException e)
+            {
+                // Shouldn't happen, we're serializing in memory.
+                throw new AssertionError(e);
+            }
+            return serializedSizeInternal(mutation, version);
+        }
+
+        private static long serializedSizeInternal(Mutation mutation, int version)
         {
             int size = TypeSizes.sizeofUnsignedVInt(mutation.modifications.size());
             for (Map.Entry<TableId, PartitionUpdate> entry : mutation.modifications.entrySet())
@@ -75,6 +75,9 @@ public class MutationVerbHandler implements IVerbHandler<Mutation>
         {
             int size = in.readInt();
 
+            // the mutation is sent to all the forward recipients and applied locally, so only serialize it once
+            mutation.cacheSerialization();
+
             // tell the recipients who to send their ack to
             MessageOut<Mutation> message = new MessageOut<>(verb, mutation, Mutation.serializer).withParameter(Mutation.FORWARD_FROM, from.getAddress());
             // Send a message to each of the addresses on our Forward List
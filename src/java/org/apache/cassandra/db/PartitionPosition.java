@@ -24,6 +24,7 @@ import java.nio.ByteBuffer;
 import org.apache.cassandra.dht.*;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public interface PartitionPosition extends RingPosition<PartitionPosition>
 {
@@ -54,6 +55,12 @@ public interface PartitionPosition extends RingPosition<PartitionPosition>
     public Kind kind();
     public boolean isMinimum();
 
+    /**
+     * Returns a byte-comparable representation of this position: the token, followed by the escaped key for
+     * decorated keys, or by a byte sorting before or after all keys of the token for key bounds.
+     */
+    public ByteSource asComparableBytes();
+
     public static class RowPositionSerializer implements IPartitionerDependentSerializer<PartitionPosition>
     {
         /*
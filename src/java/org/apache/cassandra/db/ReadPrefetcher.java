@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.concurrent.ExecutorLocals;
+import org.apache.cassandra.concurrent.JMXEnabledThreadPoolExecutor;
+import org.apache.cassandra.concurrent.LocalAwareExecutorService;
+import org.apache.cassandra.concurrent.NamedThreadFactory;
+import org.apache.cassandra.concurrent.StageManager;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.utils.JVMStabilityInspector;
+
+/**
+ * Executes single partition reads in two steps when the {@code read_execution_mode} is {@code async}: the sstable
+ * data a read needs is first fetched by a dedicated pool of threads (see {@link SinglePartitionReadCommand#prefetch}),
+ * and the read is only submitted to its stage once that is done. Read stage threads thus mostly find their data
+ * cached rather than sitting blocked on disk while other, cached, reads wait for a thread.
+ * <p>
+ * There is no non-blocking file I/O available through {@link org.apache.cassandra.utils.NativeLibrary}, so blocking
+ * reads on the prefetch pool stand in for it. Only the beginning of each partition is prefetched; the rest of a
+ * large partition is still read by the read stage.
+ */
+public class ReadPrefetcher
+{
+    private static final Logger logger = LoggerFactory.getLogger(ReadPrefetcher.class);
+
+    public static final ReadPrefetcher instance = new ReadPrefetcher();
+
+    private final JMXEnabledThreadPoolExecutor executor;
+
+    private ReadPrefetcher()
+    {
+        executor = new JMXEnabledThreadPoolExecutor(DatabaseDescriptor.getConcurrentReadPrefetches(),
+                                                    StageManager.KEEPALIVE,
+                                                    TimeUnit.SECONDS,
+                                                    new LinkedBlockingQueue<>(),
+                                                    new NamedThreadFactory("ReadPrefetch"),
+                                                    "internal");
+    }
+
+    /**
+     * Whether the given command should be prefetched before being executed.
+     */
+    public static boolean shouldPrefetch(ReadCommand command)
+    {
+        return DatabaseDescriptor.getReadExecutionMode() == Config.ReadExecutionMode.async
+               && command instanceof SinglePartitionReadCommand;
+    }
+
+    /**
+     * Prefetches the data the given command reads, then submits {@code read} to {@code stage}. A failed prefetch is
+     * only logged, as the read hits (and reports) the same error if it is not transient.
+     */
+    public void prefetchThenExecute(SinglePartitionReadCommand command, LocalAwareExecutorService stage, Runnable read, ExecutorLocals locals)
+    {
+        executor.execute(() -> {
+            try
+            {
+                command.prefetch();
+            }
+            catch (Throwable t)
+            {
+                JVMStabilityInspector.inspectThrowable(t);
+                logger.debug("Failed to prefetch data for {}", command, t);
+            }
+            stage.execute(read, locals);
+        });
+    }
+}
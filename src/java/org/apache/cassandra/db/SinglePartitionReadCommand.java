@@ -49,6 +49,7 @@ import org.apache.cassandra.net.MessageOut;
 import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.IndexMetadata;
+import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.CacheService;
 import org.apache.cassandra.service.ClientState;
@@ -72,6 +73,9 @@ public class SinglePartitionReadCommand extends ReadCommand
 
     private int oldestUnrepairedTombstone = Integer.MAX_VALUE;
 
+    // the index entries of the partition located by prefetch(), so that executing the command doesn't look them up again
+    private volatile Map<SSTableReader, RowIndexEntry<?>> prefetchedEntries = Collections.emptyMap();
+
     @VisibleForTesting
     protected SinglePartitionReadCommand(boolean isDigest,
                                          int digestVersion,
@@ -560,6 +564,44 @@ public class SinglePartitionReadCommand extends ReadCommand
         return queryMemtableAndDisk(cfs, executionController);
     }
 
+    /**
+     * Whether executing this command may have to wait on disk, i.e. if the partition is not prefetched (see
+     * {@link ReadPrefetcher}) and the table has some live sstables.
+     * <p>
+     * This is called to route the command before executing it, so it must be cheap: it doesn't check which sstables
+     * may contain the partition, as that would take references to them and read their bloom filters on the routing
+     * thread.
+     */
+    public boolean mayBlockOnDisk()
+    {
+        if (ReadPrefetcher.shouldPrefetch(this))
+            return false;
+
+        ColumnFamilyStore cfs = Schema.instance.getColumnFamilyStoreInstance(metadata().id);
+        return cfs == null || !cfs.getTracker().getView().liveSSTables().isEmpty();
+    }
+
+    /**
+     * Reads the index entry and first data chunk of the queried partition from each live sstable that may contain it,
+     * so that executing this command afterwards mostly finds what it needs already cached. The located index entries
+     * are kept, and used by the execution instead of looking them up again. See {@link ReadPrefetcher}.
+     */
+    public void prefetch()
+    {
+        ColumnFamilyStore cfs = Keyspace.openAndGetStore(metadata());
+        Map<SSTableReader, RowIndexEntry<?>> entries = new HashMap<>();
+        try (ColumnFamilyStore.RefViewFragment view = cfs.selectAndReference(View.select(SSTableSet.LIVE, partitionKey())))
+        {
+            for (SSTableReader sstable : view.sstables)
+            {
+                RowIndexEntry<?> entry = sstable.prefetch(partitionKey());
+                if (entry != null)
+                    entries.put(sstable, entry);
+            }
+        }
+        prefetchedEntries = entries;
+    }
+
     /**
      * Queries both memtable and sstables to fetch the result of this query.
      * <p>
@@ -643,7 +685,7 @@ public class SinglePartitionReadCommand extends ReadCommand
             long mostRecentPartitionTombstone = Long.MIN_VALUE;
             int nonIntersectingSSTables = 0;
             List<SSTableReader> skippedSSTablesWithTombstones = null;
-            SSTableReadMetricsCollector metricsCollector = new SSTableReadMetricsCollector();
+            SSTableReadMetricsCollector metricsCollector = new SSTableReadMetricsCollector(prefetchedEntries);
 
             for (SSTableReader sstable : view.sstables)
             {
@@ -821,7 +863,7 @@ public class SinglePartitionReadCommand extends ReadCommand
         Collections.sort(view.sstables, SSTableReader.maxTimestampComparator);
         boolean onlyUnrepaired = true;
         // read sorted sstables
-        SSTableReadMetricsCollector metricsCollector = new SSTableReadMetricsCollector();
+        SSTableReadMetricsCollector metricsCollector = new SSTableReadMetricsCollector(prefetchedEntries);
         for (SSTableReader sstable : view.sstables)
         {
             // if we've already seen a partition tombstone with a timestamp greater
@@ -1200,12 +1242,25 @@ public class SinglePartitionReadCommand extends ReadCommand
      */
     private static final class SSTableReadMetricsCollector implements SSTableReadsListener
     {
+        private final Map<SSTableReader, RowIndexEntry<?>> prefetchedEntries;
+
         /**
          * The number of SSTables that need to be merged. This counter is only updated for single partition queries
          * since this has been the behavior so far.
          */
         private int mergedSSTables;
 
+        private SSTableReadMetricsCollector(Map<SSTableReader, RowIndexEntry<?>> prefetchedEntries)
+        {
+            this.prefetchedEntries = prefetchedEntries;
+        }
+
+        @Override
+        public RowIndexEntry<?> locatedIndexEntry(SSTableReader sstable)
+        {
+            return prefetchedEntries.get(sstable);
+        }
+
         @Override
         public void onSSTableSelected(SSTableReader sstable, RowIndexEntry<?> indexEntry, SelectionReason reason)
         {
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterators;
+
+import org.apache.cassandra.db.commitlog.CommitLogPosition;
+import org.apache.cassandra.db.partitions.AtomicBTreePartition;
+import org.apache.cassandra.db.tries.MemtableTrie;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Murmur3Partitioner.LongToken;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Splitter;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.ObjectSizes;
+import org.apache.cassandra.utils.concurrent.OpOrder;
+import org.apache.cassandra.utils.memory.MemoryUtil;
+import org.apache.cassandra.utils.memory.MemtableAllocator;
+import org.apache.cassandra.utils.memory.MemtableBufferAllocator;
+import org.apache.cassandra.utils.memory.NativeAllocator;
+
+/**
+ * A memtable indexing partitions in a {@link MemtableTrie} on the byte-comparable representation of their keys.
+ *
+ * The trie nodes are allocated from the memtable allocator, in slabs or off-heap depending on the configured
+ * memtable_allocation_type, and are accounted for in the memtable's size. Compared to {@link SkipListMemtable}
+ * this avoids most of the per-partition on-heap index overhead, and lookups walk the key bytes rather than
+ * performing a logarithmic number of key comparisons.
+ *
+ * As tries accept a single writer at a time, the token space is split into shards, each with its own trie. The shard
+ * boundaries always include the disk boundaries used to split flushes, so that each {@link FlushRunnable} only
+ * iterates the shards of its data directory. The 'shards' option sets the number of parts the local token ranges
+ * are split in, on top of the disk boundaries; as each non-empty shard uses at least one trie chunk, it should only
+ * be raised for tables with heavy concurrent writes.
+ */
+public class TrieMemtable extends Memtable
+{
+    // the partition object, its decorated key and the slot referencing it in the trie's content array
+    private static final long PARTITION_OVERHEAD = AtomicBTreePartition.EMPTY_SIZE
+                                                   + ObjectSizes.measure(new BufferDecoratedKey(new LongToken(0), ByteBufferUtil.EMPTY_BYTE_BUFFER))
+                                                   + 8;
+
+    public static final String SHARDS_OPTION = "shards";
+    public static final int DEFAULT_SHARDS = 1;
+
+    // the boundaries between consecutive shards, which are key bounds and thus never equal to a partition key
+    private final PartitionPosition[] boundaries;
+    private final MemtableTrie<AtomicBTreePartition>[] shards;
+
+    public TrieMemtable(AtomicReference<CommitLogPosition> commitLogLowerBound, ColumnFamilyStore cfs, Map<String, String> options)
+    {
+        super(commitLogLowerBound, cfs);
+        String shardCount = options.get(SHARDS_OPTION);
+        this.boundaries = shardBoundaries(cfs, shardCount == null ? DEFAULT_SHARDS : Integer.parseInt(shardCount));
+        this.shards = createShards(boundaries.length + 1);
+    }
+
+    // ONLY to be used for testing, to create a mock Memtable
+    @VisibleForTesting
+    public TrieMemtable(TableMetadata metadata)
+    {
+        super(metadata);
+        this.boundaries = new PartitionPosition[0];
+        this.shards = createShards(1);
+    }
+
+    public static Map<String, String> validateOptions(Map<String, String> options) throws ConfigurationException
+    {
+        Map<String, String> unknownOptions = new HashMap<>(options);
+        String shardCount = unknownOptions.remove(SHARDS_OPTION);
+        if (shardCount != null)
+        {
+            int shards;
+            try
+            {
+                shards = Integer.parseInt(shardCount);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new ConfigurationException(String.format("Invalid value %s for '%s' memtable sub-option - must be an integer",
+                                                               shardCount, SHARDS_OPTION));
+            }
+            if (shards < 1)
+                throw new ConfigurationException(String.format("'%s' must be at least 1 (got %d)", SHARDS_OPTION, shards));
+        }
+        return unknownOptions;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static MemtableTrie<AtomicBTreePartition>[] createShards(int count)
+    {
+        MemtableTrie<AtomicBTreePartition>[] shards = new MemtableTrie[count];
+        for (int i = 0; i < count; i++)
+            shards[i] = new MemtableTrie<>();
+        return shards;
+    }
+
+    /**
+     * Splits the local token ranges in the given number of parts, and further at the disk boundaries. If the node
+     * does not own any range yet, the whole token space is split instead.
+     */
+    private static PartitionPosition[] shardBoundaries(ColumnFamilyStore cfs, int shardCount)
+    {
+        IPartitioner partitioner = cfs.getPartitioner();
+        if (!partitioner.splitter().isPresent())
+            return new PartitionPosition[0];
+
+        List<Range<Token>> localRanges = Range.sort(StorageService.instance.getLocalRanges(cfs.keyspace.getName()));
+        Splitter splitter = partitioner.splitter().get();
+        SortedSet<PartitionPosition> boundaries = new TreeSet<>();
+        List<Range<Token>> splitRanges = localRanges.isEmpty()
+                                       ? Collections.singletonList(new Range<>(partitioner.getMinimumToken(), partitioner.getMinimumToken()))
+                                       : localRanges;
+        for (Token token : splitter.splitOwnedRanges(shardCount, splitRanges, false))
+            boundaries.add(token.maxKeyBound());
+        if (!localRanges.isEmpty())
+            boundaries.addAll(StorageService.getDiskBoundaries(localRanges, partitioner, cfs.getDirectories().getWriteableLocations()));
+
+        // the last boundary is always the maximum token, past which there is no shard
+        boundaries.remove(partitioner.getMaximumToken().maxKeyBound());
+        return boundaries.toArray(new PartitionPosition[0]);
+    }
+
+    /**
+     * Returns the index of the shard containing the given key, or for a bound, of the first shard which may contain
+     * keys on either side of it.
+     */
+    private int shardIndex(PartitionPosition position)
+    {
+        int index = Arrays.binarySearch(boundaries, position);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    @VisibleForTesting
+    int shardCount()
+    {
+        return shards.length;
+    }
+
+    public boolean isClean()
+    {
+        for (MemtableTrie<AtomicBTreePartition> shard : shards)
+            if (!shard.isEmpty())
+                return false;
+        return true;
+    }
+
+    public int partitionCount()
+    {
+        int count = 0;
+        for (MemtableTrie<AtomicBTreePartition> shard : shards)
+            count += shard.valuesCount();
+        return count;
+    }
+
+    protected AtomicBTreePartition get(DecoratedKey key)
+    {
+        return shards[shardIndex(key)].get(key.asComparableBytes());
+    }
+
+    protected AtomicBTreePartition putIfAbsent(DecoratedKey key, AtomicBTreePartition partition, OpOrder.Group opGroup)
+    {
+        return shards[shardIndex(key)].putIfAbsent(key.asComparableBytes(), partition, size -> allocate(size, opGroup));
+    }
+
+    protected long partitionOverhead(DecoratedKey key)
+    {
+        return key.getToken().getHeapSize() + PARTITION_OVERHEAD;
+    }
+
+    protected Iterator<AtomicBTreePartition> partitionIterator(PartitionPosition left, boolean includeLeft,
+                                                               PartitionPosition right, boolean includeRight)
+    {
+        int first = left == null ? 0 : shardIndex(left);
+        int last = right == null ? shards.length - 1 : shardIndex(right);
+        if (first >= last)
+            return shardIterator(first, left, includeLeft, right, includeRight);
+
+        List<Iterator<AtomicBTreePartition>> iterators = new ArrayList<>(last - first + 1);
+        // only the first and last shards can have partitions outside of the bounds
+        iterators.add(shardIterator(first, left, includeLeft, null, true));
+        for (int i = first + 1; i < last; i++)
+            iterators.add(shards[i].valuesIterator());
+        iterators.add(shardIterator(last, null, true, right, includeRight));
+        return Iterators.concat(iterators.iterator());
+    }
+
+    private Iterator<AtomicBTreePartition> shardIterator(int shard, PartitionPosition left, boolean includeLeft,
+                                                         PartitionPosition right, boolean includeRight)
+    {
+        return shards[shard].valuesIterator(left == null ? null : left.asComparableBytes(), includeLeft,
+                                            right == null ? null : right.asComparableBytes(), includeRight);
+    }
+
+    private ByteBuffer allocate(int size, OpOrder.Group opGroup)
+    {
+        MemtableAllocator allocator = getAllocator();
+        if (allocator instanceof NativeAllocator)
+            return MemoryUtil.getByteBuffer(((NativeAllocator) allocator).allocate(size, opGroup), size);
+        return ((MemtableBufferAllocator) allocator).allocate(size, opGroup);
+    }
+}
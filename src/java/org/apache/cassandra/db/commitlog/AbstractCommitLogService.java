@@ -90,6 +90,7 @@ public abstract class AbstractCommitLogService
                     try
                     {
                         // sync and signal
+                        beforeSync();
                         long syncStarted = System.nanoTime();
                         // This is a target for Byteman in CommitLogSegmentManagerTest
                         commitLog.sync();
@@ -99,7 +100,9 @@ public abstract class AbstractCommitLogService
 
                         // sleep any time we have left before the next one is due
                         long now = System.nanoTime();
+                        commitLog.metrics.syncLatency.update(now - syncStarted, TimeUnit.NANOSECONDS);
                         long wakeUpAt = syncStarted + pollIntervalNanos;
+                        long nextSyncAt = now + nextSyncDelayNanos(now - syncStarted);
                         if (wakeUpAt < now)
                         {
                             // if we have lagged noticeably, update our lag counter
@@ -134,8 +137,8 @@ public abstract class AbstractCommitLogService
                         if (shutdownRequested)
                             return;
 
-                        if (wakeUpAt > now)
-                            LockSupport.parkNanos(wakeUpAt - now);
+                        if (nextSyncAt > now)
+                            LockSupport.parkNanos(nextSyncAt - now);
                     }
                     catch (Throwable t)
                     {
@@ -165,6 +168,23 @@ public abstract class AbstractCommitLogService
 
     protected abstract void maybeWaitForSync(Allocation alloc);
 
+    /**
+     * Called by the sync thread right before each sync, which may be delayed by it.
+     */
+    protected void beforeSync()
+    {
+    }
+
+    /**
+     * @param syncDuration how long the sync that just completed took, in nanoseconds
+     * @return how long to wait before starting the next sync, unless one is requested before. By default, syncs start
+     * every poll interval.
+     */
+    protected long nextSyncDelayNanos(long syncDuration)
+    {
+        return pollIntervalNanos - syncDuration;
+    }
+
     /**
      * Request an additional sync cycle without blocking.
      */
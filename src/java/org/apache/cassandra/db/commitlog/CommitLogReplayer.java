@@ -21,19 +21,20 @@ package org.apache.cassandra.db.commitlog;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.Future;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
 import com.google.common.collect.*;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.commons.lang3.StringUtils;
 import org.cliffc.high_scale_lib.NonBlockingHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.apache.cassandra.concurrent.Stage;
-import org.apache.cassandra.concurrent.StageManager;
+import org.apache.cassandra.concurrent.DebuggableThreadPoolExecutor;
 import org.apache.cassandra.config.Config;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamilyStore;
@@ -44,6 +45,7 @@ import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.io.util.RandomAccessReader;
+import org.apache.cassandra.metrics.CommitLogMetrics;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.SchemaConstants;
 import org.apache.cassandra.schema.TableId;
@@ -60,6 +62,9 @@ public class CommitLogReplayer implements CommitLogReadHandler
     static final String IGNORE_REPLAY_ERRORS_PROPERTY = Config.PROPERTY_PREFIX + "commitlog.ignorereplayerrors";
     private static final Logger logger = LoggerFactory.getLogger(CommitLogReplayer.class);
     private static final int MAX_OUTSTANDING_REPLAY_COUNT = Integer.getInteger(Config.PROPERTY_PREFIX + "commitlog_max_outstanding_replay_count", 1024);
+    // the number of segments read and deserialized concurrently on startup
+    private static final int REPLAY_THREADS = Integer.getInteger(Config.PROPERTY_PREFIX + "commitlog_replay_threads",
+                                                                 Math.min(4, FBUtilities.getAvailableProcessors()));
 
     private final Set<Keyspace> keyspacesReplayed;
     private final Queue<Future<Integer>> futures;
@@ -73,6 +78,12 @@ public class CommitLogReplayer implements CommitLogReadHandler
 
     private final ReplayFilter replayFilter;
     private final CommitLogArchiver archiver;
+    private final CommitLogMetrics metrics;
+
+    // the number of segments decoded concurrently by replayFiles
+    private final int replayThreads;
+    // the mutations of a partition are all applied by the same lane, in the order of the log; created on first use
+    private ExecutorService[] applyLanes;
 
     @VisibleForTesting
     protected boolean sawCDCMutation;
@@ -84,6 +95,15 @@ public class CommitLogReplayer implements CommitLogReadHandler
                       CommitLogPosition globalPosition,
                       Map<TableId, IntervalSet<CommitLogPosition>> cfPersisted,
                       ReplayFilter replayFilter)
+    {
+        this(commitLog, globalPosition, cfPersisted, replayFilter, 1);
+    }
+
+    CommitLogReplayer(CommitLog commitLog,
+                      CommitLogPosition globalPosition,
+                      Map<TableId, IntervalSet<CommitLogPosition>> cfPersisted,
+                      ReplayFilter replayFilter,
+                      int replayThreads)
     {
         this.keyspacesReplayed = new NonBlockingHashSet<>();
         this.futures = new ArrayDeque<>();
@@ -93,6 +113,8 @@ public class CommitLogReplayer implements CommitLogReadHandler
         this.globalPosition = globalPosition;
         this.replayFilter = replayFilter;
         this.archiver = commitLog.archiver;
+        this.metrics = commitLog.metrics;
+        this.replayThreads = replayThreads;
         this.commitLogReader = new CommitLogReader();
     }
 
@@ -131,31 +153,224 @@ public class CommitLogReplayer implements CommitLogReadHandler
         }
         CommitLogPosition globalPosition = firstNotCovered(cfPersisted.values());
         logger.debug("Global replay position is {} from columnfamilies {}", globalPosition, FBUtilities.toString(cfPersisted));
-        return new CommitLogReplayer(commitLog, globalPosition, cfPersisted, replayFilter);
+        return new CommitLogReplayer(commitLog, globalPosition, cfPersisted, replayFilter, REPLAY_THREADS);
     }
 
     public void replayPath(File file, boolean tolerateTruncation) throws IOException
     {
-        sawCDCMutation = false;
-        commitLogReader.readCommitLogSegment(this, file, globalPosition, CommitLogReader.ALL_MUTATIONS, tolerateTruncation);
-        if (sawCDCMutation)
-            handleCDCReplayCompletion(file);
+        try
+        {
+            sawCDCMutation = false;
+            commitLogReader.readCommitLogSegment(this, file, globalPosition, CommitLogReader.ALL_MUTATIONS, tolerateTruncation);
+            if (sawCDCMutation)
+                handleCDCReplayCompletion(file);
+        }
+        catch (Throwable t)
+        {
+            // blockForWrites won't be called
+            shutdownApplyLanes();
+            throw t;
+        }
     }
 
     public void replayFiles(File[] clogs) throws IOException
     {
-        List<File> filteredLogs = CommitLogReader.filterCommitLogFiles(clogs);
-        int i = 0;
-        for (File file: filteredLogs)
+        try
         {
-            i++;
-            sawCDCMutation = false;
-            commitLogReader.readCommitLogSegment(this, file, globalPosition, i == filteredLogs.size());
-            if (sawCDCMutation)
-                handleCDCReplayCompletion(clogs[i]);
+            List<File> filteredLogs = CommitLogReader.filterCommitLogFiles(clogs);
+            if (replayThreads > 1 && filteredLogs.size() > 1)
+            {
+                replayFilesConcurrently(filteredLogs);
+                return;
+            }
+
+            int i = 0;
+            for (File file: filteredLogs)
+            {
+                i++;
+                sawCDCMutation = false;
+                commitLogReader.readCommitLogSegment(this, file, globalPosition, i == filteredLogs.size());
+                if (sawCDCMutation)
+                    handleCDCReplayCompletion(clogs[i]);
+                metrics.replayedSegments.inc();
+            }
+        }
+        catch (Throwable t)
+        {
+            // blockForWrites won't be called
+            shutdownApplyLanes();
+            throw t;
         }
     }
 
+    /**
+     * Reads and deserializes up to {@code replayThreads} segments at a time, while handling the mutations of the
+     * segments one segment after the other, in the order of the log, as {@link #replayFiles} does on its own.
+     */
+    private void replayFilesConcurrently(List<File> files) throws IOException
+    {
+        long start = System.nanoTime();
+        long startBytes = metrics.replayedBytes.getCount();
+        ExecutorService decoders = DebuggableThreadPoolExecutor.createWithFixedPoolSize("CommitLogReplayDecoder", replayThreads);
+        try
+        {
+            List<SegmentDecoder> segments = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++)
+            {
+                SegmentDecoder segment = new SegmentDecoder(files.get(i), i == files.size() - 1);
+                segments.add(segment);
+                decoders.execute(segment);
+            }
+
+            for (int i = 0; i < segments.size(); i++)
+            {
+                SegmentDecoder segment = segments.get(i);
+                sawCDCMutation = false;
+                segment.replay();
+                if (sawCDCMutation)
+                    handleCDCReplayCompletion(segment.file);
+                metrics.replayedSegments.inc();
+                logger.debug("Replayed commit log segment {} ({} of {})", segment.file.getName(), i + 1, segments.size());
+            }
+        }
+        finally
+        {
+            // stops the decoding of the segments following a failed one
+            decoders.shutdownNow();
+        }
+
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        long bytes = metrics.replayedBytes.getCount() - startBytes;
+        logger.info("Read {} commit log segments ({}) in {} ms ({}/s) using {} threads", files.size(),
+                    FBUtilities.prettyPrintMemory(bytes), elapsedMillis, FBUtilities.prettyPrintMemory(bytes * 1000 / elapsedMillis), replayThreads);
+    }
+
+    /**
+     * Reads the mutations of a segment ahead of their replay. Up to a share of {@link #MAX_OUTSTANDING_REPLAY_BYTES}
+     * of deserialized mutations are kept waiting for the earlier segments to be replayed.
+     */
+    private class SegmentDecoder implements CommitLogReadHandler, Runnable
+    {
+        private final File file;
+        private final boolean tolerateTruncation;
+        private final CommitLogReader reader = new CommitLogReader();
+        private final BlockingQueue<DecodedMutation> decoded = new LinkedBlockingQueue<>();
+        private final Semaphore bytesAvailable;
+        private final int maxBytes;
+        private volatile Throwable failure;
+
+        SegmentDecoder(File file, boolean tolerateTruncation)
+        {
+            this.file = file;
+            this.tolerateTruncation = tolerateTruncation;
+            this.maxBytes = (int) Math.max(1, Math.min(Integer.MAX_VALUE, MAX_OUTSTANDING_REPLAY_BYTES / replayThreads));
+            this.bytesAvailable = new Semaphore(maxBytes);
+        }
+
+        public void run()
+        {
+            try
+            {
+                reader.readCommitLogSegment(this, file, globalPosition, tolerateTruncation);
+            }
+            catch (Throwable t)
+            {
+                failure = t;
+            }
+            finally
+            {
+                decoded.add(DecodedMutation.END_OF_SEGMENT);
+            }
+        }
+
+        /**
+         * Hands the mutations of the segment to the replayer as they get decoded, until the end of the segment.
+         */
+        void replay() throws IOException
+        {
+            DecodedMutation next;
+            while ((next = Uninterruptibles.takeUninterruptibly(decoded)) != DecodedMutation.END_OF_SEGMENT)
+            {
+                bytesAvailable.release(Math.min(next.size, maxBytes));
+                CommitLogReplayer.this.handleMutation(next.mutation, next.size, next.entryLocation, next.desc);
+            }
+
+            commitLogReader.addInvalidMutations(reader);
+            if (failure != null)
+            {
+                Throwables.propagateIfPossible(failure, IOException.class);
+                throw new RuntimeException(failure);
+            }
+        }
+
+        public void handleMutation(Mutation m, int size, int entryLocation, CommitLogDescriptor desc)
+        {
+            try
+            {
+                bytesAvailable.acquire(Math.min(size, maxBytes));
+            }
+            catch (InterruptedException e)
+            {
+                // the replay failed on an earlier segment
+                throw new RuntimeException(e);
+            }
+            decoded.add(new DecodedMutation(m, size, entryLocation, desc));
+        }
+
+        public boolean shouldSkipSegmentOnError(CommitLogReadException exception) throws IOException
+        {
+            return CommitLogReplayer.this.shouldSkipSegmentOnError(exception);
+        }
+
+        public void handleUnrecoverableError(CommitLogReadException exception) throws IOException
+        {
+            CommitLogReplayer.this.handleUnrecoverableError(exception);
+        }
+    }
+
+    private static class DecodedMutation
+    {
+        static final DecodedMutation END_OF_SEGMENT = new DecodedMutation(null, 0, 0, null);
+
+        final Mutation mutation;
+        final int size;
+        final int entryLocation;
+        final CommitLogDescriptor desc;
+
+        DecodedMutation(Mutation mutation, int size, int entryLocation, CommitLogDescriptor desc)
+        {
+            this.mutation = mutation;
+            this.size = size;
+            this.entryLocation = entryLocation;
+            this.desc = desc;
+        }
+    }
+
+    /**
+     * @return the executor applying the mutations of the partition of the given mutation. Mutations of different
+     * partitions are applied concurrently, but the ones of a partition are applied in the order of the log.
+     */
+    private ExecutorService applyLane(Mutation mutation)
+    {
+        if (applyLanes == null)
+        {
+            applyLanes = new ExecutorService[DatabaseDescriptor.getConcurrentWriters()];
+            for (int i = 0; i < applyLanes.length; i++)
+                applyLanes[i] = DebuggableThreadPoolExecutor.createWithFixedPoolSize("CommitLogReplay:" + i, 1);
+        }
+        return applyLanes[(mutation.key().hashCode() & Integer.MAX_VALUE) % applyLanes.length];
+    }
+
+    private void shutdownApplyLanes()
+    {
+        if (applyLanes == null)
+            return;
+
+        for (ExecutorService lane : applyLanes)
+            lane.shutdown();
+        applyLanes = null;
+    }
+
 
     /**
      * Upon replay completion, CDC needs to hard-link files in the CDC folder and calculate index files so consumers can
@@ -194,8 +409,15 @@ public class CommitLogReplayer implements CommitLogReadHandler
         for (Map.Entry<TableId, AtomicInteger> entry : commitLogReader.getInvalidMutations())
             logger.warn("Skipped {} mutations from unknown (probably removed) CF with id {}", entry.getValue(), entry.getKey());
 
-        // wait for all the writes to finish on the mutation stage
-        FBUtilities.waitOnFutures(futures);
+        // wait for all the writes to finish on the replay lanes
+        try
+        {
+            FBUtilities.waitOnFutures(futures);
+        }
+        finally
+        {
+            shutdownApplyLanes();
+        }
         logger.trace("Finished waiting on mutations from recovery");
 
         // flush replayed keyspaces
@@ -271,10 +493,11 @@ public class CommitLogReplayer implements CommitLogReadHandler
 
                         Keyspace.open(newMutation.getKeyspaceName()).apply(newMutation, false, true, false);
                         commitLogReplayer.keyspacesReplayed.add(keyspace);
+                        commitLogReplayer.metrics.replayedMutations.mark();
                     }
                 }
             };
-            return StageManager.getStage(Stage.MUTATION).submit(runnable, serializedSize);
+            return commitLogReplayer.applyLane(mutation).submit(runnable, serializedSize);
         }
     }
 
@@ -417,6 +640,7 @@ public class CommitLogReplayer implements CommitLogReadHandler
             sawCDCMutation = true;
 
         pendingMutationBytes += size;
+        metrics.replayedBytes.mark(size);
         futures.offer(mutationInitiator.initiateMutation(m,
                                                          desc.id,
                                                          size,
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.commitlog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+
+/**
+ * A commit log service which, like {@link BatchCommitLogService}, does not let writers proceed before their writes are
+ * synced, but which adapts how long it waits between syncs to the load.
+ *
+ * A sync starts as soon as as many writers are waiting as usually make up a batch, or once the latency of syncs
+ * observed so far, capped by the configured window, has elapsed. Under light load writers are synced right away,
+ * and under heavy load the syncs are spaced so that each covers as many writes as can arrive while one is running.
+ * Writers keep appending to the segments while a sync is in progress, so those writes form the next batch.
+ *
+ * When no writer is waiting after a sync, the sync thread sleeps for the configured window, and the first writer to
+ * arrive wakes it up so that the window of its batch is measured from its arrival.
+ */
+class GroupCommitLogService extends AbstractCommitLogService
+{
+    // weight of the latest sync in the moving averages of the sync latency and of the batch size
+    private static final double ALPHA = 0.2;
+
+    private final long maxWindowNanos;
+
+    // writers which started waiting since the last sync started; unlike pending, this excludes the writers whose
+    // writes are synced but which haven't woken up yet
+    private final AtomicLong arrivals = new AtomicLong();
+    // writers which started waiting before the running sync started, only accessed by the sync thread
+    private long batchSize;
+
+    // whether the sync thread sleeps with no writer waiting, in which case the first one to arrive wakes it up
+    private volatile boolean idle;
+    private volatile long firstArrivalAt;
+
+    private volatile double averageSyncNanos;
+    private volatile double averageBatchSize = 1;
+
+    public GroupCommitLogService(CommitLog commitLog)
+    {
+        super(commitLog, "GROUP-COMMIT-LOG-WRITER", (int) Math.max(1, DatabaseDescriptor.getCommitLogSyncGroupWindow()));
+        this.maxWindowNanos = (long) (DatabaseDescriptor.getCommitLogSyncGroupWindow() * 1e6);
+    }
+
+    protected void maybeWaitForSync(CommitLogSegment.Allocation alloc)
+    {
+        // a full batch is synced right away, a partial one once the window elapsed
+        pending.incrementAndGet();
+        long arrived = arrivals.incrementAndGet();
+        if (arrived == 1)
+            firstArrivalAt = System.nanoTime();
+        if (arrived >= targetBatchSize() || (arrived == 1 && idle))
+            requestExtraSync();
+        alloc.awaitDiskSync(commitLog.metrics.waitingOnCommit);
+        pending.decrementAndGet();
+    }
+
+    @Override
+    protected void beforeSync()
+    {
+        // if the first writer of the batch woke the idle sync thread up, the batch still gets the window to fill up;
+        // the writers filling it wake the thread up again
+        if (idle)
+        {
+            idle = false;
+            long syncAt = firstArrivalAt + window();
+            long now;
+            while (arrivals.get() > 0 && arrivals.get() < targetBatchSize() && (now = System.nanoTime()) < syncAt)
+                LockSupport.parkNanos(syncAt - now);
+        }
+        batchSize = arrivals.getAndSet(0);
+    }
+
+    @Override
+    protected long nextSyncDelayNanos(long syncDuration)
+    {
+        // syncs nobody waited for are usually empty, and would skew the averages
+        if (batchSize > 0)
+        {
+            commitLog.metrics.syncBatchSize.update(batchSize);
+            averageBatchSize += ALPHA * (batchSize - averageBatchSize);
+            averageSyncNanos += ALPHA * (syncDuration - averageSyncNanos);
+        }
+
+        // the writes which arrived during the sync may already make up a batch, and if no write is waiting the
+        // thread sleeps until the next one comes, see maybeWaitForSync; idle is set before checking for writers,
+        // so that either this sees a writer arriving, or the writer sees the thread idle
+        idle = true;
+        long waiting = arrivals.get();
+        if (waiting > 0)
+            idle = false;
+        if (waiting >= targetBatchSize())
+            return 0;
+        return waiting == 0 ? maxWindowNanos : window();
+    }
+
+    /**
+     * @return the number of waiting writers which triggers a sync without waiting for the window to elapse.
+     */
+    @VisibleForTesting
+    long targetBatchSize()
+    {
+        return Math.max(1, Math.round(averageBatchSize));
+    }
+
+    /**
+     * @return how long to wait for a batch to fill up: waiting for longer than a sync takes buys little, as the
+     * writes arriving during a sync are grouped anyway.
+     */
+    @VisibleForTesting
+    long window()
+    {
+        return Math.min(maxWindowNanos, (long) averageSyncNanos);
+    }
+}
@@ -387,14 +387,14 @@ public abstract class AbstractCompactionStrategy
     }
 
     /**
-     * Check if given sstable is worth dropping tombstones at gcBefore.
-     * Check is skipped if tombstone_compaction_interval time does not elapse since sstable creation and returns false.
+     * Check if the given sstable is old enough, and has a large enough estimated ratio of droppable tombstones, to be
+     * worth a tombstone compaction, regardless of the sstables it overlaps.
      *
      * @param sstable SSTable to check
      * @param gcBefore time to drop tombstones
-     * @return true if given sstable's tombstones are expected to be removed
+     * @return true if the sstable is a candidate for a tombstone compaction
      */
-    protected boolean worthDroppingTombstones(SSTableReader sstable, int gcBefore)
+    protected boolean hasDroppableTombstones(SSTableReader sstable, int gcBefore)
     {
         if (disableTombstoneCompactions || CompactionController.NEVER_PURGE_TOMBSTONES)
             return false;
@@ -404,10 +404,24 @@ public abstract class AbstractCompactionStrategy
         if (System.currentTimeMillis() < sstable.getCreationTimeFor(Component.DATA) + tombstoneCompactionInterval * 1000)
            return false;
 
-        double droppableRatio = sstable.getEstimatedDroppableTombstoneRatio(gcBefore);
-        if (droppableRatio <= tombstoneThreshold)
+        return sstable.getEstimatedDroppableTombstoneRatio(gcBefore) > tombstoneThreshold;
+    }
+
+    /**
+     * Check if given sstable is worth dropping tombstones at gcBefore.
+     * Check is skipped if tombstone_compaction_interval time does not elapse since sstable creation and returns false.
+     *
+     * @param sstable SSTable to check
+     * @param gcBefore time to drop tombstones
+     * @return true if given sstable's tombstones are expected to be removed
+     */
+    protected boolean worthDroppingTombstones(SSTableReader sstable, int gcBefore)
+    {
+        if (!hasDroppableTombstones(sstable, gcBefore))
             return false;
 
+        double droppableRatio = sstable.getEstimatedDroppableTombstoneRatio(gcBefore);
+
         //sstable range overlap check is disabled. See CASSANDRA-6563.
         if (uncheckedTombstoneCompaction)
             return true;
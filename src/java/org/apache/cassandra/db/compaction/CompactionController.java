@@ -336,7 +336,9 @@ public class CompactionController implements AutoCloseable
             reader.getMaxTimestamp() <= minTimestamp ||
             tombstoneOnly && !reader.mayHaveTombstones())
             return null;
-        RowIndexEntry<?> position = reader.getPosition(key, SSTableReader.Operator.EQ);
+        // the bloom filter skips most sstables without the partition; don't let these lookups evict the key cache
+        // entries of reads, nor count in the bloom filter statistics
+        RowIndexEntry<?> position = reader.getPosition(key, SSTableReader.Operator.EQ, false);
         if (position == null)
             return null;
         FileDataInput dfile = openDataFiles.computeIfAbsent(reader, this::openDataFile);
@@ -362,6 +364,6 @@ public class CompactionController implements AutoCloseable
 
     private FileDataInput openDataFile(SSTableReader reader)
     {
-        return limiter != null ? reader.openDataReader(limiter) : reader.openDataReader();
+        return reader.openDataScanReader(limiter);
     }
 }
@@ -124,13 +124,25 @@ public class CompactionManager implements CompactionManagerMBean
     private final CompactionExecutor executor = new CompactionExecutor();
     private final CompactionExecutor validationExecutor = new ValidationExecutor();
     private final static CompactionExecutor cacheCleanupExecutor = new CacheCleanupExecutor();
+    // runs the sub-ranges of the compactions split by CompactionTask, which wait for them on the compaction executor;
+    // it has as many threads as there are compactors, and rejects the sub-ranges it has no thread for
+    final DebuggableThreadPoolExecutor subRangeExecutor = createSubRangeExecutor();
 
     private final CompactionMetrics metrics = new CompactionMetrics(executor, validationExecutor);
     private final Multiset<ColumnFamilyStore> compactingCF = ConcurrentHashMultiset.create();
 
     private final RateLimiter compactionRateLimiter = RateLimiter.create(Double.MAX_VALUE);
 
-    @VisibleForTesting
+    private static DebuggableThreadPoolExecutor createSubRangeExecutor()
+    {
+        DebuggableThreadPoolExecutor executor = new DebuggableThreadPoolExecutor(0, Math.max(1, DatabaseDescriptor.getConcurrentCompactors()),
+                                                                                 60L, TimeUnit.SECONDS,
+                                                                                 new SynchronousQueue<Runnable>(),
+                                                                                 new NamedThreadFactory("CompactionSubRangeExecutor", Thread.MIN_PRIORITY));
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
     CompactionMetrics getMetrics()
     {
         return metrics;
@@ -144,7 +156,7 @@ public class CompactionManager implements CompactionManagerMBean
      */
     public RateLimiter getRateLimiter()
     {
-        setRate(DatabaseDescriptor.getCompactionThroughputMbPerSec());
+        setRate(CompactionThroughputController.instance.getThroughputMbPerSec());
         return compactionRateLimiter;
     }
 
@@ -216,6 +228,7 @@ public class CompactionManager implements CompactionManagerMBean
         // shutdown executors to prevent further submission
         executor.shutdown();
         validationExecutor.shutdown();
+        subRangeExecutor.shutdown();
 
         // interrupt compactions and validations
         for (Holder compactionHolder : CompactionMetrics.getCompactions())
@@ -226,7 +239,7 @@ public class CompactionManager implements CompactionManagerMBean
         // wait for tasks to terminate
         // compaction tasks are interrupted above, so it shuold be fairy quick
         // until not interrupted tasks to complete.
-        for (ExecutorService exec : Arrays.asList(executor, validationExecutor))
+        for (ExecutorService exec : Arrays.asList(executor, validationExecutor, subRangeExecutor))
         {
             try
             {
@@ -913,6 +926,31 @@ public class CompactionManager implements CompactionManagerMBean
         return executor.submitIfRunning(runnable, "user defined task");
     }
 
+    /**
+     * Submits a compaction of the given sstables whose aim is to purge the tombstones they contain, as picked by the
+     * {@link TombstoneCompactionScheduler}. Nothing is compacted if any of the sstables has been compacted, or is being
+     * compacted, by the time the task runs.
+     */
+    public Future<?> submitTombstoneCompaction(final ColumnFamilyStore cfs, final Collection<SSTableReader> sstables, final int gcBefore)
+    {
+        Runnable runnable = new WrappedRunnable()
+        {
+            protected void runMayThrow()
+            {
+                for (AbstractCompactionTask task : cfs.getCompactionStrategyManager().getUserDefinedTasks(sstables, gcBefore))
+                {
+                    if (task != null)
+                    {
+                        task.setCompactionType(OperationType.TOMBSTONE_COMPACTION);
+                        task.execute(metrics);
+                    }
+                }
+            }
+        };
+
+        return executor.submitIfRunning(runnable, "tombstone compaction");
+    }
+
     // This acquire a reference on the sstable
     // This is not efficient, do not use in any critical path
     private SSTableReader lookupSSTable(final ColumnFamilyStore cfs, Descriptor descriptor)
@@ -1968,6 +2006,7 @@ public class CompactionManager implements CompactionManagerMBean
             executor.setCorePoolSize(value);
             executor.setMaximumPoolSize(value);
         }
+        subRangeExecutor.setMaximumPoolSize(Math.max(1, value));
     }
 
     public void setConcurrentValidations(int value)
@@ -1996,6 +2035,22 @@ public class CompactionManager implements CompactionManagerMBean
         executor.setMaximumPoolSize(number);
     }
 
+    public boolean getAdaptiveCompactionThroughput()
+    {
+        return DatabaseDescriptor.getAdaptiveCompactionThroughput();
+    }
+
+    public void setAdaptiveCompactionThroughput(boolean enabled)
+    {
+        DatabaseDescriptor.setAdaptiveCompactionThroughput(enabled);
+        CompactionThroughputController.instance.run();
+    }
+
+    public double getCurrentCompactionThroughputMbPerSec()
+    {
+        return CompactionThroughputController.instance.getThroughputMbPerSec();
+    }
+
     public int getCoreValidationThreads()
     {
         return validationExecutor.getCorePoolSize();
@@ -116,4 +116,21 @@ public interface CompactionManagerMBean
      * @param number New maximum of validator threads
      */
     public void setMaximumValidatorThreads(int number);
+
+    /**
+     * Returns whether the compaction throughput and concurrency adapt to the load of the node
+     */
+    public boolean getAdaptiveCompactionThroughput();
+
+    /**
+     * Enables or disables adapting the compaction throughput and concurrency to the load of the node. Once disabled,
+     * they go back to compaction_throughput_mb_per_sec and concurrent_compactors.
+     */
+    public void setAdaptiveCompactionThroughput(boolean enabled);
+
+    /**
+     * Returns the current compaction throughput limit in MB/s, which may have been adapted to the load of the node.
+     * 0 means unthrottled.
+     */
+    public double getCurrentCompactionThroughputMbPerSec();
 }
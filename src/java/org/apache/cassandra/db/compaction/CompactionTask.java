@@ -17,14 +17,24 @@
  */
 package org.apache.cassandra.db.compaction;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
@@ -33,6 +43,7 @@ import com.google.common.util.concurrent.RateLimiter;
 import org.apache.cassandra.db.Directories;
 import org.apache.cassandra.db.compaction.writers.CompactionAwareWriter;
 import org.apache.cassandra.db.compaction.writers.DefaultCompactionWriter;
+import org.apache.cassandra.db.compaction.writers.SubRangeCompactionWriter;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -40,12 +51,17 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.SystemKeyspace;
 import org.apache.cassandra.db.compaction.CompactionManager.CompactionExecutorStatsCollector;
 import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
 import org.apache.cassandra.service.ActiveRepairService;
 import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Pair;
+import org.apache.cassandra.utils.Throwables;
 import org.apache.cassandra.utils.concurrent.Refs;
 
 public class CompactionTask extends AbstractCompactionTask
@@ -54,6 +70,7 @@ public class CompactionTask extends AbstractCompactionTask
     protected final int gcBefore;
     protected final boolean keepOriginals;
     protected static long totalBytesCompacted = 0;
+    private static final int MAX_SAMPLES_PER_SUBRANGE = 128;
     private CompactionExecutorStatsCollector collector;
 
     public CompactionTask(ColumnFamilyStore cfs, LifecycleTransaction txn, int gcBefore)
@@ -157,7 +174,6 @@ public class CompactionTask extends AbstractCompactionTask
 
             logger.debug("Compacting ({}) {}", taskId, ssTableLoggerMsg);
 
-            RateLimiter limiter = CompactionManager.instance.getRateLimiter();
             long start = System.nanoTime();
             long startTime = System.currentTimeMillis();
             long totalKeysWritten = 0;
@@ -174,63 +190,45 @@ public class CompactionTask extends AbstractCompactionTask
             // to both ifile and dfile and SSTR will throw deletion errors on Windows if it tries to delete before scanner is closed.
             // See CASSANDRA-8019 and CASSANDRA-8399
             int nowInSec = FBUtilities.nowInSeconds();
-            try (Refs<SSTableReader> refs = Refs.ref(actuallyCompact);
-                 AbstractCompactionStrategy.ScannerList scanners = strategy.getScanners(actuallyCompact);
-                 CompactionIterator ci = new CompactionIterator(compactionType, scanners.scanners, controller, nowInSec, taskId))
+            List<Range<Token>> subRanges = getSubRanges(actuallyCompact);
+            CompactionResult result;
+            Refs<SSTableReader> refs = Refs.ref(actuallyCompact);
+            try
             {
-                long lastCheckObsoletion = start;
-                inputSizeBytes = scanners.getTotalCompressedSize();
-                double compressionRatio = scanners.getCompressionRatio();
-                if (compressionRatio == MetadataCollector.NO_COMPRESSION_RATIO)
-                    compressionRatio = 1.0;
-
-                long lastBytesScanned = 0;
-
-                if (!controller.cfs.getCompactionStrategyManager().isActive())
-                    throw new CompactionInterruptedException(ci.getCompactionInfo());
-
-                if (collector != null)
-                    collector.beginCompaction(ci);
-
-                try (CompactionAwareWriter writer = getCompactionAwareWriter(cfs, getDirectories(), transaction, actuallyCompact))
+                if (subRanges == null)
                 {
-                    estimatedKeys = writer.estimatedKeys();
-                    while (ci.hasNext())
+                    try (AbstractCompactionStrategy.ScannerList scanners = strategy.getScanners(actuallyCompact);
+                         CompactionAwareWriter writer = getCompactionAwareWriter(cfs, getDirectories(), transaction, actuallyCompact))
                     {
-                        if (ci.isStopRequested())
-                            throw new CompactionInterruptedException(ci.getCompactionInfo());
-
-                        if (writer.append(ci.next()))
-                            totalKeysWritten++;
-
-
-                        long bytesScanned = scanners.getTotalBytesScanned();
+                        inputSizeBytes = scanners.getTotalCompressedSize();
+                        estimatedKeys = writer.estimatedKeys();
+                        result = compact(scanners, controller, writer, nowInSec, taskId, () -> false);
 
-                        //Rate limit the scanners, and account for compression
-                        CompactionManager.compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio);
-
-                        lastBytesScanned = bytesScanned;
-
-                        if (System.nanoTime() - lastCheckObsoletion > TimeUnit.MINUTES.toNanos(1L))
-                        {
-                            controller.maybeRefreshOverlaps();
-                            lastCheckObsoletion = System.nanoTime();
-                        }
+                        // point of no return
+                        newSStables = writer.finish();
                     }
-
-                    // point of no return
-                    newSStables = writer.finish();
                 }
-                finally
+                else
                 {
-                    if (collector != null)
-                        collector.finishCompaction(ci);
-
-                    mergedRowCounts = ci.getMergedRowCounts();
+                    logger.debug("Compacting ({}) in {} sub-ranges {}", taskId, subRanges.size(), subRanges);
+                    try (SubRangeCompactionWriter writer = new SubRangeCompactionWriter(transaction, actuallyCompact, keepOriginals, subRanges.size()))
+                    {
+                        inputSizeBytes = SSTableReader.getTotalBytes(actuallyCompact);
+                        estimatedKeys = writer.estimatedKeys();
+                        result = compactSubRanges(writer, subRanges, actuallyCompact, nowInSec, taskId);
 
-                    totalSourceCQLRows = ci.getTotalSourceCQLRows();
+                        // point of no return
+                        newSStables = writer.finish();
+                    }
                 }
             }
+            finally
+            {
+                refs.release();
+            }
+            totalKeysWritten = result.keysWritten;
+            mergedRowCounts = result.mergedRowCounts;
+            totalSourceCQLRows = result.sourceCQLRows;
 
             if (transaction.isOffline())
             {
@@ -279,13 +277,283 @@ public class CompactionTask extends AbstractCompactionTask
         }
     }
 
+    /**
+     * Splits the token range of the given sstables into sub-ranges holding about the same amount of their data, as
+     * sampled by their index summaries, so that they can be compacted concurrently. Returns null if the compaction is
+     * too small to be split (see concurrent_compaction_subranges and min_compaction_subrange_size_in_mb).
+     */
+    @VisibleForTesting
+    List<Range<Token>> getSubRanges(Set<SSTableReader> sstables)
+    {
+        long totalBytes = SSTableReader.getTotalBytes(sstables);
+        long maxSubRanges = totalBytes / Math.max(1, DatabaseDescriptor.getMinCompactionSubRangeSize());
+        int count = (int) Math.min(DatabaseDescriptor.getConcurrentCompactionSubRanges(), maxSubRanges);
+        if (count <= 1)
+            return null;
+
+        Token minimum = cfs.getPartitioner().getMinimumToken();
+        Range<Token> fullRange = new Range<>(minimum, minimum);
+        List<Pair<Token, Double>> samples = new ArrayList<>();
+        double totalWeight = 0;
+        for (SSTableReader sstable : sstables)
+        {
+            // a few hundred samples per sub-range and sstable are more than enough to balance the sub-ranges
+            int step = Math.max(1, sstable.getIndexSummarySize() / (MAX_SAMPLES_PER_SUBRANGE * count));
+            List<Token> tokens = new ArrayList<>();
+            int i = 0;
+            for (DecoratedKey key : sstable.getKeySamples(fullRange))
+            {
+                if (i++ % step == 0)
+                    tokens.add(key.getToken());
+            }
+            double weight = (double) sstable.onDiskLength() / Math.max(1, tokens.size());
+            for (Token token : tokens)
+                samples.add(Pair.create(token, weight));
+            totalWeight += weight * tokens.size();
+        }
+        samples.sort(Comparator.comparing(sample -> sample.left));
+
+        List<Range<Token>> subRanges = new ArrayList<>(count);
+        Token left = minimum;
+        double weight = 0;
+        for (Pair<Token, Double> sample : samples)
+        {
+            weight += sample.right;
+            if (subRanges.size() < count - 1 && weight >= totalWeight * (subRanges.size() + 1) / count && sample.left.compareTo(left) > 0)
+            {
+                subRanges.add(new Range<>(left, sample.left));
+                left = sample.left;
+            }
+        }
+        if (subRanges.isEmpty())
+            return null;
+        subRanges.add(new Range<>(left, minimum));
+        return subRanges;
+    }
+
+    /**
+     * Merges the partitions of the given scanners into the given writer, rate limited and reported to the compaction
+     * manager as a compaction of its own.
+     *
+     * @param stopRequested checked before each partition, along with the stop requests of the compaction manager
+     */
+    private CompactionResult compact(AbstractCompactionStrategy.ScannerList scanners,
+                                     CompactionController controller,
+                                     CompactionAwareWriter writer,
+                                     int nowInSec,
+                                     UUID taskId,
+                                     BooleanSupplier stopRequested)
+    {
+        RateLimiter limiter = CompactionManager.instance.getRateLimiter();
+        try (CompactionIterator ci = new CompactionIterator(compactionType, scanners.scanners, controller, nowInSec, taskId))
+        {
+            long lastCheckObsoletion = System.nanoTime();
+            double compressionRatio = scanners.getCompressionRatio();
+            if (compressionRatio == MetadataCollector.NO_COMPRESSION_RATIO)
+                compressionRatio = 1.0;
+
+            long lastBytesScanned = 0;
+            long keysWritten = 0;
+
+            if (!controller.cfs.getCompactionStrategyManager().isActive())
+                throw new CompactionInterruptedException(ci.getCompactionInfo());
+
+            if (collector != null)
+                collector.beginCompaction(ci);
+
+            try
+            {
+                while (ci.hasNext())
+                {
+                    if (ci.isStopRequested() || stopRequested.getAsBoolean())
+                        throw new CompactionInterruptedException(ci.getCompactionInfo());
+
+                    if (writer.append(ci.next()))
+                        keysWritten++;
+
+
+                    long bytesScanned = scanners.getTotalBytesScanned();
+
+                    //Rate limit the scanners, and account for compression
+                    CompactionManager.compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio);
+
+                    lastBytesScanned = bytesScanned;
+
+                    if (System.nanoTime() - lastCheckObsoletion > TimeUnit.MINUTES.toNanos(1L))
+                    {
+                        controller.maybeRefreshOverlaps();
+                        lastCheckObsoletion = System.nanoTime();
+                    }
+                }
+            }
+            finally
+            {
+                if (collector != null)
+                    collector.finishCompaction(ci);
+            }
+            return new CompactionResult(keysWritten, ci.getMergedRowCounts(), ci.getTotalSourceCQLRows());
+        }
+    }
+
+    /**
+     * Compacts the given sub-ranges concurrently into their own writers, all owned by the given writer, and waits for
+     * all of them. The first one, and those the sub-range executor has no thread for, are compacted on the calling
+     * thread.
+     */
+    private CompactionResult compactSubRanges(SubRangeCompactionWriter owner, List<Range<Token>> subRanges, Set<SSTableReader> sstables, int nowInSec, UUID taskId)
+    {
+        List<SubRangeCompaction> compactions = new ArrayList<>(subRanges.size());
+        for (Range<Token> subRange : subRanges)
+        {
+            CompactionAwareWriter writer = getCompactionAwareWriter(cfs, getDirectories(), transaction, sstables, owner);
+            compactions.add(new SubRangeCompaction(compactions, subRange, sstables, writer, nowInSec, taskId));
+        }
+
+        List<Future<?>> futures = new ArrayList<>(compactions.size() - 1);
+        Throwable failure = null;
+        try
+        {
+            List<SubRangeCompaction> inline = new ArrayList<>();
+            inline.add(compactions.get(0));
+            for (SubRangeCompaction compaction : compactions.subList(1, compactions.size()))
+            {
+                try
+                {
+                    futures.add(CompactionManager.instance.subRangeExecutor.submit(compaction));
+                }
+                catch (RejectedExecutionException e)
+                {
+                    inline.add(compaction);
+                }
+            }
+            for (SubRangeCompaction compaction : inline)
+                compaction.run();
+        }
+        catch (Throwable t)
+        {
+            failure = t;
+            stopSubRanges(compactions);
+        }
+
+        for (Future<?> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (ExecutionException e)
+            {
+                failure = Throwables.merge(failure, e.getCause());
+            }
+            catch (InterruptedException e)
+            {
+                stopSubRanges(compactions);
+                failure = Throwables.merge(failure, e);
+            }
+        }
+        Throwables.maybeFail(failure);
+
+        long keysWritten = 0;
+        long[] mergedRowCounts = new long[0];
+        long sourceCQLRows = 0;
+        for (SubRangeCompaction compaction : compactions)
+        {
+            keysWritten += compaction.result.keysWritten;
+            sourceCQLRows += compaction.result.sourceCQLRows;
+            if (compaction.result.mergedRowCounts.length > mergedRowCounts.length)
+                mergedRowCounts = Arrays.copyOf(mergedRowCounts, compaction.result.mergedRowCounts.length);
+            for (int i = 0; i < compaction.result.mergedRowCounts.length; i++)
+                mergedRowCounts[i] += compaction.result.mergedRowCounts[i];
+        }
+        return new CompactionResult(keysWritten, mergedRowCounts, sourceCQLRows);
+    }
+
+    private static void stopSubRanges(List<SubRangeCompaction> compactions)
+    {
+        for (SubRangeCompaction compaction : compactions)
+            compaction.stopRequested = true;
+    }
+
+    private static class CompactionResult
+    {
+        private final long keysWritten;
+        private final long[] mergedRowCounts;
+        private final long sourceCQLRows;
+
+        private CompactionResult(long keysWritten, long[] mergedRowCounts, long sourceCQLRows)
+        {
+            this.keysWritten = keysWritten;
+            this.mergedRowCounts = mergedRowCounts;
+            this.sourceCQLRows = sourceCQLRows;
+        }
+    }
+
+    /**
+     * The compaction of one of the token sub-ranges of this task into its own writer.
+     */
+    private class SubRangeCompaction implements Runnable
+    {
+        private final List<SubRangeCompaction> siblings;
+        private final Range<Token> range;
+        private final Set<SSTableReader> sstables;
+        private final CompactionAwareWriter writer;
+        private final int nowInSec;
+        private final UUID taskId;
+        private volatile boolean stopRequested;
+        private CompactionResult result;
+
+        private SubRangeCompaction(List<SubRangeCompaction> siblings,
+                                   Range<Token> range,
+                                   Set<SSTableReader> sstables,
+                                   CompactionAwareWriter writer,
+                                   int nowInSec,
+                                   UUID taskId)
+        {
+            this.siblings = siblings;
+            this.range = range;
+            this.sstables = sstables;
+            this.writer = writer;
+            this.nowInSec = nowInSec;
+            this.taskId = taskId;
+        }
+
+        public void run()
+        {
+            // each sub-range uses its own controller, as they aren't thread-safe
+            try (CompactionController controller = getCompactionController(transaction.originals());
+                 AbstractCompactionStrategy.ScannerList scanners = cfs.getCompactionStrategyManager().getScanners(sstables, Collections.singleton(range)))
+            {
+                result = compact(scanners, controller, writer, nowInSec, taskId, () -> stopRequested);
+            }
+            catch (Throwable t)
+            {
+                // there is no point in finishing the other sub-ranges
+                stopSubRanges(siblings);
+                throw t;
+            }
+        }
+    }
+
     @Override
     public CompactionAwareWriter getCompactionAwareWriter(ColumnFamilyStore cfs,
                                                           Directories directories,
                                                           LifecycleTransaction transaction,
                                                           Set<SSTableReader> nonExpiredSSTables)
     {
-        return new DefaultCompactionWriter(cfs, directories, transaction, nonExpiredSSTables, keepOriginals, getLevel());
+        return getCompactionAwareWriter(cfs, directories, transaction, nonExpiredSSTables, null);
+    }
+
+    /**
+     * @param subRangeOwner if not null, the writer commits the sstables of the returned one, which only writes one of
+     *                      the token sub-ranges of the compaction
+     */
+    public CompactionAwareWriter getCompactionAwareWriter(ColumnFamilyStore cfs,
+                                                          Directories directories,
+                                                          LifecycleTransaction transaction,
+                                                          Set<SSTableReader> nonExpiredSSTables,
+                                                          SubRangeCompactionWriter subRangeOwner)
+    {
+        return new DefaultCompactionWriter(cfs, directories, transaction, nonExpiredSSTables, keepOriginals, getLevel(), subRangeOwner);
     }
 
     public static String updateCompactionHistory(String keyspaceName, String columnFamilyName, long[] mergedRowCounts, long startSize, long endSize)
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.metrics.CompactionMetrics;
+import org.apache.cassandra.metrics.TableMetrics;
+
+/**
+ * Adapts the compaction throughput and the number of concurrent compactions to the load of the node, when
+ * adaptive_compaction_throughput is enabled.
+ *
+ * Every {@link #INTERVAL_SECONDS}, the controller compares the 99th percentile of the local read and write latencies
+ * to their targets: if either is above its target, compactions are slowed down and fewer of them run at the same
+ * time. Otherwise, if there are more pending compactions than compaction threads, compactions are sped up and, as
+ * long as the data directories aren't close to full, more of them are allowed to run at the same time. The throughput
+ * stays between min_compaction_throughput_mb_per_sec and max_compaction_throughput_mb_per_sec, and the concurrency
+ * between 1 and concurrent_compactors.
+ */
+public class CompactionThroughputController implements Runnable
+{
+    private static final Logger logger = LoggerFactory.getLogger(CompactionThroughputController.class);
+
+    public static final CompactionThroughputController instance = new CompactionThroughputController();
+
+    public static final long INTERVAL_SECONDS = Long.getLong("cassandra.adaptive_compaction_interval_seconds", 10);
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double INCREASE_FACTOR = 1.25;
+    private static final double DECREASE_FACTOR = 0.75;
+    // more concurrent compactions need more temporary space, so stop adding some past this usage of the data directories
+    private static final double MAX_DISK_USAGE = 0.9;
+
+    private volatile boolean active;
+    private volatile double throughputMbPerSec;
+    private volatile int concurrency;
+
+    private CompactionThroughputController()
+    {
+    }
+
+    public void run()
+    {
+        if (!DatabaseDescriptor.getAdaptiveCompactionThroughput())
+        {
+            if (active)
+                deactivate();
+            return;
+        }
+
+        // the latencies are recorded in nanoseconds
+        update(TableMetrics.globalReadLatency.latency.getSnapshot().get99thPercentile() / NANOS_PER_MILLI,
+               TableMetrics.globalWriteLatency.latency.getSnapshot().get99thPercentile() / NANOS_PER_MILLI,
+               CompactionManager.instance.getPendingTasks(),
+               maxDiskUsage());
+    }
+
+    /**
+     * Adjusts the throughput and concurrency of compactions to the given observations of the load of the node.
+     *
+     * @param readLatencyMs the 99th percentile of the recent local read latencies, in milliseconds
+     * @param writeLatencyMs the 99th percentile of the recent local write latencies, in milliseconds
+     * @param pendingTasks the number of pending and running compactions
+     * @param diskUsage the used fraction of the fullest data directory
+     */
+    @VisibleForTesting
+    synchronized void update(double readLatencyMs, double writeLatencyMs, int pendingTasks, double diskUsage)
+    {
+        double minThroughput = DatabaseDescriptor.getMinCompactionThroughputMbPerSec();
+        double maxThroughput = Math.max(minThroughput, DatabaseDescriptor.getMaxCompactionThroughputMbPerSec());
+        int maxConcurrency = DatabaseDescriptor.getConcurrentCompactors();
+        if (!active)
+        {
+            int configured = DatabaseDescriptor.getCompactionThroughputMbPerSec();
+            throughputMbPerSec = configured == 0 ? maxThroughput : configured;
+            concurrency = maxConcurrency;
+            active = true;
+        }
+
+        double throughput = throughputMbPerSec;
+        int threads = concurrency;
+        if (readLatencyMs > DatabaseDescriptor.getAdaptiveCompactionReadLatencyTargetMs()
+            || writeLatencyMs > DatabaseDescriptor.getAdaptiveCompactionWriteLatencyTargetMs())
+        {
+            throughput *= DECREASE_FACTOR;
+            threads--;
+        }
+        else if (pendingTasks > threads)
+        {
+            throughput *= INCREASE_FACTOR;
+            if (diskUsage < MAX_DISK_USAGE)
+                threads++;
+        }
+        throughput = Math.max(minThroughput, Math.min(maxThroughput, throughput));
+        threads = Math.max(1, Math.min(maxConcurrency, threads));
+
+        CompactionMetrics metrics = CompactionManager.instance.getMetrics();
+        if (throughput > throughputMbPerSec)
+            metrics.throughputIncreases.inc();
+        else if (throughput < throughputMbPerSec)
+            metrics.throughputDecreases.inc();
+
+        if (throughput != throughputMbPerSec || threads != concurrency)
+        {
+            logger.debug("Adapting compaction to read p99 {}ms, write p99 {}ms, {} pending compactions and {}% disk usage: throughput {} -> {} MB/s, concurrency {} -> {}",
+                         readLatencyMs, writeLatencyMs, pendingTasks, (int) (diskUsage * 100), throughputMbPerSec, throughput, concurrency, threads);
+        }
+        throughputMbPerSec = throughput;
+        concurrency = threads;
+        CompactionManager.instance.setRate(throughput);
+        CompactionManager.instance.setConcurrentCompactors(threads);
+    }
+
+    /**
+     * Goes back to the configured compaction throughput and concurrency.
+     */
+    private synchronized void deactivate()
+    {
+        active = false;
+        CompactionManager.instance.setRate(DatabaseDescriptor.getCompactionThroughputMbPerSec());
+        CompactionManager.instance.setConcurrentCompactors(DatabaseDescriptor.getConcurrentCompactors());
+        logger.debug("Stopped adapting compaction throughput and concurrency");
+    }
+
+    /**
+     * @return the compaction throughput the rate limiter should allow, in MB/s: the adapted one if the controller is
+     * active, the configured one otherwise
+     */
+    public double getThroughputMbPerSec()
+    {
+        return active && DatabaseDescriptor.getAdaptiveCompactionThroughput()
+               ? throughputMbPerSec
+               : DatabaseDescriptor.getCompactionThroughputMbPerSec();
+    }
+
+    private static double maxDiskUsage()
+    {
+        double usage = 0;
+        for (Directories.DataDirectory directory : Directories.dataDirectories)
+        {
+            long total = FileUtils.getTotalSpace(directory.location);
+            if (total > 0)
+                usage = Math.max(usage, 1 - (double) FileUtils.getUsableSpace(directory.location) / total);
+        }
+        return usage;
+    }
+}
@@ -24,6 +24,7 @@ import java.util.function.Predicate;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.compaction.writers.CompactionAwareWriter;
 import org.apache.cassandra.db.compaction.writers.MaxSSTableSizeWriter;
+import org.apache.cassandra.db.compaction.writers.SubRangeCompactionWriter;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
 
@@ -79,9 +80,10 @@ public class SSTableSplitter
         public CompactionAwareWriter getCompactionAwareWriter(ColumnFamilyStore cfs,
                                                               Directories directories,
                                                               LifecycleTransaction txn,
-                                                              Set<SSTableReader> nonExpiredSSTables)
+                                                              Set<SSTableReader> nonExpiredSSTables,
+                                                              SubRangeCompactionWriter subRangeOwner)
         {
-            return new MaxSSTableSizeWriter(cfs, directories, txn, nonExpiredSSTables, sstableSizeInMB * 1024L * 1024L, 0, false);
+            return new MaxSSTableSizeWriter(cfs, directories, txn, nonExpiredSSTables, sstableSizeInMB * 1024L * 1024L, 0, false, subRangeOwner);
         }
 
         @Override
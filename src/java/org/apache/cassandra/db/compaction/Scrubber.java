@@ -120,8 +120,8 @@ public class Scrubber implements Closeable
         // row header (key or data size) is corrupt. (This means our position in the index file will be one row
         // "ahead" of the data file.)
         this.dataFile = transaction.isOffline()
-                        ? sstable.openDataReader()
-                        : sstable.openDataReader(CompactionManager.instance.getRateLimiter());
+                        ? sstable.openDataScanReader(null)
+                        : sstable.openDataScanReader(CompactionManager.instance.getRateLimiter());
 
         this.indexFile = hasIndexFile
                 ? RandomAccessReader.open(new File(sstable.descriptor.filenameFor(Component.PRIMARY_INDEX)))
@@ -30,6 +30,7 @@ import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.Directories;
 import org.apache.cassandra.db.compaction.writers.CompactionAwareWriter;
 import org.apache.cassandra.db.compaction.writers.SplittingSizeTieredCompactionWriter;
+import org.apache.cassandra.db.compaction.writers.SubRangeCompactionWriter;
 import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
@@ -352,9 +353,10 @@ public class SizeTieredCompactionStrategy extends AbstractCompactionStrategy
         public CompactionAwareWriter getCompactionAwareWriter(ColumnFamilyStore cfs,
                                                               Directories directories,
                                                               LifecycleTransaction txn,
-                                                              Set<SSTableReader> nonExpiredSSTables)
+                                                              Set<SSTableReader> nonExpiredSSTables,
+                                                              SubRangeCompactionWriter subRangeOwner)
         {
-            return new SplittingSizeTieredCompactionWriter(cfs, directories, txn, nonExpiredSSTables);
+            return new SplittingSizeTieredCompactionWriter(cfs, directories, txn, nonExpiredSSTables, SplittingSizeTieredCompactionWriter.DEFAULT_SMALLEST_SSTABLE_BYTES, subRangeOwner);
         }
     }
 }
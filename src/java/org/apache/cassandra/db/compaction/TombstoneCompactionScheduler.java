@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.utils.FBUtilities;
+
+/**
+ * Proactively compacts the sstables with the most purgeable tombstones, when tombstone_compaction_budget_in_mb is set.
+ *
+ * The compaction strategies only look for single-sstable tombstone compactions when they have nothing else to do, and
+ * those often can't drop much because the tombstones may still shadow data in the sstables they overlap. Instead,
+ * every {@link #INTERVAL_SECONDS}, this scheduler picks the sstables whose estimated ratio of droppable tombstones is
+ * over their strategy's tombstone_threshold, and groups each of them with the live sstables it overlaps that hold data
+ * at least as old as its newest cell, so that the tombstones are purgeable within the group. The groups of all tables
+ * are ranked by estimated purgeable bytes, and the best disjoint ones are compacted as long as the total size of the
+ * sstables being compacted by the scheduler stays within the budget.
+ */
+public class TombstoneCompactionScheduler implements Runnable
+{
+    private static final Logger logger = LoggerFactory.getLogger(TombstoneCompactionScheduler.class);
+
+    public static final TombstoneCompactionScheduler instance = new TombstoneCompactionScheduler();
+
+    public static final long INTERVAL_SECONDS = Long.getLong("cassandra.tombstone_compaction_scheduler_interval_seconds", 60);
+
+    // the compactions submitted by the scheduler that haven't finished yet, with the size of their input sstables
+    private final Map<Future<?>, Long> inFlight = new HashMap<>();
+
+    private TombstoneCompactionScheduler()
+    {
+    }
+
+    public synchronized void run()
+    {
+        long budget = DatabaseDescriptor.getTombstoneCompactionBudget();
+        if (budget <= 0)
+            return;
+
+        inFlight.keySet().removeIf(Future::isDone);
+        long used = 0;
+        for (long bytes : inFlight.values())
+            used += bytes;
+        if (used >= budget)
+            return;
+
+        int nowInSec = FBUtilities.nowInSeconds();
+        List<Candidate> candidates = new ArrayList<>();
+        for (Keyspace keyspace : Keyspace.all())
+        {
+            for (ColumnFamilyStore cfs : keyspace.getColumnFamilyStores())
+            {
+                if (cfs.getCompactionStrategyManager().isEnabled())
+                    candidates.addAll(getCandidates(cfs, CompactionManager.getDefaultGcBefore(cfs, nowInSec)));
+            }
+        }
+        Collections.sort(candidates);
+
+        Set<SSTableReader> picked = new HashSet<>();
+        for (Candidate candidate : candidates)
+        {
+            if (used + candidate.totalBytes > budget || !Collections.disjoint(picked, candidate.sstables))
+                continue;
+
+            logger.debug("Submitting a tombstone compaction of {} with an estimated {} purgeable bytes out of {}",
+                         candidate.sstables, candidate.purgeableBytes, candidate.totalBytes);
+            picked.addAll(candidate.sstables);
+            used += candidate.totalBytes;
+            inFlight.put(CompactionManager.instance.submitTombstoneCompaction(candidate.cfs, candidate.sstables, candidate.gcBefore),
+                         candidate.totalBytes);
+        }
+    }
+
+    /**
+     * Finds the groups of sstables of the given table that are worth compacting together to purge tombstones.
+     *
+     * @param cfs the table
+     * @param gcBefore the time before which tombstones can be dropped
+     * @return the groups of sstables, best first, one per sstable with enough droppable tombstones; they may overlap
+     */
+    @VisibleForTesting
+    static List<Candidate> getCandidates(ColumnFamilyStore cfs, int gcBefore)
+    {
+        CompactionStrategyManager manager = cfs.getCompactionStrategyManager();
+        Set<SSTableReader> compacting = cfs.getTracker().getCompacting();
+        List<Candidate> candidates = new ArrayList<>();
+        for (SSTableReader sstable : cfs.getLiveSSTables())
+        {
+            if (compacting.contains(sstable) || sstable.isMarkedSuspect())
+                continue;
+
+            AbstractCompactionStrategy strategy = manager.getCompactionStrategyFor(sstable);
+            if (!strategy.hasDroppableTombstones(sstable, gcBefore))
+                continue;
+
+            // only the overlapping sstables with data older than the newest cell of this one can stop its tombstones
+            // from being purged, and they have to be compacted by the same strategy to be compacted together
+            Set<SSTableReader> group = new HashSet<>();
+            group.add(sstable);
+            boolean overlapsCompacting = false;
+            for (SSTableReader overlap : cfs.getOverlappingLiveSSTables(Collections.singleton(sstable)))
+            {
+                if (overlap.getMinTimestamp() > sstable.getMaxTimestamp() || manager.getCompactionStrategyFor(overlap) != strategy)
+                    continue;
+                if (compacting.contains(overlap))
+                {
+                    overlapsCompacting = true;
+                    break;
+                }
+                group.add(overlap);
+            }
+            // the tombstones may be purged by the ongoing compaction, so let's check again once it's done
+            if (overlapsCompacting)
+                continue;
+
+            long purgeableBytes = 0;
+            long totalBytes = 0;
+            for (SSTableReader member : group)
+            {
+                purgeableBytes += (long) (member.getEstimatedDroppableTombstoneRatio(gcBefore) * member.onDiskLength());
+                totalBytes += member.onDiskLength();
+            }
+            candidates.add(new Candidate(cfs, group, gcBefore, purgeableBytes, totalBytes));
+        }
+        Collections.sort(candidates);
+        return candidates;
+    }
+
+    @VisibleForTesting
+    static class Candidate implements Comparable<Candidate>
+    {
+        final ColumnFamilyStore cfs;
+        final Set<SSTableReader> sstables;
+        final int gcBefore;
+        final long purgeableBytes;
+        final long totalBytes;
+
+        Candidate(ColumnFamilyStore cfs, Set<SSTableReader> sstables, int gcBefore, long purgeableBytes, long totalBytes)
+        {
+            this.cfs = cfs;
+            this.sstables = sstables;
+            this.gcBefore = gcBefore;
+            this.purgeableBytes = purgeableBytes;
+            this.totalBytes = totalBytes;
+        }
+
+        // the most purgeable bytes first, and the cheapest to compact among equals
+        public int compareTo(Candidate other)
+        {
+            int cmp = Long.compare(other.purgeableBytes, purgeableBytes);
+            return cmp != 0 ? cmp : Long.compare(totalBytes, other.totalBytes);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.util.*;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.db.PartitionPosition;
+import org.apache.cassandra.db.compaction.writers.CompactionAwareWriter;
+import org.apache.cassandra.db.compaction.writers.ShardedCompactionWriter;
+import org.apache.cassandra.db.compaction.writers.SubRangeCompactionWriter;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.schema.CompactionParams;
+import org.apache.cassandra.service.StorageService;
+
+import static com.google.common.collect.Iterables.filter;
+
+/**
+ * A compaction strategy that organizes sstables in levels of exponentially growing density, and that can be tuned
+ * between tiering and leveling through a single scaling parameter (see {@link UnifiedCompactionStrategyOptions}).
+ * <p>
+ * The density of an sstable is its size divided by the fraction of the node's token ranges it covers, that is the size
+ * the sstable would have if it covered all the data of the node. Level 0 holds the sstables of density below
+ * {@code min_sstable_size}, and each following level sstables up to {@code fanout} times denser than the previous one.
+ * A compaction is triggered once {@code threshold} sstables of a level overlap: with a tiered scaling parameter, the
+ * threshold is the fanout and sstables are rewritten about once per level, like with size tiered compaction. With a
+ * leveled one, the threshold is 2 and each level is kept as a single run, like with leveled compaction.
+ * <p>
+ * The output of compactions is split at fixed shard boundaries (see {@link StorageService#getShardBoundaries}), so that
+ * sstables of different shards never overlap and the compactions of the different shards of a level can run in
+ * parallel. Outputs that would produce shards smaller than {@code min_sstable_size} aren't split.
+ */
+public class UnifiedCompactionStrategy extends AbstractCompactionStrategy
+{
+    private static final Logger logger = LoggerFactory.getLogger(UnifiedCompactionStrategy.class);
+
+    protected UnifiedCompactionStrategyOptions unifiedOptions;
+    protected volatile int estimatedRemainingTasks;
+    private final Set<SSTableReader> sstables = new HashSet<>();
+
+    // the shard boundaries only change with the ring, so they are cached until its version changes
+    private List<PartitionPosition> shardBoundaries;
+    private long shardBoundariesRingVersion = -1;
+
+    public UnifiedCompactionStrategy(ColumnFamilyStore cfs, Map<String, String> options)
+    {
+        super(cfs, options);
+        this.estimatedRemainingTasks = 0;
+        this.unifiedOptions = new UnifiedCompactionStrategyOptions(options);
+    }
+
+    private synchronized List<SSTableReader> getNextBackgroundSSTables(final int gcBefore)
+    {
+        List<SSTableReader> candidates = Lists.newArrayList(filterSuspectSSTables(filter(cfs.getUncompactingSSTables(), sstables::contains)));
+        List<List<SSTableReader>> buckets = getBuckets(candidates, shardBoundaries(), unifiedOptions.minSSTableSize, unifiedOptions.fanout());
+        logger.trace("Compaction buckets are {}", buckets);
+
+        int threshold = unifiedOptions.threshold();
+        int maxThreshold = Math.max(threshold, cfs.getMaximumCompactionThreshold());
+        List<SSTableReader> mostOverlapping = Collections.emptyList();
+        int remainingTasks = 0;
+        for (List<SSTableReader> bucket : buckets)
+        {
+            if (bucket.size() < threshold)
+                continue;
+
+            remainingTasks += Math.ceil((double) bucket.size() / maxThreshold);
+            // buckets are ordered by level, so on ties the lowest level, which is the cheapest to compact, is picked
+            if (bucket.size() > mostOverlapping.size())
+                mostOverlapping = bucket;
+        }
+        estimatedRemainingTasks = remainingTasks;
+        cfs.getCompactionStrategyManager().compactionLogger.pending(this, estimatedRemainingTasks);
+
+        if (!mostOverlapping.isEmpty())
+        {
+            // compact the least dense sstables first, they are the closest to the density of the level
+            mostOverlapping.sort(Comparator.comparingLong(SSTableReader::onDiskLength));
+            return mostOverlapping.subList(0, Math.min(mostOverlapping.size(), maxThreshold));
+        }
+
+        // if there is no sstable to compact in standard way, try compacting single sstable whose droppable tombstone
+        // ratio is greater than threshold.
+        List<SSTableReader> sstablesWithTombstones = new ArrayList<>();
+        for (SSTableReader sstable : candidates)
+        {
+            if (worthDroppingTombstones(sstable, gcBefore))
+                sstablesWithTombstones.add(sstable);
+        }
+        if (sstablesWithTombstones.isEmpty())
+            return Collections.emptyList();
+
+        return Collections.singletonList(Collections.max(sstablesWithTombstones, SSTableReader.sizeComparator));
+    }
+
+    /**
+     * Groups the sstables by level, and then by shard: each returned bucket contains the sstables of a level that
+     * overlap a given shard. Buckets are ordered by level, and adjacent shards with the same sstables share a bucket.
+     *
+     * @param shardBoundaries the upper bounds of the shards, or null if there is a single shard
+     */
+    @VisibleForTesting
+    static List<List<SSTableReader>> getBuckets(Collection<SSTableReader> sstables, List<PartitionPosition> shardBoundaries, long minSSTableSize, int fanout)
+    {
+        int shardCount = shardBoundaries == null ? 1 : shardBoundaries.size();
+        SortedMap<Integer, List<List<SSTableReader>>> levels = new TreeMap<>();
+        for (SSTableReader sstable : sstables)
+        {
+            int firstShard = shardIndex(sstable.first, shardBoundaries);
+            int lastShard = shardIndex(sstable.last, shardBoundaries);
+            double density = (double) sstable.onDiskLength() * shardCount / (lastShard - firstShard + 1);
+
+            List<List<SSTableReader>> shards = levels.computeIfAbsent(level(density, minSSTableSize, fanout), l -> {
+                List<List<SSTableReader>> buckets = new ArrayList<>(shardCount);
+                for (int i = 0; i < shardCount; i++)
+                    buckets.add(new ArrayList<>());
+                return buckets;
+            });
+            for (int i = firstShard; i <= lastShard; i++)
+                shards.get(i).add(sstable);
+        }
+
+        List<List<SSTableReader>> buckets = new ArrayList<>();
+        for (List<List<SSTableReader>> shards : levels.values())
+        {
+            List<SSTableReader> previous = null;
+            for (List<SSTableReader> bucket : shards)
+            {
+                // sstables spanning several shards make adjacent shards have the same overlapping sstables
+                if (!bucket.isEmpty() && !bucket.equals(previous))
+                    buckets.add(bucket);
+                previous = bucket;
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Level 0 is for densities below {@code minSSTableSize}, and level {@code n} for densities between
+     * {@code minSSTableSize * fanout^(n-1)} and {@code minSSTableSize * fanout^n}.
+     */
+    @VisibleForTesting
+    static int level(double density, long minSSTableSize, int fanout)
+    {
+        double base = Math.max(1, minSSTableSize);
+        if (density < base)
+            return 0;
+        return 1 + (int) Math.floor(Math.log(density / base) / Math.log(fanout));
+    }
+
+    private static int shardIndex(PartitionPosition key, List<PartitionPosition> shardBoundaries)
+    {
+        if (shardBoundaries == null)
+            return 0;
+
+        int index = Collections.binarySearch(shardBoundaries, key);
+        return index >= 0 ? index : Math.min(-index - 1, shardBoundaries.size() - 1);
+    }
+
+    /**
+     * The upper bounds of the shards, or null if there is a single shard or the ranges owned by the node aren't known
+     * yet. They are only recomputed when the ring changes.
+     */
+    @VisibleForTesting
+    synchronized List<PartitionPosition> shardBoundaries()
+    {
+        if (unifiedOptions.numShards <= 1)
+            return null;
+
+        long ringVersion = StorageService.instance.getTokenMetadata().getRingVersion();
+        if (shardBoundaries == null || ringVersion != shardBoundariesRingVersion)
+        {
+            shardBoundaries = StorageService.getShardBoundaries(cfs, unifiedOptions.numShards);
+            shardBoundariesRingVersion = ringVersion;
+        }
+        return shardBoundaries;
+    }
+
+    /**
+     * The shard boundaries to split the result of compacting the given sstables at, or null if the output shouldn't be
+     * split because the resulting sstables would be smaller than {@code min_sstable_size}.
+     */
+    @VisibleForTesting
+    List<PartitionPosition> outputShardBoundaries(Collection<SSTableReader> sstables)
+    {
+        List<PartitionPosition> shardBoundaries = shardBoundaries();
+        if (shardBoundaries == null)
+            return null;
+
+        long totalSize = 0;
+        int firstShard = shardBoundaries.size() - 1;
+        int lastShard = 0;
+        for (SSTableReader sstable : sstables)
+        {
+            totalSize += sstable.onDiskLength();
+            firstShard = Math.min(firstShard, shardIndex(sstable.first, shardBoundaries));
+            lastShard = Math.max(lastShard, shardIndex(sstable.last, shardBoundaries));
+        }
+        int coveredShards = Math.max(1, lastShard - firstShard + 1);
+        return totalSize / coveredShards < unifiedOptions.minSSTableSize ? null : shardBoundaries;
+    }
+
+    @SuppressWarnings("resource")
+    public AbstractCompactionTask getNextBackgroundTask(int gcBefore)
+    {
+        while (true)
+        {
+            List<SSTableReader> toCompact = getNextBackgroundSSTables(gcBefore);
+
+            if (toCompact.isEmpty())
+                return null;
+
+            LifecycleTransaction transaction = cfs.getTracker().tryModify(toCompact, OperationType.COMPACTION);
+            if (transaction != null)
+                return new ShardedCompactionTask(cfs, transaction, gcBefore);
+        }
+    }
+
+    @SuppressWarnings("resource")
+    public Collection<AbstractCompactionTask> getMaximalTask(final int gcBefore, boolean splitOutput)
+    {
+        Iterable<SSTableReader> filteredSSTables = filterSuspectSSTables(sstables);
+        if (Iterables.isEmpty(filteredSSTables))
+            return null;
+        LifecycleTransaction txn = cfs.getTracker().tryModify(filteredSSTables, OperationType.COMPACTION);
+        if (txn == null)
+            return null;
+        return Collections.<AbstractCompactionTask>singletonList(new ShardedCompactionTask(cfs, txn, gcBefore));
+    }
+
+    @SuppressWarnings("resource")
+    public AbstractCompactionTask getUserDefinedTask(Collection<SSTableReader> sstables, final int gcBefore)
+    {
+        assert !sstables.isEmpty(); // checked for by CM.submitUserDefined
+
+        LifecycleTransaction transaction = cfs.getTracker().tryModify(sstables, OperationType.COMPACTION);
+        if (transaction == null)
+        {
+            logger.trace("Unable to mark {} for compaction; probably a background compaction got to it first.  You can disable background compactions temporarily if this is a problem", sstables);
+            return null;
+        }
+
+        return new ShardedCompactionTask(cfs, transaction, gcBefore).setUserDefined(true);
+    }
+
+    @Override
+    public AbstractCompactionTask getCompactionTask(LifecycleTransaction txn, final int gcBefore, long maxSSTableBytes)
+    {
+        return new ShardedCompactionTask(cfs, txn, gcBefore);
+    }
+
+    public int getEstimatedRemainingTasks()
+    {
+        return estimatedRemainingTasks;
+    }
+
+    public long getMaxSSTableBytes()
+    {
+        return Long.MAX_VALUE;
+    }
+
+    public static Map<String, String> validateOptions(Map<String, String> options) throws ConfigurationException
+    {
+        Map<String, String> uncheckedOptions = AbstractCompactionStrategy.validateOptions(options);
+        uncheckedOptions = UnifiedCompactionStrategyOptions.validateOptions(options, uncheckedOptions);
+
+        uncheckedOptions.remove(CompactionParams.Option.MIN_THRESHOLD.toString());
+        uncheckedOptions.remove(CompactionParams.Option.MAX_THRESHOLD.toString());
+
+        return uncheckedOptions;
+    }
+
+    @Override
+    public void addSSTable(SSTableReader added)
+    {
+        sstables.add(added);
+    }
+
+    @Override
+    public void removeSSTable(SSTableReader sstable)
+    {
+        sstables.remove(sstable);
+    }
+
+    @Override
+    protected Set<SSTableReader> getSSTables()
+    {
+        return ImmutableSet.copyOf(sstables);
+    }
+
+    public String toString()
+    {
+        return String.format("UnifiedCompactionStrategy[%s]", unifiedOptions);
+    }
+
+    private class ShardedCompactionTask extends CompactionTask
+    {
+        private ShardedCompactionTask(ColumnFamilyStore cfs, LifecycleTransaction txn, int gcBefore)
+        {
+            super(cfs, txn, gcBefore);
+        }
+
+        @Override
+        public CompactionAwareWriter getCompactionAwareWriter(ColumnFamilyStore cfs,
+                                                              Directories directories,
+                                                              LifecycleTransaction txn,
+                                                              Set<SSTableReader> nonExpiredSSTables,
+                                                              SubRangeCompactionWriter subRangeOwner)
+        {
+            return new ShardedCompactionWriter(cfs, directories, txn, nonExpiredSSTables, outputShardBoundaries(nonExpiredSSTables), keepOriginals, subRangeOwner);
+        }
+    }
+}
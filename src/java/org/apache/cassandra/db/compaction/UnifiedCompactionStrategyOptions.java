@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.util.Map;
+
+import org.apache.cassandra.exceptions.ConfigurationException;
+
+public final class UnifiedCompactionStrategyOptions
+{
+    protected static final String DEFAULT_SCALING_PARAMETER = "T4";
+    protected static final long DEFAULT_MIN_SSTABLE_SIZE = 50L * 1024L * 1024L;
+    protected static final int DEFAULT_NUM_SHARDS = 4;
+    protected static final String SCALING_PARAMETER_KEY = "scaling_parameter";
+    protected static final String MIN_SSTABLE_SIZE_KEY = "min_sstable_size";
+    protected static final String NUM_SHARDS_KEY = "num_shards";
+
+    /**
+     * The scaling parameter W: negative values tier (fewer rewrites, more sstables to read), positive values level
+     * (more rewrites, fewer sstables to read) and 0 sits in between.
+     */
+    protected final int scalingParameter;
+    protected final long minSSTableSize;
+    protected final int numShards;
+
+    public UnifiedCompactionStrategyOptions(Map<String, String> options)
+    {
+        String optionValue = options.get(SCALING_PARAMETER_KEY);
+        scalingParameter = parseScalingParameter(optionValue == null ? DEFAULT_SCALING_PARAMETER : optionValue);
+        optionValue = options.get(MIN_SSTABLE_SIZE_KEY);
+        minSSTableSize = optionValue == null ? DEFAULT_MIN_SSTABLE_SIZE : Long.parseLong(optionValue);
+        optionValue = options.get(NUM_SHARDS_KEY);
+        numShards = optionValue == null ? DEFAULT_NUM_SHARDS : Integer.parseInt(optionValue);
+    }
+
+    public UnifiedCompactionStrategyOptions()
+    {
+        scalingParameter = parseScalingParameter(DEFAULT_SCALING_PARAMETER);
+        minSSTableSize = DEFAULT_MIN_SSTABLE_SIZE;
+        numShards = DEFAULT_NUM_SHARDS;
+    }
+
+    /**
+     * Parses the scaling parameter, which is either an integer or one of "Tn" (tiered with fanout n), "Ln" (leveled
+     * with fanout n) and "N" (the middle ground, equivalent to T2 and L2).
+     */
+    static int parseScalingParameter(String value)
+    {
+        value = value.trim();
+        if (value.equalsIgnoreCase("N"))
+            return 0;
+
+        char type = Character.toUpperCase(value.charAt(0));
+        if (type == 'T' || type == 'L')
+        {
+            int fanout = Integer.parseInt(value.substring(1));
+            if (fanout < 2)
+                throw new NumberFormatException("The fanout must be at least 2, but was " + fanout);
+            return type == 'T' ? 2 - fanout : fanout - 2;
+        }
+        return Integer.parseInt(value);
+    }
+
+    /**
+     * The number of times the density grows from a level to the next.
+     */
+    public int fanout()
+    {
+        return 2 + Math.abs(scalingParameter);
+    }
+
+    /**
+     * The number of overlapping sstables of a level that triggers a compaction.
+     */
+    public int threshold()
+    {
+        return scalingParameter < 0 ? fanout() : 2;
+    }
+
+    public static Map<String, String> validateOptions(Map<String, String> options, Map<String, String> uncheckedOptions) throws ConfigurationException
+    {
+        String optionValue = options.get(SCALING_PARAMETER_KEY);
+        if (optionValue != null)
+        {
+            try
+            {
+                parseScalingParameter(optionValue);
+            }
+            catch (NumberFormatException | IndexOutOfBoundsException e)
+            {
+                throw new ConfigurationException(String.format("%s is not a valid value for %s, it should be an integer, T<fanout>, L<fanout> or N",
+                                                               optionValue, SCALING_PARAMETER_KEY), e);
+            }
+        }
+
+        optionValue = options.get(MIN_SSTABLE_SIZE_KEY);
+        try
+        {
+            long minSSTableSize = optionValue == null ? DEFAULT_MIN_SSTABLE_SIZE : Long.parseLong(optionValue);
+            if (minSSTableSize < 0)
+            {
+                throw new ConfigurationException(String.format("%s must be non negative: %d", MIN_SSTABLE_SIZE_KEY, minSSTableSize));
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            throw new ConfigurationException(String.format("%s is not a parsable int (base10) for %s", optionValue, MIN_SSTABLE_SIZE_KEY), e);
+        }
+
+        optionValue = options.get(NUM_SHARDS_KEY);
+        try
+        {
+            int numShards = optionValue == null ? DEFAULT_NUM_SHARDS : Integer.parseInt(optionValue);
+            if (numShards < 1)
+            {
+                throw new ConfigurationException(String.format("%s must be at least 1: %d", NUM_SHARDS_KEY, numShards));
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            throw new ConfigurationException(String.format("%s is not a parsable int (base10) for %s", optionValue, NUM_SHARDS_KEY), e);
+        }
+
+        uncheckedOptions.remove(SCALING_PARAMETER_KEY);
+        uncheckedOptions.remove(MIN_SSTABLE_SIZE_KEY);
+        uncheckedOptions.remove(NUM_SHARDS_KEY);
+
+        return uncheckedOptions;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("W: %d, fanout: %d, threshold: %d, min sstable size: %d, shards: %d",
+                             scalingParameter, fanout(), threshold(), minSSTableSize, numShards);
+    }
+}
@@ -54,6 +54,8 @@ public abstract class CompactionAwareWriter extends Transactional.AbstractTransa
     protected final Directories directories;
     protected final Set<SSTableReader> nonExpiredSSTables;
     protected final long estimatedTotalKeys;
+    // the share of the keys of the compaction this writer writes: 1, unless it writes one of its token sub-ranges
+    protected final double keyShare;
     protected final long maxAge;
     protected final long minRepairedAt;
     protected final UUID pendingRepair;
@@ -80,15 +82,42 @@ public abstract class CompactionAwareWriter extends Transactional.AbstractTransa
                                  LifecycleTransaction txn,
                                  Set<SSTableReader> nonExpiredSSTables,
                                  boolean keepOriginals)
+    {
+        this(cfs, directories, txn, nonExpiredSSTables, keepOriginals, null);
+    }
+
+    /**
+     * @param subRangeOwner if not null, this writer writes the partitions of one of the token sub-ranges of the
+     *                      compaction, concurrently with the writers of the other sub-ranges, and the given writer
+     *                      commits their sstables together; keepOriginals is then up to the owner
+     */
+    protected CompactionAwareWriter(ColumnFamilyStore cfs,
+                                    Directories directories,
+                                    LifecycleTransaction txn,
+                                    Set<SSTableReader> nonExpiredSSTables,
+                                    boolean keepOriginals,
+                                    SubRangeCompactionWriter subRangeOwner)
     {
         this.cfs = cfs;
         this.directories = directories;
         this.nonExpiredSSTables = nonExpiredSSTables;
         this.txn = txn;
 
-        estimatedTotalKeys = SSTableReader.getApproximateKeyCount(nonExpiredSSTables);
         maxAge = CompactionTask.getMaxDataAge(nonExpiredSSTables);
-        sstableWriter = SSTableRewriter.construct(cfs, txn, keepOriginals, maxAge);
+        if (subRangeOwner == null)
+        {
+            keyShare = 1;
+            estimatedTotalKeys = SSTableReader.getApproximateKeyCount(nonExpiredSSTables);
+            sstableWriter = SSTableRewriter.construct(cfs, txn, keepOriginals, maxAge);
+        }
+        else
+        {
+            // the sub-ranges are picked to hold about the same amount of data
+            keyShare = 1.0 / subRangeOwner.subRangeCount;
+            estimatedTotalKeys = Math.max(1, Math.round(SSTableReader.getApproximateKeyCount(nonExpiredSSTables) * keyShare));
+            sstableWriter = SSTableRewriter.constructForSubRange(txn, maxAge);
+            subRangeOwner.add(this);
+        }
         minRepairedAt = CompactionTask.getMinRepairedAt(nonExpiredSSTables);
         pendingRepair = CompactionTask.getPendingRepair(nonExpiredSSTables);
         locations = cfs.getDirectories().getWriteableLocations();
@@ -54,7 +54,13 @@ public class DefaultCompactionWriter extends CompactionAwareWriter
     @SuppressWarnings("resource")
     public DefaultCompactionWriter(ColumnFamilyStore cfs, Directories directories, LifecycleTransaction txn, Set<SSTableReader> nonExpiredSSTables, boolean keepOriginals, int sstableLevel)
     {
-        super(cfs, directories, txn, nonExpiredSSTables, keepOriginals);
+        this(cfs, directories, txn, nonExpiredSSTables, keepOriginals, sstableLevel, null);
+    }
+
+    @SuppressWarnings("resource")
+    public DefaultCompactionWriter(ColumnFamilyStore cfs, Directories directories, LifecycleTransaction txn, Set<SSTableReader> nonExpiredSSTables, boolean keepOriginals, int sstableLevel, SubRangeCompactionWriter subRangeOwner)
+    {
+        super(cfs, directories, txn, nonExpiredSSTables, keepOriginals, subRangeOwner);
         this.sstableLevel = sstableLevel;
     }
 
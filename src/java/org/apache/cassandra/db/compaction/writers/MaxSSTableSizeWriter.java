@@ -69,7 +69,19 @@ public class MaxSSTableSizeWriter extends CompactionAwareWriter
                                 int level,
                                 boolean keepOriginals)
     {
-        super(cfs, directories, txn, nonExpiredSSTables, keepOriginals);
+        this(cfs, directories, txn, nonExpiredSSTables, maxSSTableSize, level, keepOriginals, null);
+    }
+
+    public MaxSSTableSizeWriter(ColumnFamilyStore cfs,
+                                Directories directories,
+                                LifecycleTransaction txn,
+                                Set<SSTableReader> nonExpiredSSTables,
+                                long maxSSTableSize,
+                                int level,
+                                boolean keepOriginals,
+                                SubRangeCompactionWriter subRangeOwner)
+    {
+        super(cfs, directories, txn, nonExpiredSSTables, keepOriginals, subRangeOwner);
         this.allSSTables = txn.originals();
         this.level = level;
         this.maxSSTableSize = maxSSTableSize;
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction.writers;
+
+import java.util.List;
+import java.util.Set;
+
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.db.PartitionPosition;
+import org.apache.cassandra.db.SerializationHeader;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.format.SSTableWriter;
+import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
+
+/**
+ * Writes one sstable per shard: the output is split at fixed shard boundaries (see
+ * {@link org.apache.cassandra.service.StorageService#getShardBoundaries}), so that the sstables written by compactions
+ * of different shards never overlap.
+ */
+public class ShardedCompactionWriter extends CompactionAwareWriter
+{
+    private final List<PartitionPosition> shardBoundaries;
+    private final Set<SSTableReader> allSSTables;
+    private Directories.DataDirectory sstableDirectory;
+    private int shardIndex;
+
+    /**
+     * @param shardBoundaries the upper bounds of the shards, the last one being the maximum key bound. If null, a
+     *                        single sstable is written per data directory.
+     */
+    public ShardedCompactionWriter(ColumnFamilyStore cfs,
+                                   Directories directories,
+                                   LifecycleTransaction txn,
+                                   Set<SSTableReader> nonExpiredSSTables,
+                                   List<PartitionPosition> shardBoundaries,
+                                   boolean keepOriginals)
+    {
+        this(cfs, directories, txn, nonExpiredSSTables, shardBoundaries, keepOriginals, null);
+    }
+
+    public ShardedCompactionWriter(ColumnFamilyStore cfs,
+                                   Directories directories,
+                                   LifecycleTransaction txn,
+                                   Set<SSTableReader> nonExpiredSSTables,
+                                   List<PartitionPosition> shardBoundaries,
+                                   boolean keepOriginals,
+                                   SubRangeCompactionWriter subRangeOwner)
+    {
+        super(cfs, directories, txn, nonExpiredSSTables, keepOriginals, subRangeOwner);
+        this.shardBoundaries = shardBoundaries;
+        this.allSSTables = txn.originals();
+    }
+
+    @Override
+    protected boolean realAppend(UnfilteredRowIterator partition)
+    {
+        DecoratedKey key = partition.partitionKey();
+        if (shardBoundaries != null && key.compareTo(shardBoundaries.get(shardIndex)) > 0)
+        {
+            while (key.compareTo(shardBoundaries.get(shardIndex)) > 0)
+                shardIndex++;
+            switchCompactionLocation(sstableDirectory);
+        }
+        return sstableWriter.append(partition) != null;
+    }
+
+    @Override
+    public void switchCompactionLocation(Directories.DataDirectory location)
+    {
+        sstableDirectory = location;
+        // when writing a token sub-range of the compaction, only its share of the shards is written
+        double shards = Math.max(1, (shardBoundaries == null ? 1 : shardBoundaries.size()) * keyShare);
+        @SuppressWarnings("resource")
+        SSTableWriter writer = SSTableWriter.create(cfs.newSSTableDescriptor(getDirectories().getLocationForDisk(sstableDirectory)),
+                                                    Math.max(1, Math.round(estimatedTotalKeys / shards)),
+                                                    minRepairedAt,
+                                                    pendingRepair,
+                                                    cfs.metadata,
+                                                    new MetadataCollector(allSSTables, cfs.metadata().comparator, 0),
+                                                    SerializationHeader.make(cfs.metadata(), nonExpiredSSTables),
+                                                    cfs.indexManager.listIndexes(),
+                                                    txn);
+        sstableWriter.switchWriter(writer);
+    }
+}
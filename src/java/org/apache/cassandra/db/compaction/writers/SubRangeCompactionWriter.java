@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction.writers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.cassandra.db.compaction.CompactionTask;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.io.sstable.SSTableRewriter;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.utils.Throwables;
+import org.apache.cassandra.utils.concurrent.Transactional;
+
+/**
+ * Commits, in a single transaction, the sstables written by the writers of the token sub-ranges of a compaction,
+ * which write concurrently: each of them is a {@link CompactionAwareWriter} created with this writer as its owner,
+ * and the sstables are committed in the order the writers were created, or aborted along with all of them.
+ *
+ * This writer doesn't write anything itself, so its sstables are never opened early.
+ */
+public class SubRangeCompactionWriter extends Transactional.AbstractTransactional implements Transactional
+{
+    final int subRangeCount;
+    private final long estimatedTotalKeys;
+    private final SSTableRewriter sstableWriter;
+    private final List<CompactionAwareWriter> subRangeWriters;
+
+    public SubRangeCompactionWriter(LifecycleTransaction txn, Set<SSTableReader> nonExpiredSSTables, boolean keepOriginals, int subRangeCount)
+    {
+        this.subRangeCount = subRangeCount;
+        estimatedTotalKeys = SSTableReader.getApproximateKeyCount(nonExpiredSSTables);
+        sstableWriter = SSTableRewriter.constructWithoutEarlyOpening(txn, keepOriginals, CompactionTask.getMaxDataAge(nonExpiredSSTables));
+        subRangeWriters = new ArrayList<>(subRangeCount);
+    }
+
+    void add(CompactionAwareWriter subRangeWriter)
+    {
+        assert subRangeWriters.size() < subRangeCount;
+        subRangeWriters.add(subRangeWriter);
+    }
+
+    @Override
+    protected Throwable doAbort(Throwable accumulate)
+    {
+        for (CompactionAwareWriter subRangeWriter : subRangeWriters)
+            accumulate = subRangeWriter.abort(accumulate);
+        return sstableWriter.abort(accumulate);
+    }
+
+    @Override
+    protected Throwable doCommit(Throwable accumulate)
+    {
+        return sstableWriter.commit(accumulate);
+    }
+
+    @Override
+    protected void doPrepare()
+    {
+        for (CompactionAwareWriter subRangeWriter : subRangeWriters)
+            sstableWriter.adoptWriters(subRangeWriter.sstableWriter);
+        sstableWriter.prepareToCommit();
+    }
+
+    @Override
+    protected Throwable doPostCleanup(Throwable accumulate)
+    {
+        // the sub-range writers handed their sstables over in doPrepare, or were aborted along with this writer
+        accumulate = Throwables.close(accumulate, subRangeWriters);
+        sstableWriter.close();
+        return super.doPostCleanup(accumulate);
+    }
+
+    /**
+     * we are done, return the finished sstables so that the caller can mark the old ones as compacted
+     * @return all the written sstables sstables
+     */
+    @Override
+    public Collection<SSTableReader> finish()
+    {
+        super.finish();
+        return sstableWriter.finished();
+    }
+
+    /**
+     * estimated number of keys the sub-range writers should write in total
+     */
+    public long estimatedKeys()
+    {
+        return estimatedTotalKeys;
+    }
+}
@@ -121,9 +121,26 @@ public abstract class DataLimits
 
     public boolean isExhausted(Counter counter)
     {
-        return counter.counted() < count();
+        return counter.counted() < count() && counter.bytesCounted() < bytes();
     }
 
+    /**
+     * The maximum size, in bytes, of the data of the rows returned by these limits, {@link #NO_LIMIT} if unlimited.
+     * <p>
+     * Unlike the other limits, this one isn't sent to the replicas: it is only enforced where the results are counted
+     * with these very limits, that is by the coordinator when paging.
+     */
+    public int bytes()
+    {
+        return NO_LIMIT;
+    }
+
+    /**
+     * Returns limits equivalent to these ones, but that also stop once {@code bytesLimit} bytes of row data have been
+     * counted (see {@link #bytes()}). The row that goes over the limit is still counted, so at least one row is.
+     */
+    public abstract DataLimits withBytesLimit(int bytesLimit);
+
     public abstract DataLimits forPaging(int pageSize);
     public abstract DataLimits forPaging(int pageSize, ByteBuffer lastReturnedKey, int lastReturnedKeyRemaining);
 
@@ -280,6 +297,16 @@ public abstract class DataLimits
          */
         public abstract int rowCountedInCurrentPartition();
 
+        /**
+         * The size of the data of the rows counted, if the limits the counter is for have a bytes limit.
+         *
+         * @return the size of the data of the rows counted, 0 if the limits don't have a bytes limit.
+         */
+        public int bytesCounted()
+        {
+            return 0;
+        }
+
         public abstract boolean isDone();
         public abstract boolean isDoneForPartition();
 
@@ -335,6 +362,9 @@ public abstract class DataLimits
         // Whether the query is a distinct query or not.
         protected final boolean isDistinct;
 
+        // Not serialized, see DataLimits#bytes()
+        protected final int bytesLimit;
+
         private CQLLimits(int rowLimit)
         {
             this(rowLimit, NO_LIMIT);
@@ -346,10 +376,16 @@ public abstract class DataLimits
         }
 
         private CQLLimits(int rowLimit, int perPartitionLimit, boolean isDistinct)
+        {
+            this(rowLimit, perPartitionLimit, isDistinct, NO_LIMIT);
+        }
+
+        private CQLLimits(int rowLimit, int perPartitionLimit, boolean isDistinct, int bytesLimit)
         {
             this.rowLimit = rowLimit;
             this.perPartitionLimit = perPartitionLimit;
             this.isDistinct = isDistinct;
+            this.bytesLimit = bytesLimit;
         }
 
         private static CQLLimits distinct(int rowLimit)
@@ -387,6 +423,18 @@ public abstract class DataLimits
             return new CQLLimits(toFetch, perPartitionLimit, isDistinct);
         }
 
+        @Override
+        public int bytes()
+        {
+            return bytesLimit;
+        }
+
+        @Override
+        public DataLimits withBytesLimit(int bytesLimit)
+        {
+            return new CQLLimits(rowLimit, perPartitionLimit, isDistinct, bytesLimit);
+        }
+
         public boolean hasEnoughLiveData(CachedPartition cached, int nowInSec, boolean countPartitionsWithOnlyStaticData, boolean enforceStrictLiveness)
         {
             // We want the number of row that are currently live. Getting that precise number forces
@@ -448,6 +496,7 @@ public abstract class DataLimits
         {
             protected int rowCounted;
             protected int rowInCurrentPartition;
+            protected int bytesCounted;
             protected final boolean countPartitionsWithOnlyStaticData;
 
             protected boolean hasLiveStaticRow;
@@ -472,7 +521,11 @@ public abstract class DataLimits
             public Row applyToRow(Row row)
             {
                 if (isLive(row))
+                {
+                    if (bytesLimit != NO_LIMIT)
+                        bytesCounted += row.dataSize();
                     incrementRowCount();
+                }
                 return row;
             }
 
@@ -489,7 +542,7 @@ public abstract class DataLimits
 
             protected void incrementRowCount()
             {
-                if (++rowCounted >= rowLimit)
+                if (++rowCounted >= rowLimit || bytesCounted >= bytesLimit)
                     stop();
                 if (++rowInCurrentPartition >= perPartitionLimit)
                     stopInPartition();
@@ -515,9 +568,15 @@ public abstract class DataLimits
                 return rowInCurrentPartition;
             }
 
+            @Override
+            public int bytesCounted()
+            {
+                return bytesCounted;
+            }
+
             public boolean isDone()
             {
-                return rowCounted >= rowLimit;
+                return rowCounted >= rowLimit || bytesCounted >= bytesLimit;
             }
 
             public boolean isDoneForPartition()
@@ -552,7 +611,12 @@ public abstract class DataLimits
 
         public CQLPagingLimits(int rowLimit, int perPartitionLimit, boolean isDistinct, ByteBuffer lastReturnedKey, int lastReturnedKeyRemaining)
         {
-            super(rowLimit, perPartitionLimit, isDistinct);
+            this(rowLimit, perPartitionLimit, isDistinct, lastReturnedKey, lastReturnedKeyRemaining, NO_LIMIT);
+        }
+
+        private CQLPagingLimits(int rowLimit, int perPartitionLimit, boolean isDistinct, ByteBuffer lastReturnedKey, int lastReturnedKeyRemaining, int bytesLimit)
+        {
+            super(rowLimit, perPartitionLimit, isDistinct, bytesLimit);
             this.lastReturnedKey = lastReturnedKey;
             this.lastReturnedKeyRemaining = lastReturnedKeyRemaining;
         }
@@ -575,6 +639,12 @@ public abstract class DataLimits
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public DataLimits withBytesLimit(int bytesLimit)
+        {
+            return new CQLPagingLimits(rowLimit, perPartitionLimit, isDistinct, lastReturnedKey, lastReturnedKeyRemaining, bytesLimit);
+        }
+
         @Override
         public DataLimits withoutState()
         {
@@ -688,6 +758,16 @@ public abstract class DataLimits
             return new CQLLimits(toFetch);
         }
 
+        /**
+         * GROUP BY queries are already paged internally by number of rows, and a group can only be counted once it is
+         * complete, so they aren't limited by bytes: these limits are returned as they are.
+         */
+        @Override
+        public DataLimits withBytesLimit(int bytesLimit)
+        {
+            return this;
+        }
+
         @Override
         public float estimateTotalResults(ColumnFamilyStore cfs)
         {
@@ -29,6 +29,7 @@ import org.apache.cassandra.serializers.BytesSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /**
  * A class avoiding class duplication between CompositeType and
@@ -88,6 +89,42 @@ public abstract class AbstractCompositeType extends AbstractType<ByteBuffer>
         return 1;
     }
 
+    /**
+     * Each component is written as a separator, its comparator (for dynamic composites), its value and its
+     * end-of-component byte, with a leading byte making static names sort first.
+     */
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        ByteBuffer bb = value.duplicate();
+        List<ByteSource> sources = new ArrayList<>();
+        sources.add(ByteSource.oneByte(readIsStatic(bb) ? 0 : 1));
+
+        int i = 0;
+        while (bb.remaining() > 0)
+        {
+            AbstractType<?> comparator = getComparator(i, bb);
+            ByteBuffer component = ByteBufferUtil.readBytesWithShortLength(bb);
+            sources.add(ByteSource.oneByte(ByteSource.NEXT_COMPONENT));
+            sources.add(comparatorAsComparableBytes(comparator));
+            sources.add(comparator.asComparableComponent(component));
+            // the end-of-component byte compares signed
+            sources.add(ByteSource.oneByte((bb.get() & 0xFF) ^ 0x80));
+            ++i;
+        }
+        sources.add(ByteSource.oneByte(ByteSource.TERMINATOR));
+        return ByteSource.concat(sources.toArray(new ByteSource[0]));
+    }
+
+    /**
+     * Returns the byte-comparable representation of the comparator of a component, for composites whose components
+     * can have different types.
+     */
+    protected ByteSource comparatorAsComparableBytes(AbstractType<?> comparator)
+    {
+        return ByteSource.EMPTY;
+    }
+
     // Check if the provided BB represents a static name and advance the
     // buffer to the real beginning if so.
     protected abstract boolean readIsStatic(ByteBuffer bb);
@@ -45,6 +45,7 @@ import org.github.jamm.Unmetered;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 import static org.apache.cassandra.db.marshal.AbstractType.ComparisonType.CUSTOM;
 
@@ -183,6 +184,35 @@ public abstract class AbstractType<T> implements Comparator<ByteBuffer>, Assignm
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Returns a byte-comparable representation of the given value: the unsigned lexicographic order of the produced
+     * bytes is the same as the order defined by {@link #compare}. The representation may be followed by further
+     * components, as long as they start with one of the separators defined in {@link ByteSource}.
+     *
+     * Empty values need not be supported here unless the type's only values are empty; they are handled by
+     * {@link #asComparableComponent}.
+     */
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        if (isByteOrderComparable)
+            return ByteSource.of(value);
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not have a byte-comparable representation");
+    }
+
+    /**
+     * Returns a byte-comparable representation of the given value as a component of a multi-component value
+     * (clustering, tuple, collection...), preceded by a separator. Null and empty values are encoded by the
+     * separator alone, sorting them the way {@link #compare} does.
+     */
+    public ByteSource asComparableComponent(ByteBuffer value)
+    {
+        if (value == null)
+            return ByteSource.oneByte(ByteSource.NEXT_COMPONENT_NULL);
+        if (!value.hasRemaining())
+            return ByteSource.oneByte(isReversed() ? ByteSource.NEXT_COMPONENT_EMPTY_REVERSED : ByteSource.NEXT_COMPONENT_EMPTY);
+        return ByteSource.concat(ByteSource.oneByte(ByteSource.NEXT_COMPONENT), asComparableBytes(value));
+    }
+
     /**
      * Validate cell value. Unlike {@linkplain #validate(java.nio.ByteBuffer)},
      * cell value is passed to validate its content.
@@ -26,6 +26,7 @@ import org.apache.cassandra.serializers.TypeSerializer;
 import org.apache.cassandra.serializers.BooleanSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +57,13 @@ public class BooleanType extends AbstractType<Boolean>
         return b2 == 0 ? 1 : 0;
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        // all non-zero values are true, and equal
+        return ByteSource.oneByte(value.get(value.position()) == 0 ? 0 : 1);
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
 
@@ -27,6 +27,7 @@ import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.serializers.TypeSerializer;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class ByteType extends NumberType<Byte>
 {
@@ -42,6 +43,12 @@ public class ByteType extends NumberType<Byte>
         return o1.get(o1.position()) - o2.get(o2.position());
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        return ByteSource.signedFixedLength(value);
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
         // Return an empty ByteBuffer for an empty string.
@@ -30,6 +30,7 @@ import org.apache.cassandra.serializers.DecimalSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class DecimalType extends NumberType<BigDecimal>
 {
@@ -56,6 +57,31 @@ public class DecimalType extends NumberType<BigDecimal>
         return compose(o1).compareTo(compose(o2));
     }
 
+    /**
+     * Decimals are written as 0.d1d2...dn * 10^exponent with trailing zeros removed. Zero is the single byte 0x80;
+     * positive values are written as 0x81, the exponent on 8 bytes, then each digit d as d + 1, followed by a 0x00
+     * terminator. Negative values are written as the inverted bytes of their absolute value, reversing their order.
+     */
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        BigDecimal decimal = compose(value).stripTrailingZeros();
+        int signum = decimal.signum();
+        if (signum == 0)
+            return ByteSource.oneByte(0x80);
+
+        String digits = decimal.unscaledValue().abs().toString();
+        long exponent = (long) digits.length() - decimal.scale();
+        byte[] mantissa = new byte[digits.length() + 1];
+        for (int i = 0; i < digits.length(); i++)
+            mantissa[i] = (byte) (digits.charAt(i) - '0' + 1);
+
+        ByteSource bytes = ByteSource.concat(ByteSource.oneByte(0x81),
+                                             ByteSource.of(exponent),
+                                             ByteSource.fixedLength(mantissa));
+        return signum > 0 ? bytes : ByteSource.invert(bytes);
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
         // Return an empty ByteBuffer for an empty string.
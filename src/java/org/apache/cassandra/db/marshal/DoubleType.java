@@ -27,6 +27,7 @@ import org.apache.cassandra.serializers.DoubleSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class DoubleType extends NumberType<Double>
 {
@@ -53,6 +54,15 @@ public class DoubleType extends NumberType<Double>
         return compose(o1).compareTo(compose(o2));
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        // canonical bits, so that NaNs compare equal; negative values have all bits flipped, as their order is reversed
+        long bits = Double.doubleToLongBits(compose(value));
+        bits ^= (bits >> 63) | Long.MIN_VALUE;
+        return ByteSource.fixedLength(bits, 8);
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
       // Return an empty ByteBuffer for an empty string.
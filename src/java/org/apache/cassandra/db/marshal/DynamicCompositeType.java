@@ -34,6 +34,7 @@ import org.apache.cassandra.serializers.TypeSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /*
  * The encoding of a DynamicCompositeType column name should be:
@@ -153,6 +154,25 @@ public class DynamicCompositeType extends AbstractCompositeType
         return rawComp;
     }
 
+    /**
+     * Components of different types compare on the simple, then full class names of their comparators, ignoring
+     * ReversedType only when both are reversed.
+     */
+    @Override
+    protected ByteSource comparatorAsComparableBytes(AbstractType<?> comparator)
+    {
+        ByteSource names = classNamesAsComparableBytes(comparator);
+        return comparator instanceof ReversedType
+               ? ByteSource.concat(names, classNamesAsComparableBytes(((ReversedType<?>) comparator).baseType))
+               : names;
+    }
+
+    private static ByteSource classNamesAsComparableBytes(AbstractType<?> comparator)
+    {
+        return ByteSource.concat(ByteSource.of(comparator.getClass().getSimpleName()),
+                                 ByteSource.of(comparator.getClass().getName()));
+    }
+
     protected AbstractType<?> getAndAppendComparator(int i, ByteBuffer bb, StringBuilder sb)
     {
         try
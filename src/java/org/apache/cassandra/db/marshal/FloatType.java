@@ -27,6 +27,7 @@ import org.apache.cassandra.serializers.FloatSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 
 public class FloatType extends NumberType<Float>
@@ -54,6 +55,15 @@ public class FloatType extends NumberType<Float>
         return compose(o1).compareTo(compose(o2));
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        // canonical bits, so that NaNs compare equal; negative values have all bits flipped, as their order is reversed
+        int bits = Float.floatToIntBits(compose(value));
+        bits ^= (bits >> 31) | Integer.MIN_VALUE;
+        return ByteSource.fixedLength(bits & 0xFFFFFFFFL, 4);
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
       // Return an empty ByteBuffer for an empty string.
@@ -27,6 +27,7 @@ import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.serializers.TypeSerializer;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class Int32Type extends NumberType<Integer>
 {
@@ -54,6 +55,12 @@ public class Int32Type extends NumberType<Integer>
         return ByteBufferUtil.compareUnsigned(o1, o2);
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        return ByteSource.signedFixedLength(value);
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
         // Return an empty ByteBuffer for an empty string.
@@ -29,6 +29,7 @@ import org.apache.cassandra.serializers.IntegerSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public final class IntegerType extends NumberType<BigInteger>
 {
@@ -72,6 +73,32 @@ public final class IntegerType extends NumberType<BigInteger>
         return IntegerType.compareIntegers(lhs, rhs);
     }
 
+    /**
+     * Varints are written as their minimal two's-complement bytes, preceded by a header giving the sign and the
+     * length, so that longer positive (resp. negative) numbers sort after (resp. before) shorter ones. Zero is the
+     * single byte 0x80, positive numbers of length n start with 0x80 + n and negative ones with 0x7F - n. Lengths
+     * of 127 bytes or more use the header 0xFF (resp. 0x00) followed by the length (resp. its complement) on 4 bytes.
+     */
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        BigInteger integer = new BigInteger(ByteBufferUtil.getArray(value));
+        int signum = integer.signum();
+        if (signum == 0)
+            return ByteSource.oneByte(0x80);
+
+        byte[] bytes = integer.toByteArray();
+        int length = bytes.length;
+        ByteSource header;
+        if (length < 0x7F)
+            header = ByteSource.oneByte(signum > 0 ? 0x80 + length : 0x7F - length);
+        else if (signum > 0)
+            header = ByteSource.concat(ByteSource.oneByte(0xFF), ByteSource.fixedLength(length, 4));
+        else
+            header = ByteSource.concat(ByteSource.oneByte(0x00), ByteSource.fixedLength(~length & 0xFFFFFFFFL, 4));
+        return ByteSource.concat(header, ByteSource.fixedLength(bytes));
+    }
+
     public static int compareIntegers(ByteBuffer lhs, ByteBuffer rhs)
     {
         int lhsLen = lhs.remaining();
@@ -27,6 +27,7 @@ import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.serializers.UUIDSerializer;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.UUIDGen;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class LexicalUUIDType extends AbstractType<UUID>
 {
@@ -50,6 +51,14 @@ public class LexicalUUIDType extends AbstractType<UUID>
         return UUIDGen.getUUID(o1).compareTo(UUIDGen.getUUID(o2));
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        // UUID.compareTo compares both halves as signed longs
+        return ByteSource.concat(ByteSource.of(value.getLong(value.position())),
+                                 ByteSource.of(value.getLong(value.position() + 8)));
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
         // Return an empty ByteBuffer for an empty string.
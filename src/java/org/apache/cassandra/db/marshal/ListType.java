@@ -32,6 +32,7 @@ import org.apache.cassandra.serializers.CollectionSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.serializers.ListSerializer;
 import org.apache.cassandra.transport.ProtocolVersion;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -153,6 +154,12 @@ public class ListType<T> extends CollectionType<List<T>>
         return compareListOrSet(elements, o1, o2);
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        return asComparableBytesListOrSet(elements, value);
+    }
+
     static int compareListOrSet(AbstractType<?> elementsComparator, ByteBuffer o1, ByteBuffer o2)
     {
         // Note that this is only used if the collection is frozen
@@ -177,6 +184,17 @@ public class ListType<T> extends CollectionType<List<T>>
         return size1 == size2 ? 0 : (size1 < size2 ? -1 : 1);
     }
 
+    static ByteSource asComparableBytesListOrSet(AbstractType<?> elementsComparator, ByteBuffer value)
+    {
+        ByteBuffer bb = value.duplicate();
+        int size = CollectionSerializer.readCollectionSize(bb, ProtocolVersion.V3);
+        ByteSource[] sources = new ByteSource[size + 1];
+        for (int i = 0; i < size; i++)
+            sources[i] = elementsComparator.asComparableComponent(CollectionSerializer.readValue(bb, ProtocolVersion.V3));
+        sources[size] = ByteSource.oneByte(ByteSource.TERMINATOR);
+        return ByteSource.concat(sources);
+    }
+
     @Override
     public String toString(boolean ignoreFreezing)
     {
@@ -27,6 +27,7 @@ import org.apache.cassandra.serializers.LongSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class LongType extends NumberType<Long>
 {
@@ -44,6 +45,12 @@ public class LongType extends NumberType<Long>
         return compareLongs(o1, o2);
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        return ByteSource.signedFixedLength(value);
+    }
+
     public static int compareLongs(ByteBuffer o1, ByteBuffer o2)
     {
         if (!o1.hasRemaining() || !o2.hasRemaining())
@@ -33,6 +33,7 @@ import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.serializers.MapSerializer;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.Pair;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class MapType<K, V> extends CollectionType<Map<K, V>>
 {
@@ -191,6 +192,21 @@ public class MapType<K, V> extends CollectionType<Map<K, V>>
         return size1 == size2 ? 0 : (size1 < size2 ? -1 : 1);
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        ByteBuffer bb = value.duplicate();
+        int size = CollectionSerializer.readCollectionSize(bb, ProtocolVersion.V3);
+        ByteSource[] sources = new ByteSource[size * 2 + 1];
+        for (int i = 0; i < size; i++)
+        {
+            sources[i * 2] = keys.asComparableComponent(CollectionSerializer.readValue(bb, ProtocolVersion.V3));
+            sources[i * 2 + 1] = values.asComparableComponent(CollectionSerializer.readValue(bb, ProtocolVersion.V3));
+        }
+        sources[size * 2] = ByteSource.oneByte(ByteSource.TERMINATOR);
+        return ByteSource.concat(sources);
+    }
+
     @Override
     public MapSerializer<K, V> getSerializer()
     {
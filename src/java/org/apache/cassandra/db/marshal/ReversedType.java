@@ -29,6 +29,7 @@ import org.apache.cassandra.exceptions.SyntaxException;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.serializers.TypeSerializer;
 import org.apache.cassandra.transport.ProtocolVersion;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class ReversedType<T> extends AbstractType<T>
 {
@@ -72,6 +73,13 @@ public class ReversedType<T> extends AbstractType<T>
         return baseType.compare(o2, o1);
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        // terminated so that no representation is a prefix of another, which makes inverting the bytes reverse the order
+        return ByteSource.invert(ByteSource.concat(baseType.asComparableBytes(value), ByteSource.oneByte(ByteSource.TERMINATOR)));
+    }
+
     @Override
     public int compareForCQL(ByteBuffer v1, ByteBuffer v2)
     {
@@ -27,6 +27,7 @@ import org.apache.cassandra.serializers.ShortSerializer;
 import org.apache.cassandra.serializers.TypeSerializer;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class ShortType extends NumberType<Short>
 {
@@ -46,6 +47,12 @@ public class ShortType extends NumberType<Short>
         return ByteBufferUtil.compareUnsigned(o1, o2);
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        return ByteSource.signedFixedLength(value);
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
         // Return an empty ByteBuffer for an empty string.
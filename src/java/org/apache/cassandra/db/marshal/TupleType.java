@@ -34,6 +34,7 @@ import org.apache.cassandra.exceptions.SyntaxException;
 import org.apache.cassandra.serializers.*;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /**
  * This is essentially like a CompositeType, but it's not primarily meant for comparison, just
@@ -168,6 +169,25 @@ public class TupleType extends AbstractType<ByteBuffer>
         return 0;
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        ByteBuffer bb = value.duplicate();
+        List<ByteSource> sources = new ArrayList<>(types.size() + 1);
+        // trailing null or empty fields compare equal to missing ones, so they are not written
+        int written = 0;
+        for (int i = 0; bb.remaining() > 0; i++)
+        {
+            int size = bb.getInt();
+            sources.add(types.get(i).asComparableComponent(size < 0 ? null : ByteBufferUtil.readBytes(bb, size)));
+            if (size > 0)
+                written = sources.size();
+        }
+        sources.subList(written, sources.size()).clear();
+        sources.add(ByteSource.oneByte(ByteSource.TERMINATOR));
+        return ByteSource.concat(sources.toArray(new ByteSource[0]));
+    }
+
     /**
      * Split a tuple value into its component values.
      */
@@ -31,6 +31,7 @@ import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.serializers.UUIDSerializer;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.UUIDGen;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /**
  * Compares UUIDs using the following criteria:<br>
@@ -101,6 +102,16 @@ public class UUIDType extends AbstractType<UUID>
         return UnsignedLongs.compare(b1.getLong(s1 + 8), b2.getLong(s2 + 8));
     }
 
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        long msb = value.getLong(value.position());
+        int version = (int) ((msb >>> 12) & 0xf);
+        return ByteSource.concat(ByteSource.oneByte(version),
+                                 ByteSource.fixedLength(version == 1 ? TimeUUIDType.reorderTimestampBytes(msb) : msb, 8),
+                                 ByteSource.fixedLength(value.getLong(value.position() + 8), 8));
+    }
+
     @Override
     public boolean isValueCompatibleWithInternal(AbstractType<?> otherType)
     {
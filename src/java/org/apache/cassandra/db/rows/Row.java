@@ -612,7 +612,12 @@ public interface Row extends Unfiltered, Collection<ColumnData>
     public static class Merger
     {
         private final Row[] rows;
-        private final List<Iterator<ColumnData>> columnDataIterators;
+
+        // the column data of each merged row, copied in bulk so that merging them does not go through iterators
+        private final ColumnData[][] columnData;
+        private final int[] columnCounts;
+        private final int[] columnPositions;
+        private final ColumnDataCollector columnDataCollector = new ColumnDataCollector();
 
         private Clustering clustering;
         private int rowsToMerge;
@@ -624,7 +629,9 @@ public interface Row extends Unfiltered, Collection<ColumnData>
         public Merger(int size, int nowInSec, boolean hasComplex)
         {
             this.rows = new Row[size];
-            this.columnDataIterators = new ArrayList<>(size);
+            this.columnData = new ColumnData[size][];
+            this.columnCounts = new int[size];
+            this.columnPositions = new int[size];
             this.columnDataReducer = new ColumnDataReducer(size, nowInSec, hasComplex);
         }
 
@@ -632,7 +639,12 @@ public interface Row extends Unfiltered, Collection<ColumnData>
         {
             dataBuffer.clear();
             Arrays.fill(rows, null);
-            columnDataIterators.clear();
+            for (int i = 0; i < columnCounts.length; i++)
+            {
+                if (columnCounts[i] > 0)
+                    Arrays.fill(columnData[i], 0, columnCounts[i], null);
+                columnCounts[i] = 0;
+            }
             rowsToMerge = 0;
             lastRowSet = -1;
         }
@@ -680,17 +692,8 @@ public interface Row extends Unfiltered, Collection<ColumnData>
             if (activeDeletion.deletes(rowInfo))
                 rowInfo = LivenessInfo.EMPTY;
 
-            for (Row row : rows)
-                columnDataIterators.add(row == null ? Collections.emptyIterator() : row.iterator());
-
             columnDataReducer.setActiveDeletion(activeDeletion);
-            Iterator<ColumnData> merged = MergeIterator.get(columnDataIterators, ColumnData.comparator, columnDataReducer);
-            while (merged.hasNext())
-            {
-                ColumnData data = merged.next();
-                if (data != null)
-                    dataBuffer.add(data);
-            }
+            mergeColumnData();
 
             // Because some data might have been shadowed by the 'activeDeletion', we could have an empty row
             return rowInfo.isEmpty() && rowDeletion.isLive() && dataBuffer.isEmpty()
@@ -698,6 +701,61 @@ public interface Row extends Unfiltered, Collection<ColumnData>
                  : BTreeRow.create(clustering, rowInfo, rowDeletion, BTree.build(dataBuffer, UpdateFunction.<ColumnData>noOp()));
         }
 
+        /**
+         * Merges the column data of the rows into {@code dataBuffer}. The data of each row is first copied into an
+         * array, and the arrays are then merged by picking the smallest column among their heads with a linear scan:
+         * for the handful of rows usually merged this is cheaper than going through a heap of iterators, and it does
+         * not allocate anything per merged row.
+         */
+        private void mergeColumnData()
+        {
+            for (int i = 0; i < rows.length; i++)
+            {
+                columnPositions[i] = 0;
+                columnCounts[i] = 0;
+                if (rows[i] != null)
+                {
+                    columnDataCollector.source = i;
+                    rows[i].apply(columnDataCollector, false);
+                }
+            }
+
+            while (true)
+            {
+                ColumnData smallest = null;
+                for (int i = 0; i < rows.length; i++)
+                {
+                    if (columnPositions[i] < columnCounts[i])
+                    {
+                        ColumnData data = columnData[i][columnPositions[i]];
+                        if (smallest == null || ColumnData.comparator.compare(data, smallest) < 0)
+                            smallest = data;
+                    }
+                }
+
+                if (smallest == null)
+                    return;
+
+                columnDataReducer.onKeyChange();
+                for (int i = 0; i < rows.length; i++)
+                {
+                    if (columnPositions[i] < columnCounts[i])
+                    {
+                        ColumnData data = columnData[i][columnPositions[i]];
+                        if (ColumnData.comparator.compare(data, smallest) == 0)
+                        {
+                            columnDataReducer.reduce(i, data);
+                            ++columnPositions[i];
+                        }
+                    }
+                }
+
+                ColumnData merged = columnDataReducer.getReduced();
+                if (merged != null)
+                    dataBuffer.add(merged);
+            }
+        }
+
         public Clustering mergedClustering()
         {
             return clustering;
@@ -708,6 +766,21 @@ public interface Row extends Unfiltered, Collection<ColumnData>
             return rows;
         }
 
+        private class ColumnDataCollector implements Consumer<ColumnData>
+        {
+            private int source;
+
+            public void accept(ColumnData data)
+            {
+                ColumnData[] array = columnData[source];
+                int count = columnCounts[source];
+                if (array == null || count == array.length)
+                    columnData[source] = array = array == null ? new ColumnData[8] : Arrays.copyOf(array, count * 2);
+                array[count] = data;
+                columnCounts[source] = count + 1;
+            }
+        }
+
         private static class ColumnDataReducer extends MergeIterator.Reducer<ColumnData, ColumnData>
         {
             private final int nowInSec;
@@ -19,10 +19,12 @@ package org.apache.cassandra.db.rows;
 
 import java.util.*;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.hash.Hasher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.config.Config;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.filter.ColumnFilter;
 import org.apache.cassandra.db.transform.FilteredRows;
@@ -44,8 +46,17 @@ public abstract class UnfilteredRowIterators
 {
     private static final Logger logger = LoggerFactory.getLogger(UnfilteredRowIterators.class);
 
+    // whether the rows of the merged iterators are pulled in blocks (see MergeIterator#getBatched) or one at a time
+    private static volatile boolean batchedMerge = Boolean.parseBoolean(System.getProperty(Config.PROPERTY_PREFIX + "batched_row_merge", "true"));
+
     private UnfilteredRowIterators() {}
 
+    @VisibleForTesting
+    public static void setBatchedMerge(boolean batched)
+    {
+        batchedMerge = batched;
+    }
+
     /**
      * Interface for a listener interested in the result of merging multiple versions of a given row.
      * <p>
@@ -369,9 +380,11 @@ public abstract class UnfilteredRowIterators
                   reversed,
                   mergeStats(iterators));
 
-            this.mergeIterator = MergeIterator.get(iterators,
-                                                   reversed ? metadata.comparator.reversed() : metadata.comparator,
-                                                   new MergeReducer(iterators.size(), reversed, nowInSec, listener));
+            Comparator<Clusterable> comparator = reversed ? metadata.comparator.reversed() : metadata.comparator;
+            MergeReducer reducer = new MergeReducer(iterators.size(), reversed, nowInSec, listener);
+            this.mergeIterator = batchedMerge
+                               ? MergeIterator.getBatched(iterators, comparator, reducer)
+                               : MergeIterator.get(iterators, comparator, reducer);
             this.listener = listener;
         }
 
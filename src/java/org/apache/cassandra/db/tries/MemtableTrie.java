@@ -0,0 +1,585 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.tries;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.google.common.collect.AbstractIterator;
+
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+import org.apache.cassandra.utils.memory.MemoryUtil;
+
+/**
+ * A trie mapping byte-comparable keys to values, with its nodes stored in buffers obtained from a
+ * {@link BufferAllocator}, so that they can live in memtable slabs or off-heap. Values are kept in on-heap arrays.
+ *
+ * Keys must be prefix-free, i.e. no key may be a prefix of another; this is the case for terminated
+ * {@link ByteSource} encodings.
+ *
+ * The trie supports a single writer at a time (writes are synchronized) and any number of concurrent readers, which
+ * take no locks. Nodes are never modified in a way that could confuse a reader: a node is either fully written before
+ * it is linked, or only has one of its child pointers replaced. Changes are published by writing the new pointer
+ * into the live parent after a store fence. Memory is never reclaimed; the trie lives as long as its memtable.
+ *
+ * Nodes are made of 32-byte cells and are identified by int pointers into the buffers:
+ * <ul>
+ * <li>0 is the null pointer, and a negative pointer {@code ~i} refers to the value at index {@code i};</li>
+ * <li>a pointer whose offset within its cell is below 28 is a chain: a sequence of single transitions, one for each
+ * byte between the pointer and offset 28 of the cell, where the pointer to the child of the last transition
+ * is stored;</li>
+ * <li>offset 28 denotes a sparse node of up to 6 children: their pointers at offsets 0-23 of the cell, their
+ * transition bytes in sorted order at offsets 24-29, and their count at offset 30;</li>
+ * <li>offset 29 denotes a full node: 256 child pointers spanning 32 consecutive cells.</li>
+ * </ul>
+ */
+public class MemtableTrie<T>
+{
+    /**
+     * Provides the memory backing the trie nodes.
+     */
+    public interface BufferAllocator
+    {
+        /**
+         * Returns a buffer of exactly {@code size} bytes, starting at its position. The content need not be zeroed.
+         */
+        ByteBuffer allocate(int size);
+    }
+
+    private static final int NONE = 0;
+
+    private static final int CELL_SIZE = 32;
+    private static final int CELL_MASK = CELL_SIZE - 1;
+
+    private static final int CHAIN_END = 28;
+    private static final int SPARSE_OFFSET = 28;
+    private static final int FULL_OFFSET = 29;
+
+    private static final int SPARSE_CHILD_LIMIT = 6;
+    private static final int SPARSE_BYTES_OFFSET = 24;
+    private static final int SPARSE_COUNT_OFFSET = 30;
+
+    private static final int FULL_SIZE = 256 * 4;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final int CONTENT_CHUNK_SHIFT = 10;
+    private static final int CONTENT_CHUNK_SIZE = 1 << CONTENT_CHUNK_SHIFT;
+    private static final int CONTENT_CHUNK_MASK = CONTENT_CHUNK_SIZE - 1;
+
+    // the pseudo-position of the root pointer, which is kept in a field
+    private static final int ROOT_SLOT = -1;
+
+    private volatile int root = NONE;
+    private volatile ByteBuffer[] buffers = new ByteBuffer[0];
+    private volatile Object[][] contents = new Object[0][];
+
+    private int allocatedPosition = 0;
+    private volatile int valuesCount = 0;
+
+    /**
+     * Returns the value mapped to the given key, or null.
+     */
+    public T get(ByteSource key)
+    {
+        int node = readPointer(ROOT_SLOT);
+        int b;
+        while ((b = key.next()) != ByteSource.END_OF_STREAM)
+        {
+            if (node <= NONE)
+                return null;
+            node = child(node, b);
+        }
+        return node < NONE ? value(~node) : null;
+    }
+
+    /**
+     * Maps the key to the value unless it is already mapped, in which case the existing value is returned.
+     */
+    public synchronized T putIfAbsent(ByteSource keySource, T value, BufferAllocator allocator)
+    {
+        byte[] key = ByteSource.toArray(keySource);
+        int slot = ROOT_SLOT;
+        int node = root;
+        int depth = 0;
+        while (true)
+        {
+            if (node == NONE)
+            {
+                publish(slot, createChain(key, depth, key.length, addValue(value), allocator));
+                return null;
+            }
+
+            if (node < NONE)
+            {
+                if (depth != key.length)
+                    throw prefixViolation(key);
+                return value(~node);
+            }
+
+            if (depth == key.length)
+                throw prefixViolation(key);
+
+            int transition = key[depth] & 0xFF;
+            int cell = node & ~CELL_MASK;
+            switch (node & CELL_MASK)
+            {
+                case SPARSE_OFFSET:
+                {
+                    int count = getByte(cell + SPARSE_COUNT_OFFSET);
+                    int index = sparseIndex(cell, count, transition);
+                    if (index >= 0)
+                    {
+                        slot = cell + index * 4;
+                        node = getInt(slot);
+                        ++depth;
+                        break;
+                    }
+                    int child = createChain(key, depth + 1, key.length, addValue(value), allocator);
+                    int replacement = count < SPARSE_CHILD_LIMIT
+                                    ? copySparseWith(cell, count, -index - 1, transition, child, allocator)
+                                    : copyFullWith(cell, count, transition, child, allocator);
+                    publish(slot, replacement);
+                    return null;
+                }
+                case FULL_OFFSET:
+                {
+                    slot = cell + transition * 4;
+                    node = getInt(slot);
+                    ++depth;
+                    break;
+                }
+                default:
+                {
+                    int end = cell + CHAIN_END;
+                    int position = node;
+                    while (position < end && depth < key.length && getByte(position) == (key[depth] & 0xFF))
+                    {
+                        ++position;
+                        ++depth;
+                    }
+                    if (position == end)
+                    {
+                        slot = end;
+                        node = getInt(slot);
+                        break;
+                    }
+                    if (depth == key.length)
+                        throw prefixViolation(key);
+
+                    // the key diverges from the chain at position: branch out with a sparse node, reusing the
+                    // existing tail of the chain and copying its head if there is one
+                    int existingChild = position + 1 < end ? position + 1 : getInt(end);
+                    int newChild = createChain(key, depth + 1, key.length, addValue(value), allocator);
+                    int sparse = createSparse(getByte(position), existingChild, key[depth] & 0xFF, newChild, allocator);
+                    int replacement = sparse;
+                    if (position > node)
+                    {
+                        byte[] head = new byte[position - node];
+                        for (int i = 0; i < head.length; ++i)
+                            head[i] = (byte) getByte(node + i);
+                        replacement = createChain(head, 0, head.length, sparse, allocator);
+                    }
+                    publish(slot, replacement);
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of values in the trie.
+     */
+    public int valuesCount()
+    {
+        return valuesCount;
+    }
+
+    public boolean isEmpty()
+    {
+        return valuesCount == 0;
+    }
+
+    /**
+     * Returns the number of bytes of node memory allocated by the trie.
+     */
+    public long sizeInBytes()
+    {
+        return buffers.length * (long) CHUNK_SIZE;
+    }
+
+    /**
+     * Returns all values in the order of their keys.
+     */
+    public Iterator<T> valuesIterator()
+    {
+        return valuesIterator(null, true, null, true);
+    }
+
+    /**
+     * Returns the values whose keys fall between the given bounds, in the order of their keys. A null bound is
+     * unbounded. The iterator is weakly consistent: it reflects some of the modifications made during the iteration.
+     */
+    public Iterator<T> valuesIterator(ByteSource left, boolean includeLeft, ByteSource right, boolean includeRight)
+    {
+        return new ValuesIterator(left == null ? null : ByteSource.toArray(left),
+                                  includeLeft,
+                                  right == null ? null : ByteSource.toArray(right),
+                                  includeRight);
+    }
+
+    private int child(int node, int transition)
+    {
+        int cell = node & ~CELL_MASK;
+        switch (node & CELL_MASK)
+        {
+            case SPARSE_OFFSET:
+                int index = sparseIndex(cell, getByte(cell + SPARSE_COUNT_OFFSET), transition);
+                return index >= 0 ? readPointer(cell + index * 4) : NONE;
+            case FULL_OFFSET:
+                return readPointer(cell + transition * 4);
+            default:
+                return getByte(node) == transition ? chainSuccessor(node) : NONE;
+        }
+    }
+
+    private int chainSuccessor(int node)
+    {
+        int next = node + 1;
+        return (next & CELL_MASK) == CHAIN_END ? readPointer(next) : next;
+    }
+
+    /**
+     * Returns the index of the transition in the sparse node if present, or {@code -(insertion point) - 1}.
+     */
+    private int sparseIndex(int cell, int count, int transition)
+    {
+        for (int i = 0; i < count; ++i)
+        {
+            int existing = getByte(cell + SPARSE_BYTES_OFFSET + i);
+            if (existing == transition)
+                return i;
+            if (existing > transition)
+                return -i - 1;
+        }
+        return -count - 1;
+    }
+
+    private int createChain(byte[] bytes, int from, int to, int child, BufferAllocator allocator)
+    {
+        // fill cells from the end, so that all but the first chain cell are full
+        while (to > from)
+        {
+            int length = Math.min(to - from, CHAIN_END);
+            int cell = allocate(CELL_SIZE, allocator);
+            int start = cell + CHAIN_END - length;
+            for (int i = 0; i < length; ++i)
+                putByte(start + i, bytes[to - length + i]);
+            putInt(cell + CHAIN_END, child);
+            child = start;
+            to -= length;
+        }
+        return child;
+    }
+
+    private int createSparse(int transition1, int child1, int transition2, int child2, BufferAllocator allocator)
+    {
+        int cell = allocate(CELL_SIZE, allocator);
+        if (transition1 > transition2)
+        {
+            int t = transition1; transition1 = transition2; transition2 = t;
+            int c = child1; child1 = child2; child2 = c;
+        }
+        putInt(cell, child1);
+        putInt(cell + 4, child2);
+        putByte(cell + SPARSE_BYTES_OFFSET, (byte) transition1);
+        putByte(cell + SPARSE_BYTES_OFFSET + 1, (byte) transition2);
+        putByte(cell + SPARSE_COUNT_OFFSET, (byte) 2);
+        return cell + SPARSE_OFFSET;
+    }
+
+    private int copySparseWith(int source, int count, int insertAt, int transition, int child, BufferAllocator allocator)
+    {
+        int cell = allocate(CELL_SIZE, allocator);
+        for (int i = 0, j = 0; i <= count; ++i)
+        {
+            if (i == insertAt)
+            {
+                putInt(cell + i * 4, child);
+                putByte(cell + SPARSE_BYTES_OFFSET + i, (byte) transition);
+            }
+            else
+            {
+                putInt(cell + i * 4, getInt(source + j * 4));
+                putByte(cell + SPARSE_BYTES_OFFSET + i, (byte) getByte(source + SPARSE_BYTES_OFFSET + j));
+                ++j;
+            }
+        }
+        putByte(cell + SPARSE_COUNT_OFFSET, (byte) (count + 1));
+        return cell + SPARSE_OFFSET;
+    }
+
+    private int copyFullWith(int source, int count, int transition, int child, BufferAllocator allocator)
+    {
+        int cell = allocate(FULL_SIZE, allocator);
+        for (int i = 0; i < 256; ++i)
+            putInt(cell + i * 4, NONE);
+        for (int i = 0; i < count; ++i)
+            putInt(cell + getByte(source + SPARSE_BYTES_OFFSET + i) * 4, getInt(source + i * 4));
+        putInt(cell + transition * 4, child);
+        return cell + FULL_OFFSET;
+    }
+
+    private int addValue(T value)
+    {
+        int index = valuesCount;
+        Object[][] contents = this.contents;
+        int chunk = index >> CONTENT_CHUNK_SHIFT;
+        if (chunk == contents.length)
+        {
+            contents = Arrays.copyOf(contents, chunk + 1);
+            contents[chunk] = new Object[CONTENT_CHUNK_SIZE];
+            this.contents = contents;
+        }
+        contents[chunk][index & CONTENT_CHUNK_MASK] = value;
+        valuesCount = index + 1;
+        return ~index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T value(int index)
+    {
+        return (T) contents[index >> CONTENT_CHUNK_SHIFT][index & CONTENT_CHUNK_MASK];
+    }
+
+    private void publish(int slot, int pointer)
+    {
+        if (slot == ROOT_SLOT)
+        {
+            root = pointer;
+            return;
+        }
+        MemoryUtil.storeFence();
+        putInt(slot, pointer);
+    }
+
+    private int readPointer(int slot)
+    {
+        if (slot == ROOT_SLOT)
+            return root;
+        int pointer = getInt(slot);
+        MemoryUtil.loadFence();
+        return pointer;
+    }
+
+    private int allocate(int size, BufferAllocator allocator)
+    {
+        int position = allocatedPosition;
+        if ((position & CHUNK_MASK) + size > CHUNK_SIZE || position >> CHUNK_SHIFT == buffers.length)
+        {
+            if (buffers.length >= Integer.MAX_VALUE >> CHUNK_SHIFT)
+                throw new IllegalStateException("Memtable trie is full");
+            ByteBuffer[] buffers = Arrays.copyOf(this.buffers, this.buffers.length + 1);
+            buffers[buffers.length - 1] = allocator.allocate(CHUNK_SIZE).slice();
+            this.buffers = buffers;
+            position = (buffers.length - 1) << CHUNK_SHIFT;
+            // 0 is the null pointer, so the first cell cannot hold a node
+            if (position == 0)
+                position = CELL_SIZE;
+        }
+        allocatedPosition = position + size;
+        return position;
+    }
+
+    private ByteBuffer buffer(int position)
+    {
+        return buffers[position >> CHUNK_SHIFT];
+    }
+
+    private int getInt(int position)
+    {
+        return buffer(position).getInt(position & CHUNK_MASK);
+    }
+
+    private void putInt(int position, int value)
+    {
+        buffer(position).putInt(position & CHUNK_MASK, value);
+    }
+
+    private int getByte(int position)
+    {
+        return buffer(position).get(position & CHUNK_MASK) & 0xFF;
+    }
+
+    private void putByte(int position, byte value)
+    {
+        buffer(position).put(position & CHUNK_MASK, value);
+    }
+
+    private static IllegalArgumentException prefixViolation(byte[] key)
+    {
+        return new IllegalArgumentException("Memtable trie keys must be prefix-free; " + Arrays.toString(key) +
+                                            " is a prefix or an extension of an existing key");
+    }
+
+    /**
+     * Walks the trie depth-first with an explicit stack. While the path walked so far equals a prefix of a bound,
+     * that bound limits the transitions that may be taken at the next level.
+     */
+    private class ValuesIterator extends AbstractIterator<T>
+    {
+        private final byte[] left;
+        private final boolean includeLeft;
+        private final byte[] right;
+        private final boolean includeRight;
+
+        private int[] nodes = new int[16];
+        // the next transition to consider for full nodes, the next child index for sparse nodes, 0/1 for chains
+        private int[] positions = new int[16];
+        private boolean[] leftActive = new boolean[16];
+        private boolean[] rightActive = new boolean[16];
+        private int depth = -1;
+
+        private int childTransition;
+        private int childPointer;
+
+        ValuesIterator(byte[] left, boolean includeLeft, byte[] right, boolean includeRight)
+        {
+            this.left = left;
+            this.includeLeft = includeLeft;
+            this.right = right;
+            this.includeRight = includeRight;
+
+            // no key is smaller than or equal to an empty right bound
+            int root = readPointer(ROOT_SLOT);
+            if (root > NONE && (right == null || right.length > 0))
+                push(root, left != null && left.length > 0, right != null);
+        }
+
+        private void push(int node, boolean isLeftActive, boolean isRightActive)
+        {
+            if (++depth == nodes.length)
+            {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+                positions = Arrays.copyOf(positions, depth * 2);
+                leftActive = Arrays.copyOf(leftActive, depth * 2);
+                rightActive = Arrays.copyOf(rightActive, depth * 2);
+            }
+            nodes[depth] = node;
+            positions[depth] = 0;
+            leftActive[depth] = isLeftActive;
+            rightActive[depth] = isRightActive;
+        }
+
+        protected T computeNext()
+        {
+            while (depth >= 0)
+            {
+                if (!nextChild())
+                {
+                    --depth;
+                    continue;
+                }
+
+                int transition = childTransition;
+                int length = depth + 1;
+                boolean childLeftActive = leftActive[depth] && transition == (left[depth] & 0xFF);
+                boolean childRightActive = rightActive[depth] && transition == (right[depth] & 0xFF);
+
+                if (childPointer < NONE)
+                {
+                    // the key of the value equals the path; compare it with the bounds we are still on
+                    if (childLeftActive && (left.length > length || !includeLeft))
+                        continue;
+                    if (childRightActive && length == right.length && !includeRight)
+                        return endOfData();
+                    return value(~childPointer);
+                }
+
+                if (childRightActive && length == right.length)
+                    return endOfData(); // everything below is greater than the right bound
+
+                push(childPointer, childLeftActive && length < left.length, childRightActive);
+            }
+            return endOfData();
+        }
+
+        /**
+         * Finds the next child of the node at the top of the stack that is within the bounds, setting
+         * childTransition and childPointer. Returns false if there are none left.
+         */
+        private boolean nextChild()
+        {
+            int node = nodes[depth];
+            int minTransition = leftActive[depth] ? left[depth] & 0xFF : 0;
+            int maxTransition = rightActive[depth] ? right[depth] & 0xFF : 0xFF;
+            int cell = node & ~CELL_MASK;
+            switch (node & CELL_MASK)
+            {
+                case SPARSE_OFFSET:
+                {
+                    int count = getByte(cell + SPARSE_COUNT_OFFSET);
+                    for (int i = positions[depth]; i < count; ++i)
+                    {
+                        int transition = getByte(cell + SPARSE_BYTES_OFFSET + i);
+                        if (transition < minTransition)
+                            continue;
+                        if (transition > maxTransition)
+                            break;
+                        positions[depth] = i + 1;
+                        childTransition = transition;
+                        childPointer = readPointer(cell + i * 4);
+                        return true;
+                    }
+                    positions[depth] = count;
+                    return false;
+                }
+                case FULL_OFFSET:
+                {
+                    for (int transition = Math.max(positions[depth], minTransition); transition <= maxTransition; ++transition)
+                    {
+                        int child = readPointer(cell + transition * 4);
+                        if (child == NONE)
+                            continue;
+                        positions[depth] = transition + 1;
+                        childTransition = transition;
+                        childPointer = child;
+                        return true;
+                    }
+                    positions[depth] = 256;
+                    return false;
+                }
+                default:
+                {
+                    if (positions[depth] > 0)
+                        return false;
+                    positions[depth] = 1;
+                    int transition = getByte(node);
+                    if (transition < minTransition || transition > maxTransition)
+                        return false;
+                    childTransition = transition;
+                    childPointer = chainSuccessor(node);
+                    return true;
+                }
+            }
+        }
+    }
+}
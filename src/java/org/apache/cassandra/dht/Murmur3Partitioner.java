@@ -32,6 +32,7 @@ import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.MurmurHash;
 import org.apache.cassandra.utils.ObjectSizes;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 import com.google.common.primitives.Longs;
 
@@ -203,6 +204,12 @@ public class Murmur3Partitioner implements IPartitioner
         {
             return new LongToken(token + 1);
         }
+
+        @Override
+        public ByteSource asComparableBytes()
+        {
+            return ByteSource.of(token);
+        }
     }
 
     /**
@@ -36,6 +36,7 @@ import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.ObjectSizes;
 import org.apache.cassandra.utils.Pair;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class OrderPreservingPartitioner implements IPartitioner
 {
@@ -194,6 +195,12 @@ public class OrderPreservingPartitioner implements IPartitioner
         {
             return EMPTY_SIZE + ObjectSizes.sizeOf(token);
         }
+
+        @Override
+        public ByteSource asComparableBytes()
+        {
+            return ByteSource.of(token);
+        }
     }
 
     public StringToken getToken(ByteBuffer key)
@@ -37,6 +37,7 @@ import org.apache.cassandra.utils.GuidGenerator;
 import org.apache.cassandra.utils.HashingUtils;
 import org.apache.cassandra.utils.ObjectSizes;
 import org.apache.cassandra.utils.Pair;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /**
  * This class generates a BigIntegerToken using MD5 hash.
@@ -70,6 +71,7 @@ public class RandomPartitioner implements IPartitioner
         }
     };
 
+    private static final int COMPARABLE_BYTES_LENGTH = 17;
     private static final int HEAP_SIZE = (int) ObjectSizes.measureDeep(new BigIntegerToken(hashToBigInteger(ByteBuffer.allocate(1))));
 
     public static final RandomPartitioner instance = new RandomPartitioner();
@@ -235,6 +237,21 @@ public class RandomPartitioner implements IPartitioner
             return new BigIntegerToken(token.add(BigInteger.ONE));
         }
 
+        @Override
+        public ByteSource asComparableBytes()
+        {
+            // Tokens range from -1 to 2^127, which fits a 17-byte two's complement value; sign-extend to that
+            // length and flip the sign bit so that the fixed-length bytes compare like the numbers.
+            byte[] value = token.toByteArray();
+            byte[] bytes = new byte[COMPARABLE_BYTES_LENGTH];
+            int padding = bytes.length - value.length;
+            if (token.signum() < 0)
+                Arrays.fill(bytes, 0, padding, (byte) 0xFF);
+            System.arraycopy(value, 0, bytes, padding, value.length);
+            bytes[0] ^= 0x80;
+            return ByteSource.fixedLength(bytes);
+        }
+
         public double size(Token next)
         {
             BigIntegerToken n = (BigIntegerToken) next;
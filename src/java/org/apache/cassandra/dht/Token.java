@@ -27,6 +27,7 @@ import org.apache.cassandra.db.TypeSizes;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public abstract class Token implements RingPosition<Token>, Serializable
 {
@@ -85,6 +86,16 @@ public abstract class Token implements RingPosition<Token>, Serializable
      */
     abstract public Token increaseSlightly();
 
+    /**
+     * Returns a byte-comparable representation of this token, i.e. one whose unsigned lexicographic
+     * order matches the order of the tokens. Partitioners whose tokens cannot be translated to such
+     * a representation throw {@code UnsupportedOperationException}.
+     */
+    public ByteSource asComparableBytes()
+    {
+        throw new UnsupportedOperationException(getPartitioner().getClass().getSimpleName() + " tokens are not byte-comparable");
+    }
+
     public Token getToken()
     {
         return this;
@@ -193,6 +204,12 @@ public abstract class Token implements RingPosition<Token>, Serializable
             return isMinimumBound ? PartitionPosition.Kind.MIN_BOUND : PartitionPosition.Kind.MAX_BOUND;
         }
 
+        public ByteSource asComparableBytes()
+        {
+            return ByteSource.concat(getToken().asComparableBytes(),
+                                     ByteSource.oneByte(isMinimumBound ? ByteSource.LT_NEXT_COMPONENT : ByteSource.GT_NEXT_COMPONENT));
+        }
+
         @Override
         public boolean equals(Object obj)
         {
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.hints;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.utils.UUIDSerializer;
+
+/**
+ * The {@link HintBatchMessage} counterpart of {@link EncodedHintMessage}: sends hints already encoded in bytebuffers
+ * verbatim.
+ *
+ * Never deserialized as an EncodedHintBatchMessage - the receiving side will always deserialize the message as vanilla
+ * {@link HintBatchMessage}.
+ */
+final class EncodedHintBatchMessage
+{
+    private static final IVersionedSerializer<EncodedHintBatchMessage> serializer = new Serializer();
+
+    private final UUID hostId;
+    private final List<ByteBuffer> hints;
+    private final int version;
+
+    EncodedHintBatchMessage(UUID hostId, List<ByteBuffer> hints, int version)
+    {
+        this.hostId = hostId;
+        this.hints = hints;
+        this.version = version;
+    }
+
+    MessageOut<EncodedHintBatchMessage> createMessageOut()
+    {
+        return new MessageOut<>(MessagingService.Verb.HINT_BATCH, this, serializer);
+    }
+
+    long[] getHintCreationTimes()
+    {
+        long[] creationTimes = new long[hints.size()];
+        for (int i = 0; i < creationTimes.length; i++)
+            creationTimes[i] = Hint.serializer.getHintCreationTime(hints.get(i), version);
+        return creationTimes;
+    }
+
+    private static class Serializer implements IVersionedSerializer<EncodedHintBatchMessage>
+    {
+        public long serializedSize(EncodedHintBatchMessage message, int version)
+        {
+            if (version != message.version)
+                throw new IllegalArgumentException("serializedSize() called with non-matching version " + version);
+
+            long size = UUIDSerializer.serializer.serializedSize(message.hostId, version);
+            size += TypeSizes.sizeofUnsignedVInt(message.hints.size());
+            for (ByteBuffer hint : message.hints)
+            {
+                size += TypeSizes.sizeofUnsignedVInt(hint.remaining());
+                size += hint.remaining();
+            }
+            return size;
+        }
+
+        public void serialize(EncodedHintBatchMessage message, DataOutputPlus out, int version) throws IOException
+        {
+            if (version != message.version)
+                throw new IllegalArgumentException("serialize() called with non-matching version " + version);
+
+            UUIDSerializer.serializer.serialize(message.hostId, out, version);
+            out.writeUnsignedVInt(message.hints.size());
+            for (ByteBuffer hint : message.hints)
+            {
+                out.writeUnsignedVInt(hint.remaining());
+                out.write(hint);
+            }
+        }
+
+        public EncodedHintBatchMessage deserialize(DataInputPlus in, int version) throws IOException
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
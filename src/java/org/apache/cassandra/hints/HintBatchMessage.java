@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.hints;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import com.google.common.primitives.Ints;
+
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.utils.UUIDSerializer;
+
+/**
+ * The message we use to dispatch several hints meant for the same host at once, acknowledged by a single response
+ * once all of them are applied or stored.
+ *
+ * Each of the hints is handled as if it was sent in its own {@link HintMessage}, see {@link HintBatchVerbHandler}.
+ */
+public final class HintBatchMessage
+{
+    public static final IVersionedSerializer<HintBatchMessage> serializer = new Serializer();
+
+    final UUID hostId;
+    final List<HintMessage> hints;
+
+    HintBatchMessage(UUID hostId, List<HintMessage> hints)
+    {
+        this.hostId = hostId;
+        this.hints = hints;
+    }
+
+    public MessageOut<HintBatchMessage> createMessageOut()
+    {
+        return new MessageOut<>(MessagingService.Verb.HINT_BATCH, this, serializer);
+    }
+
+    public static class Serializer implements IVersionedSerializer<HintBatchMessage>
+    {
+        public long serializedSize(HintBatchMessage message, int version)
+        {
+            long size = UUIDSerializer.serializer.serializedSize(message.hostId, version);
+            size += TypeSizes.sizeofUnsignedVInt(message.hints.size());
+            for (HintMessage hint : message.hints)
+            {
+                long hintSize = Hint.serializer.serializedSize(hint.hint, version);
+                size += TypeSizes.sizeofUnsignedVInt(hintSize);
+                size += hintSize;
+            }
+            return size;
+        }
+
+        public void serialize(HintBatchMessage message, DataOutputPlus out, int version) throws IOException
+        {
+            UUIDSerializer.serializer.serialize(message.hostId, out, version);
+            out.writeUnsignedVInt(message.hints.size());
+            for (HintMessage hint : message.hints)
+            {
+                Objects.requireNonNull(hint.hint); // we should never *send* a null hint
+                out.writeUnsignedVInt(Hint.serializer.serializedSize(hint.hint, version));
+                Hint.serializer.serialize(hint.hint, out, version);
+            }
+        }
+
+        /*
+         * As for a HintMessage, the hints of tables which don't exist anymore are skipped, and the other hints of
+         * the batch are still deserialized.
+         */
+        public HintBatchMessage deserialize(DataInputPlus in, int version) throws IOException
+        {
+            UUID hostId = UUIDSerializer.serializer.deserialize(in, version);
+            int count = Ints.checkedCast(in.readUnsignedVInt());
+            List<HintMessage> hints = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+                hints.add(HintMessage.Serializer.deserializeHint(hostId, in, version));
+            return new HintBatchMessage(hostId, hints);
+        }
+    }
+}
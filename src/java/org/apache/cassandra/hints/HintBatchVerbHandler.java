@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.hints;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.net.IVerbHandler;
+import org.apache.cassandra.net.MessageIn;
+
+/**
+ * Verb handler for {@link HintBatchMessage}: handles each hint as {@link HintVerbHandler} does, and replies once all
+ * of them are applied or stored. If any of them fails, none is acknowledged and the sender retries the whole batch.
+ */
+public final class HintBatchVerbHandler implements IVerbHandler<HintBatchMessage>
+{
+    private static final Logger logger = LoggerFactory.getLogger(HintBatchVerbHandler.class);
+
+    public void doVerb(MessageIn<HintBatchMessage> message, int id)
+    {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[message.payload.hints.size()];
+        for (int i = 0; i < futures.length; i++)
+            futures[i] = HintVerbHandler.handle(message.payload.hints.get(i));
+
+        CompletableFuture.allOf(futures)
+                         .thenAccept(o -> HintVerbHandler.reply(id, message.from))
+                         .exceptionally(e -> {logger.debug("Failed to apply hints", e); return null;});
+    }
+}
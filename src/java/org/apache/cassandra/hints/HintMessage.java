@@ -116,7 +116,15 @@ public final class HintMessage
         public HintMessage deserialize(DataInputPlus in, int version) throws IOException
         {
             UUID hostId = UUIDSerializer.serializer.deserialize(in, version);
+            return deserializeHint(hostId, in, version);
+        }
 
+        /**
+         * Deserializes a hint prefixed with its size, as found after the host id in a hint message, and after the
+         * host id and number of hints in a {@link HintBatchMessage}.
+         */
+        static HintMessage deserializeHint(UUID hostId, DataInputPlus in, int version) throws IOException
+        {
             long hintSize = in.readUnsignedVInt();
             TrackedDataInputPlus countingIn = new TrackedDataInputPlus(in);
             try
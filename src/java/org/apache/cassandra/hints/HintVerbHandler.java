@@ -20,6 +20,7 @@ package org.apache.cassandra.hints;
 
 import java.net.InetAddress;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,8 +46,19 @@ public final class HintVerbHandler implements IVerbHandler<HintMessage>
 
     public void doVerb(MessageIn<HintMessage> message, int id)
     {
-        UUID hostId = message.payload.hostId;
-        Hint hint = message.payload.hint;
+        handle(message.payload).thenAccept(o -> reply(id, message.from))
+                               .exceptionally(e -> {logger.debug("Failed to apply hint", e); return null;});
+    }
+
+    /**
+     * Applies or stores the hint of the message, as appropriate.
+     *
+     * @return a future completed once the hint can be acknowledged
+     */
+    static CompletableFuture<?> handle(HintMessage message)
+    {
+        UUID hostId = message.hostId;
+        Hint hint = message.hint;
         InetAddress address = StorageService.instance.getEndpointForHostId(hostId);
 
         // If we see an unknown table id, it means the table, or one of the tables in the mutation, had been dropped.
@@ -58,9 +70,8 @@ public final class HintVerbHandler implements IVerbHandler<HintMessage>
             logger.trace("Failed to decode and apply a hint for {}: {} - table with id {} is unknown",
                          address,
                          hostId,
-                         message.payload.unknownTableID);
-            reply(id, message.from);
-            return;
+                         message.unknownTableID);
+            return CompletableFuture.completedFuture(null);
         }
 
         // We must perform validation before applying the hint, and there is no other place to do it other than here.
@@ -71,8 +82,7 @@ public final class HintVerbHandler implements IVerbHandler<HintMessage>
         catch (MarshalException e)
         {
             logger.warn("Failed to validate a hint for {}: {} - skipped", address, hostId);
-            reply(id, message.from);
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         if (!hostId.equals(StorageService.instance.getLocalHostUUID()))
@@ -80,23 +90,23 @@ public final class HintVerbHandler implements IVerbHandler<HintMessage>
             // the node is not the final destination of the hint (must have gotten it from a decommissioning node),
             // so just store it locally, to be delivered later.
             HintsService.instance.write(hostId, hint);
-            reply(id, message.from);
+            return CompletableFuture.completedFuture(null);
         }
         else if (!StorageProxy.instance.appliesLocally(hint.mutation))
         {
             // the topology has changed, and we are no longer a replica of the mutation - since we don't know which node(s)
             // it has been handed over to, re-address the hint to all replicas; see CASSANDRA-5902.
             HintsService.instance.writeForAllReplicas(hint);
-            reply(id, message.from);
+            return CompletableFuture.completedFuture(null);
         }
         else
         {
             // the common path - the node is both the destination and a valid replica for the hint.
-            hint.applyFuture().thenAccept(o -> reply(id, message.from)).exceptionally(e -> {logger.debug("Failed to apply hint", e); return null;});
+            return hint.applyFuture();
         }
     }
 
-    private static void reply(int id, InetAddress to)
+    static void reply(int id, InetAddress to)
     {
         MessagingService.instance().sendReply(HintResponse.message, id, to);
     }
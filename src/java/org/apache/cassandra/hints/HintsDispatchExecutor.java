@@ -52,6 +52,7 @@ final class HintsDispatchExecutor
     private final AtomicBoolean isPaused;
     private final Predicate<InetAddress> isAlive;
     private final Map<UUID, Future> scheduledDispatches;
+    private final Map<UUID, HintsDispatchWindow> dispatchWindows;
 
     HintsDispatchExecutor(File hintsDirectory, int maxThreads, AtomicBoolean isPaused, Predicate<InetAddress> isAlive)
     {
@@ -60,6 +61,7 @@ final class HintsDispatchExecutor
         this.isAlive = isAlive;
 
         scheduledDispatches = new ConcurrentHashMap<>();
+        dispatchWindows = new ConcurrentHashMap<>();
         executor = new JMXEnabledThreadPoolExecutor(maxThreads, 1, TimeUnit.MINUTES,
                                                     new LinkedBlockingQueue<>(),
                                                     new NamedThreadFactory("HintsDispatcher", Thread.MIN_PRIORITY),
@@ -272,7 +274,8 @@ final class HintsDispatchExecutor
             InputPosition offset = store.getDispatchOffset(descriptor);
 
             BooleanSupplier shouldAbort = () -> !isAlive.test(address) || isPaused.get();
-            try (HintsDispatcher dispatcher = HintsDispatcher.create(file, rateLimiter, address, descriptor.hostId, shouldAbort))
+            HintsDispatchWindow window = dispatchWindows.computeIfAbsent(hostId, uuid -> new HintsDispatchWindow());
+            try (HintsDispatcher dispatcher = HintsDispatcher.create(file, rateLimiter, address, descriptor.hostId, shouldAbort, window))
             {
                 if (offset != null)
                     dispatcher.seek(offset);
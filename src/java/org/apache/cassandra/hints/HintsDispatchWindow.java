@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.hints;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+
+/**
+ * The number of pages of hints a {@link HintsDispatcher} may have in flight to a node, adapted to how the node keeps up.
+ *
+ * The window grows by one page every time a page is acknowledged about as fast as the fastest pages so far, and
+ * shrinks by one page when acknowledgements get slower, i.e. when hints start queueing up on the node. It is halved
+ * when hints fail or time out, which is usually the node dropping them. A window is kept per node, and shared by the
+ * successive dispatch sessions to it.
+ */
+final class HintsDispatchWindow
+{
+    // how much slower than the baseline an acknowledgement may be before the window shrinks
+    private static final int SLOWDOWN_FACTOR = 2;
+
+    private int size = 1;
+
+    // the latency of pages when nothing queues up: tracks the fastest acknowledgements, and slowly rises towards the
+    // latest ones so that it does not stay stuck on an outlier
+    private long baselineLatencyNanos = Long.MAX_VALUE;
+
+    /**
+     * @return the number of pages which may be in flight.
+     */
+    synchronized int size()
+    {
+        return Math.min(size, DatabaseDescriptor.getMaxHintsDispatchPagesInFlight());
+    }
+
+    /**
+     * Called when all the hints of a page are acknowledged.
+     *
+     * @param latencyNanos the time the slowest hint of the page took to be acknowledged
+     */
+    synchronized void onAcknowledged(long latencyNanos)
+    {
+        if (baselineLatencyNanos == Long.MAX_VALUE || latencyNanos < baselineLatencyNanos)
+            baselineLatencyNanos = latencyNanos;
+        else
+            baselineLatencyNanos += (latencyNanos - baselineLatencyNanos) / 64;
+
+        if (latencyNanos > SLOWDOWN_FACTOR * baselineLatencyNanos)
+            size = Math.max(1, size() - 1);
+        else
+            size = Math.min(size() + 1, DatabaseDescriptor.getMaxHintsDispatchPagesInFlight());
+    }
+
+    /**
+     * Called when some hints of a page failed or timed out.
+     */
+    synchronized void onFailure()
+    {
+        size = Math.max(1, size() / 2);
+    }
+}
@@ -25,10 +25,12 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 
+import com.google.common.collect.Iterators;
 import com.google.common.util.concurrent.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.monitoring.ApproximateTime;
 import org.apache.cassandra.exceptions.RequestFailureReason;
 import org.apache.cassandra.metrics.HintsServiceMetrics;
@@ -40,8 +42,11 @@ import org.apache.cassandra.utils.concurrent.SimpleCondition;
 /**
  * Dispatches a single hints file to a specified node in a batched manner.
  *
- * Uses either {@link EncodedHintMessage} - when dispatching hints into a node with the same messaging version as the hints file,
- * or {@link HintMessage}, when conversion is required.
+ * Uses either {@link EncodedHintMessage} and {@link EncodedHintBatchMessage} - when dispatching hints into a node with
+ * the same messaging version as the hints file, or {@link HintMessage}, when conversion is required.
+ *
+ * The hints are read and sent by pages, and up to {@link HintsDispatchWindow#size()} pages are sent before waiting
+ * for the oldest one to be acknowledged.
  */
 final class HintsDispatcher implements AutoCloseable
 {
@@ -54,10 +59,14 @@ final class HintsDispatcher implements AutoCloseable
     private final InetAddress address;
     private final int messagingVersion;
     private final BooleanSupplier abortRequested;
+    private final HintsDispatchWindow window;
+    private final int batchSize;
 
+    // the pages sent and not acknowledged yet, oldest first
+    private final Deque<InFlightPage> inFlight = new ArrayDeque<>();
     private InputPosition currentPagePosition;
 
-    private HintsDispatcher(HintsReader reader, UUID hostId, InetAddress address, int messagingVersion, BooleanSupplier abortRequested)
+    private HintsDispatcher(HintsReader reader, UUID hostId, InetAddress address, int messagingVersion, BooleanSupplier abortRequested, HintsDispatchWindow window)
     {
         currentPagePosition = null;
 
@@ -66,12 +75,14 @@ final class HintsDispatcher implements AutoCloseable
         this.address = address;
         this.messagingVersion = messagingVersion;
         this.abortRequested = abortRequested;
+        this.window = window;
+        this.batchSize = DatabaseDescriptor.getHintsDispatchBatchSize();
     }
 
-    static HintsDispatcher create(File file, RateLimiter rateLimiter, InetAddress address, UUID hostId, BooleanSupplier abortRequested)
+    static HintsDispatcher create(File file, RateLimiter rateLimiter, InetAddress address, UUID hostId, BooleanSupplier abortRequested, HintsDispatchWindow window)
     {
         int messagingVersion = MessagingService.instance().getVersion(address);
-        return new HintsDispatcher(HintsReader.open(file, rateLimiter), hostId, address, messagingVersion, abortRequested);
+        return new HintsDispatcher(HintsReader.open(file, rateLimiter), hostId, address, messagingVersion, abortRequested, window);
     }
 
     public void close()
@@ -91,11 +102,23 @@ final class HintsDispatcher implements AutoCloseable
     {
         for (HintsReader.Page page : reader)
         {
-            currentPagePosition = page.position;
+            while (inFlight.size() >= window.size())
+            {
+                if (awaitOldestPage() != Action.CONTINUE)
+                    return false;
+            }
+
+            if (inFlight.isEmpty())
+                currentPagePosition = page.position;
             if (dispatch(page) != Action.CONTINUE)
                 return false;
         }
 
+        while (!inFlight.isEmpty())
+        {
+            if (awaitOldestPage() != Action.CONTINUE)
+                return false;
+        }
         return true;
     }
 
@@ -111,12 +134,12 @@ final class HintsDispatcher implements AutoCloseable
     // retry in case of a timeout; stop in case of a failure, host going down, or delivery paused
     private Action dispatch(HintsReader.Page page)
     {
-        return sendHintsAndAwait(page);
+        return sendPage(page);
     }
 
-    private Action sendHintsAndAwait(HintsReader.Page page)
+    private Action sendPage(HintsReader.Page page)
     {
-        Collection<Callback> callbacks = new ArrayList<>();
+        InFlightPage sent = new InFlightPage(page.position);
 
         /*
          * If hints file messaging version matches the version of the target host, we'll use the optimised path -
@@ -124,47 +147,80 @@ final class HintsDispatcher implements AutoCloseable
          *
          * If that is not the case, we'll need to perform conversion to a newer (or an older) format, and decoding the hint
          * is an unavoidable intermediate step.
+         *
+         * Nodes of older versions don't know about batches of hints, so they are sent one hint per message.
          */
-        Action action = reader.descriptor().messagingVersion() == messagingVersion
-                      ? sendHints(page.buffersIterator(), callbacks, this::sendEncodedHint)
-                      : sendHints(page.hintsIterator(), callbacks, this::sendHint);
+        boolean batch = batchSize > 1 && messagingVersion >= MessagingService.VERSION_40;
+        Action action;
+        if (reader.descriptor().messagingVersion() == messagingVersion)
+            action = batch
+                   ? sendHints(Iterators.partition(page.buffersIterator(), batchSize), sent.callbacks, this::sendEncodedHintBatch)
+                   : sendHints(page.buffersIterator(), sent.callbacks, this::sendEncodedHint);
+        else
+            action = batch
+                   ? sendHints(Iterators.partition(page.hintsIterator(), batchSize), sent.callbacks, this::sendHintBatch)
+                   : sendHints(page.hintsIterator(), sent.callbacks, this::sendHint);
 
         if (action == Action.ABORT)
             return action;
 
+        inFlight.add(sent);
+        return Action.CONTINUE;
+    }
+
+    private Action awaitOldestPage()
+    {
+        InFlightPage page = inFlight.peek();
+        currentPagePosition = page.position;
+
         boolean hadFailures = false;
-        for (Callback cb : callbacks)
+        long latency = 0;
+        int delivered = 0;
+        for (Callback cb : page.callbacks)
         {
             Callback.Outcome outcome = cb.await();
-            updateMetrics(outcome);
+            updateMetrics(outcome, cb.hints);
 
             if (outcome != Callback.Outcome.SUCCESS)
+            {
                 hadFailures = true;
+            }
+            else
+            {
+                latency = Math.max(latency, cb.latency);
+                delivered += cb.hints;
+            }
+        }
+        if (delivered > 0)
+            HintsServiceMetrics.updateReplayMetrics(address, delivered);
+
+        if (hadFailures)
+        {
+            window.onFailure();
+            return Action.ABORT;
         }
 
-        return hadFailures ? Action.ABORT : Action.CONTINUE;
+        window.onAcknowledged(latency);
+        inFlight.poll();
+        return Action.CONTINUE;
     }
 
-    private void updateMetrics(Callback.Outcome outcome)
+    private void updateMetrics(Callback.Outcome outcome, int hints)
     {
         switch (outcome)
         {
             case SUCCESS:
-                HintsServiceMetrics.hintsSucceeded.mark();
+                HintsServiceMetrics.hintsSucceeded.mark(hints);
                 break;
             case FAILURE:
-                HintsServiceMetrics.hintsFailed.mark();
+                HintsServiceMetrics.hintsFailed.mark(hints);
                 break;
             case TIMEOUT:
-                HintsServiceMetrics.hintsTimedOut.mark();
+                HintsServiceMetrics.hintsTimedOut.mark(hints);
                 break;
         }
     }
 
-    /*
-     * Sending hints in compatibility mode.
-     */
-
     private <T> Action sendHints(Iterator<T> hints, Collection<Callback> callbacks, Function<T, Callback> sendFunction)
     {
         while (hints.hasNext())
@@ -176,6 +232,10 @@ final class HintsDispatcher implements AutoCloseable
         return Action.CONTINUE;
     }
 
+    /*
+     * Sending hints in compatibility mode.
+     */
+
     private Callback sendHint(Hint hint)
     {
         Callback callback = new Callback(hint.creationTime);
@@ -184,6 +244,21 @@ final class HintsDispatcher implements AutoCloseable
         return callback;
     }
 
+    private Callback sendHintBatch(List<Hint> hints)
+    {
+        List<HintMessage> messages = new ArrayList<>(hints.size());
+        long[] creationTimes = new long[hints.size()];
+        for (int i = 0; i < creationTimes.length; i++)
+        {
+            messages.add(new HintMessage(hostId, hints.get(i)));
+            creationTimes[i] = hints.get(i).creationTime;
+        }
+        Callback callback = new Callback(creationTimes);
+        HintBatchMessage message = new HintBatchMessage(hostId, messages);
+        MessagingService.instance().sendRRWithFailure(message.createMessageOut(), address, callback);
+        return callback;
+    }
+
     /*
      * Sending hints in raw mode.
      */
@@ -196,6 +271,25 @@ final class HintsDispatcher implements AutoCloseable
         return callback;
     }
 
+    private Callback sendEncodedHintBatch(List<ByteBuffer> hints)
+    {
+        EncodedHintBatchMessage message = new EncodedHintBatchMessage(hostId, hints, messagingVersion);
+        Callback callback = new Callback(message.getHintCreationTimes());
+        MessagingService.instance().sendRRWithFailure(message.createMessageOut(), address, callback);
+        return callback;
+    }
+
+    private static final class InFlightPage
+    {
+        private final InputPosition position;
+        private final Collection<Callback> callbacks = new ArrayList<>();
+
+        private InFlightPage(InputPosition position)
+        {
+            this.position = position;
+        }
+    }
+
     private static final class Callback implements IAsyncCallbackWithFailure
     {
         enum Outcome { SUCCESS, TIMEOUT, FAILURE, INTERRUPTED }
@@ -203,11 +297,14 @@ final class HintsDispatcher implements AutoCloseable
         private final long start = System.nanoTime();
         private final SimpleCondition condition = new SimpleCondition();
         private volatile Outcome outcome;
-        private final long hintCreationTime;
+        private volatile long latency;
+        private final long[] hintCreationTimes;
+        private final int hints;
 
-        private Callback(long hintCreationTime)
+        private Callback(long... hintCreationTimes)
         {
-            this.hintCreationTime = hintCreationTime;
+            this.hintCreationTimes = hintCreationTimes;
+            this.hints = hintCreationTimes.length;
         }
 
         Outcome await()
@@ -236,7 +333,10 @@ final class HintsDispatcher implements AutoCloseable
 
         public void response(MessageIn msg)
         {
-            HintsServiceMetrics.updateDelayMetrics(msg.from, ApproximateTime.currentTimeMillis() - this.hintCreationTime);
+            latency = System.nanoTime() - start;
+            long now = ApproximateTime.currentTimeMillis();
+            for (long hintCreationTime : hintCreationTimes)
+                HintsServiceMetrics.updateDelayMetrics(msg.from, now - hintCreationTime);
             outcome = Outcome.SUCCESS;
             condition.signalAll();
         }
@@ -52,6 +52,8 @@ public class Component
         CRC("CRC.db"),
         // holds SSTable Index Summary (sampling of Index component)
         SUMMARY("Summary.db"),
+        // on-disk trie mapping partition keys to their entry in the primary index (trie-indexed format only)
+        PARTITION_INDEX("Partitions.db"),
         // table of contents, stores the list of all components for the sstable
         TOC("TOC.txt"),
         // built-in secondary index (may be multiple per sstable)
@@ -85,6 +87,7 @@ public class Component
     public final static Component DIGEST = new Component(Type.DIGEST);
     public final static Component CRC = new Component(Type.CRC);
     public final static Component SUMMARY = new Component(Type.SUMMARY);
+    public final static Component PARTITION_INDEX = new Component(Type.PARTITION_INDEX);
     public final static Component TOC = new Component(Type.TOC);
 
     public final Type type;
@@ -120,7 +123,7 @@ public class Component
      * @return the component corresponding to {@code name}. Note that this always return a component as an unrecognized
      * name is parsed into a CUSTOM component.
      */
-    static Component parse(String name)
+    public static Component parse(String name)
     {
         Type type = Type.fromRepresentation(name);
 
@@ -135,6 +138,7 @@ public class Component
             case DIGEST:           return Component.DIGEST;
             case CRC:              return Component.CRC;
             case SUMMARY:          return Component.SUMMARY;
+            case PARTITION_INDEX:  return Component.PARTITION_INDEX;
             case TOC:              return Component.TOC;
             case SECONDARY_INDEX:  return new Component(Type.SECONDARY_INDEX, name);
             case CUSTOM:           return new Component(Type.CUSTOM, name);
@@ -193,7 +193,8 @@ public class IndexSummaryManager implements IndexSummaryManagerMBean
 
     /**
      * Returns a Pair of all compacting and non-compacting sstables.  Non-compacting sstables will be marked as
-     * compacting.
+     * compacting.  The sstables that don't use their index summary for lookups are returned with the compacting ones,
+     * so that their summaries are left alone.
      */
     @SuppressWarnings("resource")
     private Pair<List<SSTableReader>, Map<TableId, LifecycleTransaction>> getCompactingAndNonCompactingSSTables()
@@ -210,7 +211,7 @@ public class IndexSummaryManager implements IndexSummaryManagerMBean
                 {
                     View view = cfStore.getTracker().getView();
                     allSSTables = ImmutableSet.copyOf(view.select(SSTableSet.CANONICAL));
-                    nonCompacting = ImmutableSet.copyOf(view.getUncompacting(allSSTables));
+                    nonCompacting = ImmutableSet.copyOf(Iterables.filter(view.getUncompacting(allSSTables), SSTableReader::usesIndexSummaryForLookups));
                 }
                 while (null == (txn = cfStore.getTracker().tryModify(nonCompacting, OperationType.UNKNOWN)));
 
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.metadata.MetadataType;
+import org.apache.cassandra.io.sstable.metadata.StatsMetadata;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.net.async.RebufferingByteBufDataInputPlus;
+import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.schema.TableMetadataRef;
+
+import static org.apache.cassandra.utils.Throwables.merge;
+
+/**
+ * An {@link SSTableMultiWriter} receiving the component files of a complete sstable, as opposed to its partitions.
+ * The files are written as they come, and the TOC listing them is written once they all are, before the sstable is
+ * opened.
+ */
+public class SSTableComponentsWriter extends SSTable implements SSTableMultiWriter
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final LifecycleTransaction txn;
+    private long bytesWritten;
+    private boolean openResult;
+    private SSTableReader finished;
+
+    public SSTableComponentsWriter(Descriptor descriptor, Set<Component> components, TableMetadataRef metadata, LifecycleTransaction txn)
+    {
+        super(descriptor, ImmutableSet.<Component>builder().addAll(components).add(Component.TOC).build(), metadata, DatabaseDescriptor.getDiskOptimizationStrategy());
+        this.txn = txn;
+        txn.trackNew(this);
+    }
+
+    /**
+     * Write {@code length} bytes of the input to the file of the component.
+     *
+     * @throws IOException if reading the input fails. Will throw an {@link FSWriteError} if writing the file fails.
+     */
+    public void writeComponent(Component component, DataInputPlus in, long length) throws IOException
+    {
+        assert components.contains(component) && component.type != Component.Type.TOC : component + " is not a streamed component of " + descriptor;
+
+        try (ComponentChannel channel = new ComponentChannel(new File(descriptor.filenameFor(component))))
+        {
+            // received buffers are written as they are, other inputs go through a buffer
+            if (in instanceof RebufferingByteBufDataInputPlus)
+                ((RebufferingByteBufDataInputPlus) in).transferTo(channel, length);
+            else
+                copy(in, channel, length);
+            bytesWritten += length;
+            channel.force();
+        }
+    }
+
+    private static void copy(DataInputPlus in, WritableByteChannel channel, long length) throws IOException
+    {
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, length)];
+        long remaining = length;
+        while (remaining > 0)
+        {
+            int toWrite = (int) Math.min(buffer.length, remaining);
+            in.readFully(buffer, 0, toWrite);
+
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, toWrite);
+            while (bytes.hasRemaining())
+                channel.write(bytes);
+            remaining -= toWrite;
+        }
+    }
+
+    public boolean append(UnfilteredRowIterator partition)
+    {
+        throw new UnsupportedOperationException("The component files of " + descriptor + " can only be written as a whole");
+    }
+
+    public Collection<SSTableReader> finish(long repairedAt, long maxDataAge, boolean openResult)
+    {
+        try
+        {
+            StatsMetadata stats = (StatsMetadata) descriptor.getMetadataSerializer().deserialize(descriptor, MetadataType.STATS);
+            if (stats.repairedAt != repairedAt)
+                descriptor.getMetadataSerializer().mutateRepaired(descriptor, repairedAt, stats.pendingRepair);
+        }
+        catch (IOException e)
+        {
+            throw new FSWriteError(e, descriptor.filenameFor(Component.STATS));
+        }
+        return finish(openResult);
+    }
+
+    public Collection<SSTableReader> finish(boolean openResult)
+    {
+        setOpenResult(openResult);
+        prepareToCommit();
+        Throwable accumulate = commit(null);
+        if (accumulate != null)
+            throw new RuntimeException(accumulate);
+        return finished();
+    }
+
+    public Collection<SSTableReader> finished()
+    {
+        return finished == null ? Collections.emptyList() : Collections.singleton(finished);
+    }
+
+    public SSTableMultiWriter setOpenResult(boolean openResult)
+    {
+        this.openResult = openResult;
+        return this;
+    }
+
+    public long getFilePointer()
+    {
+        return bytesWritten;
+    }
+
+    public TableId getTableId()
+    {
+        return metadata().id;
+    }
+
+    public void prepareToCommit()
+    {
+        // the components are synced as they are written
+        appendTOC(descriptor, components);
+        if (openResult && finished == null)
+            finished = SSTableReader.open(descriptor, components, metadata);
+    }
+
+    public Throwable commit(Throwable accumulate)
+    {
+        return accumulate;
+    }
+
+    public Throwable abort(Throwable accumulate)
+    {
+        txn.untrackNew(this);
+        if (finished != null)
+        {
+            try
+            {
+                finished.selfRef().release();
+            }
+            catch (Throwable t)
+            {
+                accumulate = merge(accumulate, t);
+            }
+            finished = null;
+        }
+
+        for (Component component : components)
+        {
+            File file = new File(descriptor.filenameFor(component));
+            if (!file.exists())
+                continue;
+
+            try
+            {
+                FileUtils.deleteWithConfirm(file);
+            }
+            catch (Throwable t)
+            {
+                accumulate = merge(accumulate, t);
+            }
+        }
+        return accumulate;
+    }
+
+    public void close()
+    {
+    }
+
+    /**
+     * The file of a component, failing with {@link FSWriteError}s so that write failures are told apart from
+     * failures to read the streamed input.
+     */
+    private static class ComponentChannel implements WritableByteChannel
+    {
+        private final File file;
+        private final FileChannel channel;
+
+        ComponentChannel(File file)
+        {
+            this.file = file;
+            try
+            {
+                this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, file);
+            }
+        }
+
+        public int write(ByteBuffer src)
+        {
+            try
+            {
+                return channel.write(src);
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, file);
+            }
+        }
+
+        void force()
+        {
+            try
+            {
+                channel.force(true);
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, file);
+            }
+        }
+
+        public boolean isOpen()
+        {
+            return channel.isOpen();
+        }
+
+        public void close()
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, file);
+            }
+        }
+    }
+}
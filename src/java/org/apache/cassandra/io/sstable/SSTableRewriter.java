@@ -66,6 +66,7 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
 
     private final List<SSTableWriter> writers = new ArrayList<>();
     private final boolean keepOriginals; // true if we do not want to obsolete the originals
+    private final boolean ownsTransaction; // false if another rewriter adopts our writers and commits the transaction
 
     private SSTableWriter writer;
     private Map<DecoratedKey, RowIndexEntry> cachedKeys = new HashMap<>();
@@ -86,11 +87,17 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
 
     @VisibleForTesting
     public SSTableRewriter(LifecycleTransaction transaction, long maxAge, long preemptiveOpenInterval, boolean keepOriginals)
+    {
+        this(transaction, maxAge, preemptiveOpenInterval, keepOriginals, true);
+    }
+
+    private SSTableRewriter(LifecycleTransaction transaction, long maxAge, long preemptiveOpenInterval, boolean keepOriginals, boolean ownsTransaction)
     {
         this.transaction = transaction;
         this.maxAge = maxAge;
         this.keepOriginals = keepOriginals;
         this.preemptiveOpenInterval = preemptiveOpenInterval;
+        this.ownsTransaction = ownsTransaction;
     }
 
     @Deprecated
@@ -109,6 +116,16 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
         return new SSTableRewriter(transaction, maxAge, calculateOpenInterval(false), keepOriginals);
     }
 
+    /**
+     * Creates a rewriter for one of the sub-ranges of a rewrite that several rewriters write concurrently: it never
+     * opens its sstables early and leaves the transaction to the rewriter that adopts its writers (see
+     * {@link #adoptWriters(SSTableRewriter)}), so it must not be prepared nor committed itself.
+     */
+    public static SSTableRewriter constructForSubRange(LifecycleTransaction transaction, long maxAge)
+    {
+        return new SSTableRewriter(transaction, maxAge, calculateOpenInterval(false), true, false);
+    }
+
     public static SSTableRewriter construct(ColumnFamilyStore cfs, LifecycleTransaction transaction, boolean keepOriginals, long maxAge)
     {
         return new SSTableRewriter(transaction, maxAge, calculateOpenInterval(cfs.supportsEarlyOpen()), keepOriginals);
@@ -194,12 +211,14 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
         for (SSTableWriter writer : writers)
             accumulate = writer.abort(accumulate);
         // abort the lifecycle transaction
-        accumulate = transaction.abort(accumulate);
+        if (ownsTransaction)
+            accumulate = transaction.abort(accumulate);
         return accumulate;
     }
 
     protected Throwable doCommit(Throwable accumulate)
     {
+        assert ownsTransaction;
         for (SSTableWriter writer : writers)
             accumulate = writer.commit(accumulate);
 
@@ -329,6 +348,19 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
         writer = newWriter;
     }
 
+    /**
+     * Takes over the sstables written by the given sub-range rewriter, which must be done writing, so that they are
+     * finished and committed with the ones of this rewriter. This rewriter must not open its sstables early.
+     */
+    public void adoptWriters(SSTableRewriter subRange)
+    {
+        assert !subRange.ownsTransaction && preemptiveOpenInterval == Long.MAX_VALUE;
+        subRange.switchWriter(null);
+        switchWriter(null);
+        writers.addAll(subRange.writers);
+        subRange.writers.clear();
+    }
+
     /**
      * @param repairedAt the repair time, -1 if we should use the time we supplied when we created
      *                   the SSTableWriter (and called rewriter.switchWriter(..)), actual time if we want to override the
@@ -367,6 +399,7 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
 
     protected void doPrepare()
     {
+        assert ownsTransaction;
         switchWriter(null);
 
         if (throwEarly)
@@ -19,10 +19,12 @@ package org.apache.cassandra.io.sstable.format;
 
 import com.google.common.base.CharMatcher;
 
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.db.RowIndexEntry;
 import org.apache.cassandra.db.SerializationHeader;
 import org.apache.cassandra.io.sstable.format.big.BigFormat;
+import org.apache.cassandra.io.sstable.format.trie.TrieIndexFormat;
 
 /**
  * Provides the accessors to data on disk.
@@ -43,14 +45,20 @@ public interface SSTableFormat
     public static enum Type
     {
         //The original sstable format
-        BIG("big", BigFormat.instance);
+        BIG("big", BigFormat.instance),
+        //The big format with its partition index and summary lookups replaced by an on-disk trie
+        TRIE_INDEX("trie", TrieIndexFormat.instance);
 
         public final SSTableFormat info;
         public final String name;
 
+        /**
+         * The format new sstables are written in, as configured by {@code sstable_format}. Both formats can be read
+         * regardless of this setting, so it can be changed at any time, e.g. in the middle of a rolling upgrade.
+         */
         public static Type current()
         {
-            return BIG;
+            return DatabaseDescriptor.getSSTableFormat();
         }
 
         private Type(String name, SSTableFormat info)
@@ -446,7 +446,7 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
             {
                 try
                 {
-                    sstable.buildSummary(false, false, Downsampling.BASE_SAMPLING_LEVEL);
+                    sstable.buildSummary(false, false, sstable.summarySamplingLevel());
                 }
                 catch(IOException e)
                 {
@@ -762,7 +762,7 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
             boolean builtSummary = false;
             if (recreateBloomFilter || !summaryLoaded)
             {
-                buildSummary(recreateBloomFilter, summaryLoaded, Downsampling.BASE_SAMPLING_LEVEL);
+                buildSummary(recreateBloomFilter, summaryLoaded, summarySamplingLevel());
                 builtSummary = true;
             }
 
@@ -1543,6 +1543,16 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
      */
     public final RowIndexEntry getPosition(PartitionPosition key, Operator op, SSTableReadsListener listener)
     {
+        if (op == Operator.EQ)
+        {
+            RowIndexEntry<?> located = listener.locatedIndexEntry(this);
+            if (located != null)
+            {
+                bloomFilterTracker.addTruePositive();
+                listener.onSSTableSelected(this, located, SSTableReadsListener.SelectionReason.INDEX_ENTRY_FOUND);
+                return located;
+            }
+        }
         return getPosition(key, op, true, false, listener);
     }
 
@@ -1613,6 +1623,33 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         return null;
     }
 
+    /**
+     * Reads the index entry and the first data chunk of the given partition, if this sstable contains it, so that a
+     * subsequent read of the partition finds them in the chunk cache (or page cache) instead of waiting on disk.
+     * Stats and the key cache are not updated, as the read that follows does it.
+     *
+     * @return the index entry of the partition, for the read to use instead of looking it up again (see
+     * {@link SSTableReadsListener#locatedIndexEntry}), or {@code null} if this sstable doesn't contain it
+     */
+    public RowIndexEntry<?> prefetch(DecoratedKey key)
+    {
+        RowIndexEntry<?> indexEntry = getPosition(key, Operator.EQ, false);
+        if (indexEntry == null)
+            return null;
+
+        try (FileDataInput in = dfile.createReader(indexEntry.position))
+        {
+            if (!in.isEOF())
+                in.readByte();
+        }
+        catch (IOException e)
+        {
+            markSuspect();
+            throw new CorruptSSTableException(e, getFilename());
+        }
+        return indexEntry;
+    }
+
     /**
      * @return The length in bytes of the data for this SSTable. For
      * compressed files, this is not the same thing as the on disk size (see
@@ -1994,6 +2031,24 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         return null;
     }
 
+    /**
+     * @return a reader for a sequential scan of the data file, which does not populate the chunk cache.
+     */
+    public RandomAccessReader openDataScanReader(RateLimiter limiter)
+    {
+        return dfile.createScanReader(limiter);
+    }
+
+    /**
+     * @return a reader for a sequential scan of the index file, which does not populate the chunk cache.
+     */
+    public RandomAccessReader openIndexScanReader()
+    {
+        if (ifile != null)
+            return ifile.createScanReader(null);
+        return null;
+    }
+
     public ChannelProxy getDataChannel()
     {
         return dfile.channel;
@@ -2066,7 +2121,32 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         return selfRef.ref();
     }
 
-    void setup(boolean trackHotness)
+    /**
+     * The sampling level of the index summary built for this sstable when it is missing, until it is redistributed.
+     */
+    protected int summarySamplingLevel()
+    {
+        return Downsampling.BASE_SAMPLING_LEVEL;
+    }
+
+    /**
+     * Whether lookups go through the index summary, whose sampling is then adjusted to the read rate of this sstable
+     * by the {@link org.apache.cassandra.io.sstable.IndexSummaryManager}.
+     */
+    public boolean usesIndexSummaryForLookups()
+    {
+        return true;
+    }
+
+    /**
+     * Returns the files specific to the format of this reader, which are released along with its data and index files.
+     */
+    protected Iterable<FileHandle> formatFiles()
+    {
+        return Collections.emptyList();
+    }
+
+    protected void setup(boolean trackHotness)
     {
         tidy.setup(this, trackHotness);
         this.readMeter = tidy.global.readMeter;
@@ -2084,6 +2164,8 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         identities.add(tidy.globalRef);
         dfile.addTo(identities);
         ifile.addTo(identities);
+        for (FileHandle file : formatFiles())
+            file.addTo(identities);
         bf.addTo(identities);
         indexSummary.addTo(identities);
 
@@ -2107,6 +2189,7 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
 
         private FileHandle dfile;
         private FileHandle ifile;
+        private Iterable<FileHandle> formatFiles;
         private Runnable runOnClose;
         private boolean isReplaced = false;
 
@@ -2124,6 +2207,7 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
             this.summary = reader.indexSummary;
             this.dfile = reader.dfile;
             this.ifile = reader.ifile;
+            this.formatFiles = reader.formatFiles();
             // get a new reference to the shared descriptor-type tidy
             this.globalRef = GlobalTidy.get(reader);
             this.global = globalRef.get();
@@ -2179,6 +2263,8 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
                         dfile.close();
                     if (ifile != null)
                         ifile.close();
+                    for (FileHandle file : formatFiles)
+                        file.close();
                     globalRef.release();
 
                     if (logger.isTraceEnabled())
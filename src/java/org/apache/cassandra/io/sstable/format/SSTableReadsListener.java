@@ -70,6 +70,18 @@ public interface SSTableReadsListener
     {
     }
 
+    /**
+     * Returns the index entry of the partition read from the specified SSTable during a single partition query, if it
+     * was already located (see {@link org.apache.cassandra.db.ReadPrefetcher}), so that it isn't looked up again.
+     *
+     * @param sstable the SSTable reader
+     * @return the index entry, or {@code null} if it must be looked up
+     */
+    default RowIndexEntry<?> locatedIndexEntry(SSTableReader sstable)
+    {
+        return null;
+    }
+
     /**
      * Handles notification that the specified SSTable is being scanned during a partition range query.
      *
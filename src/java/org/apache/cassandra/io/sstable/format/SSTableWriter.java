@@ -82,7 +82,7 @@ public abstract class SSTableWriter extends SSTable implements Transactional
                             SerializationHeader header,
                             Collection<SSTableFlushObserver> observers)
     {
-        super(descriptor, components(metadata.get()), metadata, DatabaseDescriptor.getDiskOptimizationStrategy());
+        super(descriptor, components(descriptor, metadata.get()), metadata, DatabaseDescriptor.getDiskOptimizationStrategy());
         this.keyCount = keyCount;
         this.repairedAt = repairedAt;
         this.pendingRepair = pendingRepair;
@@ -145,7 +145,7 @@ public abstract class SSTableWriter extends SSTable implements Transactional
         return create(descriptor, keyCount, repairedAt, pendingRepair, 0, header, indexes, txn);
     }
 
-    private static Set<Component> components(TableMetadata metadata)
+    private static Set<Component> components(Descriptor descriptor, TableMetadata metadata)
     {
         Set<Component> components = new HashSet<Component>(Arrays.asList(Component.DATA,
                 Component.PRIMARY_INDEX,
@@ -157,6 +157,9 @@ public abstract class SSTableWriter extends SSTable implements Transactional
         if (metadata.params.bloomFilterFpChance < 1.0)
             components.add(Component.FILTER);
 
+        if (descriptor.formatType == SSTableFormat.Type.TRIE_INDEX)
+            components.add(Component.PARTITION_INDEX);
+
         if (metadata.params.compression.isEnabled())
         {
             components.add(Component.COMPRESSION_INFO);
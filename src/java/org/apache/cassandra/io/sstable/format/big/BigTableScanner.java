@@ -104,8 +104,9 @@ public class BigTableScanner implements ISSTableScanner
     {
         assert sstable != null;
 
-        this.dfile = sstable.openDataReader();
-        this.ifile = sstable.openIndexReader();
+        // scans read each chunk once, keep them from evicting the chunks of other reads
+        this.dfile = sstable.openDataScanReader(null);
+        this.ifile = sstable.openIndexScanReader();
         this.sstable = sstable;
         this.columns = columns;
         this.dataRange = dataRange;
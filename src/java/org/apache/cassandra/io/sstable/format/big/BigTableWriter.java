@@ -51,7 +51,7 @@ public class BigTableWriter extends SSTableWriter
     private static final Logger logger = LoggerFactory.getLogger(BigTableWriter.class);
 
     private final ColumnIndex columnIndexWriter;
-    private final IndexWriter iwriter;
+    protected final IndexWriter iwriter;
     private final FileHandle.Builder dbuilder;
     protected final SequentialWriter dataFile;
     private DecoratedKey lastWrittenKey;
@@ -59,7 +59,7 @@ public class BigTableWriter extends SSTableWriter
     private long lastEarlyOpenLength = 0;
     private final Optional<ChunkCache> chunkCache = Optional.ofNullable(ChunkCache.instance);
 
-    private final SequentialWriterOption writerOption = SequentialWriterOption.newBuilder()
+    protected final SequentialWriterOption writerOption = SequentialWriterOption.newBuilder()
                                                         .trickleFsync(DatabaseDescriptor.getTrickleFsync())
                                                         .trickleFsyncByteInterval(DatabaseDescriptor.getTrickleFsyncIntervalInKb() * 1024)
                                                         .build();
@@ -96,11 +96,24 @@ public class BigTableWriter extends SSTableWriter
         dbuilder = new FileHandle.Builder(descriptor.filenameFor(Component.DATA)).compressed(compression)
                                               .mmapped(DatabaseDescriptor.getDiskAccessMode() == Config.DiskAccessMode.mmap);
         chunkCache.ifPresent(dbuilder::withChunkCache);
-        iwriter = new IndexWriter(keyCount);
+        iwriter = createIndexWriter(keyCount);
 
         columnIndexWriter = new ColumnIndex(this.header, dataFile, descriptor.version, this.observers, getRowIndexEntrySerializer().indexInfoSerializer());
     }
 
+    protected IndexWriter createIndexWriter(long keyCount)
+    {
+        return new IndexWriter(keyCount);
+    }
+
+    /**
+     * The sampling level of the index summary of the sstable.
+     */
+    protected int summarySamplingLevel()
+    {
+        return Downsampling.BASE_SAMPLING_LEVEL;
+    }
+
     public void mark()
     {
         dataMark = dataFile.mark();
@@ -425,20 +438,20 @@ public class BigTableWriter extends SSTableWriter
     /**
      * Encapsulates writing the index and filter for an SSTable. The state of this object is not valid until it has been closed.
      */
-    class IndexWriter extends AbstractTransactional implements Transactional
+    protected class IndexWriter extends AbstractTransactional implements Transactional
     {
-        private final SequentialWriter indexFile;
+        protected final SequentialWriter indexFile;
         public final FileHandle.Builder builder;
         public final IndexSummaryBuilder summary;
         public final IFilter bf;
         private DataPosition mark;
 
-        IndexWriter(long keyCount)
+        protected IndexWriter(long keyCount)
         {
             indexFile = new SequentialWriter(new File(descriptor.filenameFor(Component.PRIMARY_INDEX)), writerOption);
             builder = new FileHandle.Builder(descriptor.filenameFor(Component.PRIMARY_INDEX)).mmapped(DatabaseDescriptor.getIndexAccessMode() == Config.DiskAccessMode.mmap);
             chunkCache.ifPresent(builder::withChunkCache);
-            summary = new IndexSummaryBuilder(keyCount, metadata().params.minIndexInterval, Downsampling.BASE_SAMPLING_LEVEL);
+            summary = new IndexSummaryBuilder(keyCount, metadata().params.minIndexInterval, summarySamplingLevel());
             bf = FilterFactory.getFilter(keyCount, metadata().params.bloomFilterFpChance, true);
             // register listeners to be alerted when the data files are flushed
             indexFile.setPostFlushListener(() -> summary.markIndexSynced(indexFile.getLastFlushOffset()));
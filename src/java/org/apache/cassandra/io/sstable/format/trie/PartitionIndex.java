@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.format.trie;
+
+import java.io.IOException;
+
+import org.apache.cassandra.db.PartitionPosition;
+import org.apache.cassandra.io.util.FileHandle;
+import org.apache.cassandra.io.util.RandomAccessReader;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+
+/**
+ * An on-disk trie, written by {@link PartitionIndexBuilder}, mapping the byte-comparable representation of the
+ * partition keys of an sstable to the position of their entry in the primary index.
+ *
+ * As the trie only stores the prefixes distinguishing each key from its neighbours, its lookups return candidate
+ * positions, and the key stored at that position in the primary index has to be checked by the caller. The trie is
+ * navigated directly in the file, which is read through the chunk cache or mapped like the primary index, so a lookup
+ * reads one node per byte of the distinguishing prefix and no index summary needs to be kept in memory.
+ */
+public class PartitionIndex implements AutoCloseable
+{
+    public static final long NOT_FOUND = -1;
+
+    private final FileHandle file;
+    private final long root;
+
+    public PartitionIndex(FileHandle file) throws IOException
+    {
+        this.file = file;
+        try (RandomAccessReader reader = file.createReader())
+        {
+            reader.seek(reader.length() - 8);
+            this.root = reader.readLong();
+        }
+    }
+
+    public FileHandle getFile()
+    {
+        return file;
+    }
+
+    public void close()
+    {
+        file.close();
+    }
+
+    /**
+     * Returns the position of the only entry which can be equal to the given key, or {@link #NOT_FOUND} if the key
+     * is certainly not present.
+     */
+    public long exactCandidate(PartitionPosition key) throws IOException
+    {
+        if (root == NOT_FOUND)
+            return NOT_FOUND;
+
+        ByteSource bytes = key.asComparableBytes();
+        try (RandomAccessReader reader = file.createReader())
+        {
+            Node node = new Node(reader, root);
+            while (true)
+            {
+                int next = bytes.next();
+                if (next == ByteSource.END_OF_STREAM)
+                    return NOT_FOUND;
+                int index = node.search(next);
+                if (index < 0)
+                    return NOT_FOUND;
+                long value = node.value(index);
+                if (isLeaf(value))
+                    return payload(value);
+                node = node.child(value);
+            }
+        }
+    }
+
+    /**
+     * Returns a position from which the first entry greater than or equal to the given position can be found by
+     * reading at most one entry ahead, or {@link #NOT_FOUND} if all entries are smaller than it.
+     */
+    public long ceilingCandidate(PartitionPosition key) throws IOException
+    {
+        if (root == NOT_FOUND)
+            return NOT_FOUND;
+
+        ByteSource bytes = key.asComparableBytes();
+        try (RandomAccessReader reader = file.createReader())
+        {
+            Node node = new Node(reader, root);
+            // the deepest node seen with a transition greater than the key's, which holds its ceiling if we
+            // run out of greater transitions further down
+            long greaterNode = NOT_FOUND;
+            int greaterIndex = 0;
+            while (true)
+            {
+                int next = bytes.next();
+                if (next == ByteSource.END_OF_STREAM)
+                    return firstPayload(node, 0);
+                int index = node.search(next);
+                if (index < 0)
+                {
+                    index = -index - 1;
+                    if (index < node.count)
+                        return firstPayload(node, index);
+                    return greaterNode == NOT_FOUND ? NOT_FOUND : firstPayload(new Node(reader, greaterNode), greaterIndex);
+                }
+                // the key stored in the leaf shares its prefix with ours, but may sort before it, in which case the
+                // ceiling is the entry that follows it
+                long value = node.value(index);
+                if (isLeaf(value))
+                    return payload(value);
+                if (index + 1 < node.count)
+                {
+                    greaterNode = node.position;
+                    greaterIndex = index + 1;
+                }
+                node = node.child(value);
+            }
+        }
+    }
+
+    private static long firstPayload(Node node, int index) throws IOException
+    {
+        long value = node.value(index);
+        while (!isLeaf(value))
+        {
+            node = node.child(value);
+            value = node.value(0);
+        }
+        return payload(value);
+    }
+
+    private static boolean isLeaf(long value)
+    {
+        return (value & 1) == 1;
+    }
+
+    private static long payload(long value)
+    {
+        return value >>> 1;
+    }
+
+    private static class Node
+    {
+        final RandomAccessReader reader;
+        final long position;
+        final int count;
+        final int width;
+        final byte[] transitions;
+
+        Node(RandomAccessReader reader, long position) throws IOException
+        {
+            this.reader = reader;
+            this.position = position;
+            reader.seek(position);
+            count = reader.readUnsignedByte() + 1;
+            width = reader.readUnsignedByte();
+            transitions = new byte[count];
+            reader.readFully(transitions);
+        }
+
+        /**
+         * Returns the index of the given transition byte, or (-(insertion point) - 1) if there is none.
+         */
+        int search(int transition)
+        {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high)
+            {
+                int mid = (low + high) >>> 1;
+                int cmp = (transitions[mid] & 0xFF) - transition;
+                if (cmp < 0)
+                    low = mid + 1;
+                else if (cmp > 0)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return -low - 1;
+        }
+
+        long value(int index) throws IOException
+        {
+            reader.seek(position + 2 + count + (long) index * width);
+            long value = 0;
+            for (int i = 0; i < width; i++)
+                value = (value << 8) | reader.readUnsignedByte();
+            return value;
+        }
+
+        Node child(long value) throws IOException
+        {
+            return new Node(reader, position - (value >>> 1));
+        }
+    }
+}
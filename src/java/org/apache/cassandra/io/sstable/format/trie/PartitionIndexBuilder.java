@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.format.trie;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.util.SequentialWriter;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+
+/**
+ * Writes the on-disk trie of a {@link PartitionIndex}, given the partition keys in order.
+ *
+ * Each key is only stored up to the shortest prefix of its byte-comparable representation that distinguishes it from
+ * its neighbours, which is why an entry is only added once the next key is known. The prefixes are themselves sorted
+ * and prefix-free, so that every one of them ends in a leaf, which is inlined in its parent node. Nodes are written
+ * in post-order as soon as the path of the next key leaves them: children always precede their parent in the file, and
+ * the nodes of a subtrie are stored close together, which bounds the number of pages touched by a lookup.
+ *
+ * Node layout: [number of children - 1][value width][transition bytes...][values...], where the values are
+ * big-endian on the given number of bytes, and hold either the distance back to a child node, shifted left by one,
+ * or a leaf's payload, shifted left by one with the low bit set. The file ends with the position of the root node,
+ * or -1 if the index is empty.
+ */
+public class PartitionIndexBuilder
+{
+    private final SequentialWriter writer;
+
+    // the nodes on the path of the last prefix added to the trie; the first one is the root
+    private final List<Node> stack = new ArrayList<>();
+    private byte[] lastPrefix;
+
+    // the last key, which is waiting for the next one to determine its prefix
+    private byte[] pendingKey;
+    private long pendingPosition;
+    private int pendingCommonPrefix;
+
+    // the last key added to the trie, which the next key is compared to when no key is pending
+    private byte[] lastKey;
+    // the pending key when mark() was last called
+    private byte[] markedKey;
+
+    private boolean complete;
+
+    public PartitionIndexBuilder(SequentialWriter writer)
+    {
+        this.writer = writer;
+        stack.add(new Node(-1));
+    }
+
+    /**
+     * Adds the given key, which must be greater than all keys added so far, with its position in the primary index.
+     */
+    public void addEntry(DecoratedKey key, long position)
+    {
+        assert !complete;
+        byte[] bytes = ByteSource.toArray(key.asComparableBytes());
+        if (pendingKey != null)
+        {
+            int common = commonPrefixLength(pendingKey, bytes);
+            assert common < bytes.length && common < pendingKey.length : "Keys must be sorted and prefix-free";
+            addPending(common);
+            pendingCommonPrefix = common;
+        }
+        else if (lastKey != null)
+        {
+            pendingCommonPrefix = commonPrefixLength(lastKey, bytes);
+            assert pendingCommonPrefix < bytes.length && pendingCommonPrefix < lastKey.length : "Keys must be sorted and prefix-free";
+        }
+        else
+        {
+            pendingCommonPrefix = 0;
+        }
+        pendingKey = bytes;
+        pendingPosition = position;
+    }
+
+    /**
+     * Marks the current state, so that the next key added can be removed with {@link #resetToMark()}.
+     */
+    public void mark()
+    {
+        markedKey = pendingKey;
+    }
+
+    /**
+     * Removes the key added since the last {@link #mark()}, if any; at most one key can be added in between.
+     *
+     * The removed key is still pending, so nothing about it was written. The pending key it replaced was added to the
+     * trie with a prefix that distinguishes it from the removed key, which also distinguishes it from any greater key
+     * added next.
+     */
+    public void resetToMark()
+    {
+        assert !complete;
+        if (pendingKey == markedKey)
+            return;
+
+        if (markedKey != null)
+            lastKey = markedKey;
+        pendingKey = null;
+    }
+
+    /**
+     * Writes the remaining nodes and the root position, and flushes the file so that it can be read. This is
+     * idempotent, as the writer can be opened early before it is prepared for commit.
+     */
+    public void complete()
+    {
+        if (complete)
+            return;
+        complete = true;
+
+        try
+        {
+            long root = -1;
+            if (pendingKey != null)
+                addPending(0);
+            if (lastPrefix != null)
+            {
+                while (stack.size() > 1)
+                    popAndWrite();
+                root = stack.get(0).write(writer);
+            }
+            writer.writeLong(root);
+        }
+        catch (IOException e)
+        {
+            throw new FSWriteError(e, writer.getPath());
+        }
+        writer.sync();
+    }
+
+    private void addPending(int nextCommonPrefix)
+    {
+        int length = Math.max(pendingCommonPrefix, nextCommonPrefix) + 1;
+        byte[] prefix = Arrays.copyOf(pendingKey, length);
+        try
+        {
+            if (lastPrefix != null)
+            {
+                // the nodes deeper than the common prefix with the last entry are complete
+                int common = commonPrefixLength(lastPrefix, prefix);
+                while (stack.size() > common + 1)
+                    popAndWrite();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new FSWriteError(e, writer.getPath());
+        }
+
+        for (int depth = stack.size(); depth < length; depth++)
+            stack.add(new Node(prefix[depth - 1] & 0xFF));
+        stack.get(length - 1).add(prefix[length - 1] & 0xFF, pendingPosition, true);
+        lastPrefix = prefix;
+    }
+
+    private void popAndWrite() throws IOException
+    {
+        Node node = stack.remove(stack.size() - 1);
+        long position = node.write(writer);
+        Node parent = stack.get(stack.size() - 1);
+        parent.add(node.transition, position, false);
+    }
+
+    private static int commonPrefixLength(byte[] left, byte[] right)
+    {
+        int length = Math.min(left.length, right.length);
+        for (int i = 0; i < length; i++)
+            if (left[i] != right[i])
+                return i;
+        return length;
+    }
+
+    private static class Node
+    {
+        private final int transition;
+        private int count;
+        private byte[] transitions = new byte[4];
+        // child node positions, or leaf payloads
+        private long[] values = new long[4];
+        private boolean[] leaves = new boolean[4];
+
+        Node(int transition)
+        {
+            this.transition = transition;
+        }
+
+        void add(int transition, long value, boolean leaf)
+        {
+            if (count == transitions.length)
+            {
+                transitions = Arrays.copyOf(transitions, count * 2);
+                values = Arrays.copyOf(values, count * 2);
+                leaves = Arrays.copyOf(leaves, count * 2);
+            }
+            transitions[count] = (byte) transition;
+            values[count] = value;
+            leaves[count] = leaf;
+            ++count;
+        }
+
+        long write(SequentialWriter out) throws IOException
+        {
+            assert count > 0 && count <= 256 : count;
+            long position = out.position();
+            long[] encoded = new long[count];
+            long max = 0;
+            for (int i = 0; i < count; i++)
+            {
+                encoded[i] = leaves[i] ? (values[i] << 1) | 1 : (position - values[i]) << 1;
+                max = Math.max(max, encoded[i]);
+            }
+            int width = Math.max(1, (64 - Long.numberOfLeadingZeros(max) + 7) / 8);
+
+            out.writeByte(count - 1);
+            out.writeByte(width);
+            out.write(transitions, 0, count);
+            for (int i = 0; i < count; i++)
+                for (int shift = (width - 1) * 8; shift >= 0; shift -= 8)
+                    out.writeByte((int) (encoded[i] >>> shift));
+            return position;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.format.trie;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.cassandra.db.RowIndexEntry;
+import org.apache.cassandra.db.SerializationHeader;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.Downsampling;
+import org.apache.cassandra.io.sstable.format.*;
+import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
+import org.apache.cassandra.io.sstable.metadata.StatsMetadata;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.schema.TableMetadataRef;
+
+/**
+ * The bigtable format, with partitions located through an on-disk trie over their keys (the Partitions.db
+ * component, see {@link PartitionIndex}) rather than through the index summary and key cache. The data file and the
+ * primary index, which holds the row index of each partition, are the same as in the big format.
+ *
+ * The index summary is still written and loaded, as key estimates and samples rely on it, but at the sparsest sampling
+ * allowed by the table (see {@link #summarySamplingLevel}), which with the default intervals makes it 16 times
+ * smaller than that of a big sstable. Partially written sstables of this format cannot be opened early.
+ */
+public class TrieIndexFormat implements SSTableFormat
+{
+    public static final TrieIndexFormat instance = new TrieIndexFormat();
+    public static final Version latestVersion = new TrieIndexVersion(TrieIndexVersion.current_version);
+    private static final SSTableReader.Factory readerFactory = new ReaderFactory();
+    private static final SSTableWriter.Factory writerFactory = new WriterFactory();
+
+    private TrieIndexFormat()
+    {
+
+    }
+
+    @Override
+    public Version getLatestVersion()
+    {
+        return latestVersion;
+    }
+
+    @Override
+    public Version getVersion(String version)
+    {
+        return new TrieIndexVersion(version);
+    }
+
+    @Override
+    public SSTableWriter.Factory getWriterFactory()
+    {
+        return writerFactory;
+    }
+
+    @Override
+    public SSTableReader.Factory getReaderFactory()
+    {
+        return readerFactory;
+    }
+
+    /**
+     * The index summary isn't used for lookups, only for key estimates and samples, so it is kept at the sparsest
+     * sampling allowed by the max_index_interval of the table, and isn't redistributed.
+     */
+    static int summarySamplingLevel(TableMetadata metadata)
+    {
+        return Math.max(1, (Downsampling.BASE_SAMPLING_LEVEL * metadata.params.minIndexInterval) / metadata.params.maxIndexInterval);
+    }
+
+    @Override
+    public RowIndexEntry.IndexSerializer<?> getIndexSerializer(TableMetadata metadata, Version version, SerializationHeader header)
+    {
+        return new RowIndexEntry.Serializer(version, header);
+    }
+
+    static class WriterFactory extends SSTableWriter.Factory
+    {
+        @Override
+        public SSTableWriter open(Descriptor descriptor,
+                                  long keyCount,
+                                  long repairedAt,
+                                  UUID pendingRepair,
+                                  TableMetadataRef metadata,
+                                  MetadataCollector metadataCollector,
+                                  SerializationHeader header,
+                                  Collection<SSTableFlushObserver> observers,
+                                  LifecycleTransaction txn)
+        {
+            return new TrieIndexTableWriter(descriptor, keyCount, repairedAt, pendingRepair, metadata, metadataCollector, header, observers, txn);
+        }
+    }
+
+    static class ReaderFactory extends SSTableReader.Factory
+    {
+        @Override
+        public SSTableReader open(Descriptor descriptor, Set<Component> components, TableMetadataRef metadata, Long maxDataAge, StatsMetadata sstableMetadata, SSTableReader.OpenReason openReason, SerializationHeader header)
+        {
+            return new TrieIndexTableReader(descriptor, components, metadata, maxDataAge, sstableMetadata, openReason, header);
+        }
+    }
+
+    static class TrieIndexVersion extends Version
+    {
+        public static final String current_version = "aa";
+        public static final String earliest_supported_version = "aa";
+
+        // aa (4.0.0): the big format "na", with a trie partition index
+
+        private final boolean isLatestVersion;
+
+        TrieIndexVersion(String version)
+        {
+            super(instance, version);
+            isLatestVersion = version.compareTo(current_version) == 0;
+        }
+
+        @Override
+        public boolean isLatestVersion()
+        {
+            return isLatestVersion;
+        }
+
+        @Override
+        public int correspondingMessagingVersion()
+        {
+            return MessagingService.VERSION_30;
+        }
+
+        @Override
+        public boolean hasCommitLogLowerBound()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean hasCommitLogIntervals()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean hasMaxCompressedLength()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean hasPendingRepair()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean hasMetadataChecksum()
+        {
+            return true;
+        }
+
+        public boolean isCompatible()
+        {
+            return version.compareTo(earliest_supported_version) >= 0 && version.charAt(0) <= current_version.charAt(0);
+        }
+
+        @Override
+        public boolean isCompatibleForStreaming()
+        {
+            return isCompatible() && version.charAt(0) == current_version.charAt(0);
+        }
+    }
+}
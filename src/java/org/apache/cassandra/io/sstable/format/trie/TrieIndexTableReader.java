@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.format.trie;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.PartitionPosition;
+import org.apache.cassandra.db.RowIndexEntry;
+import org.apache.cassandra.db.SerializationHeader;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.CorruptSSTableException;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.format.SSTableReadsListener;
+import org.apache.cassandra.io.sstable.format.SSTableReadsListener.SelectionReason;
+import org.apache.cassandra.io.sstable.format.SSTableReadsListener.SkippingReason;
+import org.apache.cassandra.io.sstable.format.big.BigTableReader;
+import org.apache.cassandra.io.sstable.metadata.StatsMetadata;
+import org.apache.cassandra.io.util.FileDataInput;
+import org.apache.cassandra.io.util.FileHandle;
+import org.apache.cassandra.schema.TableMetadataRef;
+import org.apache.cassandra.tracing.Tracing;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+/**
+ * Reads sstables of the {@link TrieIndexFormat}. Partitions are located by walking the partition index trie, which
+ * points into the primary index, whose entry is then checked against the searched key; the index summary and the key
+ * cache are not used for lookups. If the partition index component is not opened, e.g. by offline tools, lookups
+ * fall back to the index summary like for the big format.
+ */
+public class TrieIndexTableReader extends BigTableReader
+{
+    private PartitionIndex partitionIndex;
+
+    TrieIndexTableReader(Descriptor desc, Set<Component> components, TableMetadataRef metadata, Long maxDataAge, StatsMetadata sstableMetadata, OpenReason openReason, SerializationHeader header)
+    {
+        super(desc, components, metadata, maxDataAge, sstableMetadata, openReason, header);
+    }
+
+    @Override
+    protected void setup(boolean trackHotness)
+    {
+        if (components.contains(Component.PARTITION_INDEX))
+            openPartitionIndex();
+        super.setup(trackHotness);
+    }
+
+    private void openPartitionIndex()
+    {
+        try (FileHandle.Builder builder = new FileHandle.Builder(descriptor.filenameFor(Component.PARTITION_INDEX))
+                                          .mmapped(DatabaseDescriptor.getIndexAccessMode() == Config.DiskAccessMode.mmap)
+                                          .withChunkCache(ChunkCache.instance))
+        {
+            partitionIndex = new PartitionIndex(builder.complete());
+        }
+        catch (IOException e)
+        {
+            throw new CorruptSSTableException(e, descriptor.filenameFor(Component.PARTITION_INDEX));
+        }
+    }
+
+    @Override
+    protected int summarySamplingLevel()
+    {
+        return TrieIndexFormat.summarySamplingLevel(metadata());
+    }
+
+    @Override
+    public boolean usesIndexSummaryForLookups()
+    {
+        return partitionIndex == null;
+    }
+
+    @Override
+    protected Iterable<FileHandle> formatFiles()
+    {
+        return partitionIndex == null ? Collections.emptyList() : Collections.singleton(partitionIndex.getFile());
+    }
+
+    @Override
+    public long getIndexScanPosition(PartitionPosition key)
+    {
+        if (partitionIndex == null)
+            return super.getIndexScanPosition(key);
+
+        if (openReason == OpenReason.MOVED_START && key.compareTo(first) < 0)
+            key = first;
+
+        try
+        {
+            long position = partitionIndex.ceilingCandidate(key);
+            return position == PartitionIndex.NOT_FOUND ? ifile.dataLength() : position;
+        }
+        catch (IOException e)
+        {
+            markSuspect();
+            throw new CorruptSSTableException(e, partitionIndex.getFile().path());
+        }
+    }
+
+    @Override
+    protected RowIndexEntry<?> getPosition(PartitionPosition key,
+                                           Operator op,
+                                           boolean updateCacheAndStats,
+                                           boolean permitMatchPastLast,
+                                           SSTableReadsListener listener)
+    {
+        if (partitionIndex == null)
+            return super.getPosition(key, op, updateCacheAndStats, permitMatchPastLast, listener);
+
+        if (op == Operator.EQ)
+        {
+            assert key instanceof DecoratedKey; // EQ only make sense if the key is a valid row key
+            if (!bf.isPresent((DecoratedKey)key))
+            {
+                listener.onSSTableSkipped(this, SkippingReason.BLOOM_FILTER);
+                Tracing.trace("Bloom filter allows skipping sstable {}", descriptor.generation);
+                return null;
+            }
+        }
+
+        // check the smallest and greatest keys in the sstable to see if it can't be present
+        boolean skip = false;
+        if (key.compareTo(first) < 0)
+        {
+            if (op == Operator.EQ)
+                skip = true;
+            else
+                key = first;
+
+            op = Operator.EQ;
+        }
+        else
+        {
+            int l = last.compareTo(key);
+            skip = l <= 0 && (l < 0 || (!permitMatchPastLast && op == Operator.GT));
+        }
+        if (skip)
+        {
+            if (op == Operator.EQ && updateCacheAndStats)
+                bloomFilterTracker.addFalsePositive();
+            listener.onSSTableSkipped(this, SkippingReason.MIN_MAX_KEYS);
+            Tracing.trace("Check against min and max keys allows skipping sstable {}", descriptor.generation);
+            return null;
+        }
+
+        if (ifile == null)
+            return null;
+
+        String path = partitionIndex.getFile().path();
+        try
+        {
+            long indexPosition = op == Operator.EQ ? partitionIndex.exactCandidate(key) : partitionIndex.ceilingCandidate(key);
+            if (indexPosition != PartitionIndex.NOT_FOUND)
+            {
+                // the candidate found by the trie is either the searched entry, or for inequalities the one before it
+                try (FileDataInput in = ifile.createReader(indexPosition))
+                {
+                    path = in.getPath();
+                    while (!in.isEOF())
+                    {
+                        ByteBuffer indexKey = ByteBufferUtil.readWithShortLength(in);
+                        int v = op == Operator.EQ
+                              ? (indexKey.equals(((DecoratedKey) key).getKey()) ? 0 : -1)
+                              : op.apply(decorateKey(indexKey).compareTo(key));
+                        if (v < 0)
+                            break;
+
+                        if (v == 0)
+                        {
+                            RowIndexEntry<?> indexEntry = rowIndexEntrySerializer.deserialize(in, in.getFilePointer());
+                            if (op == Operator.EQ && updateCacheAndStats)
+                                bloomFilterTracker.addTruePositive();
+                            listener.onSSTableSelected(this, indexEntry, SelectionReason.INDEX_ENTRY_FOUND);
+                            Tracing.trace("Partition index with {} entries found for sstable {}", indexEntry.columnsIndexCount(), descriptor.generation);
+                            return indexEntry;
+                        }
+
+                        RowIndexEntry.Serializer.skip(in, descriptor.version);
+                    }
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            markSuspect();
+            throw new CorruptSSTableException(e, path);
+        }
+
+        if (op == Operator.EQ && updateCacheAndStats)
+            bloomFilterTracker.addFalsePositive();
+        listener.onSSTableSkipped(this, SkippingReason.PARTITION_INDEX_LOOKUP);
+        Tracing.trace("Partition index lookup allows skipping sstable {}", descriptor.generation);
+        return null;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.format.trie;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.UUID;
+
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.RowIndexEntry;
+import org.apache.cassandra.db.SerializationHeader;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.format.SSTableFlushObserver;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.format.big.BigTableWriter;
+import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
+import org.apache.cassandra.io.util.SequentialWriter;
+import org.apache.cassandra.schema.TableMetadataRef;
+
+/**
+ * Writes sstables of the {@link TrieIndexFormat}: on top of the big format components, the key of each partition is
+ * added to the partition index trie along with the position of its primary index entry.
+ */
+public class TrieIndexTableWriter extends BigTableWriter
+{
+    public TrieIndexTableWriter(Descriptor descriptor,
+                                long keyCount,
+                                long repairedAt,
+                                UUID pendingRepair,
+                                TableMetadataRef metadata,
+                                MetadataCollector metadataCollector,
+                                SerializationHeader header,
+                                Collection<SSTableFlushObserver> observers,
+                                LifecycleTransaction txn)
+    {
+        super(descriptor, keyCount, repairedAt, pendingRepair, metadata, metadataCollector, header, observers, txn);
+    }
+
+    @Override
+    protected IndexWriter createIndexWriter(long keyCount)
+    {
+        return new PartitionIndexWriter(keyCount);
+    }
+
+    @Override
+    protected int summarySamplingLevel()
+    {
+        return TrieIndexFormat.summarySamplingLevel(metadata());
+    }
+
+    /**
+     * Incomplete tries cannot be read, so sstables of this format are only opened once fully written.
+     */
+    @Override
+    public SSTableReader openEarly()
+    {
+        return null;
+    }
+
+    @Override
+    public SSTableReader openFinalEarly()
+    {
+        ((PartitionIndexWriter) iwriter).partitionIndex.complete();
+        return super.openFinalEarly();
+    }
+
+    class PartitionIndexWriter extends IndexWriter
+    {
+        private final SequentialWriter partitionIndexFile;
+        private final PartitionIndexBuilder partitionIndex;
+
+        PartitionIndexWriter(long keyCount)
+        {
+            super(keyCount);
+            partitionIndexFile = new SequentialWriter(new File(descriptor.filenameFor(Component.PARTITION_INDEX)), writerOption);
+            partitionIndex = new PartitionIndexBuilder(partitionIndexFile);
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public void append(DecoratedKey key, RowIndexEntry indexEntry, long dataEnd, ByteBuffer indexInfo) throws IOException
+        {
+            long indexStart = indexFile.position();
+            super.append(key, indexEntry, dataEnd, indexInfo);
+            partitionIndex.addEntry(key, indexStart);
+        }
+
+        @Override
+        public void mark()
+        {
+            super.mark();
+            partitionIndex.mark();
+        }
+
+        @Override
+        public void resetAndTruncate()
+        {
+            super.resetAndTruncate();
+            partitionIndex.resetToMark();
+        }
+
+        @Override
+        protected void doPrepare()
+        {
+            super.doPrepare();
+            partitionIndex.complete();
+            partitionIndexFile.prepareToCommit();
+        }
+
+        @Override
+        protected Throwable doCommit(Throwable accumulate)
+        {
+            return partitionIndexFile.commit(super.doCommit(accumulate));
+        }
+
+        @Override
+        protected Throwable doAbort(Throwable accumulate)
+        {
+            return partitionIndexFile.abort(super.doAbort(accumulate));
+        }
+    }
+}
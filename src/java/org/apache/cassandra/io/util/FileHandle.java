@@ -144,6 +144,21 @@ public class FileHandle extends SharedCloseableImpl
         return new RandomAccessReader(instantiateRebufferer(limiter));
     }
 
+    /**
+     * Create {@link RandomAccessReader} for a one-off sequential scan of the file, e.g. by a range read or a
+     * compaction. Chunks already in the chunk cache are used, but the ones read from disk are not added to it.
+     *
+     * @param limiter RateLimiter to use for rate limiting read, or null
+     * @return RandomAccessReader for the file
+     */
+    public RandomAccessReader createScanReader(RateLimiter limiter)
+    {
+        Rebufferer rebufferer = rebuffererFactory.instantiateScanRebufferer();
+        if (limiter != null)
+            rebufferer = new LimitingRebufferer(rebufferer, limiter, DiskOptimizationStrategy.MAX_BUFFER_SIZE);
+        return new RandomAccessReader(rebufferer);
+    }
+
     public FileDataInput createReader(long position)
     {
         RandomAccessReader reader = createReader();
@@ -29,4 +29,13 @@ package org.apache.cassandra.io.util;
 public interface RebuffererFactory extends ReaderFileProxy
 {
     Rebufferer instantiateRebufferer();
+
+    /**
+     * @return a rebufferer for a one-off sequential scan of the file, which should not displace the data kept around
+     * for other reads (e.g. in the chunk cache).
+     */
+    default Rebufferer instantiateScanRebufferer()
+    {
+        return instantiateRebufferer();
+    }
 }
@@ -19,10 +19,14 @@
 package org.apache.cassandra.metrics;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 
+import org.apache.cassandra.config.DatabaseDescriptor;
+
 import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
 
 
@@ -31,9 +35,26 @@ public class ClientMetrics
     private static final MetricNameFactory factory = new DefaultNameFactory("Client");
     
     public static final ClientMetrics instance = new ClientMetrics();
-    
+
+    /** Number of client connections not read from as they have too many requests in flight */
+    public final AtomicInteger pausedConnections = new AtomicInteger();
+    /** Rate at which client connections get paused for having too many requests in flight */
+    public final Meter connectionPaused;
+    /** Number of requests decoded out of each read from a client connection */
+    public final Histogram requestBatchSize;
+    /** Number of responses written to a client connection with each flush */
+    public final Histogram flushBatchSize;
+
     private ClientMetrics()
     {
+        Metrics.register(factory.createMetricName("PausedConnections"), (Gauge<Integer>) pausedConnections::get);
+        Metrics.register(factory.createMetricName("MaxConcurrentRequestsPerConnection"),
+                         (Gauge<Integer>) DatabaseDescriptor::getNativeTransportMaxConcurrentRequestsPerConnection);
+        Metrics.register(factory.createMetricName("MaxConcurrentRequestsInBytesPerConnection"),
+                         (Gauge<Long>) DatabaseDescriptor::getNativeTransportMaxConcurrentRequestsInBytesPerConnection);
+        connectionPaused = Metrics.meter(factory.createMetricName("ConnectionPaused"));
+        requestBatchSize = Metrics.histogram(factory.createMetricName("RequestBatchSize"), false);
+        flushBatchSize = Metrics.histogram(factory.createMetricName("FlushBatchSize"), false);
     }
 
     public void addCounter(String name, final Callable<Integer> provider)
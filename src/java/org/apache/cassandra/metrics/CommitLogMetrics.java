@@ -17,7 +17,10 @@
  */
 package org.apache.cassandra.metrics;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 import org.apache.cassandra.db.commitlog.AbstractCommitLogService;
 import org.apache.cassandra.db.commitlog.AbstractCommitLogSegmentManager;
@@ -41,11 +44,26 @@ public class CommitLogMetrics
     public final Timer waitingOnSegmentAllocation;
     /** The time spent waiting on CL sync; for Periodic this is only occurs when the sync is lagging its sync interval */
     public final Timer waitingOnCommit;
+    /** Time spent syncing the commit log segments to disk */
+    public final Timer syncLatency;
+    /** Number of writers whose writes are made durable by each sync, in group sync mode */
+    public final Histogram syncBatchSize;
+    /** Number of segments replayed since startup */
+    public final Counter replayedSegments;
+    /** Size of the mutations read from the segments being replayed */
+    public final Meter replayedBytes;
+    /** Mutations applied by replay */
+    public final Meter replayedMutations;
 
     public CommitLogMetrics()
     {
         waitingOnSegmentAllocation = Metrics.timer(factory.createMetricName("WaitingOnSegmentAllocation"));
         waitingOnCommit = Metrics.timer(factory.createMetricName("WaitingOnCommit"));
+        syncLatency = Metrics.timer(factory.createMetricName("SyncLatency"));
+        syncBatchSize = Metrics.histogram(factory.createMetricName("SyncBatchSize"), false);
+        replayedSegments = Metrics.counter(factory.createMetricName("ReplayedSegments"));
+        replayedBytes = Metrics.meter(factory.createMetricName("ReplayedBytes"));
+        replayedMutations = Metrics.meter(factory.createMetricName("ReplayedMutations"));
     }
 
     public void attach(final AbstractCommitLogService service, final AbstractCommitLogSegmentManager segmentManager)
@@ -28,6 +28,7 @@ import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.Keyspace;
 import org.apache.cassandra.db.compaction.CompactionInfo;
 import org.apache.cassandra.db.compaction.CompactionManager;
+import org.apache.cassandra.db.compaction.CompactionThroughputController;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.TableMetadata;
 
@@ -65,6 +66,15 @@ public class CompactionMetrics implements CompactionManager.CompactionExecutorSt
     /** Total number of compactions which have outright failed due to lack of disk space */
     public final Counter compactionsAborted;
 
+    /** Current compaction throughput limit in MB/s, possibly adapted to the load of the node; 0 means unthrottled */
+    public final Gauge<Double> throughputLimit;
+    /** Current number of compactions allowed to run at the same time */
+    public final Gauge<Integer> concurrentCompactors;
+    /** Number of times the compaction throughput was raised because compactions were falling behind */
+    public final Counter throughputIncreases;
+    /** Number of times the compaction throughput was lowered because of the read or write latency */
+    public final Counter throughputDecreases;
+
     public CompactionMetrics(final ThreadPoolExecutor... collectors)
     {
         pendingTasks = Metrics.register(factory.createMetricName("PendingTasks"), new Gauge<Integer>()
@@ -152,6 +162,24 @@ public class CompactionMetrics implements CompactionManager.CompactionExecutorSt
         compactionsReduced = Metrics.counter(factory.createMetricName("CompactionsReduced"));
         sstablesDropppedFromCompactions = Metrics.counter(factory.createMetricName("SSTablesDroppedFromCompaction"));
         compactionsAborted = Metrics.counter(factory.createMetricName("CompactionsAborted"));
+
+        // adaptive throughput metrics
+        throughputLimit = Metrics.register(factory.createMetricName("ThroughputLimit"), new Gauge<Double>()
+        {
+            public Double getValue()
+            {
+                return CompactionThroughputController.instance.getThroughputMbPerSec();
+            }
+        });
+        concurrentCompactors = Metrics.register(factory.createMetricName("ConcurrentCompactors"), new Gauge<Integer>()
+        {
+            public Integer getValue()
+            {
+                return CompactionManager.instance.getCoreCompactorThreads();
+            }
+        });
+        throughputIncreases = Metrics.counter(factory.createMetricName("ThroughputIncreases"));
+        throughputDecreases = Metrics.counter(factory.createMetricName("ThroughputDecreases"));
     }
 
     public void beginCompaction(CompactionInfo.Holder ci)
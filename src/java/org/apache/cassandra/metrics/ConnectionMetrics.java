@@ -18,10 +18,16 @@
 package org.apache.cassandra.metrics;
 
 import java.net.InetAddress;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
 
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import org.apache.cassandra.net.async.OutboundMessagingPool;
+import org.apache.cassandra.net.async.PriorityBacklog.Lane;
 
 import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
 
@@ -55,6 +61,20 @@ public class ConnectionMetrics
     /** Dropped tasks for gossip message TCP Connections */
     public final Gauge<Long> gossipMessageDroppedTasks;
 
+    /** Coalescing window, in microseconds, of large message TCP Connections (0 when not coalescing) */
+    public final Gauge<Long> largeMessageCoalescingWindow;
+    /** 99th percentile latency, in microseconds, of large messages as measured by the adaptive coalescing strategy */
+    public final Gauge<Long> largeMessageCoalescingLatency;
+    /** Coalescing window, in microseconds, of small message TCP Connections (0 when not coalescing) */
+    public final Gauge<Long> smallMessageCoalescingWindow;
+    /** 99th percentile latency, in microseconds, of small messages as measured by the adaptive coalescing strategy */
+    public final Gauge<Long> smallMessageCoalescingLatency;
+
+    /** Number of messages waiting to be sent, per lane, on all the TCP Connections */
+    public final Map<Lane, Gauge<Integer>> backlogPendingTasks;
+    /** Time messages waited to be sent, per lane, on all the TCP Connections */
+    public final Map<Lane, Timer> backlogWaitLatency;
+
     /** Number of timeouts for specific IP */
     public final Meter timeouts;
 
@@ -135,9 +155,62 @@ public class ConnectionMetrics
                 return messagingPool.gossipChannel.getDroppedMessages();
             }
         });
+        largeMessageCoalescingWindow = Metrics.register(factory.createMetricName("LargeMessageCoalescingWindow"), new Gauge<Long>()
+        {
+            public Long getValue()
+            {
+                return messagingPool.largeMessageChannel.getCoalescingWindowMicros();
+            }
+        });
+        largeMessageCoalescingLatency = Metrics.register(factory.createMetricName("LargeMessageCoalescingLatency"), new Gauge<Long>()
+        {
+            public Long getValue()
+            {
+                return messagingPool.largeMessageChannel.getCoalescingLatencyP99Micros();
+            }
+        });
+        smallMessageCoalescingWindow = Metrics.register(factory.createMetricName("SmallMessageCoalescingWindow"), new Gauge<Long>()
+        {
+            public Long getValue()
+            {
+                return messagingPool.smallMessageChannel.getCoalescingWindowMicros();
+            }
+        });
+        smallMessageCoalescingLatency = Metrics.register(factory.createMetricName("SmallMessageCoalescingLatency"), new Gauge<Long>()
+        {
+            public Long getValue()
+            {
+                return messagingPool.smallMessageChannel.getCoalescingLatencyP99Micros();
+            }
+        });
+
+        Map<Lane, Gauge<Integer>> pendingTasks = new EnumMap<>(Lane.class);
+        Map<Lane, Timer> waitLatency = new EnumMap<>(Lane.class);
+        for (Lane lane : Lane.values())
+        {
+            pendingTasks.put(lane, Metrics.register(factory.createMetricName(laneMetricName(lane, "PendingTasks")), new Gauge<Integer>()
+            {
+                public Integer getValue()
+                {
+                    return messagingPool.largeMessageChannel.backlogSize(lane)
+                           + messagingPool.smallMessageChannel.backlogSize(lane)
+                           + messagingPool.gossipChannel.backlogSize(lane);
+                }
+            }));
+            waitLatency.put(lane, Metrics.timer(factory.createMetricName(laneMetricName(lane, "WaitLatency"))));
+        }
+        backlogPendingTasks = Collections.unmodifiableMap(pendingTasks);
+        backlogWaitLatency = Collections.unmodifiableMap(waitLatency);
+
         timeouts = Metrics.meter(factory.createMetricName("Timeouts"));
     }
 
+    private static String laneMetricName(Lane lane, String name)
+    {
+        // e.g. ResponseLanePendingTasks
+        return lane.name().charAt(0) + lane.name().substring(1).toLowerCase(Locale.US) + "Lane" + name;
+    }
+
     public void release()
     {
         Metrics.remove(factory.createMetricName("LargeMessagePendingTasks"));
@@ -149,6 +222,15 @@ public class ConnectionMetrics
         Metrics.remove(factory.createMetricName("GossipMessagePendingTasks"));
         Metrics.remove(factory.createMetricName("GossipMessageCompletedTasks"));
         Metrics.remove(factory.createMetricName("GossipMessageDroppedTasks"));
+        Metrics.remove(factory.createMetricName("LargeMessageCoalescingWindow"));
+        Metrics.remove(factory.createMetricName("LargeMessageCoalescingLatency"));
+        Metrics.remove(factory.createMetricName("SmallMessageCoalescingWindow"));
+        Metrics.remove(factory.createMetricName("SmallMessageCoalescingLatency"));
+        for (Lane lane : Lane.values())
+        {
+            Metrics.remove(factory.createMetricName(laneMetricName(lane, "PendingTasks")));
+            Metrics.remove(factory.createMetricName(laneMetricName(lane, "WaitLatency")));
+        }
         Metrics.remove(factory.createMetricName("Timeouts"));
     }
 }
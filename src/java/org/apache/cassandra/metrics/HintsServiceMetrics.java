@@ -51,6 +51,11 @@ public final class HintsServiceMetrics
         .executor(MoreExecutors.directExecutor())
         .build(address -> Metrics.histogram(factory.createMetricName("Hint_delays-"+address.getHostAddress().replace(':', '.')), false));
 
+    /** Meters per-endpoint of the hints successfully delivered. This is not a cache. */
+    private static final LoadingCache<InetAddress, Meter> replayedByEndpoint = Caffeine.newBuilder()
+        .executor(MoreExecutors.directExecutor())
+        .build(address -> Metrics.meter(factory.createMetricName("Hints_replayed-"+address.getHostAddress().replace(':', '.'))));
+
     public static void updateDelayMetrics(InetAddress endpoint, long delay)
     {
         if (delay <= 0)
@@ -62,4 +67,9 @@ public final class HintsServiceMetrics
         globalDelayHistogram.update(delay);
         delayByEndpoint.get(endpoint).update(delay);
     }
+
+    public static void updateReplayMetrics(InetAddress endpoint, int hints)
+    {
+        replayedByEndpoint.get(endpoint).mark(hints);
+    }
 }
@@ -123,6 +123,12 @@ public class TableMetrics
     public final Gauge<Long> compressionMetadataOffHeapMemoryUsed;
     /** Key cache hit rate  for this CF */
     public final Gauge<Double> keyCacheHitRate;
+    /** Chunk cache requests for the sstables of this CF */
+    public final Meter chunkCacheRequests;
+    /** Chunk cache misses for the sstables of this CF */
+    public final Meter chunkCacheMisses;
+    /** Chunk cache hit rate for the sstables of this CF */
+    public final Gauge<Double> chunkCacheHitRate;
     /** Tombstones scanned in queries on this CF */
     public final TableHistogram tombstoneScannedHistogram;
     /** Live cells scanned in queries on this CF */
@@ -785,6 +791,19 @@ public class TableMetrics
                 return Math.max(requests, 1); // to avoid NaN.
             }
         });
+        chunkCacheRequests = Metrics.meter(factory.createMetricName("ChunkCacheRequests"), aliasFactory.createMetricName("ChunkCacheRequests"));
+        chunkCacheMisses = Metrics.meter(factory.createMetricName("ChunkCacheMisses"), aliasFactory.createMetricName("ChunkCacheMisses"));
+        chunkCacheHitRate = Metrics.register(factory.createMetricName("ChunkCacheHitRate"),
+                                             aliasFactory.createMetricName("ChunkCacheHitRate"),
+                                             new RatioGauge()
+        {
+            @Override
+            public Ratio getRatio()
+            {
+                long requests = chunkCacheRequests.getCount();
+                return Ratio.of(requests - chunkCacheMisses.getCount(), Math.max(requests, 1));
+            }
+        });
         tombstoneScannedHistogram = createTableHistogram("TombstoneScannedHistogram", cfs.keyspace.metric.tombstoneScannedHistogram, false);
         liveScannedHistogram = createTableHistogram("LiveScannedHistogram", cfs.keyspace.metric.liveScannedHistogram, false);
         colUpdateTimeDeltaHistogram = createTableHistogram("ColUpdateTimeDeltaHistogram", cfs.keyspace.metric.colUpdateTimeDeltaHistogram, false);
@@ -876,6 +895,9 @@ public class TableMetrics
         Metrics.remove(factory.createMetricName("EstimatedPartitionCount"), aliasFactory.createMetricName("EstimatedRowCount"));
         Metrics.remove(factory.createMetricName("EstimatedColumnCountHistogram"), aliasFactory.createMetricName("EstimatedColumnCountHistogram"));
         Metrics.remove(factory.createMetricName("KeyCacheHitRate"), aliasFactory.createMetricName("KeyCacheHitRate"));
+        Metrics.remove(factory.createMetricName("ChunkCacheRequests"), aliasFactory.createMetricName("ChunkCacheRequests"));
+        Metrics.remove(factory.createMetricName("ChunkCacheMisses"), aliasFactory.createMetricName("ChunkCacheMisses"));
+        Metrics.remove(factory.createMetricName("ChunkCacheHitRate"), aliasFactory.createMetricName("ChunkCacheHitRate"));
         Metrics.remove(factory.createMetricName("CoordinatorReadLatency"), aliasFactory.createMetricName("CoordinatorReadLatency"));
         Metrics.remove(factory.createMetricName("CoordinatorScanLatency"), aliasFactory.createMetricName("CoordinatorScanLatency"));
         Metrics.remove(factory.createMetricName("WaitingOnFreeMemtableSpace"), aliasFactory.createMetricName("WaitingOnFreeMemtableSpace"));
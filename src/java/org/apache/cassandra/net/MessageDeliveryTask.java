@@ -23,14 +23,18 @@ import java.util.EnumSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.concurrent.CoreAffineTask;
+import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.db.SinglePartitionReadCommand;
 import org.apache.cassandra.db.filter.TombstoneOverwhelmingException;
 import org.apache.cassandra.db.monitoring.ApproximateTime;
+import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.exceptions.RequestFailureReason;
 import org.apache.cassandra.gms.Gossiper;
 import org.apache.cassandra.index.IndexNotAvailableException;
 import org.apache.cassandra.io.util.DataOutputBuffer;
 
-public class MessageDeliveryTask implements Runnable
+public class MessageDeliveryTask implements CoreAffineTask
 {
     private static final Logger logger = LoggerFactory.getLogger(MessageDeliveryTask.class);
 
@@ -46,6 +50,24 @@ public class MessageDeliveryTask implements Runnable
         this.enqueueTime = ApproximateTime.currentTimeMillis();
     }
 
+    public Token affinityToken()
+    {
+        if (message.payload instanceof Mutation)
+            return ((Mutation) message.payload).key().getToken();
+        if (message.payload instanceof SinglePartitionReadCommand)
+            return ((SinglePartitionReadCommand) message.payload).partitionKey().getToken();
+        return null;
+    }
+
+    public boolean mayBlock()
+    {
+        if (message.payload instanceof Mutation)
+            return ((Mutation) message.payload).mayBlockOnApply();
+        if (message.payload instanceof SinglePartitionReadCommand)
+            return ((SinglePartitionReadCommand) message.payload).mayBlockOnDisk();
+        return true;
+    }
+
     public void run()
     {
         MessagingService.Verb verb = message.verb;
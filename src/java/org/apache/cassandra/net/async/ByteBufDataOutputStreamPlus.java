@@ -20,6 +20,7 @@ package org.apache.cassandra.net.async;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -31,6 +32,8 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.Future;
 import org.apache.cassandra.io.util.BufferedDataOutputStreamPlus;
 import org.apache.cassandra.io.util.DataOutputStreamPlus;
@@ -57,6 +60,7 @@ public class ByteBufDataOutputStreamPlus extends BufferedDataOutputStreamPlus
      * (after it was unwritable); hence, the use of a {@link Semaphore}.
      */
     private final Semaphore channelRateLimiter;
+    private final int maxPermits;
 
     /**
      * This *must* be the owning {@link ByteBuf} for the {@link BufferedDataOutputStreamPlus#buffer}
@@ -71,7 +75,8 @@ public class ByteBufDataOutputStreamPlus extends BufferedDataOutputStreamPlus
         this.currentBuf = buffer;
         this.bufferSize = bufferSize;
 
-        channelRateLimiter = new Semaphore(channel.config().getWriteBufferHighWaterMark(), true);
+        maxPermits = channel.config().getWriteBufferHighWaterMark();
+        channelRateLimiter = new Semaphore(maxPermits, true);
     }
 
     @Override
@@ -135,6 +140,75 @@ public class ByteBufDataOutputStreamPlus extends BufferedDataOutputStreamPlus
         return channelFuture;
     }
 
+    /**
+     * Writes a region of the file directly to the backing {@link #channel}, without copying it to the intermediate
+     * {@link #buffer}. Unless the channel is encrypted, the file is handed to netty as {@link DefaultFileRegion}s so
+     * that the bytes go from the page cache to the socket without being copied in user space (see
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}).
+     *
+     * The file is not closed by netty: the caller must not close it before the returned future completes.
+     *
+     * @return the future of the write of the last part of the region.
+     */
+    public ChannelFuture writeToChannel(FileChannel file, long position, long count) throws IOException
+    {
+        doFlush(buffer.position());
+
+        boolean encrypted = channel.pipeline().get(SslHandler.class) != null;
+        ChannelFuture channelFuture = null;
+        long end = position + count;
+        while (position < end)
+        {
+            int byteCount = (int) Math.min(maxPermits, end - position);
+            if (encrypted)
+            {
+                // the ssl handler needs the bytes in memory to encrypt them
+                ByteBuf buf = channel.alloc().directBuffer(byteCount, byteCount);
+                try
+                {
+                    while (buf.isWritable())
+                    {
+                        if (buf.writeBytes(file, position + buf.writerIndex(), buf.writableBytes()) < 0)
+                            throw new IOException("unexpected end of file " + file);
+                    }
+                }
+                catch (Throwable t)
+                {
+                    buf.release();
+                    throw t;
+                }
+                channelFuture = writeToChannel(buf);
+            }
+            else
+            {
+                if (!Uninterruptibles.tryAcquireUninterruptibly(channelRateLimiter, byteCount, 5, TimeUnit.MINUTES))
+                    throw new IOException("outbound channel was not writable");
+
+                channelFuture = channel.writeAndFlush(new UnclosableFileRegion(file, position, byteCount));
+                channelFuture.addListener(future -> handleBuffer(future, byteCount));
+            }
+            position += byteCount;
+        }
+        return channelFuture;
+    }
+
+    /**
+     * A {@link DefaultFileRegion} over a part of a file shared with other regions, which must not close the file when
+     * released. It remains a {@link DefaultFileRegion} so that the native transport can use sendfile for it.
+     */
+    private static class UnclosableFileRegion extends DefaultFileRegion
+    {
+        UnclosableFileRegion(FileChannel file, long position, long count)
+        {
+            super(file, position, count);
+        }
+
+        @Override
+        protected void deallocate()
+        {
+        }
+    }
+
     @Override
     protected void doFlush(int count) throws IOException
     {
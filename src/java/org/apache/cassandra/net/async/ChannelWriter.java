@@ -404,6 +404,14 @@ abstract class ChannelWriter
             return future;
         }
 
+        @Override
+        void handleMessageFuture(Future<? super Void> future, QueuedMessage msg, boolean allowReconnect)
+        {
+            if (future.isSuccess())
+                strategy.onMessageSent(msg, System.nanoTime());
+            super.handleMessageFuture(future, msg, allowReconnect);
+        }
+
         void onMessageProcessed(ChannelHandlerContext ctx)
         {
             pendingMessageCount.decrementAndGet();
@@ -411,8 +419,10 @@ abstract class ChannelWriter
 
         void onTriggeredFlush(ChannelHandlerContext ctx)
         {
-            // When coalescing, obey the flush calls normally
+            // When coalescing, obey the flush calls normally, letting the strategy know what it cost
+            long start = System.nanoTime();
             ctx.flush();
+            strategy.onFlush(pendingMessageCount.get(), System.nanoTime() - start);
         }
     }
 }
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.net.async;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import io.netty.buffer.ByteBuf;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.net.MessageOut;
+
+/**
+ * Builds the dictionaries priming the deflate compression of internode connections (see {@link DeflateBatchEncoder})
+ * from the messages this node sends.
+ * <p>
+ * One every {@link #SAMPLE_INTERVAL} serialized messages is sampled. The sample is kept per source: the table for
+ * mutations, since it's mostly their rows that repeat from one message to the next, and the verb for anything else.
+ * A dictionary is then made of the most recent sample of the sources sampled most recently, so it covers as many of
+ * the tables being written to as its size allows. The samples of the most recent sources come last, as deflate encodes
+ * the closest matches more cheaply.
+ * <p>
+ * The dictionary is rebuilt on the first sample, then every {@link #REFRESH_INTERVAL} samples. A connection starts
+ * with the current dictionary, which is sent to the peer during the handshake (see
+ * {@link HandshakeProtocol.ThirdHandshakeMessage}), and switches to the newer ones as they are built, see
+ * {@link DeflateBatchEncoder}. So connections established right after startup don't go without one for long.
+ */
+public class CompressionDictionaryTrainer
+{
+    public static final CompressionDictionaryTrainer instance = new CompressionDictionaryTrainer();
+
+    static final int SAMPLE_INTERVAL = 128;
+    static final int MAX_SAMPLE_SIZE = 1024;
+    static final int REFRESH_INTERVAL = 64;
+    private static final int MAX_SOURCES = 256;
+
+    private final AtomicLong messages = new AtomicLong();
+
+    /** The most recently built dictionary, {@code null} until something is sampled. */
+    private volatile byte[] current;
+
+    private final Map<Object, byte[]> samples = new LinkedHashMap<Object, byte[]>()
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry(Map.Entry<Object, byte[]> eldest)
+        {
+            return size() > MAX_SOURCES;
+        }
+    };
+
+    @VisibleForTesting
+    CompressionDictionaryTrainer()
+    {
+    }
+
+    private static boolean isEnabled()
+    {
+        return DatabaseDescriptor.getInternodeCompressor() == Config.InternodeCompressor.deflate
+               && DatabaseDescriptor.getInternodeCompressionDictionarySize() > 0;
+    }
+
+    /**
+     * Maybe samples a message that has just been serialized.
+     *
+     * @param message the message serialized.
+     * @param serialized the buffer the message has been serialized into.
+     * @param offset the offset in {@code serialized} the message starts at.
+     */
+    void maybeSample(MessageOut<?> message, ByteBuf serialized, int offset)
+    {
+        long count = messages.incrementAndGet();
+        if (!isEnabled() || count % SAMPLE_INTERVAL != 0)
+            return;
+
+        int length = Math.min(MAX_SAMPLE_SIZE, serialized.writerIndex() - offset);
+        if (length <= 0)
+            return;
+
+        byte[] sample = new byte[length];
+        serialized.getBytes(offset, sample);
+        Object source = message.payload instanceof Mutation
+                        ? ((Mutation) message.payload).getTableIds().iterator().next()
+                        : message.verb;
+        synchronized (samples)
+        {
+            // re-inserting moves the source to the end, as the most recently sampled
+            samples.remove(source);
+            samples.put(source, sample);
+        }
+
+        if ((count / SAMPLE_INTERVAL) % REFRESH_INTERVAL == 1)
+            current = dictionary(DatabaseDescriptor.getInternodeCompressionDictionarySize());
+    }
+
+    /**
+     * @return a dictionary of at most {@code maxSize} bytes, or {@code null} if nothing has been sampled.
+     */
+    byte[] dictionary(int maxSize)
+    {
+        List<byte[]> recent;
+        synchronized (samples)
+        {
+            recent = new ArrayList<>(samples.values());
+        }
+
+        // pick the samples of the most recent sources that fit, and write them most recent last
+        int size = 0;
+        int first = recent.size();
+        while (first > 0 && size + recent.get(first - 1).length <= maxSize)
+            size += recent.get(--first).length;
+
+        if (size == 0)
+            return null;
+
+        byte[] dictionary = new byte[size];
+        int position = 0;
+        for (byte[] sample : recent.subList(first, recent.size()))
+        {
+            System.arraycopy(sample, 0, dictionary, position, sample.length);
+            position += sample.length;
+        }
+        return dictionary;
+    }
+
+    /**
+     * @return the most recently built dictionary, which connections should use, or {@code null} if none should be
+     * used. The same array is returned until a new dictionary is built.
+     */
+    byte[] dictionary()
+    {
+        return isEnabled() ? current : null;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.net.async;
+
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.compression.DecompressionException;
+
+import static org.apache.cassandra.net.async.DeflateBatchEncoder.DATA_FRAME;
+import static org.apache.cassandra.net.async.DeflateBatchEncoder.DICTIONARY_FRAME;
+import static org.apache.cassandra.net.async.DeflateBatchEncoder.FRAME_HEADER_SIZE;
+
+/**
+ * Decompresses the inbound stream of an internode connection compressed by {@link DeflateBatchEncoder}, starting a new
+ * deflate stream, primed with the received dictionary, on every dictionary frame.
+ */
+class DeflateBatchDecoder extends ByteToMessageDecoder
+{
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private final Inflater inflater = new Inflater();
+
+    /** The dictionary the current stream is primed with, {@code null} if none. */
+    private byte[] dictionary;
+    private int dictionaryId;
+
+    /** Buffer to copy compressed bytes from, as {@link Inflater} only takes arrays. */
+    private byte[] input = new byte[BUFFER_SIZE];
+
+    /**
+     * @param dictionary the dictionary received during the handshake; may be {@code null}.
+     */
+    DeflateBatchDecoder(byte[] dictionary)
+    {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out)
+    {
+        while (in.readableBytes() >= FRAME_HEADER_SIZE)
+        {
+            int length = in.getInt(in.readerIndex() + 1 + Integer.BYTES);
+            if (in.readableBytes() < FRAME_HEADER_SIZE + length)
+                return;
+
+            byte kind = in.readByte();
+            int id = in.readInt();
+            in.skipBytes(Integer.BYTES);
+            switch (kind)
+            {
+                case DICTIONARY_FRAME:
+                    if (id != dictionaryId + 1)
+                        throw new DecompressionException(String.format("Received dictionary %d after dictionary %d", id, dictionaryId));
+                    dictionary = new byte[length];
+                    in.readBytes(dictionary);
+                    dictionaryId = id;
+                    inflater.reset();
+                    break;
+                case DATA_FRAME:
+                    if (id != dictionaryId)
+                        throw new DecompressionException(String.format("Received bytes compressed with dictionary %d, but the current one is %d", id, dictionaryId));
+                    ByteBuf decompressed = inflate(ctx, in, length);
+                    if (decompressed.isReadable())
+                        out.add(decompressed);
+                    else
+                        decompressed.release();
+                    break;
+                default:
+                    throw new DecompressionException("Unknown frame kind " + kind);
+            }
+        }
+    }
+
+    private ByteBuf inflate(ChannelHandlerContext ctx, ByteBuf in, int length)
+    {
+        if (input.length < length)
+            input = new byte[Math.max(length, input.length * 2)];
+        in.readBytes(input, 0, length);
+        inflater.setInput(input, 0, length);
+
+        ByteBuf out = ctx.alloc().heapBuffer(Math.max(BUFFER_SIZE, length * 2));
+        try
+        {
+            while (true)
+            {
+                out.ensureWritable(BUFFER_SIZE);
+                int read = inflater.inflate(out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes());
+                out.writerIndex(out.writerIndex() + read);
+                if (read > 0)
+                    continue;
+
+                if (inflater.needsDictionary())
+                {
+                    if (dictionary == null)
+                        throw new DecompressionException("Received bytes compressed with a dictionary, but no dictionary");
+                    inflater.setDictionary(dictionary);
+                }
+                else if (inflater.needsInput() || inflater.finished())
+                {
+                    return out;
+                }
+            }
+        }
+        catch (DataFormatException e)
+        {
+            out.release();
+            throw new DecompressionException(e);
+        }
+        catch (RuntimeException e)
+        {
+            out.release();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx)
+    {
+        inflater.end();
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.net.async;
+
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * Compresses the outbound stream of an internode connection with deflate, in the zlib format.
+ * <p>
+ * Unlike netty's {@link io.netty.handler.codec.compression.JdkZlibEncoder}, which compresses and flushes the deflate
+ * stream on every message written, messages are only fed to the compressor as they are written, and the stream is
+ * flushed when the channel is. So a batch of messages flushed together is compressed in one go, while the 32KiB history
+ * of the stream lets each batch refer to the previous ones, which works much better for many small messages.
+ * <p>
+ * The stream can also be primed with a dictionary (see {@link CompressionDictionaryTrainer}), which the decompressing
+ * side must know, as it's not part of the stream. The connection starts with the dictionary sent during the handshake,
+ * and when a newer one is available at the start of a batch, it is sent to the peer in a dictionary frame and a new
+ * deflate stream primed with it is started. So the compressed bytes are sent in frames of the form:
+ * <pre>
+ * kind (1 byte) | dictionary id (4 bytes) | length (4 bytes) | bytes (length bytes)
+ * </pre>
+ * where the kind is {@link #DATA_FRAME}, for bytes of the stream primed with the dictionary of that id, or
+ * {@link #DICTIONARY_FRAME}, for a new dictionary, whose id is the one of the previous dictionary plus one. The id of
+ * the handshake dictionary is 0. See {@link DeflateBatchDecoder} for the decompressing side.
+ */
+class DeflateBatchEncoder extends ChannelOutboundHandlerAdapter
+{
+    static final byte DATA_FRAME = 0;
+    static final byte DICTIONARY_FRAME = 1;
+    static final int FRAME_HEADER_SIZE = 1 + Integer.BYTES + Integer.BYTES;
+
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private final Deflater deflater;
+
+    /** Provides the most recent dictionary, or {@code null} if the dictionary never changes. */
+    private final Supplier<byte[]> dictionaries;
+
+    /** The dictionary the current stream is primed with, {@code null} if none. */
+    private byte[] dictionary;
+    private int dictionaryId;
+
+    /** Buffer to copy messages from, as {@link Deflater} only takes arrays. */
+    private byte[] input = new byte[BUFFER_SIZE];
+
+    /** Whether messages were fed to the compressor since it was last flushed. */
+    private boolean unflushed;
+
+    DeflateBatchEncoder(int level, byte[] dictionary)
+    {
+        this(level, dictionary, null);
+    }
+
+    /**
+     * @param dictionary the dictionary sent during the handshake; may be {@code null}.
+     * @param dictionaries provides the most recent dictionary, which replaces the current one at the start of the
+     *                     next batch when it changes; may be {@code null}.
+     */
+    DeflateBatchEncoder(int level, byte[] dictionary, Supplier<byte[]> dictionaries)
+    {
+        deflater = new Deflater(level);
+        this.dictionaries = dictionaries;
+        if (dictionary != null && dictionary.length > 0)
+        {
+            this.dictionary = dictionary;
+            deflater.setDictionary(dictionary);
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+    {
+        if (!(msg instanceof ByteBuf))
+        {
+            ctx.write(msg, promise);
+            return;
+        }
+
+        ByteBuf in = (ByteBuf) msg;
+        ByteBuf out;
+        try
+        {
+            int length = in.readableBytes();
+            if (length == 0)
+            {
+                ctx.write(Unpooled.EMPTY_BUFFER, promise);
+                return;
+            }
+
+            // the peer has all of the current stream once it is flushed, so that's when it can be replaced
+            if (!unflushed)
+                maybeSwitchDictionary(ctx);
+
+            if (input.length < length)
+                input = new byte[Math.max(length, input.length * 2)];
+            in.readBytes(input, 0, length);
+            deflater.setInput(input, 0, length);
+            unflushed = true;
+            out = deflate(ctx, Deflater.NO_FLUSH);
+        }
+        finally
+        {
+            in.release();
+        }
+
+        // most of the time the compressor just buffers the message, and the bytes only come out on flush
+        if (out != null)
+            ctx.write(out, promise);
+        else
+            ctx.write(Unpooled.EMPTY_BUFFER, promise);
+    }
+
+    private void maybeSwitchDictionary(ChannelHandlerContext ctx)
+    {
+        byte[] latest = dictionaries == null ? null : dictionaries.get();
+        if (latest == null || latest == dictionary || latest.length == 0)
+            return;
+
+        dictionary = latest;
+        dictionaryId++;
+        deflater.reset();
+        deflater.setDictionary(dictionary);
+
+        ByteBuf frame = ctx.alloc().buffer(FRAME_HEADER_SIZE + dictionary.length);
+        frame.writeByte(DICTIONARY_FRAME);
+        frame.writeInt(dictionaryId);
+        frame.writeInt(dictionary.length);
+        frame.writeBytes(dictionary);
+        ctx.write(frame);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx)
+    {
+        if (unflushed)
+        {
+            unflushed = false;
+            ByteBuf out = deflate(ctx, Deflater.SYNC_FLUSH);
+            if (out != null)
+                ctx.write(out);
+        }
+        ctx.flush();
+    }
+
+    /**
+     * Consumes all the input given to {@link #deflater}, returning a data frame of what it compressed so far, or
+     * {@code null} if nothing. With {@link Deflater#SYNC_FLUSH}, everything given to it is compressed, so the peer can
+     * decompress it all.
+     */
+    private ByteBuf deflate(ChannelHandlerContext ctx, int flushMode)
+    {
+        ByteBuf out = ctx.alloc().heapBuffer(BUFFER_SIZE);
+        out.writerIndex(FRAME_HEADER_SIZE);
+        while (true)
+        {
+            out.ensureWritable(BUFFER_SIZE);
+            int writable = out.writableBytes();
+            int written = deflater.deflate(out.array(), out.arrayOffset() + out.writerIndex(), writable, flushMode);
+            out.writerIndex(out.writerIndex() + written);
+
+            // with NO_FLUSH, the deflater is done once it wants more input; otherwise, once it didn't fill the buffer
+            if (flushMode == Deflater.NO_FLUSH ? deflater.needsInput() : written < writable)
+                break;
+        }
+
+        int length = out.readableBytes() - FRAME_HEADER_SIZE;
+        if (length == 0)
+        {
+            out.release();
+            return null;
+        }
+        out.setByte(0, DATA_FRAME);
+        out.setInt(1, dictionaryId);
+        out.setInt(1 + Integer.BYTES, length);
+        return out;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx)
+    {
+        deflater.end();
+    }
+}
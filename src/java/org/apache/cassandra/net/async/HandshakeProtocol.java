@@ -21,6 +21,7 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.util.Arrays;
 import java.util.Objects;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -29,6 +30,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import org.apache.cassandra.config.Config.InternodeCompressor;
 import org.apache.cassandra.net.CompactEndpointSerializationHelper;
 import org.apache.cassandra.net.MessagingService;
 
@@ -57,7 +59,7 @@ public class HandshakeProtocol
      *        peer otherwise).
      *      - the "mode" of the connection: whether it is for streaming or for messaging.
      *      - whether compression should be used or not (if it is, compression is enabled _after_ the last message of the
-     *        handshake has been sent).
+     *        handshake has been sent), and with which algorithm.
      * <p>
      * More precisely, connection flags:
      * <pre>
@@ -65,15 +67,17 @@ public class HandshakeProtocol
      *                      1 1 1 1 1 1 1 1 1 1 2 2 2 2 2 2 2 2 2 2 3 3
      *  0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
      * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
-     * |U U C M       |                |                               |
-     * |N N M O       |     VERSION    |             unused            |
-     * |U U P D       |                |                               |
+     * |U U C M D     |                |                               |
+     * |N N M O E     |     VERSION    |             unused            |
+     * |U U P D F     |                |                               |
      * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
      * }
      * </pre>
      * UNU - unused bits lowest two bits; from a historical note: used to be "serializer type," which was always Binary
      * CMP - compression enabled bit
      * MOD - connection mode. If the bit is on, the connection is for streaming; if the bit is off, it is for inter-node messaging.
+     * DEF - deflate bit. If the bit is on (along with CMP), the connection is compressed with deflate, initially primed
+     * with the dictionary sent in the {@link ThirdHandshakeMessage}; if the bit is off, it is compressed with LZ4.
      * VERSION - if a streaming connection, indicates the streaming protocol version {@link org.apache.cassandra.streaming.messages.StreamMessage#CURRENT_VERSION};
      * if a messaging connection, indicates the messaging protocol version the initiator *thinks* should be used.
      */
@@ -85,13 +89,29 @@ public class HandshakeProtocol
         final int messagingVersion;
         final NettyFactory.Mode mode;
         final boolean compressionEnabled;
+        final InternodeCompressor compressor;
 
         public FirstHandshakeMessage(int messagingVersion, NettyFactory.Mode mode, boolean compressionEnabled)
+        {
+            this(messagingVersion, mode, compressionEnabled, InternodeCompressor.lz4);
+        }
+
+        public FirstHandshakeMessage(int messagingVersion, NettyFactory.Mode mode, boolean compressionEnabled, InternodeCompressor compressor)
         {
             assert messagingVersion > 0;
             this.messagingVersion = messagingVersion;
             this.mode = mode;
             this.compressionEnabled = compressionEnabled;
+            this.compressor = compressor;
+        }
+
+        /**
+         * @return whether the connection is compressed with deflate, in which case the {@link ThirdHandshakeMessage}
+         * carries the compression dictionary.
+         */
+        boolean isDeflateCompressed()
+        {
+            return compressionEnabled && compressor == InternodeCompressor.deflate;
         }
 
         @VisibleForTesting
@@ -102,6 +122,8 @@ public class HandshakeProtocol
                 flags |= 1 << 2;
             if (mode == NettyFactory.Mode.STREAMING)
                 flags |= 1 << 3;
+            if (isDeflateCompressed())
+                flags |= 1 << 4;
 
             flags |= (messagingVersion << 8);
             return flags;
@@ -128,7 +150,10 @@ public class HandshakeProtocol
                                      ? NettyFactory.Mode.STREAMING
                                      : NettyFactory.Mode.MESSAGING;
             boolean compressed = MessagingService.getBits(flags, 2, 1) == 1;
-            return new FirstHandshakeMessage(version, mode, compressed);
+            InternodeCompressor compressor = MessagingService.getBits(flags, 4, 1) == 1
+                                             ? InternodeCompressor.deflate
+                                             : InternodeCompressor.lz4;
+            return new FirstHandshakeMessage(version, mode, compressed, compressor);
         }
 
         @Override
@@ -140,19 +165,21 @@ public class HandshakeProtocol
             FirstHandshakeMessage that = (FirstHandshakeMessage)other;
             return this.messagingVersion == that.messagingVersion
                    && this.mode == that.mode
-                   && this.compressionEnabled == that.compressionEnabled;
+                   && this.compressionEnabled == that.compressionEnabled
+                   && this.isDeflateCompressed() == that.isDeflateCompressed();
         }
 
         @Override
         public int hashCode()
         {
-            return Objects.hash(messagingVersion, mode, compressionEnabled);
+            return Objects.hash(messagingVersion, mode, compressionEnabled, isDeflateCompressed());
         }
 
         @Override
         public String toString()
         {
-            return String.format("FirstHandshakeMessage - messaging version: %d, mode: %s, compress: %b", messagingVersion, mode, compressionEnabled);
+            return String.format("FirstHandshakeMessage - messaging version: %d, mode: %s, compress: %b, compressor: %s",
+                                 messagingVersion, mode, compressionEnabled, compressor);
         }
     }
 
@@ -212,6 +239,8 @@ public class HandshakeProtocol
      *   1) the connection initiator's messaging version (4 bytes) - {@link org.apache.cassandra.net.MessagingService#current_version}.
      *   2) the connection initiator's broadcast address as encoded by {@link org.apache.cassandra.net.CompactEndpointSerializationHelper}.
      *      This can be either 5 bytes for an IPv4 address, or 17 bytes for an IPv6 one.
+     *   3) only if the {@link FirstHandshakeMessage} asked for deflate compression, the length (4 bytes) and content of the
+     *      dictionary the compression is initially primed with. The length is 0 if there is no dictionary.
      * <p>
      * This message concludes the handshake protocol. After that, the connection will used either for streaming, or to
      * send messages. If the connection is to be compressed, compression is enabled only after this message is sent/received.
@@ -228,17 +257,27 @@ public class HandshakeProtocol
 
         final int messagingVersion;
         final InetAddress address;
+        /** The deflate compression dictionary, empty if there is none, or {@code null} if not compressing with deflate. */
+        final byte[] compressionDictionary;
 
         ThirdHandshakeMessage(int messagingVersion, InetAddress address)
+        {
+            this(messagingVersion, address, null);
+        }
+
+        ThirdHandshakeMessage(int messagingVersion, InetAddress address, byte[] compressionDictionary)
         {
             this.messagingVersion = messagingVersion;
             this.address = address;
+            this.compressionDictionary = compressionDictionary;
         }
 
         @SuppressWarnings("resource")
         public ByteBuf encode(ByteBufAllocator allocator)
         {
             int bufLength = Integer.BYTES + CompactEndpointSerializationHelper.serializedSize(address);
+            if (compressionDictionary != null)
+                bufLength += Integer.BYTES + compressionDictionary.length;
             ByteBuf buffer = allocator.directBuffer(bufLength, bufLength);
             buffer.writerIndex(0);
             buffer.writeInt(messagingVersion);
@@ -246,6 +285,11 @@ public class HandshakeProtocol
             {
                 DataOutput bbos = new ByteBufOutputStream(buffer);
                 CompactEndpointSerializationHelper.serialize(address, bbos);
+                if (compressionDictionary != null)
+                {
+                    buffer.writeInt(compressionDictionary.length);
+                    buffer.writeBytes(compressionDictionary);
+                }
                 return buffer;
             }
             catch (IOException e)
@@ -255,25 +299,45 @@ public class HandshakeProtocol
             }
         }
 
-        @SuppressWarnings("resource")
         static ThirdHandshakeMessage maybeDecode(ByteBuf in)
+        {
+            return maybeDecode(in, false);
+        }
+
+        /**
+         * @param withCompressionDictionary whether the message carries a compression dictionary, that is whether the
+         * {@link FirstHandshakeMessage} asked for deflate compression.
+         */
+        @SuppressWarnings("resource")
+        static ThirdHandshakeMessage maybeDecode(ByteBuf in, boolean withCompressionDictionary)
         {
             if (in.readableBytes() < MIN_LENGTH)
                 return null;
 
-            in.markReaderIndex();
+            // ByteBufInputStream marks the reader index itself, so remember where the message starts
+            int start = in.readerIndex();
             int version = in.readInt();
             DataInput inputStream = new ByteBufInputStream(in);
             try
             {
                 InetAddress address = CompactEndpointSerializationHelper.deserialize(inputStream);
-                return new ThirdHandshakeMessage(version, address);
+                if (!withCompressionDictionary)
+                    return new ThirdHandshakeMessage(version, address);
+
+                if (in.readableBytes() < Integer.BYTES || in.readableBytes() < Integer.BYTES + in.getInt(in.readerIndex()))
+                {
+                    in.readerIndex(start);
+                    return null;
+                }
+                byte[] dictionary = new byte[in.readInt()];
+                in.readBytes(dictionary);
+                return new ThirdHandshakeMessage(version, address, dictionary);
             }
             catch (IOException e)
             {
                 // makes the assumption we didn't have enough bytes to deserialize an IPv6 address,
                 // as we only check the MIN_LENGTH of the buf.
-                in.resetReaderIndex();
+                in.readerIndex(start);
                 return null;
             }
         }
@@ -286,19 +350,22 @@ public class HandshakeProtocol
 
             ThirdHandshakeMessage that = (ThirdHandshakeMessage)other;
             return this.messagingVersion == that.messagingVersion
-                   && Objects.equals(this.address, that.address);
+                   && Objects.equals(this.address, that.address)
+                   && Arrays.equals(this.compressionDictionary, that.compressionDictionary);
         }
 
         @Override
         public int hashCode()
         {
-            return Objects.hash(messagingVersion, address);
+            return Objects.hash(messagingVersion, address, Arrays.hashCode(compressionDictionary));
         }
 
         @Override
         public String toString()
         {
-            return String.format("ThirdHandshakeMessage - messaging version: %d, address = %s", messagingVersion, address);
+            return String.format("ThirdHandshakeMessage - messaging version: %d, address = %s, compression dictionary = %s",
+                                 messagingVersion, address,
+                                 compressionDictionary == null ? "none" : compressionDictionary.length + " bytes");
         }
     }
 }
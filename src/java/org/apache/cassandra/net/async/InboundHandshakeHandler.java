@@ -21,6 +21,7 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.ssl.SslHandler;
 import org.apache.cassandra.auth.IInternodeAuthenticator;
+import org.apache.cassandra.config.Config.InternodeCompressor;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.net.async.HandshakeProtocol.FirstHandshakeMessage;
@@ -56,6 +57,11 @@ class InboundHandshakeHandler extends ByteToMessageDecoder
      */
     private boolean compressed;
 
+    /**
+     * The compression algorithm the peer uses, if {@link #compressed}.
+     */
+    private InternodeCompressor compressor = InternodeCompressor.lz4;
+
     /**
      * A future the essentially places a timeout on how long we'll wait for the peer
      * to complete the next step of the handshake.
@@ -185,6 +191,7 @@ class InboundHandshakeHandler extends ByteToMessageDecoder
 
             logger.trace("Connection version {} from {}", version, ctx.channel().remoteAddress());
             compressed = msg.compressionEnabled;
+            compressor = msg.compressor;
 
             // if this version is < the MS version the other node is trying
             // to connect with, the other node will disconnect
@@ -224,7 +231,7 @@ class InboundHandshakeHandler extends ByteToMessageDecoder
     @VisibleForTesting
     State handleMessagingStartResponse(ChannelHandlerContext ctx, ByteBuf in) throws IOException
     {
-        ThirdHandshakeMessage msg = ThirdHandshakeMessage.maybeDecode(in);
+        ThirdHandshakeMessage msg = ThirdHandshakeMessage.maybeDecode(in, compressed && compressor == InternodeCompressor.deflate);
         if (msg == null)
             return State.AWAIT_MESSAGING_START_RESPONSE;
 
@@ -248,15 +255,23 @@ class InboundHandshakeHandler extends ByteToMessageDecoder
         MessagingService.instance().setVersion(from, maxVersion);
         logger.trace("Set version for {} to {} (will use {})", from, maxVersion, MessagingService.instance().getVersion(from));
 
-        setupMessagingPipeline(ctx.pipeline(), from, compressed, version);
+        setupMessagingPipeline(ctx.pipeline(), from, compressed, version, msg.compressionDictionary);
         return State.HANDSHAKE_COMPLETE;
     }
 
     @VisibleForTesting
     void setupMessagingPipeline(ChannelPipeline pipeline, InetAddress peer, boolean compressed, int messagingVersion)
+    {
+        setupMessagingPipeline(pipeline, peer, compressed, messagingVersion, null);
+    }
+
+    private void setupMessagingPipeline(ChannelPipeline pipeline, InetAddress peer, boolean compressed, int messagingVersion, byte[] compressionDictionary)
     {
         if (compressed)
-            pipeline.addLast(NettyFactory.INBOUND_COMPRESSOR_HANDLER_NAME, NettyFactory.createLz4Decoder(messagingVersion));
+        {
+            byte[] dictionary = compressionDictionary == null || compressionDictionary.length == 0 ? null : compressionDictionary;
+            pipeline.addLast(NettyFactory.INBOUND_COMPRESSOR_HANDLER_NAME, NettyFactory.createCompressionDecoder(compressor, messagingVersion, dictionary));
+        }
 
         pipeline.addLast("messageInHandler", new MessageInHandler(peer, messagingVersion));
         pipeline.remove(this);
@@ -141,6 +141,7 @@ class MessageOutHandler extends ChannelDuplexHandler
 
             captureTracingInfo(msg);
             serializeMessage(msg, out);
+            CompressionDictionaryTrainer.instance.maybeSample(msg.message, out, MESSAGE_PREFIX_SIZE);
             ctx.write(out, promise);
 
             // check to see if we should flush based on buffered size
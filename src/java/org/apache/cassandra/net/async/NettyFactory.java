@@ -2,6 +2,7 @@ package org.apache.cassandra.net.async;
 
 import java.net.InetSocketAddress;
 import java.util.zip.Checksum;
+import java.util.zip.Deflater;
 
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLParameters;
@@ -14,8 +15,10 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInboundHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundHandler;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
@@ -43,6 +46,7 @@ import io.netty.util.internal.logging.Slf4JLoggerFactory;
 import net.jpountz.lz4.LZ4Factory;
 import net.jpountz.xxhash.XXHashFactory;
 import org.apache.cassandra.auth.IInternodeAuthenticator;
+import org.apache.cassandra.config.Config.InternodeCompressor;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.EncryptionOptions.ServerEncryptionOptions;
 import org.apache.cassandra.config.EncryptionOptions.ServerEncryptionOptions.InternodeEncryption;
@@ -358,6 +362,32 @@ public final class NettyFactory
         streamingGroup.shutdownGracefully();
     }
 
+    /**
+     * Creates the handler compressing the outbound side of an internode messaging connection.
+     *
+     * @param dictionary the dictionary initially priming the compression, as sent to the peer, if the compressor
+     *                   supports it; may be {@code null}. Newer dictionaries are picked up as they are trained.
+     */
+    static ChannelOutboundHandler createCompressionEncoder(InternodeCompressor compressor, int protocolVersion, byte[] dictionary)
+    {
+        return compressor == InternodeCompressor.deflate
+               ? new DeflateBatchEncoder(Deflater.BEST_SPEED, dictionary, CompressionDictionaryTrainer.instance::dictionary)
+               : createLz4Encoder(protocolVersion);
+    }
+
+    /**
+     * Creates the handler decompressing the inbound side of an internode messaging connection.
+     *
+     * @param dictionary the dictionary the compression is initially primed with, as sent by the peer; may be
+     *                   {@code null}.
+     */
+    static ChannelInboundHandler createCompressionDecoder(InternodeCompressor compressor, int protocolVersion, byte[] dictionary)
+    {
+        if (compressor == InternodeCompressor.deflate)
+            return new DeflateBatchDecoder(dictionary);
+        return createLz4Decoder(protocolVersion);
+    }
+
     static Lz4FrameEncoder createLz4Encoder(int protocolVersion)
     {
         return new Lz4FrameEncoder(LZ4Factory.fastestInstance(), false, COMPRESSION_BLOCK_SIZE, checksumForFrameEncoders(protocolVersion));
@@ -25,6 +25,7 @@ import java.util.function.Supplier;
 import com.google.common.base.Preconditions;
 
 import io.netty.channel.WriteBufferWaterMark;
+import org.apache.cassandra.config.Config.InternodeCompressor;
 import org.apache.cassandra.config.EncryptionOptions.ServerEncryptionOptions;
 import org.apache.cassandra.net.async.OutboundHandshakeHandler.HandshakeResult;
 import org.apache.cassandra.utils.CoalescingStrategies.CoalescingStrategy;
@@ -41,6 +42,7 @@ public class OutboundConnectionParams
     final ServerEncryptionOptions encryptionOptions;
     final NettyFactory.Mode mode;
     final boolean compress;
+    final InternodeCompressor compressor;
     final Optional<CoalescingStrategy> coalescingStrategy;
     final int sendBufferSize;
     final boolean tcpNoDelay;
@@ -54,6 +56,7 @@ public class OutboundConnectionParams
                                      ServerEncryptionOptions encryptionOptions,
                                      NettyFactory.Mode mode,
                                      boolean compress,
+                                     InternodeCompressor compressor,
                                      Optional<CoalescingStrategy> coalescingStrategy,
                                      int sendBufferSize,
                                      boolean tcpNoDelay,
@@ -67,6 +70,7 @@ public class OutboundConnectionParams
         this.encryptionOptions = encryptionOptions;
         this.mode = mode;
         this.compress = compress;
+        this.compressor = compressor;
         this.coalescingStrategy = coalescingStrategy;
         this.sendBufferSize = sendBufferSize;
         this.tcpNoDelay = tcpNoDelay;
@@ -93,6 +97,7 @@ public class OutboundConnectionParams
         private ServerEncryptionOptions encryptionOptions;
         private NettyFactory.Mode mode;
         private boolean compress;
+        private InternodeCompressor compressor = InternodeCompressor.lz4;
         private Optional<CoalescingStrategy> coalescingStrategy = Optional.empty();
         private int sendBufferSize = DEFAULT_SEND_BUFFER_SIZE;
         private boolean tcpNoDelay;
@@ -111,6 +116,7 @@ public class OutboundConnectionParams
             this.encryptionOptions = params.encryptionOptions;
             this.mode = params.mode;
             this.compress = params.compress;
+            this.compressor = params.compressor;
             this.coalescingStrategy = params.coalescingStrategy;
             this.sendBufferSize = params.sendBufferSize;
             this.tcpNoDelay = params.tcpNoDelay;
@@ -148,6 +154,12 @@ public class OutboundConnectionParams
             return this;
         }
 
+        public Builder compressor(InternodeCompressor compressor)
+        {
+            this.compressor = compressor;
+            return this;
+        }
+
         public Builder coalescingStrategy(Optional<CoalescingStrategy> coalescingStrategy)
         {
             this.coalescingStrategy = coalescingStrategy;
@@ -195,7 +207,7 @@ public class OutboundConnectionParams
             Preconditions.checkArgument(protocolVersion > 0, "illegal protocol version: " + protocolVersion);
             Preconditions.checkArgument(sendBufferSize > 0 && sendBufferSize < 1 << 20, "illegal send buffer size: " + sendBufferSize);
 
-            return new OutboundConnectionParams(connectionId, callback, encryptionOptions, mode, compress, coalescingStrategy, sendBufferSize,
+            return new OutboundConnectionParams(connectionId, callback, encryptionOptions, mode, compress, compressor, coalescingStrategy, sendBufferSize,
                                                 tcpNoDelay, backlogSupplier, messageResultConsumer, waterMark, protocolVersion);
         }
     }
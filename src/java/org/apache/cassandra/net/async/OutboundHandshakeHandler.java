@@ -37,6 +37,7 @@ import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.util.concurrent.Future;
 
+import org.apache.cassandra.config.Config.InternodeCompressor;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.net.async.HandshakeProtocol.FirstHandshakeMessage;
@@ -103,7 +104,7 @@ public class OutboundHandshakeHandler extends ByteToMessageDecoder
     @Override
     public void channelActive(final ChannelHandlerContext ctx) throws Exception
     {
-        FirstHandshakeMessage msg = new FirstHandshakeMessage(messagingVersion, mode, params.compress);
+        FirstHandshakeMessage msg = new FirstHandshakeMessage(messagingVersion, mode, params.compress, params.compressor);
         logger.trace("starting handshake with peer {}, msg = {}", connectionId.connectionAddress(), msg);
         ctx.writeAndFlush(msg.encode(ctx.alloc())).addListener(future -> firstHandshakeMessageListener(future, ctx));
 
@@ -177,8 +178,16 @@ public class OutboundHandshakeHandler extends ByteToMessageDecoder
 
         try
         {
-            ctx.writeAndFlush(new ThirdHandshakeMessage(MessagingService.current_version, connectionId.local()).encode(ctx.alloc()));
-            ChannelWriter channelWriter = setupPipeline(ctx.channel(), peerMessagingVersion);
+            // when compressing with deflate, the dictionary priming the compression is sent to the peer
+            byte[] compressionDictionary = null;
+            if (params.compress && params.compressor == InternodeCompressor.deflate)
+            {
+                compressionDictionary = CompressionDictionaryTrainer.instance.dictionary();
+                if (compressionDictionary == null)
+                    compressionDictionary = new byte[0];
+            }
+            ctx.writeAndFlush(new ThirdHandshakeMessage(MessagingService.current_version, connectionId.local(), compressionDictionary).encode(ctx.alloc()));
+            ChannelWriter channelWriter = setupPipeline(ctx.channel(), peerMessagingVersion, compressionDictionary);
             callback.accept(HandshakeResult.success(channelWriter, peerMessagingVersion));
         }
         catch (Exception e)
@@ -191,11 +200,17 @@ public class OutboundHandshakeHandler extends ByteToMessageDecoder
 
     @VisibleForTesting
     ChannelWriter setupPipeline(Channel channel, int messagingVersion)
+    {
+        return setupPipeline(channel, messagingVersion, null);
+    }
+
+    private ChannelWriter setupPipeline(Channel channel, int messagingVersion, byte[] compressionDictionary)
     {
         ChannelPipeline pipeline = channel.pipeline();
         pipeline.addLast("idleWriteHandler", new IdleStateHandler(true, 0, WRITE_IDLE_MS, 0, TimeUnit.MILLISECONDS));
         if (params.compress)
-            pipeline.addLast(NettyFactory.OUTBOUND_COMPRESSOR_HANDLER_NAME, NettyFactory.createLz4Encoder(messagingVersion));
+            pipeline.addLast(NettyFactory.OUTBOUND_COMPRESSOR_HANDLER_NAME,
+                             NettyFactory.createCompressionEncoder(params.compressor, messagingVersion, compressionDictionary));
 
         ChannelWriter channelWriter = ChannelWriter.create(channel, params.messageResultConsumer, params.coalescingStrategy);
         pipeline.addLast("messageOutHandler", new MessageOutHandler(connectionId, messagingVersion, channelWriter, params.backlogSupplier));
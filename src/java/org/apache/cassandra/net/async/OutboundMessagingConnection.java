@@ -21,12 +21,12 @@ package org.apache.cassandra.net.async;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -34,6 +34,7 @@ import com.google.common.annotations.VisibleForTesting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Timer;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -47,7 +48,9 @@ import org.apache.cassandra.net.MessageOut;
 import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.net.async.NettyFactory.Mode;
 import org.apache.cassandra.net.async.OutboundHandshakeHandler.HandshakeResult;
+import org.apache.cassandra.net.async.PriorityBacklog.Lane;
 import org.apache.cassandra.utils.CoalescingStrategies;
+import org.apache.cassandra.utils.CoalescingStrategies.AdaptiveCoalescingStrategy;
 import org.apache.cassandra.utils.CoalescingStrategies.CoalescingStrategy;
 import org.apache.cassandra.utils.JVMStabilityInspector;
 import org.apache.cassandra.utils.NoSpamLogger;
@@ -102,9 +105,15 @@ public class OutboundMessagingConnection
     }
 
     /**
-     * Backlog to hold messages passed by upstream threads while the Netty {@link Channel} is being set up or recreated.
+     * Backlog to hold messages passed by upstream threads while the Netty {@link Channel} is being set up or recreated,
+     * or can't take more messages. Messages are polled from it by priority, see {@link PriorityBacklog}.
      */
-    private final Queue<QueuedMessage> backlog;
+    private final PriorityBacklog backlog;
+
+    /**
+     * Whether a task draining the {@link #backlog} has been submitted to the event loop and hasn't started yet.
+     */
+    private final AtomicBoolean scheduledBacklogDrain = new AtomicBoolean(false);
 
     /**
      * Reference to a {@link ScheduledExecutorService} rther than directly depending on something like {@link ScheduledExecutors}.
@@ -155,7 +164,16 @@ public class OutboundMessagingConnection
                                 Optional<CoalescingStrategy> coalescingStrategy,
                                 IInternodeAuthenticator authenticator)
     {
-        this(connectionId, encryptionOptions, coalescingStrategy, authenticator, ScheduledExecutors.scheduledFastTasks);
+        this(connectionId, encryptionOptions, coalescingStrategy, authenticator, PriorityBacklog.newWaitLatencies());
+    }
+
+    OutboundMessagingConnection(OutboundConnectionIdentifier connectionId,
+                                ServerEncryptionOptions encryptionOptions,
+                                Optional<CoalescingStrategy> coalescingStrategy,
+                                IInternodeAuthenticator authenticator,
+                                Map<Lane, Timer> backlogWaitLatencies)
+    {
+        this(connectionId, encryptionOptions, coalescingStrategy, authenticator, ScheduledExecutors.scheduledFastTasks, backlogWaitLatencies);
     }
 
     @VisibleForTesting
@@ -164,11 +182,21 @@ public class OutboundMessagingConnection
                                 Optional<CoalescingStrategy> coalescingStrategy,
                                 IInternodeAuthenticator authenticator,
                                 ScheduledExecutorService sceduledExecutor)
+    {
+        this(connectionId, encryptionOptions, coalescingStrategy, authenticator, sceduledExecutor, PriorityBacklog.newWaitLatencies());
+    }
+
+    private OutboundMessagingConnection(OutboundConnectionIdentifier connectionId,
+                                        ServerEncryptionOptions encryptionOptions,
+                                        Optional<CoalescingStrategy> coalescingStrategy,
+                                        IInternodeAuthenticator authenticator,
+                                        ScheduledExecutorService sceduledExecutor,
+                                        Map<Lane, Timer> backlogWaitLatencies)
     {
         this.connectionId = connectionId;
         this.encryptionOptions = encryptionOptions;
         this.authenticator = authenticator;
-        backlog = new ConcurrentLinkedQueue<>();
+        backlog = new PriorityBacklog(backlogWaitLatencies);
         droppedMessageCount = new AtomicLong(0);
         completedMessageCount = new AtomicLong(0);
         state = new AtomicReference<>(State.NOT_READY);
@@ -190,6 +218,10 @@ public class OutboundMessagingConnection
      * Otherwise, one lucky thread is selected to create the Channel, while other threads just add the {@code msg} to
      * the backlog queue.
      *
+     * <p>
+     * Once the connection is set up, messages are also added to the backlog while the channel can't take more of them,
+     * and as long as the backlog isn't empty, so that they get sent by priority rather than in the order they came.
+     *
      * @return true if the message was accepted by the {@link #channelWriter}; else false if it was not accepted
      * and added to the backlog or the channel is {@link State#CLOSED}. See documentation in {@link ChannelWriter} and
      * {@link MessageOutHandler} how the backlogged messages get consumed.
@@ -204,10 +236,12 @@ public class OutboundMessagingConnection
         State state = this.state.get();
         if (state == State.READY)
         {
-            if (channelWriter.write(queuedMessage, false))
+            ChannelWriter writer = channelWriter;
+            if (backlog.isEmpty() && writer.write(queuedMessage, true))
                 return true;
 
             backlog.add(queuedMessage);
+            maybeScheduleBacklogDrain(writer);
             return false;
         }
         else if (state == State.CLOSED)
@@ -301,6 +335,7 @@ public class OutboundMessagingConnection
                                                                   .encryptionOptions(encryptionOptions)
                                                                   .mode(Mode.MESSAGING)
                                                                   .compress(compress)
+                                                                  .compressor(DatabaseDescriptor.getInternodeCompressor())
                                                                   .coalescingStrategy(coalescingStrategy)
                                                                   .sendBufferSize(sendBufferSize)
                                                                   .tcpNoDelay(tcpNoDelay)
@@ -314,20 +349,53 @@ public class OutboundMessagingConnection
 
     private QueuedMessage nextBackloggedMessage()
     {
-        QueuedMessage msg = backlog.poll();
-        if (msg == null)
-            return null;
-
-        if (!msg.isTimedOut())
-            return msg;
+        QueuedMessage msg;
+        while ((msg = backlog.poll()) != null)
+        {
+            if (!msg.isTimedOut())
+                return msg;
 
-        if (msg.shouldRetry())
-            return msg.createRetry();
+            if (msg.shouldRetry())
+                return msg.createRetry();
 
-        droppedMessageCount.incrementAndGet();
+            droppedMessageCount.incrementAndGet();
+        }
         return null;
     }
 
+    /**
+     * Makes sure the messages in the {@link #backlog} get written if the channel can take them. Otherwise, they will
+     * be written once the channel becomes writable again, see {@link MessageOutHandler#channelWritabilityChanged}.
+     * <p>
+     * Checking writability after having added to the backlog guarantees a message can't be left behind: either the
+     * channel became writable after the check, and the backlog is drained then, or the check sees it writable.
+     */
+    private void maybeScheduleBacklogDrain(ChannelWriter writer)
+    {
+        if (!writer.channel.isWritable() || !scheduledBacklogDrain.compareAndSet(false, true))
+            return;
+
+        writer.channel.eventLoop().execute(() -> {
+            scheduledBacklogDrain.set(false);
+            drainBacklog(writer);
+        });
+    }
+
+    /**
+     * Writes the {@link #backlog} to the channel, by priority, for as long as it can take messages.
+     * <p>
+     * Note: this is invoked on the netty event loop.
+     */
+    private void drainBacklog(ChannelWriter writer)
+    {
+        while (writer.channel.isWritable())
+        {
+            QueuedMessage msg = nextBackloggedMessage();
+            if (msg == null || !writer.write(msg, false))
+                break;
+        }
+    }
+
     static boolean isLocalDC(InetAddress localHost, InetAddress remoteHost)
     {
         String remoteDC = DatabaseDescriptor.getEndpointSnitch().getDatacenter(remoteHost);
@@ -645,6 +713,36 @@ public class OutboundMessagingConnection
         return droppedMessageCount.get();
     }
 
+    /**
+     * @return the number of messages waiting in the given lane of the backlog.
+     */
+    public int backlogSize(Lane lane)
+    {
+        return backlog.size(lane);
+    }
+
+    /**
+     * @return the time, in microseconds, the coalescing strategy currently waits for more messages before flushing,
+     * or 0 if not coalescing.
+     */
+    public Long getCoalescingWindowMicros()
+    {
+        if (!coalescingStrategy.isPresent())
+            return 0L;
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMicros(coalescingStrategy.get().currentCoalescingTimeNanos()));
+    }
+
+    /**
+     * @return the 99th percentile latency, in microseconds, of the messages recently sent as measured by an adaptive
+     * coalescing strategy, or 0 if the strategy doesn't measure it.
+     */
+    public Long getCoalescingLatencyP99Micros()
+    {
+        if (!coalescingStrategy.isPresent() || !(coalescingStrategy.get() instanceof AdaptiveCoalescingStrategy))
+            return 0L;
+        return TimeUnit.NANOSECONDS.toMicros(((AdaptiveCoalescingStrategy) coalescingStrategy.get()).latencyP99Nanos());
+    }
+
     /*
         methods specific to testing follow
      */
@@ -67,13 +67,16 @@ public class OutboundMessagingPool
 
 
         smallMessageChannel = new OutboundMessagingConnection(OutboundConnectionIdentifier.small(localAddr, preferredRemoteAddr),
-                                                              encryptionOptions, coalescingStrategy(remoteAddr), authenticator);
+                                                              encryptionOptions, coalescingStrategy(remoteAddr), authenticator,
+                                                              metrics.backlogWaitLatency);
         largeMessageChannel = new OutboundMessagingConnection(OutboundConnectionIdentifier.large(localAddr, preferredRemoteAddr),
-                                                              encryptionOptions, coalescingStrategy(remoteAddr), authenticator);
+                                                              encryptionOptions, coalescingStrategy(remoteAddr), authenticator,
+                                                              metrics.backlogWaitLatency);
 
         // don't attempt coalesce the gossip messages, just ship them out asap (let's not anger the FD on any peer node by any artificial delays)
         gossipChannel = new OutboundMessagingConnection(OutboundConnectionIdentifier.gossip(localAddr, preferredRemoteAddr),
-                                                        encryptionOptions, Optional.empty(), authenticator);
+                                                        encryptionOptions, Optional.empty(), authenticator,
+                                                        metrics.backlogWaitLatency);
     }
 
     private static Optional<CoalescingStrategy> coalescingStrategy(InetSocketAddress remoteAddr)
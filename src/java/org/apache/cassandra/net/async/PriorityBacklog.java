@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.net.async;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+
+import com.codahale.metrics.Timer;
+import org.apache.cassandra.net.MessagingService.Verb;
+
+/**
+ * The backlog of an {@link OutboundMessagingConnection}, that is the messages waiting for the channel to accept them.
+ * <p>
+ * Messages are held in one FIFO queue per {@link Lane}, and {@link #poll()} picks from the lanes by weighted round robin:
+ * each lane in turn may hand out up to its {@link Lane#weight} messages before the next lane is served. This way, when
+ * the channel is backed up by a burst of mutations, the responses and reads queued behind them still get most of the
+ * bandwidth, and no lane is ever starved. Messages of a same lane are sent in order.
+ * <p>
+ * Messages of different lanes may thus be sent in a different order than they were queued, except for those of the
+ * {@link Lane#ORDERED} lane (schema changes, truncations and gossip): such a message is only sent once all the messages
+ * queued before it have been, and the messages queued after it wait until it has been sent. For instance, a mutation
+ * queued after the schema change creating its table is never sent before it.
+ * <p>
+ * The backlog has many producers (the threads sending messages) but is expected to be polled by one thread at a time,
+ * mostly the netty event loop.
+ */
+public class PriorityBacklog extends AbstractQueue<QueuedMessage>
+{
+    /**
+     * The classes of verbs that get their own lane.
+     */
+    public enum Lane
+    {
+        /** Responses, which coordinators wait on. */
+        RESPONSE(8),
+        /** Read requests, including the mutations repairing the replicas read. */
+        READ(4),
+        /** Write requests. */
+        WRITE(2),
+        /** Anything else. */
+        OTHER(1),
+        /**
+         * Messages that must not be reordered with the ones around them. They aren't served by the round robin, but
+         * as soon as every message queued before them has been sent.
+         */
+        ORDERED(0);
+
+        final int weight;
+
+        Lane(int weight)
+        {
+            this.weight = weight;
+        }
+
+        static Lane of(Verb verb)
+        {
+            if (verb == null)
+                return OTHER;
+
+            switch (verb)
+            {
+                case REQUEST_RESPONSE:
+                case INTERNAL_RESPONSE:
+                    return RESPONSE;
+                case READ:
+                case RANGE_SLICE:
+                case READ_REPAIR:
+                    return READ;
+                case MUTATION:
+                case COUNTER_MUTATION:
+                case BATCH_STORE:
+                case BATCH_REMOVE:
+                case HINT:
+                case HINT_BATCH:
+                    return WRITE;
+                case DEFINITIONS_UPDATE:
+                case MIGRATION_REQUEST:
+                case SCHEMA_CHECK:
+                case TRUNCATE:
+                case GOSSIP_DIGEST_SYN:
+                case GOSSIP_DIGEST_ACK:
+                case GOSSIP_DIGEST_ACK2:
+                case GOSSIP_SHUTDOWN:
+                    return ORDERED;
+                default:
+                    return OTHER;
+            }
+        }
+    }
+
+    private static final Lane[] LANES = Lane.values();
+
+    private final List<Queue<Entry>> queues;
+    private final AtomicInteger[] sizes;
+    private final Map<Lane, Timer> waitLatencies;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    // the lane currently served by poll(), and how many more messages it may hand out before the next lane is served
+    private int current = 0;
+    private int credits = LANES[0].weight;
+
+    PriorityBacklog()
+    {
+        this(newWaitLatencies());
+    }
+
+    /**
+     * @param waitLatencies the timers to record, per lane, how long messages waited in the backlog.
+     */
+    PriorityBacklog(Map<Lane, Timer> waitLatencies)
+    {
+        this.waitLatencies = waitLatencies;
+        queues = new ArrayList<>(LANES.length);
+        sizes = new AtomicInteger[LANES.length];
+        for (int i = 0; i < LANES.length; i++)
+        {
+            queues.add(new ConcurrentLinkedQueue<>());
+            sizes[i] = new AtomicInteger();
+        }
+    }
+
+    static Map<Lane, Timer> newWaitLatencies()
+    {
+        Map<Lane, Timer> waitLatencies = new EnumMap<>(Lane.class);
+        for (Lane lane : LANES)
+            waitLatencies.put(lane, new Timer());
+        return waitLatencies;
+    }
+
+    public boolean offer(QueuedMessage message)
+    {
+        int lane = Lane.of(message.message.verb).ordinal();
+        queues.get(lane).add(new Entry(message, nextSequence.getAndIncrement()));
+        sizes[lane].incrementAndGet();
+        return true;
+    }
+
+    public synchronized QueuedMessage poll()
+    {
+        // only messages queued before the oldest ordered message, if any, may be sent
+        Entry ordered = queues.get(Lane.ORDERED.ordinal()).peek();
+        long barrier = ordered == null ? Long.MAX_VALUE : ordered.sequence;
+
+        // visits each lane once, plus the current one a second time as we may start with it having no credits left
+        for (int i = 0; i <= LANES.length; i++)
+        {
+            if (credits > 0)
+            {
+                Entry entry = queues.get(current).peek();
+                if (entry != null && entry.sequence < barrier)
+                {
+                    credits--;
+                    return remove(current);
+                }
+            }
+            current = (current + 1) % LANES.length;
+            credits = LANES[current].weight;
+        }
+        return ordered == null ? null : remove(Lane.ORDERED.ordinal());
+    }
+
+    private QueuedMessage remove(int lane)
+    {
+        QueuedMessage message = queues.get(lane).poll().message;
+        sizes[lane].decrementAndGet();
+        waitLatencies.get(LANES[lane]).update(System.nanoTime() - message.timestampNanos, TimeUnit.NANOSECONDS);
+        return message;
+    }
+
+    /**
+     * Note that, as lanes are served in turn, the returned message is the head of the highest priority non-empty lane,
+     * but not necessarily the next one {@link #poll()} would return.
+     */
+    public QueuedMessage peek()
+    {
+        for (Queue<Entry> queue : queues)
+        {
+            Entry entry = queue.peek();
+            if (entry != null)
+                return entry.message;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (AtomicInteger size : sizes)
+        {
+            if (size.get() > 0)
+                return false;
+        }
+        return true;
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (AtomicInteger laneSize : sizes)
+            size += laneSize.get();
+        return size;
+    }
+
+    /**
+     * @return the number of messages waiting in the given lane.
+     */
+    public int size(Lane lane)
+    {
+        return sizes[lane.ordinal()].get();
+    }
+
+    @Override
+    public synchronized void clear()
+    {
+        for (int i = 0; i < LANES.length; i++)
+        {
+            while (queues.get(i).poll() != null)
+                sizes[i].decrementAndGet();
+        }
+    }
+
+    public Iterator<QueuedMessage> iterator()
+    {
+        return Iterators.unmodifiableIterator(Iterators.transform(Iterables.concat(queues).iterator(), entry -> entry.message));
+    }
+
+    @VisibleForTesting
+    Timer waitLatency(Lane lane)
+    {
+        return waitLatencies.get(lane);
+    }
+
+    private static final class Entry
+    {
+        final QueuedMessage message;
+        // the order in which messages were queued, across lanes
+        final long sequence;
+
+        private Entry(QueuedMessage message, long sequence)
+        {
+            this.message = message;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -161,6 +162,33 @@ public class RebufferingByteBufDataInputPlus extends RebufferingInputStream impl
         return readLength;
     }
 
+    /**
+     * Write the next {@code length} bytes of this input to the given channel, straight from the received buffers
+     * rather than through an intermediate copy.
+     *
+     * @throws EOFException if the input is closed before {@code length} bytes are read.
+     */
+    public void transferTo(WritableByteChannel channel, long length) throws IOException
+    {
+        long remaining = length;
+        while (remaining > 0)
+        {
+            if (closed)
+                throw new EOFException();
+
+            if (!buffer.hasRemaining())
+                reBuffer();
+            int writeLength = (int) Math.min(remaining, buffer.remaining());
+
+            int originalLimit = buffer.limit();
+            buffer.limit(buffer.position() + writeLength);
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.limit(originalLimit);
+            remaining -= writeLength;
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
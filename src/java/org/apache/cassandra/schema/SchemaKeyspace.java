@@ -129,6 +129,7 @@ public final class SchemaKeyspace
               + "gc_grace_seconds int,"
               + "id uuid,"
               + "max_index_interval int,"
+              + "memtable frozen<map<text, text>>,"
               + "memtable_flush_period_in_ms int,"
               + "min_index_interval int,"
               + "read_repair_chance double,"
@@ -194,6 +195,7 @@ public final class SchemaKeyspace
               + "id uuid,"
               + "include_all_columns boolean,"
               + "max_index_interval int,"
+              + "memtable frozen<map<text, text>>,"
               + "memtable_flush_period_in_ms int,"
               + "min_index_interval int,"
               + "read_repair_chance double,"
@@ -538,6 +540,11 @@ public final class SchemaKeyspace
                .add("compression", params.compression.asMap())
                .add("extensions", params.extensions);
 
+        // Only add the memtable params to schema if they aren't the default ones, so that the schema digest of the
+        // tables that don't use them doesn't change, which would make nodes of older versions disagree on it.
+        if (!params.memtable.equals(MemtableParams.DEFAULT))
+            builder.add("memtable", params.memtable.asMap());
+
         // Only add CDC-enabled flag to schema if it's enabled on the node. This is to work around RTE's post-8099 if a 3.8+
         // node sends table schema to a < 3.8 versioned node with an unknown column.
         if (DatabaseDescriptor.isCDCEnabled())
@@ -552,6 +559,8 @@ public final class SchemaKeyspace
         Mutation.SimpleBuilder builder = makeCreateKeyspaceMutation(keyspace.name, keyspace.params, timestamp);
 
         addTableToSchemaMutation(newTable, false, builder);
+        if (!oldTable.params.memtable.equals(newTable.params.memtable) && newTable.params.memtable.equals(MemtableParams.DEFAULT))
+            builder.update(Tables).row(newTable.name).delete("memtable");
 
         MapDifference<ByteBuffer, ColumnMetadata> columnDiff = Maps.difference(oldTable.columns, newTable.columns);
 
@@ -750,6 +759,8 @@ public final class SchemaKeyspace
                                                                 ViewMetadata newView)
     {
         addViewToSchemaMutation(newView, false, builder);
+        if (!oldView.metadata.params.memtable.equals(newView.metadata.params.memtable) && newView.metadata.params.memtable.equals(MemtableParams.DEFAULT))
+            builder.update(Views).row(newView.name).delete("memtable");
 
         MapDifference<ByteBuffer, ColumnMetadata> columnDiff = Maps.difference(oldView.metadata.columns,
                                                                                newView.metadata.columns);
@@ -992,6 +1003,7 @@ public final class SchemaKeyspace
                           .extensions(row.getFrozenMap("extensions", UTF8Type.instance, BytesType.instance))
                           .gcGraceSeconds(row.getInt("gc_grace_seconds"))
                           .maxIndexInterval(row.getInt("max_index_interval"))
+                          .memtable(row.has("memtable") ? MemtableParams.fromMap(row.getFrozenTextMap("memtable")) : MemtableParams.DEFAULT)
                           .memtableFlushPeriodInMs(row.getInt("memtable_flush_period_in_ms"))
                           .minIndexInterval(row.getInt("min_index_interval"))
                           .readRepairChance(row.getDouble("read_repair_chance"))
@@ -27,11 +27,13 @@ import com.google.common.collect.Iterables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.concurrent.ExecutorLocals;
 import org.apache.cassandra.concurrent.Stage;
 import org.apache.cassandra.concurrent.StageManager;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.ConsistencyLevel;
 import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.db.ReadPrefetcher;
 import org.apache.cassandra.db.SinglePartitionReadCommand;
 import org.apache.cassandra.db.Keyspace;
 import org.apache.cassandra.db.partitions.PartitionIterator;
@@ -117,7 +119,11 @@ public abstract class AbstractReadExecutor
         if (hasLocalEndpoint)
         {
             logger.trace("reading {} locally", readCommand.isDigestQuery() ? "digest" : "data");
-            StageManager.getStage(Stage.READ).maybeExecuteImmediately(new LocalReadRunnable(command, handler));
+            LocalReadRunnable localRead = new LocalReadRunnable(command, handler);
+            if (ReadPrefetcher.shouldPrefetch(command))
+                ReadPrefetcher.instance.prefetchThenExecute((SinglePartitionReadCommand) command, StageManager.getStage(Stage.READ), localRead, ExecutorLocals.create());
+            else
+                StageManager.getStage(Stage.READ).maybeExecuteImmediately(localRead);
         }
     }
 
@@ -54,6 +54,8 @@ import org.apache.cassandra.cql3.functions.ThreadAwareSecurityManager;
 import org.apache.cassandra.cql3.QueryProcessor;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.commitlog.CommitLog;
+import org.apache.cassandra.db.compaction.CompactionThroughputController;
+import org.apache.cassandra.db.compaction.TombstoneCompactionScheduler;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.exceptions.StartupException;
 import org.apache.cassandra.gms.Gossiper;
@@ -388,6 +390,20 @@ public class CassandraDaemon
         // due to scheduling errors or race conditions
         ScheduledExecutors.optionalTasks.scheduleWithFixedDelay(ColumnFamilyStore.getBackgroundCompactionTaskSubmitter(), 5, 1, TimeUnit.MINUTES);
 
+        // schedule periodic adjustments of the compaction throughput and concurrency to the load of the node, which
+        // only do something when adaptive_compaction_throughput is enabled
+        ScheduledExecutors.optionalTasks.scheduleWithFixedDelay(CompactionThroughputController.instance,
+                                                                CompactionThroughputController.INTERVAL_SECONDS,
+                                                                CompactionThroughputController.INTERVAL_SECONDS,
+                                                                TimeUnit.SECONDS);
+
+        // schedule periodic compactions of the sstables with the most purgeable tombstones, which only do something
+        // when tombstone_compaction_budget_in_mb is set
+        ScheduledExecutors.optionalTasks.scheduleWithFixedDelay(TombstoneCompactionScheduler.instance,
+                                                                TombstoneCompactionScheduler.INTERVAL_SECONDS,
+                                                                TombstoneCompactionScheduler.INTERVAL_SECONDS,
+                                                                TimeUnit.SECONDS);
+
         // schedule periodic dumps of table size estimates into SystemKeyspace.SIZE_ESTIMATES_CF
         // set cassandra.size_recorder_interval to 0 to disable
         int sizeRecorderInterval = Integer.getInteger("cassandra.size_recorder_interval", 5 * 60);
@@ -42,6 +42,7 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.batchlog.Batch;
 import org.apache.cassandra.batchlog.BatchlogManager;
+import org.apache.cassandra.concurrent.CoreAffineTask;
 import org.apache.cassandra.concurrent.Stage;
 import org.apache.cassandra.concurrent.StageManager;
 import org.apache.cassandra.schema.TableMetadata;
@@ -1250,6 +1251,9 @@ public class StorageProxy implements StorageProxyMBean
     throws OverloadedException
     {
         int targetsSize = Iterables.size(targets);
+        // serialize the mutation only once for all the replicas, the commit log and the hints
+        if (targetsSize > 1)
+            mutation.cacheSerialization();
 
         // this dc replicas:
         Collection<InetAddress> localDc = null;
@@ -1884,7 +1888,7 @@ public class StorageProxy implements StorageProxyMBean
         }
     }
 
-    static class LocalReadRunnable extends DroppableRunnable
+    static class LocalReadRunnable extends DroppableRunnable implements CoreAffineTask
     {
         private final ReadCommand command;
         private final ReadCallback handler;
@@ -1897,6 +1901,16 @@ public class StorageProxy implements StorageProxyMBean
             this.handler = handler;
         }
 
+        public Token affinityToken()
+        {
+            return command instanceof SinglePartitionReadCommand ? ((SinglePartitionReadCommand) command).partitionKey().getToken() : null;
+        }
+
+        public boolean mayBlock()
+        {
+            return !(command instanceof SinglePartitionReadCommand) || ((SinglePartitionReadCommand) command).mayBlockOnDisk();
+        }
+
         protected void runMayThrow()
         {
             try
@@ -2630,7 +2644,7 @@ public class StorageProxy implements StorageProxyMBean
      * Like DroppableRunnable, but if it aborts, it will rerun (on the mutation stage) after
      * marking itself as a hint in progress so that the hint backpressure mechanism can function.
      */
-    private static abstract class LocalMutationRunnable implements Runnable
+    private static abstract class LocalMutationRunnable implements CoreAffineTask
     {
         private final long constructionTime = System.currentTimeMillis();
 
@@ -2676,6 +2690,18 @@ public class StorageProxy implements StorageProxyMBean
             }
         }
 
+        public Token affinityToken()
+        {
+            return mutationOpt.map(mutation -> mutation.key().getToken()).orElse(null);
+        }
+
+        public boolean mayBlock()
+        {
+            return !mutationOpt.isPresent()
+                   || !(mutationOpt.get() instanceof Mutation)
+                   || ((Mutation) mutationOpt.get()).mayBlockOnApply();
+        }
+
         abstract protected MessagingService.Verb verb();
         abstract protected void runMayThrow() throws Exception;
     }
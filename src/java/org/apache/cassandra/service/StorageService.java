@@ -71,6 +71,7 @@ import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token.TokenFactory;
 import org.apache.cassandra.exceptions.*;
 import org.apache.cassandra.gms.*;
+import org.apache.cassandra.hints.HintBatchVerbHandler;
 import org.apache.cassandra.hints.HintVerbHandler;
 import org.apache.cassandra.hints.HintsService;
 import org.apache.cassandra.io.sstable.SSTableLoader;
@@ -269,6 +270,7 @@ public class StorageService extends NotificationBroadcasterSupport implements IE
         MessagingService.instance().registerVerbHandlers(MessagingService.Verb.PAXOS_PROPOSE, new ProposeVerbHandler());
         MessagingService.instance().registerVerbHandlers(MessagingService.Verb.PAXOS_COMMIT, new CommitVerbHandler());
         MessagingService.instance().registerVerbHandlers(MessagingService.Verb.HINT, new HintVerbHandler());
+        MessagingService.instance().registerVerbHandlers(MessagingService.Verb.HINT_BATCH, new HintBatchVerbHandler());
 
         // see BootStrapper for a summary of how the bootstrap verbs interact
         MessagingService.instance().registerVerbHandlers(MessagingService.Verb.REPLICATION_FINISHED, new ReplicationFinishedVerbHandler());
@@ -5045,6 +5047,35 @@ public class StorageService extends NotificationBroadcasterSupport implements IE
     }
 
     public static List<PartitionPosition> getDiskBoundaries(ColumnFamilyStore cfs, Directories.DataDirectory[] directories)
+    {
+        List<Range<Token>> localRanges = getSortedLocalRanges(cfs);
+        if (localRanges == null)
+            return null;
+
+        return getDiskBoundaries(localRanges, cfs.getPartitioner(), directories);
+    }
+
+    /**
+     * Returns the upper bounds of {@code shardCount} shards splitting evenly the ranges owned by this node, in the same
+     * format as {@link #getDiskBoundaries(ColumnFamilyStore)}, or null if the ranges can't be split. The bounds only
+     * depend on the ranges owned, so sstables split at them don't overlap as long as the ring doesn't change.
+     */
+    public static List<PartitionPosition> getShardBoundaries(ColumnFamilyStore cfs, int shardCount)
+    {
+        List<Range<Token>> localRanges = getSortedLocalRanges(cfs);
+        if (localRanges == null)
+            return null;
+
+        IPartitioner partitioner = cfs.getPartitioner();
+        List<Token> boundaries = partitioner.splitter().get().splitOwnedRanges(shardCount, localRanges, false);
+        List<PartitionPosition> shardBoundaries = new ArrayList<>(boundaries.size());
+        for (int i = 0; i < boundaries.size() - 1; i++)
+            shardBoundaries.add(boundaries.get(i).maxKeyBound());
+        shardBoundaries.add(partitioner.getMaximumToken().maxKeyBound());
+        return shardBoundaries;
+    }
+
+    private static List<Range<Token>> getSortedLocalRanges(ColumnFamilyStore cfs)
     {
         if (!cfs.getPartitioner().splitter().isPresent())
             return null;
@@ -5066,9 +5097,7 @@ public class StorageService extends NotificationBroadcasterSupport implements IE
 
         if (lr == null || lr.isEmpty())
             return null;
-        List<Range<Token>> localRanges = Range.sort(lr);
-
-        return getDiskBoundaries(localRanges, cfs.getPartitioner(), directories);
+        return Range.sort(lr);
     }
 
     public static List<PartitionPosition> getDiskBoundaries(ColumnFamilyStore cfs)
@@ -17,6 +17,7 @@
  */
 package org.apache.cassandra.service.pager;
 
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.db.partitions.*;
@@ -43,6 +44,9 @@ abstract class AbstractQueryPager implements QueryPager
 
     private boolean exhausted;
 
+    // The average size of the data of the rows returned by the previous byte limited pages, or 0 if unknown.
+    private int averageRowSize;
+
     protected AbstractQueryPager(ReadCommand command, ProtocolVersion protocolVersion)
     {
         this.command = command;
@@ -65,7 +69,20 @@ abstract class AbstractQueryPager implements QueryPager
             return EmptyIterators.partition();
 
         pageSize = Math.min(pageSize, remaining);
-        Pager pager = new RowPager(limits.forPaging(pageSize), command.nowInSec());
+        DataLimits pageLimits;
+        int pageSizeInBytes = DatabaseDescriptor.getMaxPageSizeInBytes();
+        if (pageSizeInBytes > 0 && !limits.isGroupByLimit())
+        {
+            // Don't ask the replicas for many more rows than we expect to fit in the page
+            if (averageRowSize > 0)
+                pageSize = Math.min(pageSize, pageSizeInBytes / averageRowSize + 1);
+            pageLimits = limits.forPaging(pageSize).withBytesLimit(pageSizeInBytes);
+        }
+        else
+        {
+            pageLimits = limits.forPaging(pageSize);
+        }
+        Pager pager = new RowPager(pageLimits, command.nowInSec());
         return Transformation.apply(nextPageReadCommand(pageSize).execute(consistency, clientState, queryStartNanoTime), pager);
     }
 
@@ -166,6 +183,11 @@ abstract class AbstractQueryPager implements QueryPager
             recordLast(lastKey, lastRow);
 
             remaining -= counter.counted();
+            if (counter.bytesCounted() > 0 && counter.rowCounted() > 0)
+            {
+                int pageAverageRowSize = Math.max(1, counter.bytesCounted() / counter.rowCounted());
+                averageRowSize = averageRowSize == 0 ? pageAverageRowSize : (averageRowSize + pageAverageRowSize) / 2;
+            }
             // If the clustering of the last row returned is a static one, it means that the partition was only
             // containing data within the static columns. If the clustering of the last row returned is empty
             // it means that there is only one row per partition. Therefore, in both cases there are no data remaining
@@ -206,11 +228,12 @@ abstract class AbstractQueryPager implements QueryPager
         }
     }
 
-    protected void restoreState(DecoratedKey lastKey, int remaining, int remainingInPartition)
+    protected void restoreState(DecoratedKey lastKey, int remaining, int remainingInPartition, int averageRowSize)
     {
         this.lastKey = lastKey;
         this.remaining = remaining;
         this.remainingInPartition = remainingInPartition;
+        this.averageRowSize = averageRowSize;
     }
 
     public boolean isExhausted()
@@ -228,6 +251,11 @@ abstract class AbstractQueryPager implements QueryPager
         return remainingInPartition;
     }
 
+    protected int averageRowSize()
+    {
+        return averageRowSize;
+    }
+
     protected abstract ReadCommand nextPageReadCommand(int pageSize);
     protected abstract void recordLast(DecoratedKey key, Row row);
     protected abstract boolean isPreviouslyReturnedPartition(DecoratedKey key);
@@ -117,7 +117,11 @@ public class MultiPartitionPager implements QueryPager
             return null;
 
         PagingState state = pagers[current].state();
-        return new PagingState(pagers[current].key(), state == null ? null : state.rowMark, remaining, pagers[current].remainingInPartition());
+        return new PagingState(pagers[current].key(),
+                               state == null ? null : state.rowMark,
+                               remaining,
+                               pagers[current].remainingInPartition(),
+                               pagers[current].averageRowSize());
     }
 
     public boolean isExhausted()
@@ -197,10 +201,10 @@ public class MultiPartitionPager implements QueryPager
                     counted += pagerMaxRemaining - pagers[current].maxRemaining();
                 }
 
-                // We are done if we have reached the page size or in the case of GROUP BY if the current pager
-                // is not exhausted.
+                // We are done if we have reached the page size or if the current pager stopped before reaching it
+                // without being exhausted, which happens in the case of GROUP BY or when the page is limited in bytes.
                 boolean isDone = counted >= pageSize
-                        || (result != null && limit.isGroupByLimit() && !pagers[current].isExhausted());
+                        || (result != null && !pagers[current].isExhausted());
 
                 // isExhausted() will sets us on the first non-exhausted pager
                 if (isDone || isExhausted())
@@ -44,13 +44,20 @@ public class PagingState
     public final RowMark rowMark;          // Can be null if not needed.
     public final int remaining;
     public final int remainingInPartition;
+    public final int averageRowSize;       // 0 if unknown, only set when pages are limited in bytes.
 
     public PagingState(ByteBuffer partitionKey, RowMark rowMark, int remaining, int remainingInPartition)
+    {
+        this(partitionKey, rowMark, remaining, remainingInPartition, 0);
+    }
+
+    public PagingState(ByteBuffer partitionKey, RowMark rowMark, int remaining, int remainingInPartition, int averageRowSize)
     {
         this.partitionKey = partitionKey;
         this.rowMark = rowMark;
         this.remaining = remaining;
         this.remainingInPartition = remainingInPartition;
+        this.averageRowSize = averageRowSize;
     }
 
     public static PagingState deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion)
@@ -62,7 +69,7 @@ public class PagingState
         {
             ByteBuffer pk;
             RowMark mark;
-            int remaining, remainingInPartition;
+            int remaining, remainingInPartition, averageRowSize;
             if (protocolVersion.isSmallerOrEqualTo(ProtocolVersion.V3))
             {
                 pk = ByteBufferUtil.readWithShortLength(in);
@@ -73,6 +80,8 @@ public class PagingState
                 // bytes remain to be read. And the reason we want to condition this is for backward compatility
                 // as we used to not set this.
                 remainingInPartition = in.available() > 0 ? in.readInt() : Integer.MAX_VALUE;
+                // Same for the average row size, which is only set if known
+                averageRowSize = in.available() > 0 ? in.readInt() : 0;
             }
             else
             {
@@ -80,11 +89,13 @@ public class PagingState
                 mark = new RowMark(ByteBufferUtil.readWithVIntLength(in), protocolVersion);
                 remaining = (int)in.readUnsignedVInt();
                 remainingInPartition = (int)in.readUnsignedVInt();
+                averageRowSize = in.available() > 0 ? (int)in.readUnsignedVInt() : 0;
             }
             return new PagingState(pk.hasRemaining() ? pk : null,
                                    mark.mark.hasRemaining() ? mark : null,
                                    remaining,
-                                   remainingInPartition);
+                                   remainingInPartition,
+                                   averageRowSize);
         }
         catch (IOException e)
         {
@@ -105,6 +116,8 @@ public class PagingState
                 ByteBufferUtil.writeWithShortLength(mark, out);
                 out.writeInt(remaining);
                 out.writeInt(remainingInPartition);
+                if (averageRowSize > 0)
+                    out.writeInt(averageRowSize);
             }
             else
             {
@@ -112,6 +125,8 @@ public class PagingState
                 ByteBufferUtil.writeWithVIntLength(mark, out);
                 out.writeUnsignedVInt(remaining);
                 out.writeUnsignedVInt(remainingInPartition);
+                if (averageRowSize > 0)
+                    out.writeUnsignedVInt(averageRowSize);
             }
             return out.buffer();
         }
@@ -130,21 +145,23 @@ public class PagingState
         {
             return ByteBufferUtil.serializedSizeWithShortLength(pk)
                  + ByteBufferUtil.serializedSizeWithShortLength(mark)
-                 + 8; // remaining & remainingInPartition
+                 + 8 // remaining & remainingInPartition
+                 + (averageRowSize > 0 ? 4 : 0);
         }
         else
         {
             return ByteBufferUtil.serializedSizeWithVIntLength(pk)
                  + ByteBufferUtil.serializedSizeWithVIntLength(mark)
                  + TypeSizes.sizeofUnsignedVInt(remaining)
-                 + TypeSizes.sizeofUnsignedVInt(remainingInPartition);
+                 + TypeSizes.sizeofUnsignedVInt(remainingInPartition)
+                 + (averageRowSize > 0 ? TypeSizes.sizeofUnsignedVInt(averageRowSize) : 0);
         }
     }
 
     @Override
     public final int hashCode()
     {
-        return Objects.hash(partitionKey, rowMark, remaining, remainingInPartition);
+        return Objects.hash(partitionKey, rowMark, remaining, remainingInPartition, averageRowSize);
     }
 
     @Override
@@ -156,17 +173,19 @@ public class PagingState
         return Objects.equals(this.partitionKey, that.partitionKey)
             && Objects.equals(this.rowMark, that.rowMark)
             && this.remaining == that.remaining
-            && this.remainingInPartition == that.remainingInPartition;
+            && this.remainingInPartition == that.remainingInPartition
+            && this.averageRowSize == that.averageRowSize;
     }
 
     @Override
     public String toString()
     {
-        return String.format("PagingState(key=%s, cellname=%s, remaining=%d, remainingInPartition=%d",
+        return String.format("PagingState(key=%s, cellname=%s, remaining=%d, remainingInPartition=%d, averageRowSize=%d",
                              partitionKey != null ? ByteBufferUtil.bytesToHex(partitionKey) : null,
                              rowMark,
                              remaining,
-                             remainingInPartition);
+                             remainingInPartition,
+                             averageRowSize);
     }
 
     /**
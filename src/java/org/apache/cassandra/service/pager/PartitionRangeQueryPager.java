@@ -40,7 +40,7 @@ public class PartitionRangeQueryPager extends AbstractQueryPager
         {
             lastReturnedKey = command.metadata().partitioner.decorateKey(state.partitionKey);
             lastReturnedRow = state.rowMark;
-            restoreState(lastReturnedKey, state.remaining, state.remainingInPartition);
+            restoreState(lastReturnedKey, state.remaining, state.remainingInPartition, state.averageRowSize);
         }
     }
 
@@ -49,12 +49,13 @@ public class PartitionRangeQueryPager extends AbstractQueryPager
                                     DecoratedKey lastReturnedKey,
                                     PagingState.RowMark lastReturnedRow,
                                     int remaining,
-                                    int remainingInPartition)
+                                    int remainingInPartition,
+                                    int averageRowSize)
     {
         super(command, protocolVersion);
         this.lastReturnedKey = lastReturnedKey;
         this.lastReturnedRow = lastReturnedRow;
-        restoreState(lastReturnedKey, remaining, remainingInPartition);
+        restoreState(lastReturnedKey, remaining, remainingInPartition, averageRowSize);
     }
 
     public PartitionRangeQueryPager withUpdatedLimit(DataLimits newLimits)
@@ -64,14 +65,15 @@ public class PartitionRangeQueryPager extends AbstractQueryPager
                                             lastReturnedKey,
                                             lastReturnedRow,
                                             maxRemaining(),
-                                            remainingInPartition());
+                                            remainingInPartition(),
+                                            averageRowSize());
     }
 
     public PagingState state()
     {
         return lastReturnedKey == null
              ? null
-             : new PagingState(lastReturnedKey.getKey(), lastReturnedRow, maxRemaining(), remainingInPartition());
+             : new PagingState(lastReturnedKey.getKey(), lastReturnedRow, maxRemaining(), remainingInPartition(), averageRowSize());
     }
 
     protected ReadCommand nextPageReadCommand(int pageSize)
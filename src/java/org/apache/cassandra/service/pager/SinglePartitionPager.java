@@ -43,7 +43,7 @@ public class SinglePartitionPager extends AbstractQueryPager
         if (state != null)
         {
             lastReturned = state.rowMark;
-            restoreState(command.partitionKey(), state.remaining, state.remainingInPartition);
+            restoreState(command.partitionKey(), state.remaining, state.remainingInPartition, state.averageRowSize);
         }
     }
 
@@ -51,12 +51,13 @@ public class SinglePartitionPager extends AbstractQueryPager
                                  ProtocolVersion protocolVersion,
                                  PagingState.RowMark rowMark,
                                  int remaining,
-                                 int remainingInPartition)
+                                 int remainingInPartition,
+                                 int averageRowSize)
     {
         super(command, protocolVersion);
         this.command = command;
         this.lastReturned = rowMark;
-        restoreState(command.partitionKey(), remaining, remainingInPartition);
+        restoreState(command.partitionKey(), remaining, remainingInPartition, averageRowSize);
     }
 
     @Override
@@ -66,7 +67,8 @@ public class SinglePartitionPager extends AbstractQueryPager
                                         protocolVersion,
                                         lastReturned,
                                         maxRemaining(),
-                                        remainingInPartition());
+                                        remainingInPartition(),
+                                        averageRowSize());
     }
 
     public ByteBuffer key()
@@ -83,7 +85,7 @@ public class SinglePartitionPager extends AbstractQueryPager
     {
         return lastReturned == null
              ? null
-             : new PagingState(null, lastReturned, maxRemaining(), remainingInPartition());
+             : new PagingState(null, lastReturned, maxRemaining(), remainingInPartition(), averageRowSize());
     }
 
     protected ReadCommand nextPageReadCommand(int pageSize)
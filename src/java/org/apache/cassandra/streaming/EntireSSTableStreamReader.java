@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.streaming;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.db.PartitionPosition;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.io.sstable.ISSTableScanner;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.SSTableComponentsWriter;
+import org.apache.cassandra.io.sstable.SSTableMultiWriter;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.metadata.MetadataType;
+import org.apache.cassandra.io.sstable.metadata.StatsMetadata;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.streaming.messages.FileMessageHeader;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static org.apache.cassandra.utils.Throwables.maybeFail;
+
+/**
+ * EntireSSTableStreamReader receives the component files of an SSTable sent by {@link EntireSSTableStreamWriter},
+ * and writes them as a new SSTable of the table. An SSTable spanning several of the local data directories is
+ * rewritten partition by partition once received, as if its partitions had been streamed.
+ */
+public class EntireSSTableStreamReader extends StreamReader
+{
+    private static final Logger logger = LoggerFactory.getLogger(EntireSSTableStreamReader.class);
+
+    private final Map<Component, Long> components;
+    private final ByteBuffer firstKey;
+    private final ByteBuffer lastKey;
+
+    public EntireSSTableStreamReader(FileMessageHeader header, StreamSession session)
+    {
+        super(header, session);
+        assert header.isEntireSSTable();
+        this.components = header.components;
+        this.firstKey = header.firstKey;
+        this.lastKey = header.lastKey;
+    }
+
+    /**
+     * @param in where this reads data from
+     * @return SSTable transferred
+     * @throws IOException if reading the remote sstable fails. Will throw an RTE if local write fails.
+     */
+    @Override
+    public SSTableMultiWriter read(DataInputPlus in) throws IOException
+    {
+        long totalSize = totalSize();
+
+        ColumnFamilyStore cfs = ColumnFamilyStore.getIfExists(tableId);
+        if (cfs == null)
+        {
+            // schema was dropped during streaming
+            throw new IOException("CF " + tableId + " was dropped during streaming");
+        }
+
+        logger.debug("[Stream #{}] Start receiving entire sstable #{} from {}, repairedAt = {}, size = {}, ks = '{}', table = '{}', pendingRepair = '{}'.",
+                     session.planId(), fileSeqNum, session.peer, repairedAt, totalSize, cfs.keyspace.getName(),
+                     cfs.getTableName(), pendingRepair);
+
+        SSTableComponentsWriter writer = null;
+        try
+        {
+            Directories.DataDirectory dataDirectory = getDataDirectory(cfs);
+            boolean rewrite = dataDirectory == null;
+            if (rewrite)
+                dataDirectory = getWriteableLocation(cfs, totalSize);
+
+            Descriptor descriptor = cfs.newSSTableDescriptor(cfs.getDirectories().getLocationForDisk(dataDirectory), inputVersion, format);
+            writer = new SSTableComponentsWriter(descriptor, components.keySet(), cfs.metadata, session.getTransaction(tableId));
+            if (!rewrite)
+                StreamHook.instance.reportIncomingFile(cfs, writer, session, fileSeqNum);
+
+            for (Map.Entry<Component, Long> entry : components.entrySet())
+            {
+                writer.writeComponent(entry.getKey(), in, entry.getValue());
+                session.progress(descriptor.filenameFor(entry.getKey()), ProgressInfo.Direction.IN, writer.getFilePointer(), totalSize);
+            }
+
+            // the level of the sender is only kept if the session asks for it, in which case the header carries it
+            StatsMetadata stats = (StatsMetadata) descriptor.getMetadataSerializer().deserialize(descriptor, MetadataType.STATS);
+            if (stats.sstableLevel != sstableLevel)
+                descriptor.getMetadataSerializer().mutateLevel(descriptor, sstableLevel);
+
+            logger.debug("[Stream #{}] Finished receiving entire sstable #{} from {} readBytes = {}, totalSize = {}",
+                         session.planId(), fileSeqNum, session.peer, FBUtilities.prettyPrintMemory(writer.getFilePointer()), FBUtilities.prettyPrintMemory(totalSize));
+            if (!rewrite)
+                return writer;
+
+            SSTableComponentsWriter received = writer;
+            writer = null;
+            return rewrite(cfs, received, totalSize);
+        }
+        catch (Throwable e)
+        {
+            logger.warn("[Stream {}] Error while receiving entire sstable #{} from stream on ks='{}' and table='{}'.",
+                        session.planId(), fileSeqNum, cfs.keyspace.getName(), cfs.getTableName(), e);
+            if (writer != null)
+                writer.abort(e);
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * Rewrite the partitions of a received sstable through the writer of a partition stream, which splits them between
+     * the data directories, and remove the received files.
+     */
+    private SSTableMultiWriter rewrite(ColumnFamilyStore cfs, SSTableComponentsWriter received, long totalSize) throws IOException
+    {
+        logger.debug("[Stream #{}] Entire sstable #{} from {} spans several data directories, rewriting its partitions",
+                     session.planId(), fileSeqNum, session.peer);
+
+        SSTableMultiWriter writer = null;
+        try
+        {
+            received.setOpenResult(true).prepareToCommit();
+            SSTableReader sstable = Iterables.getOnlyElement(received.finished());
+            writer = createWriter(cfs, totalSize, repairedAt, pendingRepair, format);
+            try (ISSTableScanner scanner = sstable.getScanner())
+            {
+                while (scanner.hasNext())
+                {
+                    try (UnfilteredRowIterator partition = scanner.next())
+                    {
+                        writer.append(partition);
+                    }
+                }
+            }
+        }
+        catch (Throwable e)
+        {
+            if (writer != null)
+                e = writer.abort(e);
+            throw Throwables.propagate(received.abort(e));
+        }
+
+        // the received files were only the source of the rewritten ones
+        maybeFail(received.abort(null));
+        return writer;
+    }
+
+    /**
+     * @return the data directory the sstable belongs to when the local ranges are split between the data directories,
+     * or null if its keys span several of them; any data directory with enough space otherwise.
+     */
+    private Directories.DataDirectory getDataDirectory(ColumnFamilyStore cfs) throws IOException
+    {
+        Directories.DataDirectory[] directories = cfs.getDirectories().getWriteableLocations();
+        List<PartitionPosition> boundaries = StorageService.getDiskBoundaries(cfs, directories);
+        if (boundaries == null)
+            return getWriteableLocation(cfs, totalSize());
+
+        int firstIndex = boundaryIndex(cfs.getPartitioner().decorateKey(firstKey), boundaries);
+        int lastIndex = boundaryIndex(cfs.getPartitioner().decorateKey(lastKey), boundaries);
+        return firstIndex == lastIndex ? directories[firstIndex] : null;
+    }
+
+    private static int boundaryIndex(DecoratedKey key, List<PartitionPosition> boundaries)
+    {
+        int index = 0;
+        while (index < boundaries.size() - 1 && key.compareTo(boundaries.get(index)) > 0)
+            index++;
+        return index;
+    }
+
+    private static Directories.DataDirectory getWriteableLocation(ColumnFamilyStore cfs, long totalSize) throws IOException
+    {
+        Directories.DataDirectory localDir = cfs.getDirectories().getWriteableLocation(totalSize);
+        if (localDir == null)
+            throw new IOException(String.format("Insufficient disk space to store %s", FBUtilities.prettyPrintMemory(totalSize)));
+        return localDir;
+    }
+
+    @Override
+    protected long totalSize()
+    {
+        long size = 0;
+        for (long length : components.values())
+            size += length;
+        return size;
+    }
+}
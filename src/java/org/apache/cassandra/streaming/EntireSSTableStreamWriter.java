@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.streaming;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.channel.ChannelFuture;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.SSTable;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.DataOutputStreamPlus;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.net.async.ByteBufDataOutputStreamPlus;
+import org.apache.cassandra.streaming.StreamManager.StreamRateLimiter;
+import org.apache.cassandra.utils.FBUtilities;
+
+/**
+ * EntireSSTableStreamWriter sends the component files of an SSTable as they are on disk, one after the other.
+ * Contrary to {@link StreamWriter}, nothing is decompressed or recompressed: when writing to a netty channel, the
+ * files are handed to the channel directly, so they are transferred without being copied through the heap.
+ */
+public class EntireSSTableStreamWriter
+{
+    private static final Logger logger = LoggerFactory.getLogger(EntireSSTableStreamWriter.class);
+
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final SSTableReader sstable;
+    private final Map<Component, Long> components;
+    private final StreamSession session;
+    private final StreamRateLimiter limiter;
+
+    public EntireSSTableStreamWriter(SSTableReader sstable, Map<Component, Long> components, StreamSession session)
+    {
+        this.sstable = sstable;
+        this.components = components;
+        this.session = session;
+        this.limiter = StreamManager.getRateLimiter(session.peer);
+    }
+
+    /**
+     * @return the components of the sstable which are sent when streaming it as a whole, with their length.
+     * Secondary index and custom components are left out, as the receiver builds its own indexes, and so is the TOC,
+     * which the receiver writes for the components it actually gets.
+     */
+    public static Map<Component, Long> componentsToStream(SSTableReader sstable)
+    {
+        Map<Component, Long> components = new LinkedHashMap<>();
+        for (Component component : SSTable.componentsFor(sstable.descriptor))
+        {
+            if (component.type == Component.Type.SECONDARY_INDEX
+                || component.type == Component.Type.CUSTOM
+                || component.type == Component.Type.TOC)
+                continue;
+
+            File file = new File(sstable.descriptor.filenameFor(component));
+            if (file.exists())
+                components.put(component, file.length());
+        }
+        return components;
+    }
+
+    /**
+     * Stream the component files of the sstable to the given output.
+     *
+     * @param output where this writes data to
+     * @throws IOException on any I/O error
+     */
+    public void write(DataOutputStreamPlus output) throws IOException
+    {
+        long totalSize = totalSize();
+        logger.debug("[Stream #{}] Start streaming entire sstable {} to {}, repairedAt = {}, totalSize = {}", session.planId(),
+                     sstable.getFilename(), session.peer, sstable.getSSTableMetadata().repairedAt, totalSize);
+
+        long progress = 0L;
+        for (Map.Entry<Component, Long> entry : components.entrySet())
+        {
+            Component component = entry.getKey();
+            long length = entry.getValue();
+            String filename = sstable.descriptor.filenameFor(component);
+            try (FileChannel channel = FileChannel.open(new File(filename).toPath(), StandardOpenOption.READ))
+            {
+                // the receiver expects exactly the advertised number of bytes
+                if (channel.size() != length)
+                    throw new IOException(String.format("Component %s changed size while waiting to be streamed: expected %d bytes, found %d",
+                                                        filename, length, channel.size()));
+
+                ChannelFuture lastWrite = null;
+                long position = 0;
+                while (position < length)
+                {
+                    int toTransfer = (int) Math.min(DEFAULT_CHUNK_SIZE, length - position);
+                    limiter.acquire(toTransfer);
+                    if (output instanceof ByteBufDataOutputStreamPlus)
+                        lastWrite = ((ByteBufDataOutputStreamPlus) output).writeToChannel(channel, position, toTransfer);
+                    else
+                        write(channel, position, toTransfer, output);
+                    position += toTransfer;
+                    progress += toTransfer;
+                    session.progress(filename, ProgressInfo.Direction.OUT, progress, totalSize);
+                }
+
+                // netty reads from the file until the last region is written out
+                if (lastWrite != null)
+                    lastWrite.awaitUninterruptibly();
+            }
+        }
+        output.flush();
+        logger.debug("[Stream #{}] Finished streaming entire sstable {} to {}, bytesTransferred = {}, totalSize = {}",
+                     session.planId(), sstable.getFilename(), session.peer, FBUtilities.prettyPrintMemory(progress), FBUtilities.prettyPrintMemory(totalSize));
+    }
+
+    private static void write(FileChannel channel, long position, int length, DataOutputStreamPlus output) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        try
+        {
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer, position + buffer.position()) < 0)
+                    throw new IOException("unexpected end of file " + channel);
+            }
+            buffer.flip();
+            output.write(buffer);
+        }
+        finally
+        {
+            FileUtils.clean(buffer);
+        }
+    }
+
+    protected long totalSize()
+    {
+        long size = 0;
+        for (long length : components.values())
+            size += length;
+        return size;
+    }
+}
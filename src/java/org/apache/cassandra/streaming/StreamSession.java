@@ -415,7 +415,10 @@ public class StreamSession implements IEndpointStateChangeSubscriber
             List<SSTableStreamingSections> sections = new ArrayList<>(refs.size());
             for (SSTableReader sstable : refs)
             {
-                sections.add(new SSTableStreamingSections(refs.get(sstable), sstable.getPositionsForRanges(ranges), sstable.estimatedKeysForRanges(ranges)));
+                sections.add(new SSTableStreamingSections(refs.get(sstable),
+                                                          sstable.getPositionsForRanges(ranges),
+                                                          sstable.estimatedKeysForRanges(ranges),
+                                                          DatabaseDescriptor.streamEntireSSTables() && containedIn(sstable, ranges)));
             }
             return sections;
         }
@@ -426,6 +429,21 @@ public class StreamSession implements IEndpointStateChangeSubscriber
         }
     }
 
+    /**
+     * @return whether all the partitions of the sstable are within the provided normalized ranges, in which case it
+     * can be streamed as a whole.
+     */
+    private static boolean containedIn(SSTableReader sstable, Collection<Range<Token>> normalizedRanges)
+    {
+        for (Range<Token> range : normalizedRanges)
+        {
+            // normalized ranges don't overlap, so both bounds of the sstable must be in the same range
+            if (range.contains(sstable.first.getToken()) && range.contains(sstable.last.getToken()))
+                return true;
+        }
+        return false;
+    }
+
     synchronized void addTransferFiles(Collection<SSTableStreamingSections> sstableDetails)
     {
         failIfFinished();
@@ -451,7 +469,7 @@ public class StreamSession implements IEndpointStateChangeSubscriber
                 if (task == null)
                     task = newTask;
             }
-            task.addTransferFile(details.ref, details.estimatedKeys, details.sections);
+            task.addTransferFile(details.ref, details.estimatedKeys, details.sections, details.entireSSTable);
             iter.remove();
         }
     }
@@ -461,12 +479,20 @@ public class StreamSession implements IEndpointStateChangeSubscriber
         public final Ref<SSTableReader> ref;
         public final List<Pair<Long, Long>> sections;
         public final long estimatedKeys;
+        /** Whether the sections cover the whole sstable, so its component files can be sent as they are */
+        public final boolean entireSSTable;
 
         public SSTableStreamingSections(Ref<SSTableReader> ref, List<Pair<Long, Long>> sections, long estimatedKeys)
+        {
+            this(ref, sections, estimatedKeys, false);
+        }
+
+        public SSTableStreamingSections(Ref<SSTableReader> ref, List<Pair<Long, Long>> sections, long estimatedKeys, boolean entireSSTable)
         {
             this.ref = ref;
             this.sections = sections;
             this.estimatedKeys = estimatedKeys;
+            this.entireSSTable = entireSSTable;
         }
     }
 
@@ -19,13 +19,17 @@ package org.apache.cassandra.streaming.messages;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.apache.cassandra.db.SerializationHeader;
 import org.apache.cassandra.db.TypeSizes;
 import org.apache.cassandra.io.compress.CompressionMetadata;
+import org.apache.cassandra.io.sstable.Component;
 import org.apache.cassandra.io.sstable.format.SSTableFormat;
 import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.io.util.DataOutputPlus;
@@ -35,6 +39,7 @@ import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.schema.TableId;
 import org.apache.cassandra.streaming.StreamSession;
 import org.apache.cassandra.streaming.compress.CompressionInfo;
+import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.Pair;
 import org.apache.cassandra.utils.UUIDSerializer;
 
@@ -68,6 +73,15 @@ public class FileMessageHeader
     public final int sstableLevel;
     public final SerializationHeader.Component header;
     public final InetAddress sender;
+    /**
+     * The components of the SSTable and their length, in the order they are sent, if the whole SSTable is streamed
+     * as is; null if only the partitions of the sections are streamed.
+     */
+    public final Map<Component, Long> components;
+    /** The first partition key of the SSTable if it is streamed as a whole, null otherwise. */
+    public final ByteBuffer firstKey;
+    /** The last partition key of the SSTable if it is streamed as a whole, null otherwise. */
+    public final ByteBuffer lastKey;
 
     /* cached size value */
     private transient final long size;
@@ -85,7 +99,10 @@ public class FileMessageHeader
                              long repairedAt,
                              UUID pendingRepair,
                              int sstableLevel,
-                             SerializationHeader.Component header)
+                             SerializationHeader.Component header,
+                             Map<Component, Long> components,
+                             ByteBuffer firstKey,
+                             ByteBuffer lastKey)
     {
         this.tableId = tableId;
         this.sender = sender;
@@ -102,6 +119,9 @@ public class FileMessageHeader
         this.pendingRepair = pendingRepair;
         this.sstableLevel = sstableLevel;
         this.header = header;
+        this.components = components;
+        this.firstKey = firstKey;
+        this.lastKey = lastKey;
         this.size = calculateSize();
     }
 
@@ -120,6 +140,29 @@ public class FileMessageHeader
                              int sstableLevel,
                              SerializationHeader.Component header)
     {
+        this(tableId, sender, planId, sessionIndex, sequenceNumber, version, format, estimatedKeys, sections,
+             compressionMetadata, repairedAt, pendingRepair, sstableLevel, header, null, null, null);
+    }
+
+    public FileMessageHeader(TableId tableId,
+                             InetAddress sender,
+                             UUID planId,
+                             int sessionIndex,
+                             int sequenceNumber,
+                             Version version,
+                             SSTableFormat.Type format,
+                             long estimatedKeys,
+                             List<Pair<Long, Long>> sections,
+                             CompressionMetadata compressionMetadata,
+                             long repairedAt,
+                             UUID pendingRepair,
+                             int sstableLevel,
+                             SerializationHeader.Component header,
+                             Map<Component, Long> components,
+                             ByteBuffer firstKey,
+                             ByteBuffer lastKey)
+    {
+        assert (components == null) == (firstKey == null) && (firstKey == null) == (lastKey == null);
         this.tableId = tableId;
         this.sender = sender;
         this.planId = planId;
@@ -135,6 +178,9 @@ public class FileMessageHeader
         this.pendingRepair = pendingRepair;
         this.sstableLevel = sstableLevel;
         this.header = header;
+        this.components = components;
+        this.firstKey = firstKey;
+        this.lastKey = lastKey;
         this.size = calculateSize();
     }
 
@@ -143,6 +189,14 @@ public class FileMessageHeader
         return compressionInfo != null || compressionMetadata != null;
     }
 
+    /**
+     * @return whether the component files of the SSTable are streamed as they are, rather than its partitions
+     */
+    public boolean isEntireSSTable()
+    {
+        return components != null;
+    }
+
     /**
      * @return total file size to transfer in bytes
      */
@@ -154,7 +208,12 @@ public class FileMessageHeader
     private long calculateSize()
     {
         long transferSize = 0;
-        if (compressionInfo != null)
+        if (components != null)
+        {
+            for (long length : components.values())
+                transferSize += length;
+        }
+        else if (compressionInfo != null)
         {
             // calculate total length of transferring chunks
             for (CompressionMetadata.Chunk chunk : compressionInfo.chunks)
@@ -183,6 +242,7 @@ public class FileMessageHeader
         sb.append(", estimated keys: ").append(estimatedKeys);
         sb.append(", transfer size: ").append(size());
         sb.append(", compressed?: ").append(isCompressed());
+        sb.append(", entire sstable?: ").append(isEntireSSTable());
         sb.append(", repairedAt: ").append(repairedAt);
         sb.append(", pendingRepair: ").append(pendingRepair);
         sb.append(", level: ").append(sstableLevel);
@@ -246,6 +306,19 @@ public class FileMessageHeader
             out.writeInt(header.sstableLevel);
 
             SerializationHeader.serializer.serialize(header.version, header.header, out);
+
+            out.writeBoolean(header.components != null);
+            if (header.components != null)
+            {
+                out.writeInt(header.components.size());
+                for (Map.Entry<Component, Long> entry : header.components.entrySet())
+                {
+                    out.writeUTF(entry.getKey().name());
+                    out.writeLong(entry.getValue());
+                }
+                ByteBufferUtil.writeWithShortLength(header.firstKey, out);
+                ByteBufferUtil.writeWithShortLength(header.lastKey, out);
+            }
             return compressionInfo;
         }
 
@@ -256,8 +329,9 @@ public class FileMessageHeader
             UUID planId = UUIDSerializer.serializer.deserialize(in, MessagingService.current_version);
             int sessionIndex = in.readInt();
             int sequenceNumber = in.readInt();
-            Version sstableVersion = SSTableFormat.Type.current().info.getVersion(in.readUTF());
+            String sstableVersionString = in.readUTF();
             SSTableFormat.Type format = SSTableFormat.Type.validate(in.readUTF());
+            Version sstableVersion = format.info.getVersion(sstableVersionString);
 
             long estimatedKeys = in.readLong();
             int count = in.readInt();
@@ -270,7 +344,20 @@ public class FileMessageHeader
             int sstableLevel = in.readInt();
             SerializationHeader.Component header =  SerializationHeader.serializer.deserialize(sstableVersion, in);
 
-            return new FileMessageHeader(tableId, sender, planId, sessionIndex, sequenceNumber, sstableVersion, format, estimatedKeys, sections, compressionInfo, repairedAt, pendingRepair, sstableLevel, header);
+            Map<Component, Long> components = null;
+            ByteBuffer firstKey = null;
+            ByteBuffer lastKey = null;
+            if (in.readBoolean())
+            {
+                int componentCount = in.readInt();
+                components = new LinkedHashMap<>(componentCount);
+                for (int i = 0; i < componentCount; i++)
+                    components.put(Component.parse(in.readUTF()), in.readLong());
+                firstKey = ByteBufferUtil.readWithShortLength(in);
+                lastKey = ByteBufferUtil.readWithShortLength(in);
+            }
+
+            return new FileMessageHeader(tableId, sender, planId, sessionIndex, sequenceNumber, sstableVersion, format, estimatedKeys, sections, compressionInfo, repairedAt, pendingRepair, sstableLevel, header, components, firstKey, lastKey);
         }
 
         public long serializedSize(FileMessageHeader header, int version)
@@ -298,6 +385,19 @@ public class FileMessageHeader
 
             size += SerializationHeader.serializer.serializedSize(header.version, header.header);
 
+            size += TypeSizes.sizeof(header.components != null);
+            if (header.components != null)
+            {
+                size += TypeSizes.sizeof(header.components.size());
+                for (Map.Entry<Component, Long> entry : header.components.entrySet())
+                {
+                    size += TypeSizes.sizeof(entry.getKey().name());
+                    size += TypeSizes.sizeof(entry.getValue());
+                }
+                size += ByteBufferUtil.serializedSizeWithShortLength(header.firstKey);
+                size += ByteBufferUtil.serializedSizeWithShortLength(header.lastKey);
+            }
+
             return size;
         }
     }
@@ -24,6 +24,7 @@ import org.apache.cassandra.io.sstable.SSTableMultiWriter;
 import org.apache.cassandra.io.util.DataInputPlus;
 
 import org.apache.cassandra.io.util.DataOutputStreamPlus;
+import org.apache.cassandra.streaming.EntireSSTableStreamReader;
 import org.apache.cassandra.streaming.StreamManager;
 import org.apache.cassandra.streaming.StreamReader;
 import org.apache.cassandra.streaming.StreamReceiveException;
@@ -50,8 +51,13 @@ public class IncomingFileMessage extends StreamMessage
             if (cfs == null)
                 throw new StreamReceiveException(session, "CF " + header.tableId + " was dropped during streaming");
 
-            StreamReader reader = !header.isCompressed() ? new StreamReader(header, session)
-                                                         : new CompressedStreamReader(header, session);
+            StreamReader reader;
+            if (header.isEntireSSTable())
+                reader = new EntireSSTableStreamReader(header, session);
+            else if (header.isCompressed())
+                reader = new CompressedStreamReader(header, session);
+            else
+                reader = new StreamReader(header, session);
 
             try
             {
@@ -25,6 +25,7 @@ import com.google.common.annotations.VisibleForTesting;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.io.util.DataOutputStreamPlus;
+import org.apache.cassandra.streaming.EntireSSTableStreamWriter;
 import org.apache.cassandra.streaming.StreamSession;
 import org.apache.cassandra.streaming.StreamWriter;
 import org.apache.cassandra.streaming.compress.CompressedStreamWriter;
@@ -72,6 +73,15 @@ public class OutgoingFileMessage extends StreamMessage
     private boolean transferring = false;
 
     public OutgoingFileMessage(Ref<SSTableReader> ref, StreamSession session, int sequenceNumber, long estimatedKeys, List<Pair<Long, Long>> sections, boolean keepSSTableLevel)
+    {
+        this(ref, session, sequenceNumber, estimatedKeys, sections, keepSSTableLevel, false);
+    }
+
+    /**
+     * @param entireSSTable whether the sections cover the whole sstable, in which case its component files are sent
+     *                      as they are rather than its partitions.
+     */
+    public OutgoingFileMessage(Ref<SSTableReader> ref, StreamSession session, int sequenceNumber, long estimatedKeys, List<Pair<Long, Long>> sections, boolean keepSSTableLevel, boolean entireSSTable)
     {
         super(Type.FILE);
         this.ref = ref;
@@ -87,11 +97,15 @@ public class OutgoingFileMessage extends StreamMessage
                                             sstable.descriptor.formatType,
                                             estimatedKeys,
                                             sections,
-                                            sstable.compression ? sstable.getCompressionMetadata() : null,
+                                            // the compression info is sent along with the other components of entire sstables
+                                            sstable.compression && !entireSSTable ? sstable.getCompressionMetadata() : null,
                                             sstable.getRepairedAt(),
                                             sstable.getPendingRepair(),
                                             keepSSTableLevel ? sstable.getSSTableLevel() : 0,
-                                            sstable.header.toComponent());
+                                            sstable.header.toComponent(),
+                                            entireSSTable ? EntireSSTableStreamWriter.componentsToStream(sstable) : null,
+                                            entireSSTable ? sstable.first.getKey() : null,
+                                            entireSSTable ? sstable.last.getKey() : null);
     }
 
     public synchronized void serialize(DataOutputStreamPlus out, int version, StreamSession session) throws IOException
@@ -104,6 +118,12 @@ public class OutgoingFileMessage extends StreamMessage
         CompressionInfo compressionInfo = FileMessageHeader.serializer.serialize(header, out, version);
         out.flush();
         final SSTableReader reader = ref.get();
+        if (header.isEntireSSTable())
+        {
+            new EntireSSTableStreamWriter(reader, header.components, session).write(out);
+            return;
+        }
+
         StreamWriter writer = compressionInfo == null ?
                               new StreamWriter(reader, header.sections, session) :
                               new CompressedStreamWriter(reader, header.sections,
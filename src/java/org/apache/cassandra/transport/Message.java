@@ -21,7 +21,7 @@ import java.util.ArrayList;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.EnumSet;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -42,6 +42,7 @@ import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.metrics.ClientMetrics;
 import org.apache.cassandra.service.ClientWarn;
 import org.apache.cassandra.transport.messages.*;
 import org.apache.cassandra.service.QueryState;
@@ -428,7 +429,8 @@ public abstract class Message
             final EventLoop eventLoop;
             final ConcurrentLinkedQueue<FlushItem> queued = new ConcurrentLinkedQueue<>();
             final AtomicBoolean running = new AtomicBoolean(false);
-            final HashSet<ChannelHandlerContext> channels = new HashSet<>();
+            // the channels written to since the last flush, with the number of responses written to each
+            final HashMap<ChannelHandlerContext, Integer> channels = new HashMap<>();
             final List<FlushItem> flushed = new ArrayList<>();
             int runsSinceFlush = 0;
             int runsWithNoWork = 0;
@@ -450,7 +452,7 @@ public abstract class Message
                 FlushItem flush;
                 while ( null != (flush = queued.poll()) )
                 {
-                    channels.add(flush.ctx);
+                    channels.merge(flush.ctx, 1, Integer::sum);
                     flush.ctx.write(flush.response, flush.ctx.voidPromise());
                     flushed.add(flush);
                     doneWork = true;
@@ -460,10 +462,16 @@ public abstract class Message
 
                 if (!doneWork || runsSinceFlush > 2 || flushed.size() > 50)
                 {
-                    for (ChannelHandlerContext channel : channels)
-                        channel.flush();
+                    for (Map.Entry<ChannelHandlerContext, Integer> channel : channels.entrySet())
+                    {
+                        channel.getKey().flush();
+                        ClientMetrics.instance.flushBatchSize.update(channel.getValue());
+                    }
                     for (FlushItem item : flushed)
+                    {
+                        RequestBackpressureHandler.onResponseFlushed(item.ctx.channel(), item.sourceFrame);
                         item.sourceFrame.release();
+                    }
 
                     channels.clear();
                     flushed.clear();
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.transport;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.AttributeKey;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.metrics.ClientMetrics;
+
+/**
+ * {@link ChannelInboundHandlerAdapter} implementation which stops reading from a client connection once it has too
+ * many requests in flight, that is requests being processed or whose response hasn't been flushed yet, and resumes
+ * reading once enough responses have been flushed.
+ * <p>
+ * The limits are checked once all the requests decoded out of a read have gone through, so the requests a client
+ * pipelined in a single read are processed as a batch. Requests are accounted for by
+ * {@link #channelRead(ChannelHandlerContext, Object)} and released by the {@link Message.Dispatcher} flusher, both of
+ * which run on the event loop of the channel, so this doesn't need to be thread safe.
+ */
+final class RequestBackpressureHandler extends ChannelInboundHandlerAdapter
+{
+    static final AttributeKey<RequestBackpressureHandler> attributeKey = AttributeKey.valueOf("BACKPRESSURE");
+
+    private final Channel channel;
+
+    private int inflightRequests;
+    private long inflightBytes;
+    private int requestsInRead;
+    private boolean paused;
+
+    RequestBackpressureHandler(Channel channel)
+    {
+        this.channel = channel;
+        channel.attr(attributeKey).set(this);
+    }
+
+    /**
+     * @return the number of bytes a request holds until its response is flushed.
+     */
+    static long inflightSize(Frame sourceFrame)
+    {
+        return Frame.Header.LENGTH + sourceFrame.body.writerIndex();
+    }
+
+    /**
+     * Releases a request of {@code channel} whose response has just been flushed.
+     */
+    static void onResponseFlushed(Channel channel, Frame sourceFrame)
+    {
+        RequestBackpressureHandler handler = channel.attr(attributeKey).get();
+        if (handler != null)
+            handler.release(inflightSize(sourceFrame));
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg)
+    {
+        if (msg instanceof Message.Request)
+        {
+            inflightRequests++;
+            inflightBytes += inflightSize(((Message.Request) msg).getSourceFrame());
+            requestsInRead++;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx)
+    {
+        if (requestsInRead > 0)
+        {
+            ClientMetrics.instance.requestBatchSize.update(requestsInRead);
+            requestsInRead = 0;
+        }
+
+        if (!paused && isOverLimit())
+        {
+            paused = true;
+            channel.config().setAutoRead(false);
+            ClientMetrics.instance.pausedConnections.incrementAndGet();
+            ClientMetrics.instance.connectionPaused.mark();
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx)
+    {
+        if (paused)
+        {
+            paused = false;
+            ClientMetrics.instance.pausedConnections.decrementAndGet();
+        }
+        ctx.fireChannelInactive();
+    }
+
+    private void release(long bytes)
+    {
+        inflightRequests--;
+        inflightBytes -= bytes;
+
+        if (paused && !isOverLimit() && channel.isActive())
+        {
+            paused = false;
+            ClientMetrics.instance.pausedConnections.decrementAndGet();
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    private boolean isOverLimit()
+    {
+        int maxRequests = DatabaseDescriptor.getNativeTransportMaxConcurrentRequestsPerConnection();
+        long maxBytes = DatabaseDescriptor.getNativeTransportMaxConcurrentRequestsInBytesPerConnection();
+        return (maxRequests > 0 && inflightRequests >= maxRequests) || (maxBytes > 0 && inflightBytes >= maxBytes);
+    }
+
+    int inflightRequests()
+    {
+        return inflightRequests;
+    }
+
+    long inflightBytes()
+    {
+        return inflightBytes;
+    }
+
+    boolean isPaused()
+    {
+        return paused;
+    }
+}
@@ -31,6 +31,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.Locale;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -49,7 +50,7 @@ public class CoalescingStrategies
     private static final String DEBUG_COALESCING_PATH_PROPERTY = Config.PROPERTY_PREFIX + "coalescing_debug_path";
     private static final String DEBUG_COALESCING_PATH = System.getProperty(DEBUG_COALESCING_PATH_PROPERTY, "/tmp/coleascing_debug");
 
-    public enum Strategy { MOVINGAVERAGE, FIXED, TIMEHORIZON, DISABLED }
+    public enum Strategy { MOVINGAVERAGE, FIXED, TIMEHORIZON, ADAPTIVE, DISABLED }
 
     static
     {
@@ -122,6 +123,28 @@ public class CoalescingStrategies
          * transient thing).
          */
         long currentCoalescingTimeNanos();
+
+        /**
+         * Inform the strategy that the connection flushed, so it can account for the cost of a flush. Strategies that
+         * don't adapt to the connection can ignore it.
+         * <p>
+         * Note: this is called on the netty event loop of the connection.
+         *
+         * @param pendingMessages the number of messages written to the connection but not yet processed by it.
+         * @param flushNanos how long the flush took.
+         */
+        default void onFlush(long pendingMessages, long flushNanos) {}
+
+        /**
+         * Inform the strategy that a message has been sent, so it can account for the latency of messages. Strategies
+         * that don't adapt to the connection can ignore it.
+         * <p>
+         * Note: this is called on the netty event loop of the connection.
+         *
+         * @param message the message sent.
+         * @param nowNanos the time at which the message was sent.
+         */
+        default void onMessageSent(Coalescable message, long nowNanos) {}
     }
 
     public static abstract class AbstractCoalescingStrategy implements CoalescingStrategy
@@ -402,6 +425,154 @@ public class CoalescingStrategies
         }
     }
 
+    /**
+     * A strategy that decides, for a single connection, whether coalescing pays off and how long to wait, based on what
+     * it measures of that connection rather than on arrivals alone.
+     * <p>
+     * Coalescing only helps when the connection is busy: if flushing a message takes a fair share of the time between
+     * two messages, or messages are queueing up behind the event loop, batching them saves flushes; otherwise it only
+     * adds latency. So every {@link #EVALUATION_INTERVAL_NANOS}, the strategy looks at the average gap between arrivals,
+     * the average cost of a flush, the average number of pending messages and the 99th percentile latency of the
+     * messages sent (from their creation to their write on the socket), and:
+     * <ul>
+     *     <li>disables coalescing if it's unlikely to get another message within the window, or if the connection is
+     *     neither busy nor backed up;</li>
+     *     <li>enables coalescing otherwise, unless the p99 latency already exceeds the latency target;</li>
+     *     <li>when coalescing, halves the window when the p99 latency exceeds the latency target, grows it by a quarter when
+     *     the p99 latency is below half the target, and disables coalescing when the window gets smaller than the gap
+     *     between arrivals.</li>
+     * </ul>
+     * The latency target is the configured coalescing window, which is also the largest window the strategy uses.
+     */
+    public static class AdaptiveCoalescingStrategy extends AbstractCoalescingStrategy
+    {
+        static final long EVALUATION_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+        // the minimum share of the time between two arrivals spent flushing for coalescing to be worth it
+        static final double MIN_FLUSH_UTILIZATION = 0.25;
+        // the average number of pending messages above which the connection is considered backed up
+        static final double MIN_QUEUE_DEPTH = 2;
+        private static final double ALPHA = 0.2;
+
+        private final long latencyTargetNanos;
+        private final EstimatedHistogram latencies = new EstimatedHistogram();
+        private final AtomicLong lastEvaluation;
+
+        private volatile long lastArrival;
+        private volatile double averageGapNanos = Double.MAX_VALUE;
+        private volatile double averageFlushNanos;
+        private volatile double averageQueueDepth;
+
+        private volatile long windowNanos = -1;
+        private volatile long latencyP99Nanos;
+
+        public AdaptiveCoalescingStrategy(int latencyTargetMicros, Logger logger, String displayName, long initialEpoch)
+        {
+            super(logger, displayName);
+            this.latencyTargetNanos = TimeUnit.MICROSECONDS.toNanos(latencyTargetMicros);
+            this.lastEvaluation = new AtomicLong(initialEpoch);
+            this.lastArrival = initialEpoch;
+        }
+
+        private static double ewma(double average, double sample)
+        {
+            return average + ALPHA * (sample - average);
+        }
+
+        public void newArrival(Coalescable message)
+        {
+            long timestamp = message.timestampNanos();
+            debugTimestamp(timestamp);
+            long previous = lastArrival;
+            long gap = Math.max(0, timestamp - previous);
+            if (gap > 0)
+                lastArrival = timestamp;
+            averageGapNanos = averageGapNanos == Double.MAX_VALUE ? gap : ewma(averageGapNanos, gap);
+        }
+
+        @Override
+        public void onFlush(long pendingMessages, long flushNanos)
+        {
+            averageFlushNanos = ewma(averageFlushNanos, flushNanos);
+            averageQueueDepth = ewma(averageQueueDepth, pendingMessages);
+        }
+
+        @Override
+        public void onMessageSent(Coalescable message, long nowNanos)
+        {
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nowNanos - message.timestampNanos()));
+            latencies.add(Math.min(latencyMicros, latencies.getLargestBucketOffset()));
+        }
+
+        public long currentCoalescingTimeNanos()
+        {
+            maybeEvaluate(System.nanoTime());
+            return windowNanos;
+        }
+
+        @VisibleForTesting
+        void maybeEvaluate(long nowNanos)
+        {
+            long last = lastEvaluation.get();
+            if (nowNanos - last < EVALUATION_INTERVAL_NANOS || !lastEvaluation.compareAndSet(last, nowNanos))
+                return;
+
+            evaluate();
+        }
+
+        @VisibleForTesting
+        void evaluate()
+        {
+            EstimatedHistogram sent = new EstimatedHistogram(latencies.getBucketOffsets(), latencies.getBuckets(true));
+            // nothing was sent since the last evaluation, so there is nothing new to adapt to
+            if (sent.count() == 0)
+                return;
+
+            long latencyP99 = TimeUnit.MICROSECONDS.toNanos(sent.percentile(0.99));
+            latencyP99Nanos = latencyP99;
+
+            double gap = averageGapNanos;
+            debugGap((long) gap);
+
+            long window = windowNanos;
+            boolean busy = averageFlushNanos >= gap * MIN_FLUSH_UTILIZATION || averageQueueDepth >= MIN_QUEUE_DEPTH;
+            if (gap * 2 > latencyTargetNanos || !busy)
+                window = -1;
+            else if (window <= 0)
+                window = latencyP99 > latencyTargetNanos ? -1 : determineCoalescingTime((long) gap, latencyTargetNanos);
+            else if (latencyP99 > latencyTargetNanos)
+                window = window / 2 < gap ? -1 : window / 2;
+            else if (latencyP99 < latencyTargetNanos / 2)
+                window = Math.min(latencyTargetNanos, window + window / 4);
+
+            if ((window > 0) != (windowNanos > 0) && logger.isTraceEnabled())
+                logger.trace("{} coalescing: average gap {}ns, flush {}ns, queue depth {}, p99 latency {}ns",
+                             window > 0 ? "Enabling" : "Disabling", (long) gap, (long) averageFlushNanos, averageQueueDepth, latencyP99);
+            windowNanos = window;
+        }
+
+        /**
+         * @return the current coalescing window, in nanoseconds, or a negative value if not coalescing.
+         */
+        public long windowNanos()
+        {
+            return windowNanos;
+        }
+
+        /**
+         * @return the 99th percentile latency of the messages sent during the last evaluation interval, in nanoseconds.
+         */
+        public long latencyP99Nanos()
+        {
+            return latencyP99Nanos;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Adaptive";
+        }
+    }
+
     public static Optional<CoalescingStrategy> newCoalescingStrategy(String strategy, int coalesceWindow, Logger logger, String displayName)
     {
         String strategyCleaned = strategy.trim().toUpperCase(Locale.ENGLISH);
@@ -417,6 +588,8 @@ public class CoalescingStrategies
                 case TIMEHORIZON:
                     long initialEpoch = System.nanoTime();
                     return Optional.of(new TimeHorizonMovingAverageCoalescingStrategy(coalesceWindow, logger, displayName, initialEpoch));
+                case ADAPTIVE:
+                    return Optional.of(new AdaptiveCoalescingStrategy(coalesceWindow, logger, displayName, System.nanoTime()));
                 case DISABLED:
                     return Optional.empty();
                 default:
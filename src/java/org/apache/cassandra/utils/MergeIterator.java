@@ -44,6 +44,19 @@ public abstract class MergeIterator<In,Out> extends AbstractIterator<Out> implem
         return new ManyToOne<>(sources, comparator, reducer);
     }
 
+    /**
+     * Returns a merge iterator that pulls the items of its sources in blocks, see {@link Batched}. Its output is the
+     * same as that of {@link #get}.
+     */
+    public static <In, Out> MergeIterator<In, Out> getBatched(List<? extends Iterator<In>> sources,
+                                                              Comparator<? super In> comparator,
+                                                              Reducer<In, Out> reducer)
+    {
+        if (sources.size() == 1)
+            return get(sources, comparator, reducer);
+        return new Batched<>(sources, comparator, reducer);
+    }
+
     public Iterable<? extends Iterator<In>> iterators()
     {
         return iterators;
@@ -344,6 +357,190 @@ public abstract class MergeIterator<In,Out> extends AbstractIterator<Out> implem
         }
     }
 
+    /**
+     * A MergeIterator that consumes multiple input values per output value, pulling the items of each source in
+     * blocks rather than one at a time.
+     *
+     * Each source is drained into a block of items in a single tight loop, so that the merge itself mostly works over
+     * arrays instead of going through the (usually deep) stack of iterators of each source for every item. Blocks
+     * start with a single item and double in size every time one is used up, up to {@link #MAX_BLOCK_SIZE}, so that
+     * short merges don't read ahead much more than they use.
+     *
+     * The sources are kept ordered by their head item. Consuming an output value takes the equal heads at the front,
+     * and each consumed source is then moved to its new position with a binary search. With non-overlapping sources
+     * the consumed source stays at the front after a single comparison, as in {@link ManyToOne}.
+     *
+     * As in {@link ManyToOne}, no source is advanced before an output is requested, and sources with a lower bound
+     * (see {@link IteratorWithLowerBound}) are only read once their lower bound is the smallest head.
+     */
+    static final class Batched<In, Out> extends MergeIterator<In, Out>
+    {
+        static final int MAX_BLOCK_SIZE = 64;
+
+        private final Comparator<? super In> comparator;
+
+        /**
+         * The non-exhausted sources. The ones before {@code needingAdvance} had their head consumed, and those from
+         * {@code needingAdvance} on are ordered by their head.
+         */
+        private final Source<In>[] sources;
+        private int size;
+        private int needingAdvance;
+
+        Batched(List<? extends Iterator<In>> iters, Comparator<? super In> comparator, Reducer<In, Out> reducer)
+        {
+            super(iters, reducer);
+            this.comparator = comparator;
+
+            @SuppressWarnings("unchecked")
+            Source<In>[] sources = new Source[iters.size()];
+            for (int i = 0; i < iters.size(); i++)
+                sources[i] = new Source<>(i, iters.get(i));
+            this.sources = sources;
+            this.size = sources.length;
+            this.needingAdvance = sources.length;
+        }
+
+        protected final Out computeNext()
+        {
+            while (true)
+            {
+                advance();
+                if (size == 0)
+                    return endOfData();
+
+                Source<In> top = sources[0];
+                if (top.headIsLowerBound)
+                {
+                    // not an item, the source must be read to know its first one
+                    needingAdvance = 1;
+                    continue;
+                }
+
+                reducer.onKeyChange();
+                reducer.reduce(top.idx, top.head);
+                int i = 1;
+                while (i < size && compare(sources[i], top) == 0)
+                {
+                    reducer.reduce(sources[i].idx, sources[i].head);
+                    i++;
+                }
+                needingAdvance = i;
+                return reducer.getReduced();
+            }
+        }
+
+        /**
+         * Advances the sources whose head was consumed and moves them to their position, dropping the exhausted ones.
+         */
+        private void advance()
+        {
+            for (int i = needingAdvance - 1; i >= 0; i--)
+            {
+                Source<In> source = sources[i];
+                if (!source.advance())
+                {
+                    System.arraycopy(sources, i + 1, sources, i, size - i - 1);
+                    sources[--size] = null;
+                    continue;
+                }
+
+                // sources[i + 1, size) are ordered; find the first one greater than source
+                int low = i + 1, high = size;
+                while (low < high)
+                {
+                    int mid = (low + high) >>> 1;
+                    if (compare(sources[mid], source) > 0)
+                        high = mid;
+                    else
+                        low = mid + 1;
+                }
+                System.arraycopy(sources, i + 1, sources, i, low - i - 1);
+                sources[low - 1] = source;
+            }
+            needingAdvance = 0;
+        }
+
+        private int compare(Source<In> left, Source<In> right)
+        {
+            int cmp = comparator.compare(left.head, right.head);
+            // a lower bound sorts before an equal item, so that it is never consumed with it
+            if (cmp == 0 && left.headIsLowerBound != right.headIsLowerBound)
+                return left.headIsLowerBound ? -1 : 1;
+            return cmp;
+        }
+    }
+
+    private static final class Source<In>
+    {
+        private final int idx;
+        private final Iterator<? extends In> iter;
+        private In lowerBound;
+
+        private Object[] block = new Object[1];
+        private int position;
+        private int limit;
+
+        private In head;
+        private boolean headIsLowerBound;
+
+        @SuppressWarnings("unchecked")
+        private Source(int idx, Iterator<? extends In> iter)
+        {
+            this.idx = idx;
+            this.iter = iter;
+            this.lowerBound = iter instanceof IteratorWithLowerBound ? ((IteratorWithLowerBound<In>) iter).lowerBound() : null;
+        }
+
+        /**
+         * Moves to the next item, which is the lower bound of the source if it has one and wasn't read yet.
+         *
+         * @return false if the source is exhausted
+         */
+        @SuppressWarnings("unchecked")
+        private boolean advance()
+        {
+            if (lowerBound != null)
+            {
+                head = lowerBound;
+                headIsLowerBound = true;
+                lowerBound = null;
+                return true;
+            }
+
+            if (position == limit && !fill())
+            {
+                head = null;
+                return false;
+            }
+
+            head = (In) block[position];
+            block[position++] = null;
+            headIsLowerBound = false;
+            return true;
+        }
+
+        private boolean fill()
+        {
+            if (!iter.hasNext())
+                return false;
+
+            if (limit == block.length && block.length < Batched.MAX_BLOCK_SIZE)
+                block = new Object[Math.min(block.length * 2, Batched.MAX_BLOCK_SIZE)];
+
+            int count = 0;
+            do
+            {
+                block[count++] = iter.next();
+            }
+            while (count < block.length && iter.hasNext());
+
+            position = 0;
+            limit = count;
+            return true;
+        }
+    }
+
     // Holds and is comparable by the head item of an iterator it owns
     protected static final class Candidate<In> implements Comparable<Candidate<In>>
     {
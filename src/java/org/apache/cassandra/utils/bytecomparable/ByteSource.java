@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils.bytecomparable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A stream of bytes whose unsigned lexicographic order matches the order of the value it was produced from.
+ *
+ * Fixed-length values are written as is. Variable-length values are escaped, replacing every 0x00 byte with
+ * 0x00 0xFF, and terminated with a single 0x00 byte. When a variable-length value is followed by one of the
+ * separator bytes below (which are never 0xFF), the result is prefix-free and compares correctly against any
+ * longer value, so several components can be concatenated without changing the order.
+ */
+public interface ByteSource
+{
+    int END_OF_STREAM = -1;
+
+    int ESCAPE = 0x00;
+    int ESCAPED_0_CONT = 0xFF;
+
+    /** Separates a component from a following one. */
+    int NEXT_COMPONENT = 0x40;
+    /** Sorts before any following component; used for inclusive lower / exclusive upper bounds. */
+    int LT_NEXT_COMPONENT = 0x20;
+    /** Sorts after any following component; used for exclusive lower / inclusive upper bounds. */
+    int GT_NEXT_COMPONENT = 0x60;
+    /** Ends a sequence of components. Sorts after LT_NEXT_COMPONENT but before any further component. */
+    int TERMINATOR = 0x38;
+    /** Replaces NEXT_COMPONENT for a null component, which sorts before any value. */
+    int NEXT_COMPONENT_NULL = 0x3E;
+    /** Replaces NEXT_COMPONENT for an empty component, which sorts before any non-empty value. */
+    int NEXT_COMPONENT_EMPTY = 0x3F;
+    /** Replaces NEXT_COMPONENT for an empty component of a reversed type, which sorts after any non-empty value. */
+    int NEXT_COMPONENT_EMPTY_REVERSED = 0x41;
+
+    /**
+     * Returns the next byte of the stream as an unsigned value, or {@link #END_OF_STREAM} once exhausted.
+     */
+    int next();
+
+    ByteSource EMPTY = () -> END_OF_STREAM;
+
+    /**
+     * A signed long, written as 8 big-endian bytes with the sign bit flipped.
+     */
+    static ByteSource of(long value)
+    {
+        return fixedLength(value ^ Long.MIN_VALUE, 8);
+    }
+
+    /**
+     * The given number of low-order bytes of {@code bits}, big-endian and unchanged.
+     */
+    static ByteSource fixedLength(long bits, int length)
+    {
+        assert length > 0 && length <= 8 : length;
+        return new ByteSource()
+        {
+            private int shift = length * 8;
+
+            public int next()
+            {
+                if (shift == 0)
+                    return END_OF_STREAM;
+                shift -= 8;
+                return (int) (bits >>> shift) & 0xFF;
+            }
+        };
+    }
+
+    /**
+     * The remaining bytes of the buffer, escaped and terminated. The buffer position is not modified.
+     */
+    static ByteSource of(ByteBuffer buffer)
+    {
+        return new ByteSource()
+        {
+            private int position = buffer.position();
+            private boolean escaped = false;
+
+            public int next()
+            {
+                if (escaped)
+                {
+                    escaped = false;
+                    return ESCAPED_0_CONT;
+                }
+                if (position > buffer.limit())
+                    return END_OF_STREAM;
+                if (position == buffer.limit())
+                {
+                    ++position;
+                    return ESCAPE;
+                }
+                int b = buffer.get(position++) & 0xFF;
+                if (b == ESCAPE)
+                    escaped = true;
+                return b;
+            }
+        };
+    }
+
+    /**
+     * The bytes of the array, escaped and terminated.
+     */
+    static ByteSource of(byte[] bytes)
+    {
+        return of(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * The UTF-16 code units of the string as big-endian pairs, escaped and terminated. This matches the order of
+     * {@link String#compareTo}.
+     */
+    static ByteSource of(String value)
+    {
+        return new ByteSource()
+        {
+            private int position = 0;
+            private boolean lowByte = false;
+            private boolean escaped = false;
+
+            public int next()
+            {
+                if (escaped)
+                {
+                    escaped = false;
+                    return ESCAPED_0_CONT;
+                }
+                if (position > value.length())
+                    return END_OF_STREAM;
+                if (position == value.length())
+                {
+                    ++position;
+                    return ESCAPE;
+                }
+                char c = value.charAt(position);
+                int b;
+                if (lowByte)
+                {
+                    b = c & 0xFF;
+                    ++position;
+                }
+                else
+                {
+                    b = c >>> 8;
+                }
+                lowByte = !lowByte;
+                if (b == ESCAPE)
+                    escaped = true;
+                return b;
+            }
+        };
+    }
+
+    /**
+     * The remaining bytes of the buffer as is. Only order-preserving when all compared values have the same length.
+     */
+    static ByteSource fixedLength(ByteBuffer buffer)
+    {
+        return new ByteSource()
+        {
+            private int position = buffer.position();
+
+            public int next()
+            {
+                return position < buffer.limit() ? buffer.get(position++) & 0xFF : END_OF_STREAM;
+            }
+        };
+    }
+
+    static ByteSource fixedLength(byte[] bytes)
+    {
+        return fixedLength(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * The remaining bytes of the buffer, a two's-complement big-endian number, with the sign bit flipped.
+     */
+    static ByteSource signedFixedLength(ByteBuffer buffer)
+    {
+        return new ByteSource()
+        {
+            private int position = buffer.position();
+
+            public int next()
+            {
+                if (position >= buffer.limit())
+                    return END_OF_STREAM;
+                int b = buffer.get(position) & 0xFF;
+                return position++ == buffer.position() ? b ^ 0x80 : b;
+            }
+        };
+    }
+
+    /**
+     * The bytes of the given source inverted, which reverses the order of prefix-free sources.
+     */
+    static ByteSource invert(ByteSource source)
+    {
+        return () ->
+        {
+            int b = source.next();
+            return b == END_OF_STREAM ? END_OF_STREAM : b ^ 0xFF;
+        };
+    }
+
+    /**
+     * A single byte.
+     */
+    static ByteSource oneByte(int value)
+    {
+        assert value >= 0 && value <= 0xFF : value;
+        return new ByteSource()
+        {
+            private boolean consumed = false;
+
+            public int next()
+            {
+                if (consumed)
+                    return END_OF_STREAM;
+                consumed = true;
+                return value;
+            }
+        };
+    }
+
+    /**
+     * The given sources one after the other.
+     */
+    static ByteSource concat(ByteSource... sources)
+    {
+        return new ByteSource()
+        {
+            private int current = 0;
+
+            public int next()
+            {
+                while (current < sources.length)
+                {
+                    int b = sources[current].next();
+                    if (b != END_OF_STREAM)
+                        return b;
+                    ++current;
+                }
+                return END_OF_STREAM;
+            }
+        };
+    }
+
+    /**
+     * Compares two sources byte by byte, consuming them. A source that is a prefix of the other sorts first.
+     */
+    static int compare(ByteSource s1, ByteSource s2)
+    {
+        while (true)
+        {
+            int b1 = s1.next();
+            int b2 = s2.next();
+            if (b1 != b2 || b1 == END_OF_STREAM)
+                return Integer.compare(b1, b2);
+        }
+    }
+
+    /**
+     * Drains the source into a byte array.
+     */
+    static byte[] toArray(ByteSource source)
+    {
+        byte[] bytes = new byte[32];
+        int length = 0;
+        int b;
+        while ((b = source.next()) != END_OF_STREAM)
+        {
+            if (length == bytes.length)
+                bytes = Arrays.copyOf(bytes, length * 2);
+            bytes[length++] = (byte) b;
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+}
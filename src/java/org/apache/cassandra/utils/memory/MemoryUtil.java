@@ -83,6 +83,24 @@ public abstract class MemoryUtil
         return unsafe.pageSize();
     }
 
+    /**
+     * Ensures loads before the fence are not reordered with loads after it; used by readers of structures that
+     * are published without volatile access to each field (see {@link #storeFence()}).
+     */
+    public static void loadFence()
+    {
+        unsafe.loadFence();
+    }
+
+    /**
+     * Ensures stores before the fence are visible before stores after it, e.g. to make a structure fully
+     * written before a reference to it is.
+     */
+    public static void storeFence()
+    {
+        unsafe.storeFence();
+    }
+
     public static long getAddress(ByteBuffer buffer)
     {
         assert buffer.getClass() == DIRECT_BYTE_BUFFER_CLASS;
@@ -65,6 +65,15 @@ public abstract class MemtablePool
 
     public abstract MemtableAllocator newAllocator();
 
+    /**
+     * Whether allocating the given amount of memory from this pool may currently have to wait for some memory to be
+     * reclaimed by a flush.
+     */
+    public boolean mayBlockOnAllocation(long size)
+    {
+        return onHeap.wouldExceedLimit(size) || offHeap.wouldExceedLimit(size);
+    }
+
     /**
      * Note the difference between acquire() and allocate(); allocate() makes more resources available to all owners,
      * and acquire() makes shared resources unavailable but still recorded. An Owner must always acquire resources,
@@ -120,6 +129,12 @@ public abstract class MemtablePool
 
         /** Methods to allocate space **/
 
+        boolean wouldExceedLimit(long size)
+        {
+            // a sub pool without a limit, like the off-heap one of heap pools, isn't allocated from
+            return limit > 0 && allocated + size > limit;
+        }
+
         boolean tryAllocate(long size)
         {
             while (true)
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.utils.btree.BTree;
+import org.apache.cassandra.utils.btree.UpdateFunction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Builds, searches, iterates and updates {@link BTree}s of the sizes found in rows (cells) and partitions (rows).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class BTreeBench
+{
+    private static final Comparator<Integer> COMPARATOR = Comparator.naturalOrder();
+    private static final int UPDATE_SIZE = 16;
+
+    @Param({ "4", "32", "1024", "65536" })
+    int size;
+
+    // the tree holds the odd numbers, so that the even ones are absent
+    List<Integer> sorted;
+    List<Integer> shuffled;
+    Object[] tree;
+    List<Integer>[] updates;
+    Random random = new Random(1234);
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        sorted = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            sorted.add(2 * i + 1);
+        shuffled = new ArrayList<>(sorted);
+        Collections.shuffle(shuffled, random);
+        tree = BTree.build(sorted, UpdateFunction.noOp());
+
+        updates = new List[64];
+        for (int i = 0; i < updates.length; i++)
+        {
+            SortedSet<Integer> update = new TreeSet<>();
+            while (update.size() < Math.min(UPDATE_SIZE, size))
+                update.add(random.nextInt(2 * size));
+            updates[i] = new ArrayList<>(update);
+        }
+    }
+
+    @Benchmark
+    public Object[] buildSorted()
+    {
+        return BTree.build(sorted, UpdateFunction.noOp());
+    }
+
+    @Benchmark
+    public Object[] buildUnsorted()
+    {
+        BTree.Builder<Integer> builder = BTree.builder(COMPARATOR, size).auto(true);
+        for (Integer i : shuffled)
+            builder.add(i);
+        return builder.build();
+    }
+
+    @Benchmark
+    public Integer find()
+    {
+        return BTree.find(tree, COMPARATOR, random.nextInt(2 * size));
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh)
+    {
+        for (Integer i : BTree.<Integer>iterable(tree))
+            bh.consume(i);
+    }
+
+    @Benchmark
+    public Object[] update()
+    {
+        return BTree.update(tree, COMPARATOR, updates[random.nextInt(updates.length)], UpdateFunction.noOp());
+    }
+}
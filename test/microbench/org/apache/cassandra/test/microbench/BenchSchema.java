@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.test.microbench;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.cassandra.cql3.statements.CreateTableStatement;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.schema.TableMetadata;
+
+/**
+ * The table shapes the read and write path benchmarks are parameterized with. Each one comes with the CQL to create
+ * the table and the contents of its partitions.
+ */
+public enum BenchSchema
+{
+    /** a single row of regular columns per partition */
+    NARROW("CREATE TABLE %s (pk bigint, ck bigint, v1 text, v2 bigint, PRIMARY KEY (pk, ck))", 1)
+    {
+        void fill(Row.SimpleBuilder row, long value)
+        {
+            row.add("v1", "value" + value).add("v2", value);
+        }
+    },
+
+    /** many rows of regular columns per partition */
+    WIDE("CREATE TABLE %s (pk bigint, ck bigint, v1 text, v2 bigint, PRIMARY KEY (pk, ck))", 1024)
+    {
+        void fill(Row.SimpleBuilder row, long value)
+        {
+            row.add("v1", "value" + value).add("v2", value);
+        }
+    },
+
+    /** rows of non-frozen collections, i.e. of complex columns with several cells each */
+    COLLECTIONS("CREATE TABLE %s (pk bigint, ck bigint, s set<text>, m map<text, bigint>, PRIMARY KEY (pk, ck))", 16)
+    {
+        void fill(Row.SimpleBuilder row, long value)
+        {
+            row.add("s", ImmutableSet.of("a" + value, "b" + value, "c" + value))
+               .add("m", ImmutableMap.of("x" + value, value, "y" + value, value + 1, "z" + value, value + 2));
+        }
+    },
+
+    /** rows of counters */
+    COUNTERS("CREATE TABLE %s (pk bigint, ck bigint, c1 counter, c2 counter, PRIMARY KEY (pk, ck))", 16)
+    {
+        void fill(Row.SimpleBuilder row, long value)
+        {
+            row.add("c1", 1L).add("c2", value);
+        }
+    };
+
+    /** the statement creating the table, with a {@code %s} placeholder for its name */
+    public final String createStatement;
+    public final int rowsPerPartition;
+
+    BenchSchema(String createStatement, int rowsPerPartition)
+    {
+        this.createStatement = createStatement;
+        this.rowsPerPartition = rowsPerPartition;
+    }
+
+    abstract void fill(Row.SimpleBuilder row, long value);
+
+    /**
+     * @return the metadata of a table of this schema, for benchmarks which don't need it to exist.
+     */
+    public TableMetadata metadata(String keyspace, String table)
+    {
+        return CreateTableStatement.parse(String.format(createStatement, table), keyspace).build();
+    }
+
+    /**
+     * @return an update writing all the rows of the partition with the given key.
+     */
+    public PartitionUpdate partition(TableMetadata metadata, long key)
+    {
+        PartitionUpdate.SimpleBuilder builder = PartitionUpdate.simpleBuilder(metadata, key);
+        for (long clustering = 0; clustering < rowsPerPartition; clustering++)
+            fill(builder.row(clustering), key + clustering);
+        return builder.build();
+    }
+
+    /**
+     * @return an update writing the {@code index}-th row of the table, i.e. filling the partitions one after the other.
+     */
+    public PartitionUpdate row(TableMetadata metadata, long index)
+    {
+        PartitionUpdate.SimpleBuilder builder = PartitionUpdate.simpleBuilder(metadata, index / rowsPerPartition);
+        fill(builder.row(index % rowsPerPartition), index);
+        return builder.build();
+    }
+}
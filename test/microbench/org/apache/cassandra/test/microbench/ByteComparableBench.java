@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.test.microbench;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.ClusteringComparator;
+import org.apache.cassandra.db.marshal.*;
+import org.apache.cassandra.utils.FastByteOperations;
+import org.apache.cassandra.utils.UUIDGen;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares clusterings with the typed {@link ClusteringComparator} against their byte-comparable representations,
+ * both pre-encoded and encoded on the fly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512M")
+@Threads(1)
+@State(Scope.Benchmark)
+public class ByteComparableBench
+{
+    private static final int COUNT = 1024;
+
+    @Param({ "int", "text", "int_text_timeuuid", "reversed_bigint_decimal" })
+    private String clusteringTypes;
+
+    private ClusteringComparator comparator;
+    private Clustering[] clusterings;
+    private byte[][] encoded;
+    private int index;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(1234);
+        switch (clusteringTypes)
+        {
+            case "int":
+                comparator = new ClusteringComparator(Int32Type.instance);
+                break;
+            case "text":
+                comparator = new ClusteringComparator(UTF8Type.instance);
+                break;
+            case "int_text_timeuuid":
+                comparator = new ClusteringComparator(Int32Type.instance, UTF8Type.instance, TimeUUIDType.instance);
+                break;
+            case "reversed_bigint_decimal":
+                comparator = new ClusteringComparator(ReversedType.getInstance(LongType.instance), DecimalType.instance);
+                break;
+            default:
+                throw new IllegalArgumentException(clusteringTypes);
+        }
+
+        clusterings = new Clustering[COUNT];
+        encoded = new byte[COUNT][];
+        for (int i = 0; i < COUNT; i++)
+        {
+            ByteBuffer[] values = new ByteBuffer[comparator.size()];
+            for (int j = 0; j < values.length; j++)
+                values[j] = randomValue(comparator.subtype(j), random);
+            clusterings[i] = Clustering.make(values);
+            encoded[i] = ByteSource.toArray(comparator.asComparableBytes(clusterings[i]));
+        }
+    }
+
+    private static ByteBuffer randomValue(AbstractType<?> type, Random random)
+    {
+        if (type instanceof ReversedType)
+            return randomValue(((ReversedType<?>) type).baseType, random);
+        if (type == Int32Type.instance)
+            // a small range, so that later components are compared too
+            return Int32Type.instance.decompose(random.nextInt(16));
+        if (type == LongType.instance)
+            return LongType.instance.decompose((long) random.nextInt(16));
+        if (type == UTF8Type.instance)
+            return UTF8Type.instance.decompose("common-prefix-" + random.nextInt(64));
+        if (type == TimeUUIDType.instance)
+            return TimeUUIDType.instance.decompose(UUIDGen.getTimeUUID(random.nextInt(1 << 20)));
+        if (type == DecimalType.instance)
+            return DecimalType.instance.decompose(BigDecimal.valueOf(random.nextLong(), random.nextInt(10)));
+        throw new IllegalArgumentException(type.toString());
+    }
+
+    private int next()
+    {
+        index = (index + 1) & (COUNT - 1);
+        return index;
+    }
+
+    @Benchmark
+    public int typedCompare()
+    {
+        int i = next();
+        return comparator.compare(clusterings[i], clusterings[(i * 7) & (COUNT - 1)]);
+    }
+
+    @Benchmark
+    public int byteComparableCompare()
+    {
+        int i = next();
+        byte[] left = encoded[i];
+        byte[] right = encoded[(i * 7) & (COUNT - 1)];
+        return FastByteOperations.compareUnsigned(left, 0, left.length, right, 0, right.length);
+    }
+
+    @Benchmark
+    public int byteComparableEncodeAndCompare()
+    {
+        int i = next();
+        return ByteSource.compare(comparator.asComparableBytes(clusterings[i]),
+                                  comparator.asComparableBytes(clusterings[(i * 7) & (COUNT - 1)]));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.ClusteringBound;
+import org.apache.cassandra.db.ClusteringComparator;
+import org.apache.cassandra.db.marshal.*;
+import org.apache.cassandra.utils.UUIDGen;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Uses the {@link ClusteringComparator} the way the read path does: comparing rows with each other, comparing rows with
+ * the bounds of slices, and searching the rows of a partition. See {@link ByteComparableBench} for the comparison of
+ * the typed and byte-comparable representations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class ClusteringComparatorBench
+{
+    private static final int COUNT = 4096;
+
+    @Param({ "bigint", "text", "bigint_text_timeuuid", "reversed_bigint" })
+    String clusteringTypes;
+
+    ClusteringComparator comparator;
+    // sorted, as in a partition
+    Clustering[] clusterings;
+    ClusteringBound[] bounds;
+    Random random = new Random(1234);
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        switch (clusteringTypes)
+        {
+            case "bigint":
+                comparator = new ClusteringComparator(LongType.instance);
+                break;
+            case "text":
+                comparator = new ClusteringComparator(UTF8Type.instance);
+                break;
+            case "bigint_text_timeuuid":
+                comparator = new ClusteringComparator(LongType.instance, UTF8Type.instance, TimeUUIDType.instance);
+                break;
+            case "reversed_bigint":
+                comparator = new ClusteringComparator(ReversedType.getInstance(LongType.instance));
+                break;
+            default:
+                throw new IllegalArgumentException(clusteringTypes);
+        }
+
+        clusterings = new Clustering[COUNT];
+        bounds = new ClusteringBound[COUNT];
+        for (int i = 0; i < COUNT; i++)
+        {
+            ByteBuffer[] values = new ByteBuffer[comparator.size()];
+            for (int j = 0; j < values.length; j++)
+                values[j] = randomValue(comparator.subtype(j), random);
+            clusterings[i] = Clustering.make(values);
+            // the bound of a slice on the first clustering column only
+            bounds[i] = ClusteringBound.inclusiveStartOf(values[0]);
+        }
+        Arrays.sort(clusterings, comparator);
+    }
+
+    private static ByteBuffer randomValue(AbstractType<?> type, Random random)
+    {
+        if (type instanceof ReversedType)
+            return randomValue(((ReversedType<?>) type).baseType, random);
+        if (type == LongType.instance)
+            // a small range, so that later components are compared too
+            return LongType.instance.decompose((long) random.nextInt(64));
+        if (type == UTF8Type.instance)
+            return UTF8Type.instance.decompose("common-prefix-" + random.nextInt(64));
+        if (type == TimeUUIDType.instance)
+            return TimeUUIDType.instance.decompose(UUIDGen.getTimeUUID(random.nextInt(1 << 20)));
+        throw new IllegalArgumentException(type.toString());
+    }
+
+    @Benchmark
+    public int compareClusterings()
+    {
+        return comparator.compare(clusterings[random.nextInt(COUNT)], clusterings[random.nextInt(COUNT)]);
+    }
+
+    @Benchmark
+    public int compareWithBound()
+    {
+        return comparator.compare(clusterings[random.nextInt(COUNT)], bounds[random.nextInt(COUNT)]);
+    }
+
+    @Benchmark
+    public int searchPartition()
+    {
+        return Arrays.binarySearch(clusterings, bounds[random.nextInt(COUNT)], comparator);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.index.transactions.UpdateTransaction;
+import org.apache.cassandra.utils.concurrent.OpOrder;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Applies updates to the memtable of a table through {@link ColumnFamilyStore#apply}, i.e. the local write path
+ * without the commit log and the messaging.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class ColumnFamilyStoreApplyBench extends CQLTester
+{
+    private static final int UPDATES = 1 << 16;
+
+    @Param({ "NARROW", "WIDE", "COLLECTIONS", "COUNTERS" })
+    BenchSchema schema;
+
+    ColumnFamilyStore cfs;
+    PartitionUpdate[] updates;
+    int index;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable
+    {
+        CQLTester.prepareServer();
+        String keyspace = createKeyspace("CREATE KEYSPACE %s with replication = { 'class' : 'SimpleStrategy', 'replication_factor' : 1 } and durable_writes = false");
+        String table = createTable(keyspace, schema.createStatement);
+        cfs = Keyspace.open(keyspace).getColumnFamilyStore(table);
+        cfs.disableAutoCompaction();
+
+        // single row updates, filling the partitions of the schema one after the other
+        updates = new PartitionUpdate[UPDATES];
+        for (int i = 0; i < UPDATES; i++)
+            updates[i] = schema.row(cfs.metadata(), i);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate()
+    {
+        // keeps the memtable from growing over the whole run
+        cfs.truncateBlocking();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown()
+    {
+        CQLTester.cleanup();
+    }
+
+    @Benchmark
+    public void apply()
+    {
+        PartitionUpdate update = updates[index++ & (UPDATES - 1)];
+        try (OpOrder.Group opGroup = Keyspace.writeOrder.start())
+        {
+            cfs.apply(update, UpdateTransaction.NO_OP, opGroup, null);
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.apache.cassandra.cql3.CQLTester;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.Directories;
 import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.rows.UnfilteredRowIterators;
 import org.apache.cassandra.io.sstable.Descriptor;
 import org.apache.cassandra.io.util.FileUtils;
 import org.openjdk.jmh.annotations.*;
@@ -49,10 +50,20 @@ public class CompactionBench extends CQLTester
     List<File> snapshotFiles;
     List<Descriptor> liveFiles;
 
+    @Param({"2", "10"})
+    int overlappingSSTables;
+
+    @Param({"1", "100"})
+    int rowsPerPartition;
+
+    @Param({"false", "true"})
+    boolean batchedMerge;
+
     @Setup(Level.Trial)
     public void setup() throws Throwable
     {
         CQLTester.prepareServer();
+        UnfilteredRowIterators.setBatchedMerge(batchedMerge);
         keyspace = createKeyspace("CREATE KEYSPACE %s with replication = { 'class' : 'SimpleStrategy', 'replication_factor' : 1 } and durable_writes = false");
         table = createTable(keyspace, "CREATE TABLE %s ( userid bigint, picid bigint, commentid bigint, PRIMARY KEY(userid, picid))");
         execute("use "+keyspace+";");
@@ -64,19 +75,15 @@ public class CompactionBench extends CQLTester
         cfs = Keyspace.open(keyspace).getColumnFamilyStore(table);
         cfs.disableAutoCompaction();
 
-        //Warm up
-        System.err.println("Writing 50k");
-        for (long i = 0; i < 50000; i++)
-            execute(writeStatement, i, i, i );
-
-
-        cfs.forceBlockingFlush();
-
-        System.err.println("Writing 50k again...");
-        for (long i = 0; i < 50000; i++)
-            execute(writeStatement, i, i, i );
+        // every sstable overwrites the same rows, so that compaction merges each row from all of them
+        for (int sstable = 0; sstable < overlappingSSTables; sstable++)
+        {
+            System.err.println("Writing 50k to sstable " + sstable);
+            for (long i = 0; i < 50000; i++)
+                execute(writeStatement, i / rowsPerPartition, i, i + sstable);
 
-        cfs.forceBlockingFlush();
+            cfs.forceBlockingFlush();
+        }
 
         cfs.snapshot("originals");
 
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.*;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.partitions.UnfilteredPartitionIterator;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.index.transactions.UpdateTransaction;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.SSTable;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.concurrent.OpOrder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reads whole partitions from sstables with a {@link SinglePartitionReadCommand} executed locally, with the chunk
+ * cache either holding all the chunks read ("hot") or emptied before each read ("cold"). Note that the OS page cache
+ * is warm in both cases, so "cold" measures the cost of going through the file reads, not the cost of the disk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class SinglePartitionReadBench extends CQLTester
+{
+    private static final int ROWS = 1 << 16;
+
+    @Param({ "NARROW", "WIDE", "COLLECTIONS", "COUNTERS" })
+    BenchSchema schema;
+
+    @Param({ "1", "4" })
+    int overlappingSSTables;
+
+    @Param({ "hot", "cold" })
+    String chunkCache;
+
+    ColumnFamilyStore cfs;
+    DecoratedKey[] keys;
+    Random random = new Random(1234);
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable
+    {
+        CQLTester.prepareServer();
+        String keyspace = createKeyspace("CREATE KEYSPACE %s with replication = { 'class' : 'SimpleStrategy', 'replication_factor' : 1 } and durable_writes = false");
+        String table = createTable(keyspace, schema.createStatement);
+        cfs = Keyspace.open(keyspace).getColumnFamilyStore(table);
+        cfs.disableAutoCompaction();
+
+        // every sstable holds all the partitions, so that each read merges them from all sstables
+        int partitions = ROWS / schema.rowsPerPartition;
+        for (int sstable = 0; sstable < overlappingSSTables; sstable++)
+        {
+            for (long i = 0; i < partitions; i++)
+            {
+                try (OpOrder.Group opGroup = Keyspace.writeOrder.start())
+                {
+                    cfs.apply(schema.partition(cfs.metadata(), i), UpdateTransaction.NO_OP, opGroup, null);
+                }
+            }
+            cfs.forceBlockingFlush();
+        }
+
+        keys = new DecoratedKey[partitions];
+        for (int i = 0; i < partitions; i++)
+            keys[i] = cfs.decorateKey(LongType.instance.decompose((long) i));
+    }
+
+    @Setup(Level.Invocation)
+    public void evictChunks()
+    {
+        if (chunkCache.equals("cold") && ChunkCache.instance != null)
+        {
+            for (SSTableReader sstable : cfs.getLiveSSTables())
+                for (Component component : SSTable.componentsFor(sstable.descriptor))
+                    ChunkCache.instance.invalidateFile(sstable.descriptor.filenameFor(component));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown()
+    {
+        CQLTester.cleanup();
+    }
+
+    @Benchmark
+    public void read(Blackhole bh)
+    {
+        DecoratedKey key = keys[random.nextInt(keys.length)];
+        SinglePartitionReadCommand command = SinglePartitionReadCommand.fullPartitionRead(cfs.metadata(), FBUtilities.nowInSeconds(), key);
+        try (ReadExecutionController controller = command.executionController();
+             UnfilteredPartitionIterator partitions = command.executeLocally(controller))
+        {
+            while (partitions.hasNext())
+            {
+                try (UnfilteredRowIterator partition = partitions.next())
+                {
+                    while (partition.hasNext())
+                        bh.consume(partition.next());
+                }
+            }
+        }
+    }
+}
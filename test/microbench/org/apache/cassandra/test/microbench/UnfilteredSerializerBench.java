@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.SerializationHeader;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.db.rows.*;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.TableMetadata;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Serializes and deserializes the rows of a partition with the {@link UnfilteredSerializer}, as done when writing and
+ * reading sstables and when exchanging partitions between nodes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class UnfilteredSerializerBench
+{
+    private static final int VERSION = MessagingService.current_version;
+
+    @Param({ "NARROW", "WIDE", "COLLECTIONS", "COUNTERS" })
+    BenchSchema schema;
+
+    SerializationHeader header;
+    SerializationHelper helper;
+    List<Unfiltered> unfiltereds;
+    DataOutputBuffer output;
+    byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        // counters need the local host id, and thus the system keyspace
+        CQLTester.prepareServer();
+        TableMetadata metadata = schema.metadata("ks", "t");
+        PartitionUpdate update = schema.partition(metadata, 0);
+        unfiltereds = new ArrayList<>();
+        update.unfilteredIterator().forEachRemaining(unfiltereds::add);
+
+        header = new SerializationHeader(false, metadata, update.columns(), update.stats());
+        helper = new SerializationHelper(metadata, VERSION, SerializationHelper.Flag.LOCAL);
+        output = new DataOutputBuffer();
+        serialize();
+        serialized = output.toByteArray();
+    }
+
+    @Benchmark
+    public int serialize() throws IOException
+    {
+        output.clear();
+        for (Unfiltered unfiltered : unfiltereds)
+            UnfilteredSerializer.serializer.serialize(unfiltered, header, output, VERSION);
+        UnfilteredSerializer.serializer.writeEndOfPartition(output);
+        return output.getLength();
+    }
+
+    @Benchmark
+    public void deserialize(Blackhole bh) throws IOException
+    {
+        try (DataInputBuffer input = new DataInputBuffer(serialized))
+        {
+            Row.Builder builder = BTreeRow.sortedBuilder();
+            Unfiltered unfiltered;
+            while ((unfiltered = UnfilteredSerializer.serializer.deserialize(input, header, helper, builder)) != null)
+                bh.consume(unfiltered);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.util.FileHandle;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.io.util.RandomAccessReader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ChunkCacheTest
+{
+    private static final int CHUNK_SIZE = 4096;
+    private static final int FILE_SIZE = 16 * CHUNK_SIZE;
+
+    @BeforeClass
+    public static void setupDD()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    @Test
+    public void testScansDoNotPopulateCache() throws IOException
+    {
+        ChunkCache cache = new ChunkCache(ImmutableMap.of());
+        File dir = Files.createTempDirectory("ChunkCacheTest").toFile();
+        try
+        {
+            byte[] content = randomBytes(FILE_SIZE);
+            String path = writeDataFile(dir, "ks", "t", content);
+            try (FileHandle handle = newHandle(path, cache))
+            {
+                // a scan of an uncached file reads everything from disk, and leaves the cache as it was
+                long misses = cache.metrics.misses.getCount();
+                assertArrayEquals(content, readAll(handle.createScanReader(null)));
+                assertEquals(0, cache.size());
+                assertEquals(FILE_SIZE / CHUNK_SIZE, cache.metrics.misses.getCount() - misses);
+
+                // point reads populate the cache
+                assertArrayEquals(content, readAll(handle.createReader()));
+                assertEquals(FILE_SIZE / CHUNK_SIZE, cache.size());
+
+                // and scans then use the cached chunks
+                misses = cache.metrics.misses.getCount();
+                assertArrayEquals(content, readAll(handle.createScanReader(null)));
+                assertEquals(misses, cache.metrics.misses.getCount());
+            }
+        }
+        finally
+        {
+            cache.close();
+            FileUtils.deleteRecursive(dir);
+        }
+    }
+
+    @Test
+    public void testQuotas() throws IOException
+    {
+        ChunkCache cache = new ChunkCache(ImmutableMap.of("ks1", 1, "ks1.t2", 1));
+        File dir = Files.createTempDirectory("ChunkCacheTest").toFile();
+        try
+        {
+            String table = writeDataFile(dir, "ks1", "t2", randomBytes(FILE_SIZE));
+            String keyspace = writeDataFile(dir, "ks1", "t1", randomBytes(FILE_SIZE));
+            String shared = writeDataFile(dir, "ks2", "t1", randomBytes(FILE_SIZE));
+
+            try (FileHandle tableHandle = newHandle(table, cache);
+                 FileHandle keyspaceHandle = newHandle(keyspace, cache);
+                 FileHandle sharedHandle = newHandle(shared, cache))
+            {
+                // each file is cached in its own part of the cache
+                for (FileHandle handle : new FileHandle[]{ tableHandle, keyspaceHandle, sharedHandle })
+                {
+                    readAll(handle.createReader());
+                    assertEquals(FILE_SIZE, cache.weightedSize(handle.path()));
+                }
+                assertEquals(3 * FILE_SIZE, cache.weightedSize());
+
+                cache.invalidateFile(keyspace);
+                assertEquals(FILE_SIZE, cache.weightedSize(table));
+                assertEquals(0, cache.weightedSize(keyspace));
+                assertEquals(FILE_SIZE, cache.weightedSize(shared));
+            }
+        }
+        finally
+        {
+            cache.close();
+            FileUtils.deleteRecursive(dir);
+        }
+    }
+
+    private static FileHandle newHandle(String path, ChunkCache cache)
+    {
+        try (FileHandle.Builder builder = new FileHandle.Builder(path).bufferSize(CHUNK_SIZE).withChunkCache(cache))
+        {
+            return builder.complete();
+        }
+    }
+
+    private static String writeDataFile(File dir, String keyspace, String table, byte[] content) throws IOException
+    {
+        File tableDir = new File(new File(dir, keyspace), table + "-0123456789abcdef0123456789abcdef");
+        tableDir.mkdirs();
+        String path = new Descriptor(tableDir, keyspace, table, 1).filenameFor(Component.DATA);
+        Files.write(new File(path).toPath(), content);
+        return path;
+    }
+
+    private static byte[] readAll(RandomAccessReader reader) throws IOException
+    {
+        try (RandomAccessReader in = reader)
+        {
+            byte[] bytes = new byte[(int) in.length()];
+            in.readFully(bytes);
+            return bytes;
+        }
+    }
+
+    private static byte[] randomBytes(int size)
+    {
+        byte[] bytes = new byte[size];
+        new Random().nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.concurrent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.dht.ByteOrderedPartitioner;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThreadPerCoreExecutorTest
+{
+    private static final int CORES = 4;
+
+    @BeforeClass
+    public static void setupDD()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    @Test
+    public void testTokenRangesPerCore()
+    {
+        ThreadPerCoreExecutor executor = newExecutor();
+        try
+        {
+            Random random = new Random();
+            List<Token> tokens = new ArrayList<>();
+            for (int i = 0; i < 1000; i++)
+                tokens.add(Murmur3Partitioner.instance.getRandomToken(random));
+            tokens.add(Murmur3Partitioner.instance.getMinimumToken());
+            tokens.add(Murmur3Partitioner.instance.getMaximumToken());
+            Collections.sort(tokens);
+
+            // each core owns a contiguous part of the token space
+            int previous = 0;
+            Set<Integer> used = new HashSet<>();
+            for (Token token : tokens)
+            {
+                int index = executor.coreIndex(token);
+                assertTrue(index >= previous && index < CORES);
+                previous = index;
+                used.add(index);
+            }
+            assertEquals(CORES, used.size());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testHashedTokens()
+    {
+        // the byte ordered partitioner cannot split the token space, so tokens are spread by hash
+        ThreadPerCoreExecutor executor = newExecutor();
+        try
+        {
+            for (int i = 0; i < 100; i++)
+            {
+                Token token = ByteOrderedPartitioner.instance.getToken(ByteBufferUtil.bytes(i));
+                int index = executor.coreIndex(token);
+                assertTrue(index >= 0 && index < CORES);
+                assertEquals(index, executor.coreIndex(token));
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecution() throws InterruptedException
+    {
+        ThreadPerCoreExecutor executor = newExecutor();
+        Map<Token, Set<Thread>> threadsByToken = new ConcurrentHashMap<>();
+        Set<Thread> spillThreads = ConcurrentHashMap.newKeySet();
+        Random random = new Random();
+        List<Token> tokens = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            tokens.add(Murmur3Partitioner.instance.getRandomToken(random));
+
+        int count = 1000;
+        CountDownLatch latch = new CountDownLatch(count);
+        for (int i = 0; i < count; i++)
+        {
+            Token token = tokens.get(i % tokens.size());
+            boolean mayBlock = i % 5 == 0;
+            executor.execute(new TestTask(token, mayBlock, () -> {
+                Set<Thread> threads = mayBlock ? spillThreads : threadsByToken.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet());
+                threads.add(Thread.currentThread());
+                latch.countDown();
+            }));
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        // non-blocking tasks always run on the core owning their token, and blocking ones never run on cores
+        Set<Thread> coreThreads = new HashSet<>();
+        for (Set<Thread> threads : threadsByToken.values())
+        {
+            assertEquals(1, threads.size());
+            coreThreads.addAll(threads);
+        }
+        assertTrue(Collections.disjoint(coreThreads, spillThreads));
+        assertEquals(count - count / 5, executor.getCompletedTasks());
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    private static ThreadPerCoreExecutor newExecutor()
+    {
+        return new ThreadPerCoreExecutor("Test", CORES, DebuggableThreadPoolExecutor.createWithFixedPoolSize("TestSpill", 2));
+    }
+
+    private static class TestTask implements CoreAffineTask
+    {
+        private final Token token;
+        private final boolean mayBlock;
+        private final Runnable runnable;
+
+        TestTask(Token token, boolean mayBlock, Runnable runnable)
+        {
+            this.token = token;
+            this.mayBlock = mayBlock;
+            this.runnable = runnable;
+        }
+
+        public Token affinityToken()
+        {
+            return token;
+        }
+
+        public boolean mayBlock()
+        {
+            return mayBlock;
+        }
+
+        public void run()
+        {
+            runnable.run();
+        }
+    }
+}
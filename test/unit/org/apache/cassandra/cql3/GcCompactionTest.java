@@ -188,6 +188,39 @@ public class GcCompactionTest extends CQLTester
         assertTrue(cellCount > countCells(table3));
     }
 
+    @Test
+    public void testGcCompactionLeavesReadStatsAlone() throws Throwable
+    {
+        createTable("CREATE TABLE %s(" +
+                          "  key int," +
+                          "  column int," +
+                          "  data int," +
+                          "  extra text," +
+                          "  PRIMARY KEY(key)" +
+                          ") WITH compaction = { 'class' :  'SizeTieredCompactionStrategy', 'provide_overlapping_tombstones' : 'cell'  };"
+                          );
+
+        for (int i = 0; i < KEY_COUNT; ++i)
+            execute("INSERT INTO %s (key, column, data, extra) VALUES (?, ?, ?, ?)", i, 0, i, "" + i);
+
+        Set<SSTableReader> readers = new HashSet<>();
+        flush();
+        SSTableReader table0 = getNewTable(readers);
+        int cellCount = countCells(table0);
+
+        deleteWithSomeInserts(1, 0, 2);
+        flush();
+        SSTableReader table1 = getNewTable(readers);
+
+        CompactionManager.instance.forceUserDefinedCompaction(table0.getFilename());
+
+        SSTableReader table2 = getNewTable(readers);
+        assertTrue(cellCount > countCells(table2));
+        // the partitions were looked up in table1, but that isn't a read
+        assertEquals(0, table1.getBloomFilterTruePositiveCount());
+        assertEquals(0, table1.getBloomFilterFalsePositiveCount());
+    }
+
     @Test
     public void testGcCompactionStatic() throws Throwable
     {
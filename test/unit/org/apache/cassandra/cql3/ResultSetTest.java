@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.cql3;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.cassandra.cql3.statements.SelectStatement;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.service.QueryState;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.transport.ProtocolVersion;
+import org.apache.cassandra.transport.messages.ResultMessage;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResultSetTest extends CQLTester
+{
+    @BeforeClass
+    public static void setUp()
+    {
+        // queries of clients are executed as distributed ones, which requires a ring
+        StorageService.instance.getTokenMetadata().updateNormalToken(Murmur3Partitioner.instance.getMinimumToken(), FBUtilities.getBroadcastAddress());
+    }
+
+    private static ResultSet.ResultMetadata metadata()
+    {
+        return new ResultSet.ResultMetadata(Arrays.asList(new ColumnSpecification("ks", "cf", new ColumnIdentifier("a", true), Int32Type.instance),
+                                                          new ColumnSpecification("ks", "cf", new ColumnIdentifier("b", true), UTF8Type.instance)));
+    }
+
+    private static List<ByteBuffer> row(int a, String b)
+    {
+        return Arrays.asList(ByteBufferUtil.bytes(a), b == null ? null : ByteBufferUtil.bytes(b));
+    }
+
+    private static ByteBuf encode(ResultSet rs)
+    {
+        ByteBuf buf = Unpooled.buffer();
+        ResultSet.codec.encode(rs, buf, ProtocolVersion.CURRENT);
+        assertEquals(ResultSet.codec.encodedSize(rs, ProtocolVersion.CURRENT), buf.readableBytes());
+        return buf;
+    }
+
+    @Test
+    public void testEncodedRows()
+    {
+        ResultSet plain = ResultSet.create(metadata(), false);
+        ResultSet encoded = ResultSet.create(metadata(), true);
+        assertTrue(encoded.rows instanceof ResultSet.EncodedRows);
+
+        for (int i = 0; i < 100; i++)
+        {
+            plain.addRow(row(i, i % 10 == 0 ? null : "value" + i));
+            encoded.addRow(row(i, i % 10 == 0 ? null : "value" + i));
+        }
+        assertEquals(plain.rows, encoded.rows);
+        assertEquals(encode(plain), encode(encoded));
+
+        plain.trim(42);
+        encoded.trim(42);
+        assertEquals(42, encoded.size());
+        assertEquals(plain.rows, encoded.rows);
+        assertEquals(encode(plain), encode(encoded));
+
+        ResultSet decoded = ResultSet.codec.decode(encode(encoded), ProtocolVersion.CURRENT);
+        assertEquals(plain.rows, decoded.rows);
+    }
+
+    @Test
+    public void testSelectForClients() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v text, PRIMARY KEY (k, c))");
+        for (int k = 0; k < 3; k++)
+            for (int c = 0; c < 50; c++)
+                execute("INSERT INTO %s (k, c, v) VALUES (?, ?, ?)", k, c, c % 7 == 0 ? null : "v" + c);
+
+        for (String query : Arrays.asList("SELECT * FROM %s", "SELECT * FROM %s LIMIT 20", "SELECT k, v FROM %s WHERE k = 1", "SELECT count(*) FROM %s"))
+        {
+            ResultSet forClients = executeForClients(query);
+            assertTrue(forClients.rows instanceof ResultSet.EncodedRows);
+
+            SelectStatement statement = (SelectStatement) QueryProcessor.parseStatement(formatQuery(query), QueryState.forInternalCalls().getClientState()).statement;
+            ResultSet internal = statement.executeInternal(QueryState.forInternalCalls(), QueryOptions.DEFAULT).result;
+            assertTrue(internal.size() > 0);
+            assertEquals(internal.rows, forClients.rows);
+            assertEquals(encode(internal), encode(forClients));
+        }
+
+        // rows sorted after the query can't be encoded as they are produced
+        ResultSet sorted = executeForClients("SELECT * FROM %s WHERE k IN (0, 1) ORDER BY c DESC");
+        assertFalse(sorted.rows instanceof ResultSet.EncodedRows);
+        assertEquals(100, sorted.size());
+    }
+
+    /**
+     * Executes the query the way requests of clients are.
+     */
+    private ResultSet executeForClients(String query)
+    {
+        QueryOptions options = QueryOptions.forInternalCalls(ConsistencyLevel.ONE, Collections.emptyList());
+        return ((ResultMessage.Rows) QueryProcessor.instance.process(formatQuery(query), QueryState.forInternalCalls(), options, System.nanoTime())).result;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.schema.TableMetadata;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MutationTest
+{
+    private static final String KEYSPACE1 = "MutationTest";
+    private static final String CF_STANDARD1 = "Standard1";
+
+    @BeforeClass
+    public static void defineSchema() throws ConfigurationException
+    {
+        SchemaLoader.prepareServer();
+        SchemaLoader.createKeyspace(KEYSPACE1,
+                                    KeyspaceParams.simple(1),
+                                    SchemaLoader.standardCFMD(KEYSPACE1, CF_STANDARD1));
+    }
+
+    private static Mutation mutation(int size)
+    {
+        TableMetadata metadata = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_STANDARD1).metadata();
+        return new RowUpdateBuilder(metadata, 0, "key")
+               .clustering("c")
+               .add("val", ByteBuffer.allocate(size))
+               .build();
+    }
+
+    private static byte[] serialize(Mutation mutation, int version) throws IOException
+    {
+        try (DataOutputBuffer out = new DataOutputBuffer())
+        {
+            Mutation.serializer.serialize(mutation, out, version);
+            assertEquals(Mutation.serializer.serializedSize(mutation, version), out.getLength());
+            return out.toByteArray();
+        }
+    }
+
+    @Test
+    public void testCachedSerialization() throws IOException
+    {
+        for (int version = MessagingService.VERSION_30; version <= MessagingService.current_version; version++)
+        {
+            byte[] uncached = serialize(mutation(100), version);
+
+            Mutation mutation = mutation(100).cacheSerialization();
+            assertArrayEquals(uncached, serialize(mutation, version));
+            // the second time around, the cached bytes are written
+            assertArrayEquals(uncached, serialize(mutation, version));
+
+            try (DataInputBuffer in = new DataInputBuffer(uncached))
+            {
+                Mutation deserialized = Mutation.serializer.deserialize(in, version);
+                assertEquals(mutation.toString(true), deserialized.toString(true));
+            }
+        }
+    }
+
+    @Test
+    public void testTooLargeToCache() throws IOException
+    {
+        int version = MessagingService.current_version;
+        byte[] uncached = serialize(mutation(Mutation.CACHEABLE_MUTATION_SIZE_LIMIT), version);
+
+        Mutation mutation = mutation(Mutation.CACHEABLE_MUTATION_SIZE_LIMIT).cacheSerialization();
+        assertArrayEquals(uncached, serialize(mutation, version));
+        assertArrayEquals(uncached, serialize(mutation, version));
+    }
+}
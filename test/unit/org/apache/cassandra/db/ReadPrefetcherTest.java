@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.apache.cassandra.Util;
+import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.concurrent.ExecutorLocals;
+import org.apache.cassandra.concurrent.Stage;
+import org.apache.cassandra.concurrent.StageManager;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.partitions.FilteredPartition;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+public class ReadPrefetcherTest extends CQLTester
+{
+    @After
+    public void resetMode()
+    {
+        DatabaseDescriptor.setReadExecutionMode(Config.ReadExecutionMode.sync);
+    }
+
+    @Test
+    public void testShouldPrefetch() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, v int, PRIMARY KEY (pk, ck))");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+
+        DatabaseDescriptor.setReadExecutionMode(Config.ReadExecutionMode.sync);
+        assertFalse(ReadPrefetcher.shouldPrefetch(Util.cmd(cfs, 1).build()));
+
+        DatabaseDescriptor.setReadExecutionMode(Config.ReadExecutionMode.async);
+        assertTrue(ReadPrefetcher.shouldPrefetch(Util.cmd(cfs, 1).build()));
+        assertFalse(ReadPrefetcher.shouldPrefetch(Util.cmd(cfs).build()));
+    }
+
+    @Test
+    public void testPrefetchThenExecute() throws Throwable
+    {
+        DatabaseDescriptor.setReadExecutionMode(Config.ReadExecutionMode.async);
+        createTable("CREATE TABLE %s (pk int, ck int, v int, PRIMARY KEY (pk, ck))");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+
+        // spread the partitions over several sstables, and keep some in the memtable
+        for (int i = 0; i < 3; i++)
+        {
+            for (int pk = 0; pk < 10; pk++)
+                execute("INSERT INTO %s (pk, ck, v) VALUES (?, ?, ?)", pk, i, pk + i);
+            flush();
+        }
+        execute("INSERT INTO %s (pk, ck, v) VALUES (?, ?, ?)", 0, 3, 3);
+
+        int reads = 12;
+        CountDownLatch latch = new CountDownLatch(reads);
+        AtomicInteger rows = new AtomicInteger();
+        for (int pk = 0; pk < reads; pk++)
+        {
+            SinglePartitionReadCommand command = (SinglePartitionReadCommand) Util.cmd(cfs, pk).build();
+            ReadPrefetcher.instance.prefetchThenExecute(command, StageManager.getStage(Stage.READ), () -> {
+                for (FilteredPartition partition : Util.getAll(command))
+                    rows.addAndGet(partition.rowCount());
+                latch.countDown();
+            }, ExecutorLocals.create());
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        // 3 rows in each of the 10 existing partitions, plus the memtable one, and nothing for the 2 missing ones
+        assertEquals(31, rows.get());
+    }
+
+    @Test
+    public void testPrefetchedDataIsCached() throws Throwable
+    {
+        assumeNotNull(ChunkCache.instance);
+        createTable("CREATE TABLE %s (pk int, ck int, v int, PRIMARY KEY (pk, ck))");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+
+        for (int pk = 0; pk < 10; pk++)
+            execute("INSERT INTO %s (pk, ck, v) VALUES (?, ?, ?)", pk, 0, pk);
+        flush();
+        for (SSTableReader sstable : cfs.getLiveSSTables())
+            ChunkCache.instance.invalidateFile(sstable.getFilename());
+
+        SinglePartitionReadCommand command = (SinglePartitionReadCommand) Util.cmd(cfs, 3).build();
+        long misses = ChunkCache.instance.metrics.misses.getCount();
+        command.prefetch();
+        assertTrue(ChunkCache.instance.metrics.misses.getCount() > misses);
+
+        // the read finds the data chunk cached, and uses the index entry located by the prefetch
+        misses = ChunkCache.instance.metrics.misses.getCount();
+        long requests = ChunkCache.instance.metrics.requests.getCount();
+        assertEquals(1, Util.getAll(command).size());
+        assertEquals(misses, ChunkCache.instance.metrics.misses.getCount());
+        assertTrue(ChunkCache.instance.metrics.requests.getCount() > requests);
+    }
+}
@@ -23,6 +23,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
@@ -221,6 +224,42 @@ public class RecoveryManagerTest
         Assert.assertTrue(Util.sameContent(upd2, Util.getOnlyPartitionUnfiltered(Util.cmd(keyspace2.getColumnFamilyStore(CF_STANDARD3), dk).build()).unfilteredIterator()));
     }
 
+    @Test
+    public void testRecoverMultipleSegments() throws IOException
+    {
+        CommitLog.instance.resetUnsafe(true);
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_STANDARD1);
+
+        // enough data for several segments, which are then decoded concurrently; every key is written in several of
+        // them, so that only the last value of each is expected back
+        Random random = new Random();
+        Map<String, String> expected = new HashMap<>();
+        char[] value = new char[200 * 1024];
+        for (int i = 0; i < 100; ++i)
+        {
+            for (int j = 0; j < value.length; j++)
+                value[j] = (char) ('a' + random.nextInt(26));
+            String key = "key" + (i % 10);
+            new RowUpdateBuilder(cfs.metadata(), i, key)
+                .clustering("cc")
+                .add("val", new String(value))
+                .build()
+                .apply();
+            expected.put(key, new String(value));
+        }
+        Assert.assertTrue(CommitLog.instance.getActiveSegmentNames().size() > 1);
+
+        cfs.clearUnsafe();
+        CommitLog.instance.resetUnsafe(false);
+
+        ColumnMetadata column = cfs.metadata().getColumn(ByteBufferUtil.bytes("val"));
+        for (Map.Entry<String, String> entry : expected.entrySet())
+        {
+            Row row = Util.getOnlyRow(Util.cmd(cfs, entry.getKey()).includeRow("cc").build());
+            assertEquals(entry.getValue(), ByteBufferUtil.string(row.getCell(column).value()));
+        }
+    }
+
     @Test
     public void testRecoverCounter() throws IOException
     {
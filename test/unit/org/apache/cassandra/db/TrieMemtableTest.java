@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import org.junit.Test;
+
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.schema.MemtableParams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrieMemtableTest extends CQLTester
+{
+    @Test
+    public void testReadWrite() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, v int, PRIMARY KEY (pk, ck)) WITH memtable = {'class': 'TrieMemtable'}");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        assertTrue(cfs.getTracker().getView().getCurrentMemtable() instanceof TrieMemtable);
+
+        for (int pk = 0; pk < 100; pk++)
+            for (int ck = 0; ck < 10; ck++)
+                execute("INSERT INTO %s (pk, ck, v) VALUES (?, ?, ?)", pk, ck, pk + ck);
+        execute("DELETE FROM %s WHERE pk = ?", 50);
+
+        assertEquals(100, cfs.getTracker().getView().getCurrentMemtable().partitionCount());
+        checkContents();
+
+        cfs.forceBlockingFlush();
+        assertTrue(cfs.getTracker().getView().getCurrentMemtable() instanceof TrieMemtable);
+        checkContents();
+    }
+
+    @Test
+    public void testShards() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, v int, PRIMARY KEY (pk, ck)) WITH memtable = {'class': 'TrieMemtable', 'shards': '4'}");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        assertTrue(((TrieMemtable) cfs.getTracker().getView().getCurrentMemtable()).shardCount() >= 4);
+
+        for (int pk = 0; pk < 100; pk++)
+            for (int ck = 0; ck < 10; ck++)
+                execute("INSERT INTO %s (pk, ck, v) VALUES (?, ?, ?)", pk, ck, pk + ck);
+        execute("DELETE FROM %s WHERE pk = ?", 50);
+
+        assertEquals(100, cfs.getTracker().getView().getCurrentMemtable().partitionCount());
+        checkContents();
+
+        // the partitions of all shards should come back in token order
+        Object[][] expected = getRows(execute("SELECT pk FROM %s"));
+        cfs.forceBlockingFlush();
+        assertRows(execute("SELECT pk FROM %s"), expected);
+        checkContents();
+    }
+
+    private void checkContents() throws Throwable
+    {
+        assertRows(execute("SELECT v FROM %s WHERE pk = ? AND ck = ?", 7, 3), row(10));
+        assertEmpty(execute("SELECT v FROM %s WHERE pk = ?", 50));
+        assertRowCount(execute("SELECT * FROM %s"), 990);
+        assertRowCount(execute("SELECT * FROM %s WHERE token(pk) >= token(?) AND token(pk) <= token(?)", 7, 7), 10);
+    }
+
+    @Test
+    public void testAlterMemtable() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int PRIMARY KEY, v int)");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        assertEquals(MemtableParams.DEFAULT, cfs.metadata().params.memtable);
+        execute("INSERT INTO %s (pk, v) VALUES (1, 1)");
+
+        alterTable("ALTER TABLE %s WITH memtable = {'class': 'org.apache.cassandra.db.TrieMemtable'}");
+        assertTrue(cfs.getTracker().getView().getCurrentMemtable() instanceof TrieMemtable);
+
+        execute("INSERT INTO %s (pk, v) VALUES (2, 2)");
+        assertRows(execute("SELECT pk, v FROM %s"), row(1, 1), row(2, 2));
+    }
+
+    @Test
+    public void testSecondaryIndex() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int PRIMARY KEY, v int) WITH memtable = {'class': 'TrieMemtable'}");
+        createIndex("CREATE INDEX ON %s (v)");
+        for (int pk = 0; pk < 10; pk++)
+            execute("INSERT INTO %s (pk, v) VALUES (?, ?)", pk, pk % 2);
+        assertRowCount(execute("SELECT * FROM %s WHERE v = 1"), 5);
+    }
+
+    @Test
+    public void testInvalidOptions() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int PRIMARY KEY, v int)");
+        assertInvalidThrow(ConfigurationException.class, "ALTER TABLE %s WITH memtable = {'class': 'TrieMemtable', 'foo': 'bar'}");
+        assertInvalidThrow(ConfigurationException.class, "ALTER TABLE %s WITH memtable = {'class': 'NoSuchMemtable'}");
+    }
+}
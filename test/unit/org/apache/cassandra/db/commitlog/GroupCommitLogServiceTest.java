@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.commitlog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.config.Config.CommitLogSync;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.RowUpdateBuilder;
+import org.apache.cassandra.db.marshal.AsciiType;
+import org.apache.cassandra.db.marshal.BytesType;
+import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GroupCommitLogServiceTest
+{
+    private static final String KEYSPACE = "GroupCommitLogServiceTest";
+    private static final String TABLE = "Standard1";
+    private static final double WINDOW_MILLIS = 15;
+
+    @BeforeClass
+    public static void defineSchema()
+    {
+        DatabaseDescriptor.daemonInitialization();
+        DatabaseDescriptor.setCommitLogSync(CommitLogSync.group);
+        DatabaseDescriptor.setCommitLogSyncBatchWindow(Double.NaN);
+        DatabaseDescriptor.setCommitLogSyncGroupWindow(WINDOW_MILLIS);
+        SchemaLoader.prepareServer();
+        SchemaLoader.createKeyspace(KEYSPACE,
+                                    KeyspaceParams.simple(1),
+                                    SchemaLoader.standardCFMD(KEYSPACE, TABLE, 0, AsciiType.instance, BytesType.instance));
+    }
+
+    @Test
+    public void testConcurrentWritesAreGrouped() throws Exception
+    {
+        assertTrue(CommitLog.instance.executor instanceof GroupCommitLogService);
+        GroupCommitLogService service = (GroupCommitLogService) CommitLog.instance.executor;
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE).getColumnFamilyStore(TABLE);
+
+        int writers = 8;
+        int writesPerWriter = 100;
+        long syncs = CommitLog.instance.metrics.syncBatchSize.getCount();
+        long completed = service.getCompletedTasks();
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int writer = 0; writer < writers; writer++)
+            {
+                String key = "key" + writer;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < writesPerWriter; i++)
+                        new RowUpdateBuilder(cfs.metadata(), i, key).clustering("c" + i).add("val", ByteBufferUtil.bytes(i)).build().apply();
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // every write waited for a sync, and syncs covered several writers at once
+        assertEquals(writers * writesPerWriter, service.getCompletedTasks() - completed);
+        assertEquals(0, service.getPendingTasks());
+        long batches = CommitLog.instance.metrics.syncBatchSize.getCount() - syncs;
+        assertTrue(String.valueOf(batches), batches > 0);
+        assertTrue(String.valueOf(batches), batches < writers * writesPerWriter);
+
+        assertTrue(service.targetBatchSize() >= 1);
+        assertTrue(service.window() <= WINDOW_MILLIS * 1e6);
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.cassandra.db.compaction;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -31,7 +32,9 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.cql3.UntypedResultSet;
 import org.apache.cassandra.cql3.statements.CreateTableStatement;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
@@ -96,6 +99,70 @@ public class CompactionTaskTest
         Assert.assertEquals(Transactional.AbstractTransactional.State.ABORTED, txn.state());
     }
 
+    @Test
+    public void subRangeCompaction() throws Exception
+    {
+        compactSubRanges();
+    }
+
+    @Test
+    public void subRangeCompactionWithBusyExecutor() throws Exception
+    {
+        // the sub-ranges the executor has no thread for are compacted on the calling thread
+        int maxThreads = CompactionManager.instance.subRangeExecutor.getMaximumPoolSize();
+        CompactionManager.instance.subRangeExecutor.setMaximumPoolSize(1);
+        try
+        {
+            compactSubRanges();
+        }
+        finally
+        {
+            CompactionManager.instance.subRangeExecutor.setMaximumPoolSize(maxThreads);
+        }
+    }
+
+    private void compactSubRanges() throws Exception
+    {
+        cfs.getCompactionStrategyManager().disable();
+        for (int i = 0; i < 4; i++)
+        {
+            for (int k = 0; k < 1000; k++)
+                QueryProcessor.executeInternal(String.format("INSERT INTO ks.tbl (k, v) VALUES (%d, %d);", k, i));
+            cfs.forceBlockingFlush();
+        }
+        Set<SSTableReader> sstables = cfs.getLiveSSTables();
+        Assert.assertEquals(4, sstables.size());
+
+        int subRanges = DatabaseDescriptor.getConcurrentCompactionSubRanges();
+        DatabaseDescriptor.setConcurrentCompactionSubRanges(4);
+        DatabaseDescriptor.setMinCompactionSubRangeSizeInMB(0);
+        try
+        {
+            LifecycleTransaction txn = cfs.getTracker().tryModify(sstables, OperationType.COMPACTION);
+            CompactionTask task = new CompactionTask(cfs, txn, 0);
+            Assert.assertEquals(4, task.getSubRanges(sstables).size());
+            task.execute(CompactionManager.instance.getMetrics());
+            Assert.assertEquals(Transactional.AbstractTransactional.State.COMMITTED, txn.state());
+        }
+        finally
+        {
+            DatabaseDescriptor.setConcurrentCompactionSubRanges(subRanges);
+            DatabaseDescriptor.setMinCompactionSubRangeSizeInMB(1024);
+        }
+
+        // one sstable per sub-range, none of them overlapping
+        List<SSTableReader> compacted = new ArrayList<>(cfs.getLiveSSTables());
+        Assert.assertEquals(4, compacted.size());
+        compacted.sort(Comparator.comparing(sstable -> sstable.first));
+        for (int i = 1; i < compacted.size(); i++)
+            Assert.assertTrue(compacted.get(i - 1).last.compareTo(compacted.get(i).first) < 0);
+
+        UntypedResultSet rows = QueryProcessor.executeInternal("SELECT k, v FROM ks.tbl");
+        Assert.assertEquals(1000, rows.size());
+        for (UntypedResultSet.Row row : rows)
+            Assert.assertEquals(3, row.getInt("v"));
+    }
+
     private static void mutateRepaired(SSTableReader sstable, long repairedAt, UUID pendingRepair) throws IOException
     {
         sstable.descriptor.getMetadataSerializer().mutateRepaired(sstable.descriptor, repairedAt, pendingRepair);
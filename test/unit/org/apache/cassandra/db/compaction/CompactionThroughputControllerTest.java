@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.metrics.CompactionMetrics;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompactionThroughputControllerTest
+{
+    private static final CompactionThroughputController controller = CompactionThroughputController.instance;
+
+    @BeforeClass
+    public static void setUp()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    @After
+    public void disable()
+    {
+        DatabaseDescriptor.setAdaptiveCompactionThroughput(false);
+        controller.run();
+    }
+
+    @Test
+    public void testAdaptToLatencyAndPendingCompactions()
+    {
+        int maxConcurrency = DatabaseDescriptor.getConcurrentCompactors();
+        double min = DatabaseDescriptor.getMinCompactionThroughputMbPerSec();
+        double max = DatabaseDescriptor.getMaxCompactionThroughputMbPerSec();
+        CompactionMetrics metrics = CompactionManager.instance.getMetrics();
+        long decreases = metrics.throughputDecreases.getCount();
+        long increases = metrics.throughputIncreases.getCount();
+
+        DatabaseDescriptor.setAdaptiveCompactionThroughput(true);
+        int readTarget = DatabaseDescriptor.getAdaptiveCompactionReadLatencyTargetMs();
+
+        // the test config doesn't throttle compactions, so the controller starts from the maximum throughput
+        controller.update(readTarget + 1, 0, 0, 0);
+        assertEquals(max * 0.75, controller.getThroughputMbPerSec(), 0.01);
+        assertEquals(maxConcurrency - 1, CompactionManager.instance.getCoreCompactorThreads());
+        assertEquals(decreases + 1, metrics.throughputDecreases.getCount());
+
+        // never lower than the minimums
+        for (int i = 0; i < 20; i++)
+            controller.update(readTarget + 1, 0, 0, 0);
+        assertEquals(min, controller.getThroughputMbPerSec(), 0.01);
+        assertEquals(1, CompactionManager.instance.getCoreCompactorThreads());
+
+        // nothing to catch up with
+        controller.update(0, 0, 1, 0);
+        assertEquals(min, controller.getThroughputMbPerSec(), 0.01);
+        assertEquals(1, CompactionManager.instance.getCoreCompactorThreads());
+
+        // falling behind
+        controller.update(0, 0, 10, 0);
+        assertEquals(min * 1.25, controller.getThroughputMbPerSec(), 0.01);
+        assertEquals(2, CompactionManager.instance.getCoreCompactorThreads());
+        assertEquals(increases + 1, metrics.throughputIncreases.getCount());
+
+        // but without the disk space for more concurrent compactions
+        controller.update(0, 0, 10, 0.95);
+        assertEquals(min * 1.25 * 1.25, controller.getThroughputMbPerSec(), 0.01);
+        assertEquals(2, CompactionManager.instance.getCoreCompactorThreads());
+
+        // write latency counts too
+        controller.update(0, DatabaseDescriptor.getAdaptiveCompactionWriteLatencyTargetMs() + 1, 10, 0);
+        assertEquals(min * 1.25 * 1.25 * 0.75, controller.getThroughputMbPerSec(), 0.01);
+        assertEquals(1, CompactionManager.instance.getCoreCompactorThreads());
+
+        // never higher than the maximums
+        for (int i = 0; i < 50; i++)
+            controller.update(0, 0, 10, 0);
+        assertEquals(max, controller.getThroughputMbPerSec(), 0.01);
+        assertEquals(maxConcurrency, CompactionManager.instance.getCoreCompactorThreads());
+    }
+
+    @Test
+    public void testDisable()
+    {
+        DatabaseDescriptor.setAdaptiveCompactionThroughput(true);
+        controller.update(DatabaseDescriptor.getAdaptiveCompactionReadLatencyTargetMs() + 1, 0, 0, 0);
+        assertEquals(DatabaseDescriptor.getConcurrentCompactors() - 1, CompactionManager.instance.getCoreCompactorThreads());
+
+        DatabaseDescriptor.setAdaptiveCompactionThroughput(false);
+        controller.run();
+        assertEquals(DatabaseDescriptor.getCompactionThroughputMbPerSec(), controller.getThroughputMbPerSec(), 0);
+        assertEquals(DatabaseDescriptor.getConcurrentCompactors(), CompactionManager.instance.getCoreCompactorThreads());
+    }
+}
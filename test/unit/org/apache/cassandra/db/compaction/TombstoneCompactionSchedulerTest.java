@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.Util;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.RowUpdateBuilder;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.schema.CompactionParams;
+import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TombstoneCompactionSchedulerTest
+{
+    private static final String KEYSPACE1 = "TombstoneCompactionSchedulerTest";
+    private static final String CF_STANDARD1 = "Standard1";
+
+    @BeforeClass
+    public static void defineSchema() throws ConfigurationException
+    {
+        Map<String, String> compactionOptions = new HashMap<>();
+        compactionOptions.put("tombstone_compaction_interval", "0");
+        // keep the regular background compactions out of the way
+        compactionOptions.put("min_threshold", "8");
+
+        // Disable tombstone histogram rounding for tests
+        System.setProperty("cassandra.streaminghistogram.roundseconds", "1");
+
+        SchemaLoader.prepareServer();
+        SchemaLoader.createKeyspace(KEYSPACE1,
+                                    KeyspaceParams.simple(1),
+                                    SchemaLoader.standardCFMD(KEYSPACE1, CF_STANDARD1)
+                                                .compaction(CompactionParams.scts(compactionOptions))
+                                                .gcGraceSeconds(0));
+    }
+
+    @After
+    public void disable()
+    {
+        DatabaseDescriptor.setTombstoneCompactionBudgetInMB(0);
+    }
+
+    @Test
+    public void testCompactOverlappingOlderSSTables() throws Exception
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_STANDARD1);
+        cfs.truncateBlocking();
+        cfs.disableAutoCompaction();
+        int nowInSec = FBUtilities.nowInSeconds();
+
+        // old data, shadowed by the tombstones below
+        SSTableReader shadowed = writeRows(cfs, "0", 1);
+        // old data that the tombstones don't cover
+        SSTableReader unrelated = writeRows(cfs, "x", 1);
+        // tombstones that are past gc_grace_seconds
+        for (int i = 0; i < 10; i++)
+            RowUpdateBuilder.deleteRowAt(cfs.metadata(), 2, nowInSec - 10, "0" + i, "column").applyUnsafe();
+        cfs.forceBlockingFlush();
+        SSTableReader tombstones = newSSTable(cfs, shadowed, unrelated);
+        // newer data, which the tombstones don't shadow
+        SSTableReader newer = writeRows(cfs, "0", 3);
+
+        List<TombstoneCompactionScheduler.Candidate> candidates = TombstoneCompactionScheduler.getCandidates(cfs, nowInSec);
+        assertEquals(1, candidates.size());
+        TombstoneCompactionScheduler.Candidate candidate = candidates.get(0);
+        assertEquals(new HashSet<>(Arrays.asList(shadowed, tombstones)), candidate.sstables);
+        assertTrue(candidate.purgeableBytes > 0);
+        assertEquals(shadowed.onDiskLength() + tombstones.onDiskLength(), candidate.totalBytes);
+
+        // disabled by default, and for the tables with disabled compactions
+        TombstoneCompactionScheduler.instance.run();
+        DatabaseDescriptor.setTombstoneCompactionBudgetInMB(1);
+        TombstoneCompactionScheduler.instance.run();
+        assertEquals(4, cfs.getLiveSSTables().size());
+
+        cfs.enableAutoCompaction();
+
+        TombstoneCompactionScheduler.instance.run();
+        do
+        {
+            TimeUnit.MILLISECONDS.sleep(100);
+        } while (CompactionManager.instance.getPendingTasks() > 0 || CompactionManager.instance.getActiveCompactions() > 0);
+
+        // the tombstones and the data they shadow are all gone, the rest of the data is still there
+        assertEquals(new HashSet<>(Arrays.asList(unrelated, newer)), cfs.getLiveSSTables());
+        assertTrue(TombstoneCompactionScheduler.getCandidates(cfs, nowInSec).isEmpty());
+        assertEquals(20, Util.getAll(Util.cmd(cfs).build()).size());
+    }
+
+    private static SSTableReader writeRows(ColumnFamilyStore cfs, String keyPrefix, long timestamp)
+    {
+        Set<SSTableReader> before = new HashSet<>(cfs.getLiveSSTables());
+        for (int i = 0; i < 10; i++)
+        {
+            new RowUpdateBuilder(cfs.metadata(), timestamp, keyPrefix + i)
+                .clustering("column")
+                .add("val", ByteBuffer.wrap(new byte[100]))
+                .build().applyUnsafe();
+        }
+        cfs.forceBlockingFlush();
+        return newSSTable(cfs, before.toArray(new SSTableReader[0]));
+    }
+
+    private static SSTableReader newSSTable(ColumnFamilyStore cfs, SSTableReader... existing)
+    {
+        Set<SSTableReader> sstables = new HashSet<>(cfs.getLiveSSTables());
+        sstables.removeAll(Arrays.asList(existing));
+        assertEquals(1, sstables.size());
+        return sstables.iterator().next();
+    }
+}
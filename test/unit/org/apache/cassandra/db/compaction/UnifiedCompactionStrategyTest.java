@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.PartitionPosition;
+import org.apache.cassandra.db.RowUpdateBuilder;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static org.apache.cassandra.db.compaction.UnifiedCompactionStrategy.level;
+import static org.apache.cassandra.db.compaction.UnifiedCompactionStrategy.validateOptions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class UnifiedCompactionStrategyTest
+{
+    public static final String KEYSPACE1 = "UnifiedCompactionStrategyTest";
+    private static final String CF_STANDARD1 = "Standard1";
+    private static IPartitioner oldPartitioner;
+
+    @BeforeClass
+    public static void defineSchema() throws ConfigurationException
+    {
+        // Disable tombstone histogram rounding for tests
+        System.setProperty("cassandra.streaminghistogram.roundseconds", "1");
+
+        SchemaLoader.prepareServer();
+        // shards are computed with the partitioner's splitter, which the test's ByteOrderedPartitioner doesn't have
+        oldPartitioner = StorageService.instance.setPartitionerUnsafe(Murmur3Partitioner.instance);
+
+        SchemaLoader.createKeyspace(KEYSPACE1,
+                                    KeyspaceParams.simple(1),
+                                    SchemaLoader.standardCFMD(KEYSPACE1, CF_STANDARD1));
+
+        // shards split the ranges owned by the node, so it needs some
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_STANDARD1);
+        StorageService.instance.getTokenMetadata().updateNormalToken(cfs.getPartitioner().getMinimumToken(), FBUtilities.getBroadcastAddress());
+    }
+
+    @AfterClass
+    public static void resetPartitioner()
+    {
+        StorageService.instance.getTokenMetadata().clearUnsafe();
+        StorageService.instance.setPartitionerUnsafe(oldPartitioner);
+    }
+
+    @Test
+    public void testOptionsValidation() throws ConfigurationException
+    {
+        Map<String, String> options = new HashMap<>();
+        options.put(UnifiedCompactionStrategyOptions.SCALING_PARAMETER_KEY, "L10");
+        options.put(UnifiedCompactionStrategyOptions.MIN_SSTABLE_SIZE_KEY, "10000");
+        options.put(UnifiedCompactionStrategyOptions.NUM_SHARDS_KEY, "8");
+        Map<String, String> unvalidated = validateOptions(options);
+        assertTrue(unvalidated.isEmpty());
+
+        for (String invalid : new String[]{ "X4", "T1", "" })
+        {
+            try
+            {
+                options.put(UnifiedCompactionStrategyOptions.SCALING_PARAMETER_KEY, invalid);
+                validateOptions(options);
+                fail(invalid + " should be rejected as scaling parameter");
+            }
+            catch (ConfigurationException e)
+            {
+                options.put(UnifiedCompactionStrategyOptions.SCALING_PARAMETER_KEY, "T4");
+            }
+        }
+
+        try
+        {
+            options.put(UnifiedCompactionStrategyOptions.NUM_SHARDS_KEY, "0");
+            validateOptions(options);
+            fail("0 shards should be rejected");
+        }
+        catch (ConfigurationException e)
+        {
+            options.remove(UnifiedCompactionStrategyOptions.NUM_SHARDS_KEY);
+        }
+
+        options.put("bad_option", "1.0");
+        unvalidated = validateOptions(options);
+        assertTrue(unvalidated.containsKey("bad_option"));
+    }
+
+    @Test
+    public void testScalingParameter()
+    {
+        assertScaling("T4", -2, 4, 4);
+        assertScaling("t8", -6, 8, 8);
+        assertScaling("L10", 8, 10, 2);
+        assertScaling("N", 0, 2, 2);
+        assertScaling("T2", 0, 2, 2);
+        assertScaling("-2", -2, 4, 4);
+        assertScaling("3", 3, 5, 2);
+    }
+
+    private static void assertScaling(String value, int w, int fanout, int threshold)
+    {
+        Map<String, String> options = new HashMap<>();
+        options.put(UnifiedCompactionStrategyOptions.SCALING_PARAMETER_KEY, value);
+        UnifiedCompactionStrategyOptions parsed = new UnifiedCompactionStrategyOptions(options);
+        assertEquals(w, parsed.scalingParameter);
+        assertEquals(fanout, parsed.fanout());
+        assertEquals(threshold, parsed.threshold());
+    }
+
+    @Test
+    public void testLevel()
+    {
+        assertEquals(0, level(0, 100, 4));
+        assertEquals(0, level(99, 100, 4));
+        assertEquals(1, level(100, 100, 4));
+        assertEquals(1, level(399, 100, 4));
+        assertEquals(2, level(400, 100, 4));
+        assertEquals(3, level(1600, 100, 4));
+        assertEquals(1, level(1, 0, 4));
+    }
+
+    @Test
+    public void testShardedCompaction()
+    {
+        Keyspace keyspace = Keyspace.open(KEYSPACE1);
+        ColumnFamilyStore cfs = keyspace.getColumnFamilyStore(CF_STANDARD1);
+        cfs.truncateBlocking();
+        cfs.disableAutoCompaction();
+
+        ByteBuffer value = ByteBuffer.wrap(new byte[100]);
+
+        // 4 overlapping sstables
+        for (int r = 0; r < 4; r++)
+        {
+            for (int i = 0; i < 100; i++)
+            {
+                new RowUpdateBuilder(cfs.metadata(), r, String.valueOf(i))
+                    .clustering("column" + r)
+                    .add("val", value)
+                    .build().applyUnsafe();
+            }
+            cfs.forceBlockingFlush();
+        }
+        assertEquals(4, cfs.getLiveSSTables().size());
+
+        Map<String, String> options = new HashMap<>();
+        options.put(UnifiedCompactionStrategyOptions.SCALING_PARAMETER_KEY, "T4");
+        options.put(UnifiedCompactionStrategyOptions.MIN_SSTABLE_SIZE_KEY, "0");
+        options.put(UnifiedCompactionStrategyOptions.NUM_SHARDS_KEY, "4");
+        UnifiedCompactionStrategy ucs = new UnifiedCompactionStrategy(cfs, options);
+        for (SSTableReader sstable : cfs.getLiveSSTables())
+            ucs.addSSTable(sstable);
+
+        int gcBefore = (int) (System.currentTimeMillis() / 1000);
+        AbstractCompactionTask task = ucs.getNextBackgroundTask(gcBefore);
+        assertNotNull(task);
+        assertEquals(4, task.transaction.originals().size());
+        assertEquals(1, ucs.getEstimatedRemainingTasks());
+        task.execute(null);
+
+        // the output is split at the shard boundaries, so the sstables don't overlap
+        List<PartitionPosition> shardBoundaries = StorageService.getShardBoundaries(cfs, 4);
+        List<SSTableReader> compacted = new ArrayList<>(cfs.getLiveSSTables());
+        assertEquals(4, compacted.size());
+        compacted.sort(Comparator.comparing(s -> s.first));
+        for (int i = 0; i < compacted.size(); i++)
+        {
+            SSTableReader sstable = compacted.get(i);
+            assertTrue(sstable.last.compareTo(shardBoundaries.get(i)) <= 0);
+            if (i > 0)
+                assertTrue(sstable.first.compareTo(shardBoundaries.get(i - 1)) > 0);
+        }
+
+        // and each of them is alone in its shard
+        for (SSTableReader sstable : compacted)
+            ucs.addSSTable(sstable);
+        assertNull(ucs.getNextBackgroundTask(gcBefore));
+        assertEquals(0, ucs.getEstimatedRemainingTasks());
+    }
+
+    @Test
+    public void testSmallOutputNotSharded()
+    {
+        Keyspace keyspace = Keyspace.open(KEYSPACE1);
+        ColumnFamilyStore cfs = keyspace.getColumnFamilyStore(CF_STANDARD1);
+        cfs.truncateBlocking();
+        cfs.disableAutoCompaction();
+
+        for (int i = 0; i < 100; i++)
+        {
+            new RowUpdateBuilder(cfs.metadata(), 0, String.valueOf(i))
+                .clustering("column")
+                .add("val", ByteBuffer.wrap(new byte[100]))
+                .build().applyUnsafe();
+        }
+        cfs.forceBlockingFlush();
+
+        Map<String, String> options = new HashMap<>();
+        options.put(UnifiedCompactionStrategyOptions.NUM_SHARDS_KEY, "4");
+        UnifiedCompactionStrategy ucs = new UnifiedCompactionStrategy(cfs, options);
+        assertNull(ucs.outputShardBoundaries(cfs.getLiveSSTables()));
+
+        options.put(UnifiedCompactionStrategyOptions.MIN_SSTABLE_SIZE_KEY, "0");
+        ucs = new UnifiedCompactionStrategy(cfs, options);
+        assertEquals(4, ucs.outputShardBoundaries(cfs.getLiveSSTables()).size());
+    }
+
+    @Test
+    public void testShardBoundariesCached()
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_STANDARD1);
+        Map<String, String> options = new HashMap<>();
+        options.put(UnifiedCompactionStrategyOptions.NUM_SHARDS_KEY, "4");
+        UnifiedCompactionStrategy ucs = new UnifiedCompactionStrategy(cfs, options);
+
+        List<PartitionPosition> shardBoundaries = ucs.shardBoundaries();
+        assertEquals(4, shardBoundaries.size());
+        assertSame(shardBoundaries, ucs.shardBoundaries());
+
+        // a ring change recomputes them
+        StorageService.instance.getTokenMetadata().invalidateCachedRings();
+        assertNotSame(shardBoundaries, ucs.shardBoundaries());
+        assertEquals(shardBoundaries, ucs.shardBoundaries());
+    }
+}
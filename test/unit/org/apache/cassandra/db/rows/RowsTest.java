@@ -550,6 +550,39 @@ public class RowsTest
         Assert.assertEquals(Collections.emptyList(), builder.cells);
     }
 
+    @Test
+    public void mergeManyRows()
+    {
+        int now = FBUtilities.nowInSeconds();
+        int count = 12;
+        Row.Merger merger = new Row.Merger(count + 1, now, true);
+        // the merger is reused for consecutive rows, with one of its sources not having a row for the clustering
+        for (int round = 0; round < 2; round++)
+        {
+            merger.clear();
+            for (int i = 0; i < count; i++)
+            {
+                long ts = secondToTs(now) + i + round;
+                Row.Builder builder = BTreeRow.unsortedBuilder(now);
+                builder.newRow(c1);
+                if (i % 2 == 0)
+                    builder.addCell(BufferCell.live(v, ts, ByteBufferUtil.bytes(i)));
+                builder.addCell(BufferCell.live(m, ts, ByteBufferUtil.bytes(i), CellPath.create(ByteBufferUtil.bytes(i % 5))));
+                merger.add(i == 0 ? count : i, builder.build());
+            }
+
+            Row merged = merger.merge(DeletionTime.LIVE);
+            Assert.assertEquals(ByteBufferUtil.bytes(10), merged.getCell(v).value());
+            ComplexColumnData mData = merged.getComplexColumnData(m);
+            Assert.assertEquals(5, mData.cellsCount());
+            for (int key = 0; key < 5; key++)
+            {
+                int last = key + 10 < count ? key + 10 : key + 5;
+                Assert.assertEquals(ByteBufferUtil.bytes(last), mData.getCell(CellPath.create(ByteBufferUtil.bytes(key))).value());
+            }
+        }
+    }
+
     // Creates a dummy cell for a (regular) column for the provided name and without a cellPath.
     private static Cell liveCell(ColumnMetadata name)
     {
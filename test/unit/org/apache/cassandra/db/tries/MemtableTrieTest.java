@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.tries;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MemtableTrieTest
+{
+    private static final MemtableTrie.BufferAllocator HEAP = ByteBuffer::allocate;
+    private static final MemtableTrie.BufferAllocator DIRECT = ByteBuffer::allocateDirect;
+
+    @Test
+    public void testEmpty()
+    {
+        MemtableTrie<String> trie = new MemtableTrie<>();
+        assertTrue(trie.isEmpty());
+        assertNull(trie.get(key("a")));
+        assertTrue(!trie.valuesIterator().hasNext());
+    }
+
+    @Test
+    public void testPutIfAbsent()
+    {
+        MemtableTrie<String> trie = new MemtableTrie<>();
+        assertNull(trie.putIfAbsent(key("abc"), "abc", HEAP));
+        assertNull(trie.putIfAbsent(key("abd"), "abd", HEAP));
+        assertNull(trie.putIfAbsent(key("a"), "a", HEAP));
+        assertEquals("abc", trie.putIfAbsent(key("abc"), "other", HEAP));
+        assertEquals(3, trie.valuesCount());
+        assertEquals("abc", trie.get(key("abc")));
+        assertEquals("a", trie.get(key("a")));
+        assertNull(trie.get(key("ab")));
+        assertNull(trie.get(key("abcd")));
+        assertEquals(Lists.newArrayList("a", "abc", "abd"), Lists.newArrayList(trie.valuesIterator()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPrefixRejected()
+    {
+        MemtableTrie<String> trie = new MemtableTrie<>();
+        trie.putIfAbsent(ByteSource.fixedLength(new byte[]{ 1, 2, 3 }), "123", HEAP);
+        trie.putIfAbsent(ByteSource.fixedLength(new byte[]{ 1, 2 }), "12", HEAP);
+    }
+
+    @Test
+    public void testRandomHeap()
+    {
+        testRandom(HEAP, 0);
+    }
+
+    @Test
+    public void testRandomDirect()
+    {
+        testRandom(DIRECT, 1);
+    }
+
+    private void testRandom(MemtableTrie.BufferAllocator allocator, long seed)
+    {
+        Random random = new Random(seed);
+        MemtableTrie<ByteBuffer> trie = new MemtableTrie<>();
+        NavigableMap<ByteBuffer, ByteBuffer> expected = new TreeMap<>(ByteBufferUtil::compareUnsigned);
+        for (int i = 0; i < 20000; ++i)
+        {
+            // short keys over a small alphabet, to get a mix of chains, sparse and full nodes
+            byte[] bytes = new byte[1 + random.nextInt(12)];
+            for (int j = 0; j < bytes.length; ++j)
+                bytes[j] = (byte) (random.nextInt(4) == 0 ? random.nextInt(256) : random.nextInt(3));
+            ByteBuffer key = ByteBuffer.wrap(bytes);
+            ByteBuffer previous = trie.putIfAbsent(key(key), key, allocator);
+            assertEquals(expected.putIfAbsent(key, key), previous);
+        }
+
+        assertEquals(expected.size(), trie.valuesCount());
+        for (ByteBuffer key : expected.keySet())
+            assertEquals(key, trie.get(key(key)));
+        assertEquals(new ArrayList<>(expected.values()), Lists.newArrayList(trie.valuesIterator()));
+
+        List<ByteBuffer> keys = new ArrayList<>(expected.keySet());
+        for (int i = 0; i < 200; ++i)
+        {
+            ByteBuffer left = keys.get(random.nextInt(keys.size()));
+            ByteBuffer right = keys.get(random.nextInt(keys.size()));
+            if (ByteBufferUtil.compareUnsigned(left, right) > 0)
+            {
+                ByteBuffer t = left; left = right; right = t;
+            }
+            boolean includeLeft = random.nextBoolean();
+            boolean includeRight = random.nextBoolean();
+            assertEquals(new ArrayList<>(expected.subMap(left, includeLeft, right, includeRight).values()),
+                         Lists.newArrayList(trie.valuesIterator(key(left), includeLeft, key(right), includeRight)));
+            assertEquals(new ArrayList<>(expected.headMap(right, includeRight).values()),
+                         Lists.newArrayList(trie.valuesIterator(null, true, key(right), includeRight)));
+            assertEquals(new ArrayList<>(expected.tailMap(left, includeLeft).values()),
+                         Lists.newArrayList(trie.valuesIterator(key(left), includeLeft, null, true)));
+        }
+    }
+
+    // terminated, so that no key is a prefix of another
+    private static ByteSource key(String s)
+    {
+        return ByteSource.concat(ByteSource.of(s), ByteSource.oneByte(ByteSource.TERMINATOR));
+    }
+
+    private static ByteSource key(ByteBuffer b)
+    {
+        return ByteSource.concat(ByteSource.of(b), ByteSource.oneByte(ByteSource.TERMINATOR));
+    }
+}
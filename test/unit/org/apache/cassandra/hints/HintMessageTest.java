@@ -18,8 +18,12 @@
 package org.apache.cassandra.hints;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+import org.junit.BeforeClass;
 import org.junit.Test;
 
 import org.apache.cassandra.SchemaLoader;
@@ -30,6 +34,7 @@ import org.apache.cassandra.db.RowUpdateBuilder;
 import org.apache.cassandra.io.util.DataInputBuffer;
 import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.net.MessageOut;
 import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.schema.KeyspaceParams;
 import org.apache.cassandra.utils.FBUtilities;
@@ -44,12 +49,16 @@ public class HintMessageTest
     private static final String KEYSPACE = "hint_message_test";
     private static final String TABLE = "table";
 
-    @Test
-    public void testSerializer() throws IOException
+    @BeforeClass
+    public static void defineSchema()
     {
         SchemaLoader.prepareServer();
         SchemaLoader.createKeyspace(KEYSPACE, KeyspaceParams.simple(1), SchemaLoader.standardCFMD(KEYSPACE, TABLE));
+    }
 
+    @Test
+    public void testSerializer() throws IOException
+    {
         UUID hostId = UUID.randomUUID();
         long now = FBUtilities.timestampMicros();
 
@@ -76,4 +85,40 @@ public class HintMessageTest
         assertEquals(hostId, deserializedMessage.hostId);
         assertHintsEqual(message.hint, deserializedMessage.hint);
     }
+
+    @Test
+    public void testBatchSerializer() throws IOException
+    {
+        UUID hostId = UUID.randomUUID();
+        long now = FBUtilities.timestampMicros();
+        TableMetadata table = Schema.instance.getTableMetadata(KEYSPACE, TABLE);
+
+        List<Hint> hints = new ArrayList<>();
+        List<ByteBuffer> encodedHints = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            Mutation mutation = new RowUpdateBuilder(table, now, bytes("key" + i)).clustering("column").add("val", "val" + i).build();
+            Hint hint = Hint.create(mutation, now / 1000);
+            hints.add(hint);
+
+            DataOutputBuffer out = new DataOutputBuffer();
+            Hint.serializer.serialize(hint, out, MessagingService.current_version);
+            encodedHints.add(out.buffer());
+        }
+
+        // the encoded batch we send is read as a batch of hints
+        EncodedHintBatchMessage message = new EncodedHintBatchMessage(hostId, encodedHints, MessagingService.current_version);
+        DataOutputBuffer dob = new DataOutputBuffer();
+        MessageOut<EncodedHintBatchMessage> messageOut = message.createMessageOut();
+        int serializedSize = (int) messageOut.serializer.serializedSize(message, MessagingService.current_version);
+        messageOut.serializer.serialize(message, dob, MessagingService.current_version);
+        assertEquals(serializedSize, dob.getLength());
+
+        DataInputPlus di = new DataInputBuffer(dob.buffer(), true);
+        HintBatchMessage deserializedMessage = HintBatchMessage.serializer.deserialize(di, MessagingService.current_version);
+        assertEquals(hostId, deserializedMessage.hostId);
+        assertEquals(hints.size(), deserializedMessage.hints.size());
+        for (int i = 0; i < hints.size(); i++)
+            assertHintsEqual(hints.get(i), deserializedMessage.hints.get(i).hint);
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.hints;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+
+import static org.junit.Assert.assertEquals;
+
+public class HintsDispatchWindowTest
+{
+    @BeforeClass
+    public static void setupDD()
+    {
+        DatabaseDescriptor.daemonInitialization();
+        DatabaseDescriptor.setMaxHintsDispatchPagesInFlight(4);
+    }
+
+    @Test
+    public void testAdaptsToLatency()
+    {
+        HintsDispatchWindow window = new HintsDispatchWindow();
+        assertEquals(1, window.size());
+
+        // fast acknowledgements grow the window up to the configured maximum
+        for (int i = 0; i < 10; i++)
+            window.onAcknowledged(1000);
+        assertEquals(4, window.size());
+
+        // slow ones shrink it
+        window.onAcknowledged(10000);
+        assertEquals(3, window.size());
+        window.onAcknowledged(10000);
+        assertEquals(2, window.size());
+
+        // and failures halve it
+        window.onFailure();
+        assertEquals(1, window.size());
+        window.onFailure();
+        assertEquals(1, window.size());
+    }
+
+    @Test
+    public void testHonoursConfiguredMaximum()
+    {
+        HintsDispatchWindow window = new HintsDispatchWindow();
+        for (int i = 0; i < 10; i++)
+            window.onAcknowledged(1000);
+        assertEquals(4, window.size());
+
+        DatabaseDescriptor.setMaxHintsDispatchPagesInFlight(2);
+        try
+        {
+            assertEquals(2, window.size());
+        }
+        finally
+        {
+            DatabaseDescriptor.setMaxHintsDispatchPagesInFlight(4);
+        }
+    }
+}
@@ -34,6 +34,7 @@ import org.junit.Test;
 
 import com.datastax.driver.core.utils.MoreFutures;
 import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.db.DecoratedKey;
@@ -65,6 +66,8 @@ public class HintsServiceTest
     public static void defineSchema()
     {
         SchemaLoader.prepareServer();
+        // most tests count the hints sent, so send each in its own message
+        DatabaseDescriptor.setHintsDispatchBatchSize(1);
         StorageService.instance.initServer();
         SchemaLoader.createKeyspace(KEYSPACE,
                 KeyspaceParams.simple(1),
@@ -111,6 +114,31 @@ public class HintsServiceTest
         spy.interceptNoMsg(500, TimeUnit.MILLISECONDS).get();
     }
 
+    @Test
+    public void testDispatchHintBatches() throws InterruptedException, ExecutionException
+    {
+        DatabaseDescriptor.setHintsDispatchBatchSize(10);
+        try
+        {
+            MockMessagingSpy spy = sendHintsAndResponses(MessagingService.Verb.HINT_BATCH, 100, -1);
+
+            // the hints are sent by batches of at most 10
+            int hints = 0;
+            while (hints < 100)
+            {
+                HintBatchMessage message = (HintBatchMessage) spy.captureMessageOut().get().payload;
+                assertTrue(message.hints.size() <= 10);
+                hints += message.hints.size();
+            }
+            assertEquals(100, hints);
+            spy.interceptNoMsg(500, TimeUnit.MILLISECONDS).get();
+        }
+        finally
+        {
+            DatabaseDescriptor.setHintsDispatchBatchSize(1);
+        }
+    }
+
     @Test
     public void testPauseAndResume() throws InterruptedException, ExecutionException
     {
@@ -180,6 +208,11 @@ public class HintsServiceTest
     }
 
     private MockMessagingSpy sendHintsAndResponses(int noOfHints, int noOfResponses)
+    {
+        return sendHintsAndResponses(MessagingService.Verb.HINT, noOfHints, noOfResponses);
+    }
+
+    private MockMessagingSpy sendHintsAndResponses(MessagingService.Verb verb, int noOfHints, int noOfResponses)
     {
         // create spy for hint messages, but only create responses for noOfResponses hints
         MessageIn<HintResponse> messageIn = MessageIn.create(FBUtilities.getBroadcastAddress(),
@@ -191,11 +224,11 @@ public class HintsServiceTest
         MockMessagingSpy spy;
         if (noOfResponses != -1)
         {
-            spy = MockMessagingService.when(verb(MessagingService.Verb.HINT)).respondN(messageIn, noOfResponses);
+            spy = MockMessagingService.when(verb(verb)).respondN(messageIn, noOfResponses);
         }
         else
         {
-            spy = MockMessagingService.when(verb(MessagingService.Verb.HINT)).respond(messageIn);
+            spy = MockMessagingService.when(verb(verb)).respond(messageIn);
         }
 
         // create and write noOfHints using service
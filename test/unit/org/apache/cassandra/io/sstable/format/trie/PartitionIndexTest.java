@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.format.trie;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.PartitionPosition;
+import org.apache.cassandra.dht.ByteOrderedPartitioner;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.io.util.FileHandle;
+import org.apache.cassandra.io.util.SequentialWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionIndexTest
+{
+    private static final Random random = new Random();
+
+    @BeforeClass
+    public static void setupDD()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    @Test
+    public void testMurmur3Keys() throws IOException
+    {
+        testLookups(Murmur3Partitioner.instance, 10000, 8);
+    }
+
+    @Test
+    public void testByteOrderedKeys() throws IOException
+    {
+        // short keys over a small alphabet share long prefixes and are often prefixes of each other
+        testLookups(ByteOrderedPartitioner.instance, 2000, 6);
+    }
+
+    @Test
+    public void testSingleKey() throws IOException
+    {
+        testLookups(Murmur3Partitioner.instance, 1, 8);
+    }
+
+    @Test
+    public void testEmpty() throws IOException
+    {
+        try (PartitionIndex index = build(Collections.emptyList()))
+        {
+            DecoratedKey key = Murmur3Partitioner.instance.decorateKey(ByteBuffer.allocate(1));
+            assertEquals(PartitionIndex.NOT_FOUND, index.exactCandidate(key));
+            assertEquals(PartitionIndex.NOT_FOUND, index.ceilingCandidate(key));
+        }
+    }
+
+    @Test
+    public void testResetToMark() throws IOException
+    {
+        long seed = random.nextLong();
+        Random rand = new Random(seed);
+        TreeSet<DecoratedKey> keySet = new TreeSet<>();
+        while (keySet.size() < 2000)
+            keySet.add(randomKey(ByteOrderedPartitioner.instance, rand, 6));
+        List<DecoratedKey> all = new ArrayList<>(keySet);
+
+        // reset some keys after adding them, including the first and the last ones
+        Set<DecoratedKey> removed = new HashSet<>();
+        removed.add(all.get(0));
+        removed.add(all.get(all.size() - 1));
+        for (DecoratedKey key : all)
+            if (rand.nextInt(3) == 0)
+                removed.add(key);
+        List<DecoratedKey> keys = new ArrayList<>(all);
+        keys.removeAll(removed);
+
+        try (PartitionIndex index = build(all, removed))
+        {
+            for (int i = 0; i < keys.size(); i++)
+            {
+                assertEquals("seed " + seed, i, index.exactCandidate(keys.get(i)));
+                assertEquals("seed " + seed, i, index.ceilingCandidate(keys.get(i)));
+            }
+
+            for (DecoratedKey key : removed)
+            {
+                long candidate = index.exactCandidate(key);
+                assertTrue("seed " + seed, candidate == PartitionIndex.NOT_FOUND || !keys.get((int) candidate).equals(key));
+                checkCeiling(index, keys, key, seed);
+            }
+        }
+    }
+
+    private void testLookups(IPartitioner partitioner, int count, int maxKeyLength) throws IOException
+    {
+        long seed = random.nextLong();
+        Random rand = new Random(seed);
+        TreeSet<DecoratedKey> keySet = new TreeSet<>();
+        while (keySet.size() < count)
+            keySet.add(randomKey(partitioner, rand, maxKeyLength));
+        List<DecoratedKey> keys = new ArrayList<>(keySet);
+
+        try (PartitionIndex index = build(keys))
+        {
+            for (int i = 0; i < keys.size(); i++)
+            {
+                assertEquals("seed " + seed, i, index.exactCandidate(keys.get(i)));
+                assertEquals("seed " + seed, i, index.ceilingCandidate(keys.get(i)));
+            }
+
+            for (int i = 0; i < count; i++)
+            {
+                DecoratedKey key = randomKey(partitioner, rand, maxKeyLength);
+                long candidate = index.exactCandidate(key);
+                if (keySet.contains(key))
+                    assertEquals("seed " + seed, Collections.binarySearch(keys, key), candidate);
+                else
+                    assertTrue("seed " + seed, candidate == PartitionIndex.NOT_FOUND || !keys.get((int) candidate).equals(key));
+
+                checkCeiling(index, keys, key, seed);
+                checkCeiling(index, keys, key.getToken().minKeyBound(), seed);
+                checkCeiling(index, keys, key.getToken().maxKeyBound(), seed);
+            }
+        }
+    }
+
+    private static void checkCeiling(PartitionIndex index, List<DecoratedKey> keys, PartitionPosition key, long seed) throws IOException
+    {
+        int low = 0, high = keys.size();
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (keys.get(mid).compareTo(key) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        int ceiling = low;
+
+        long candidate = index.ceilingCandidate(key);
+        if (candidate == PartitionIndex.NOT_FOUND)
+        {
+            assertEquals("seed " + seed, keys.size(), ceiling);
+            return;
+        }
+        // the candidate is either the ceiling, or the entry right before it
+        assertTrue("seed " + seed, candidate == ceiling || candidate == ceiling - 1);
+        if (candidate == ceiling - 1)
+            assertTrue("seed " + seed, keys.get((int) candidate).compareTo(key) < 0);
+    }
+
+    private static DecoratedKey randomKey(IPartitioner partitioner, Random rand, int maxKeyLength)
+    {
+        byte[] bytes = new byte[1 + rand.nextInt(maxKeyLength)];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) rand.nextInt(4);
+        return partitioner.decorateKey(ByteBuffer.wrap(bytes));
+    }
+
+    private static PartitionIndex build(List<DecoratedKey> keys) throws IOException
+    {
+        return build(keys, Collections.emptySet());
+    }
+
+    /**
+     * Builds an index over the given keys, resetting the ones in {@code removed} after adding them, and numbering the
+     * others in order.
+     */
+    private static PartitionIndex build(List<DecoratedKey> keys, Set<DecoratedKey> removed) throws IOException
+    {
+        File file = File.createTempFile("PartitionIndexTest", "Partitions.db");
+        file.deleteOnExit();
+        try (SequentialWriter writer = new SequentialWriter(file))
+        {
+            PartitionIndexBuilder builder = new PartitionIndexBuilder(writer);
+            int position = 0;
+            for (DecoratedKey key : keys)
+            {
+                builder.mark();
+                builder.addEntry(key, position);
+                if (removed.contains(key))
+                    builder.resetToMark();
+                else
+                    position++;
+            }
+            builder.complete();
+            writer.finish();
+        }
+        try (FileHandle.Builder builder = new FileHandle.Builder(file.getPath()))
+        {
+            return new PartitionIndex(builder.complete());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.format.trie;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.format.SSTableFormat;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrieIndexFormatTest extends CQLTester
+{
+    @After
+    public void resetFormat()
+    {
+        DatabaseDescriptor.setSSTableFormat(SSTableFormat.Type.BIG);
+    }
+
+    @Test
+    public void testReadWrite() throws Throwable
+    {
+        DatabaseDescriptor.setSSTableFormat(SSTableFormat.Type.TRIE_INDEX);
+        createTable("CREATE TABLE %s (pk int, ck int, v int, PRIMARY KEY (pk, ck))");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+
+        for (int pk = 0; pk < 100; pk++)
+            for (int ck = 0; ck < 10; ck++)
+                execute("INSERT INTO %s (pk, ck, v) VALUES (?, ?, ?)", pk, ck, pk + ck);
+        execute("DELETE FROM %s WHERE pk = ?", 50);
+        flush();
+
+        assertEquals(1, cfs.getLiveSSTables().size());
+        for (SSTableReader sstable : cfs.getLiveSSTables())
+        {
+            assertEquals(SSTableFormat.Type.TRIE_INDEX, sstable.descriptor.formatType);
+            assertTrue(SSTableReader.componentsFor(sstable.descriptor).contains(Component.PARTITION_INDEX));
+        }
+        checkContents();
+
+        for (int pk = 100; pk < 200; pk++)
+            execute("INSERT INTO %s (pk, ck, v) VALUES (?, ?, ?)", pk, 0, pk);
+        flush();
+        compact();
+        assertEquals(1, cfs.getLiveSSTables().size());
+        checkContents();
+        assertRowCount(execute("SELECT * FROM %s WHERE pk = ?", 150), 1);
+    }
+
+    @Test
+    public void testMixedFormats() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, v int, PRIMARY KEY (pk, ck))");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+
+        for (int pk = 0; pk < 100; pk++)
+            for (int ck = 0; ck < 5; ck++)
+                execute("INSERT INTO %s (pk, ck, v) VALUES (?, ?, ?)", pk, ck, pk + ck);
+        flush();
+
+        DatabaseDescriptor.setSSTableFormat(SSTableFormat.Type.TRIE_INDEX);
+        for (int pk = 0; pk < 100; pk++)
+            for (int ck = 5; ck < 10; ck++)
+                execute("INSERT INTO %s (pk, ck, v) VALUES (?, ?, ?)", pk, ck, pk + ck);
+        execute("DELETE FROM %s WHERE pk = ?", 50);
+        flush();
+
+        assertEquals(2, cfs.getLiveSSTables().size());
+        checkContents();
+
+        compact();
+        for (SSTableReader sstable : cfs.getLiveSSTables())
+            assertEquals(SSTableFormat.Type.TRIE_INDEX, sstable.descriptor.formatType);
+        checkContents();
+    }
+
+    private void checkContents() throws Throwable
+    {
+        assertRows(execute("SELECT v FROM %s WHERE pk = ? AND ck = ?", 7, 3), row(10));
+        assertRows(execute("SELECT v FROM %s WHERE pk = ? ORDER BY ck DESC LIMIT 1", 7), row(16));
+        assertEmpty(execute("SELECT v FROM %s WHERE pk = ?", 50));
+        assertEmpty(execute("SELECT v FROM %s WHERE pk = ?", 1000));
+        assertRowCount(execute("SELECT * FROM %s WHERE pk IN (1, 2, 3, 1000)"), 30);
+        assertRowCount(execute("SELECT * FROM %s WHERE token(pk) >= token(?) AND token(pk) <= token(?)", 7, 7), 10);
+        assertRowCount(execute("SELECT * FROM %s WHERE token(pk) > token(?) AND token(pk) < token(?)", 7, 7), 0);
+
+        // range reads, over the whole table and starting from either side of a partition
+        assertRowCount(execute("SELECT * FROM %s WHERE pk < 100 ALLOW FILTERING"), 990);
+        for (int pk = 0; pk < 100; pk += 7)
+        {
+            int after = execute("SELECT * FROM %s WHERE token(pk) > token(?) AND pk < 100 ALLOW FILTERING", pk).size();
+            int before = execute("SELECT * FROM %s WHERE token(pk) <= token(?) AND pk < 100 ALLOW FILTERING", pk).size();
+            assertEquals(990, after + before);
+        }
+    }
+}
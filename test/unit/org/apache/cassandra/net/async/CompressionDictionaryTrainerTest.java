@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.net.async;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.cassandra.config.Config.InternodeCompressor;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService.Verb;
+
+public class CompressionDictionaryTrainerTest
+{
+    @BeforeClass
+    public static void before()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    @After
+    public void tearDown()
+    {
+        DatabaseDescriptor.setInternodeCompressor(InternodeCompressor.lz4);
+    }
+
+    private static ByteBuf serialized(int size, byte value)
+    {
+        ByteBuf buf = Unpooled.buffer(size);
+        for (int i = 0; i < size; i++)
+            buf.writeByte(value);
+        return buf;
+    }
+
+    /**
+     * Serializes enough messages of the given verb for one of them to be sampled.
+     */
+    private static void sample(CompressionDictionaryTrainer trainer, Verb verb, int size, byte value)
+    {
+        for (int i = 0; i < CompressionDictionaryTrainer.SAMPLE_INTERVAL; i++)
+            trainer.maybeSample(new MessageOut<>(verb), serialized(size, value), 0);
+    }
+
+    @Test
+    public void disabled()
+    {
+        CompressionDictionaryTrainer trainer = new CompressionDictionaryTrainer();
+        sample(trainer, Verb.ECHO, 100, (byte) 1);
+        Assert.assertNull(trainer.dictionary());
+        Assert.assertNull(trainer.dictionary(1024));
+    }
+
+    @Test
+    public void mostRecentSourcesLast()
+    {
+        DatabaseDescriptor.setInternodeCompressor(InternodeCompressor.deflate);
+        CompressionDictionaryTrainer trainer = new CompressionDictionaryTrainer();
+        Assert.assertNull(trainer.dictionary());
+
+        sample(trainer, Verb.ECHO, 100, (byte) 1);
+        sample(trainer, Verb.GOSSIP_DIGEST_SYN, 100, (byte) 2);
+        sample(trainer, Verb.ECHO, 100, (byte) 3);
+
+        // one sample per source, the most recently sampled source last
+        byte[] dictionary = trainer.dictionary(1024);
+        Assert.assertEquals(200, dictionary.length);
+        Assert.assertEquals(2, dictionary[0]);
+        Assert.assertEquals(3, dictionary[199]);
+
+        // only what fits, starting from the most recent source
+        dictionary = trainer.dictionary(150);
+        Assert.assertEquals(100, dictionary.length);
+        Assert.assertEquals(3, dictionary[0]);
+    }
+
+    @Test
+    public void samplesAreBounded()
+    {
+        DatabaseDescriptor.setInternodeCompressor(InternodeCompressor.deflate);
+        CompressionDictionaryTrainer trainer = new CompressionDictionaryTrainer();
+        sample(trainer, Verb.ECHO, CompressionDictionaryTrainer.MAX_SAMPLE_SIZE * 2, (byte) 1);
+        Assert.assertEquals(CompressionDictionaryTrainer.MAX_SAMPLE_SIZE, trainer.dictionary().length);
+    }
+
+    @Test
+    public void dictionaryIsRebuiltPeriodically()
+    {
+        DatabaseDescriptor.setInternodeCompressor(InternodeCompressor.deflate);
+        CompressionDictionaryTrainer trainer = new CompressionDictionaryTrainer();
+        sample(trainer, Verb.ECHO, 100, (byte) 1);
+        byte[] first = trainer.dictionary();
+        Assert.assertEquals(100, first.length);
+
+        // the same dictionary is used until enough new samples are taken
+        for (int i = 1; i < CompressionDictionaryTrainer.REFRESH_INTERVAL; i++)
+            sample(trainer, Verb.GOSSIP_DIGEST_SYN, 100, (byte) 2);
+        Assert.assertSame(first, trainer.dictionary());
+
+        sample(trainer, Verb.GOSSIP_DIGEST_SYN, 100, (byte) 2);
+        byte[] second = trainer.dictionary();
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(200, second.length);
+        Assert.assertEquals(2, second[199]);
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.net.async;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import java.util.zip.Deflater;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+public class DeflateBatchEncoderTest
+{
+    private EmbeddedChannel outbound;
+    private EmbeddedChannel inbound;
+
+    @After
+    public void tearDown()
+    {
+        if (outbound != null)
+            outbound.finishAndReleaseAll();
+        if (inbound != null)
+            inbound.finishAndReleaseAll();
+    }
+
+    private static byte[] message(Random random, int size)
+    {
+        // messages sharing most of their content, like the mutations of a same table
+        byte[] message = new byte[size];
+        for (int i = 0; i < size; i++)
+            message[i] = (byte) (i % 7 == 0 ? random.nextInt() : i);
+        return message;
+    }
+
+    /**
+     * Writes the messages through a {@link DeflateBatchEncoder}, flushing every {@code batchSize} messages, and returns
+     * the compressed bytes.
+     */
+    private ByteBuf compress(byte[] dictionary, byte[][] messages, int batchSize)
+    {
+        return compress(new DeflateBatchEncoder(Deflater.BEST_SPEED, dictionary), messages, batchSize, null);
+    }
+
+    /**
+     * @param beforeMessage if not null, run before writing each message, with its index
+     */
+    private ByteBuf compress(DeflateBatchEncoder encoder, byte[][] messages, int batchSize, IntConsumer beforeMessage)
+    {
+        outbound = new EmbeddedChannel(encoder);
+        ByteBuf compressed = Unpooled.buffer();
+        for (int i = 0; i < messages.length; i++)
+        {
+            if (beforeMessage != null)
+                beforeMessage.accept(i);
+            outbound.write(Unpooled.wrappedBuffer(messages[i]));
+            if ((i + 1) % batchSize == 0 || i == messages.length - 1)
+                outbound.flush();
+
+            ByteBuf buf;
+            while ((buf = outbound.readOutbound()) != null)
+            {
+                compressed.writeBytes(buf);
+                buf.release();
+            }
+        }
+        return compressed;
+    }
+
+    private void assertDecompresses(byte[] dictionary, ByteBuf compressed, byte[][] messages)
+    {
+        inbound = new EmbeddedChannel(new DeflateBatchDecoder(dictionary));
+        inbound.writeInbound(compressed);
+        ByteBuf decompressed = Unpooled.buffer();
+        ByteBuf buf;
+        while ((buf = inbound.readInbound()) != null)
+        {
+            decompressed.writeBytes(buf);
+            buf.release();
+        }
+
+        for (byte[] message : messages)
+        {
+            byte[] actual = new byte[message.length];
+            decompressed.readBytes(actual);
+            Assert.assertArrayEquals(message, actual);
+        }
+        Assert.assertFalse(decompressed.isReadable());
+    }
+
+    @Test
+    public void roundTrip()
+    {
+        Random random = new Random(42);
+        byte[][] messages = new byte[100][];
+        for (int i = 0; i < messages.length; i++)
+            messages[i] = message(random, 100 + random.nextInt(400));
+
+        assertDecompresses(null, compress(null, messages, 1), messages);
+        assertDecompresses(null, compress(null, messages, 10), messages);
+    }
+
+    @Test
+    public void roundTripWithDictionary()
+    {
+        Random random = new Random(42);
+        byte[] dictionary = message(random, 1024);
+        byte[][] messages = new byte[100][];
+        for (int i = 0; i < messages.length; i++)
+            messages[i] = message(random, 200);
+
+        assertDecompresses(dictionary, compress(dictionary, messages, 5), messages);
+    }
+
+    @Test
+    public void compressesOnFlush()
+    {
+        Random random = new Random(42);
+        outbound = new EmbeddedChannel(new DeflateBatchEncoder(Deflater.BEST_SPEED, null));
+        for (int i = 0; i < 10; i++)
+            outbound.write(Unpooled.wrappedBuffer(message(random, 100)));
+        outbound.flush();
+
+        // the messages are buffered by the compressor, at most a frame of the stream header comes out before the flush
+        int beforeFlush = 0;
+        for (int i = 0; i < 10; i++)
+        {
+            ByteBuf buf = outbound.readOutbound();
+            beforeFlush += buf.readableBytes();
+            buf.release();
+        }
+        Assert.assertTrue(String.valueOf(beforeFlush), beforeFlush <= DeflateBatchEncoder.FRAME_HEADER_SIZE + 2);
+
+        ByteBuf buf = outbound.readOutbound();
+        Assert.assertTrue(buf.isReadable());
+        buf.release();
+        Assert.assertNull(outbound.readOutbound());
+    }
+
+    @Test
+    public void batchingCompressesBetter()
+    {
+        Random random = new Random(42);
+        byte[] dictionary = message(random, 1024);
+        byte[][] messages = new byte[100][];
+        for (int i = 0; i < messages.length; i++)
+            messages[i] = message(random, 200);
+
+        int unbatched = compress(null, messages, 1).readableBytes();
+        int batched = compress(null, messages, 10).readableBytes();
+        int primed = compress(dictionary, messages, 10).readableBytes();
+        Assert.assertTrue(unbatched + " <= " + batched, batched < unbatched);
+        Assert.assertTrue(batched + " <= " + primed, primed < batched);
+    }
+
+    @Test
+    public void switchesDictionaryBetweenBatches()
+    {
+        Random random = new Random(42);
+        byte[] first = message(random, 1024);
+        byte[] second = message(random, 1024);
+        byte[][] messages = new byte[100][];
+        for (int i = 0; i < messages.length; i++)
+            messages[i] = message(random, 200);
+
+        // the dictionary changes in the middle of a batch, and is only picked up by the next one
+        AtomicReference<byte[]> latest = new AtomicReference<>(first);
+        DeflateBatchEncoder encoder = new DeflateBatchEncoder(Deflater.BEST_SPEED, first, latest::get);
+        ByteBuf compressed = compress(encoder, messages, 10, i -> {
+            if (i == 35)
+                latest.set(second);
+            else if (i == 72)
+                latest.set(null);
+        });
+
+        Assert.assertEquals(1, dictionaryFrames(compressed));
+
+        // the decoder only knows the handshake dictionary
+        assertDecompresses(first, compressed, messages);
+
+        // the connection starts without a dictionary, and picks up the first one
+        latest.set(null);
+        encoder = new DeflateBatchEncoder(Deflater.BEST_SPEED, null, latest::get);
+        compressed = compress(encoder, messages, 10, i -> {
+            if (i == 20)
+                latest.set(first);
+        });
+        Assert.assertEquals(1, dictionaryFrames(compressed));
+        assertDecompresses(null, compressed, messages);
+    }
+
+    private static int dictionaryFrames(ByteBuf compressed)
+    {
+        int count = 0;
+        for (int i = compressed.readerIndex(); i < compressed.writerIndex(); i += DeflateBatchEncoder.FRAME_HEADER_SIZE + compressed.getInt(i + 1 + Integer.BYTES))
+        {
+            if (compressed.getByte(i) == DeflateBatchEncoder.DICTIONARY_FRAME)
+                count++;
+        }
+        return count;
+    }
+}
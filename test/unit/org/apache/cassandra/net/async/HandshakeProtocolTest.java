@@ -24,6 +24,7 @@ import org.junit.Test;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.PooledByteBufAllocator;
+import org.apache.cassandra.config.Config.InternodeCompressor;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.net.async.HandshakeProtocol.FirstHandshakeMessage;
@@ -59,15 +60,22 @@ public class HandshakeProtocolTest
         firstMessageTest(NettyFactory.Mode.MESSAGING, true);
         firstMessageTest(NettyFactory.Mode.STREAMING, false);
         firstMessageTest(NettyFactory.Mode.STREAMING, true);
+        firstMessageTest(NettyFactory.Mode.MESSAGING, true, InternodeCompressor.deflate);
     }
 
     private void firstMessageTest(NettyFactory.Mode mode, boolean compression) throws Exception
     {
-        FirstHandshakeMessage before = new FirstHandshakeMessage(MessagingService.current_version, mode, compression);
+        firstMessageTest(mode, compression, InternodeCompressor.lz4);
+    }
+
+    private void firstMessageTest(NettyFactory.Mode mode, boolean compression, InternodeCompressor compressor) throws Exception
+    {
+        FirstHandshakeMessage before = new FirstHandshakeMessage(MessagingService.current_version, mode, compression, compressor);
         buf = before.encode(PooledByteBufAllocator.DEFAULT);
         FirstHandshakeMessage after = FirstHandshakeMessage.maybeDecode(buf);
         assertEquals(before, after);
         assertEquals(before.hashCode(), after.hashCode());
+        assertEquals(compression && compressor == InternodeCompressor.deflate, after.isDeflateCompressed());
         Assert.assertFalse(before.equals(null));
     }
 
@@ -92,4 +100,30 @@ public class HandshakeProtocolTest
         assertEquals(before.hashCode(), after.hashCode());
         Assert.assertFalse(before.equals(null));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void thirdMessageWithCompressionDictionaryTest() throws Exception
+    {
+        thirdMessageWithCompressionDictionaryTest(new byte[0]);
+        thirdMessageWithCompressionDictionaryTest(new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+    }
+
+    private void thirdMessageWithCompressionDictionaryTest(byte[] dictionary)
+    {
+        ThirdHandshakeMessage before = new ThirdHandshakeMessage(MessagingService.current_version, FBUtilities.getBroadcastAddress(), dictionary);
+        buf = before.encode(PooledByteBufAllocator.DEFAULT);
+
+        // not all of the dictionary has been received yet
+        int length = buf.writerIndex();
+        buf.writerIndex(length - 1);
+        Assert.assertNull(ThirdHandshakeMessage.maybeDecode(buf, true));
+        assertEquals(0, buf.readerIndex());
+        buf.writerIndex(length);
+
+        ThirdHandshakeMessage after = ThirdHandshakeMessage.maybeDecode(buf, true);
+        assertEquals(before, after);
+        assertEquals(before.hashCode(), after.hashCode());
+        Assert.assertFalse(buf.isReadable());
+        buf.release();
+    }
+}
@@ -34,8 +34,11 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.apache.cassandra.auth.AllowAllInternodeAuthenticator;
 import org.apache.cassandra.auth.IInternodeAuthenticator;
@@ -49,8 +52,12 @@ import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.net.MessagingServiceTest;
 import org.apache.cassandra.net.async.OutboundHandshakeHandler.HandshakeResult;
 import org.apache.cassandra.net.async.OutboundMessagingConnection.State;
+import org.apache.cassandra.net.async.PriorityBacklog.Lane;
 
 import static org.apache.cassandra.net.MessagingService.Verb.ECHO;
+import static org.apache.cassandra.net.MessagingService.Verb.MUTATION;
+import static org.apache.cassandra.net.MessagingService.Verb.READ;
+import static org.apache.cassandra.net.MessagingService.Verb.REQUEST_RESPONSE;
 import static org.apache.cassandra.net.async.OutboundMessagingConnection.State.CLOSED;
 import static org.apache.cassandra.net.async.OutboundMessagingConnection.State.CREATING_CHANNEL;
 import static org.apache.cassandra.net.async.OutboundMessagingConnection.State.NOT_READY;
@@ -113,6 +120,46 @@ public class OutboundMessagingConnectionTest
         Assert.assertTrue(channel.releaseOutbound());
     }
 
+    @Test
+    public void sendMessage_ReadyWithBacklog()
+    {
+        omc.setState(CREATING_CHANNEL);
+        for (int i = 0; i < 3; i++)
+            omc.sendMessage(new MessageOut<>(MUTATION), i);
+        omc.sendMessage(new MessageOut<>(REQUEST_RESPONSE), 3);
+        Assert.assertEquals(4, omc.backlogSize());
+        Assert.assertEquals(3, omc.backlogSize(Lane.WRITE));
+        Assert.assertEquals(1, omc.backlogSize(Lane.RESPONSE));
+
+        // while messages are waiting, new ones wait behind them, and all go out by priority
+        omc.setState(READY);
+        Assert.assertFalse(omc.sendMessage(new MessageOut<>(READ), 4));
+        Assert.assertEquals(5, omc.backlogSize());
+        channel.runPendingTasks();
+        Assert.assertEquals(0, omc.backlogSize());
+
+        Assert.assertEquals(REQUEST_RESPONSE, ((QueuedMessage) channel.readOutbound()).message.verb);
+        Assert.assertEquals(READ, ((QueuedMessage) channel.readOutbound()).message.verb);
+        for (int i = 0; i < 3; i++)
+            Assert.assertEquals(MUTATION, ((QueuedMessage) channel.readOutbound()).message.verb);
+        Assert.assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void sendMessage_NotWritable()
+    {
+        omc.setState(READY);
+        channel.config().setOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(1, 2));
+        ByteBuf buf = channel.alloc().buffer(8, 8);
+        channel.unsafe().outboundBuffer().addMessage(buf, buf.capacity(), channel.newPromise());
+        Assert.assertFalse(channel.isWritable());
+
+        Assert.assertFalse(omc.sendMessage(new MessageOut<>(ECHO), 1));
+        Assert.assertEquals(1, omc.backlogSize());
+        Assert.assertEquals(1, omc.backlogSize(Lane.OTHER));
+        buf.release();
+    }
+
     @Test
     public void sendMessage_Closed()
     {
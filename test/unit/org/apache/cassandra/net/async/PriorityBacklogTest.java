@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.net.async;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService.Verb;
+import org.apache.cassandra.net.async.PriorityBacklog.Lane;
+
+import static org.apache.cassandra.net.MessagingService.Verb.DEFINITIONS_UPDATE;
+import static org.apache.cassandra.net.MessagingService.Verb.ECHO;
+import static org.apache.cassandra.net.MessagingService.Verb.MUTATION;
+import static org.apache.cassandra.net.MessagingService.Verb.READ;
+import static org.apache.cassandra.net.MessagingService.Verb.REQUEST_RESPONSE;
+
+public class PriorityBacklogTest
+{
+    @BeforeClass
+    public static void before()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    private static QueuedMessage message(Verb verb)
+    {
+        return new QueuedMessage(new MessageOut<>(verb), 0);
+    }
+
+    private static void assertPolled(PriorityBacklog backlog, Verb verb, int count)
+    {
+        for (int i = 0; i < count; i++)
+            Assert.assertEquals(verb, backlog.poll().message.verb);
+    }
+
+    @Test
+    public void classify()
+    {
+        Assert.assertEquals(Lane.RESPONSE, Lane.of(REQUEST_RESPONSE));
+        Assert.assertEquals(Lane.READ, Lane.of(READ));
+        Assert.assertEquals(Lane.READ, Lane.of(Verb.READ_REPAIR));
+        Assert.assertEquals(Lane.WRITE, Lane.of(MUTATION));
+        Assert.assertEquals(Lane.OTHER, Lane.of(ECHO));
+        Assert.assertEquals(Lane.ORDERED, Lane.of(DEFINITIONS_UPDATE));
+    }
+
+    @Test
+    public void empty()
+    {
+        PriorityBacklog backlog = new PriorityBacklog();
+        Assert.assertTrue(backlog.isEmpty());
+        Assert.assertEquals(0, backlog.size());
+        Assert.assertNull(backlog.poll());
+    }
+
+    @Test
+    public void fifoWithinLane()
+    {
+        PriorityBacklog backlog = new PriorityBacklog();
+        QueuedMessage first = message(MUTATION);
+        QueuedMessage second = message(MUTATION);
+        backlog.add(first);
+        backlog.add(second);
+        Assert.assertSame(first, backlog.poll());
+        Assert.assertSame(second, backlog.poll());
+        Assert.assertNull(backlog.poll());
+    }
+
+    @Test
+    public void weightedRoundRobin()
+    {
+        PriorityBacklog backlog = new PriorityBacklog();
+        for (int i = 0; i < 20; i++)
+            backlog.add(message(MUTATION));
+        for (int i = 0; i < 20; i++)
+            backlog.add(message(REQUEST_RESPONSE));
+        backlog.add(message(ECHO));
+
+        Assert.assertEquals(41, backlog.size());
+        Assert.assertEquals(20, backlog.size(Lane.WRITE));
+        Assert.assertEquals(20, backlog.size(Lane.RESPONSE));
+        Assert.assertEquals(1, backlog.size(Lane.OTHER));
+
+        // responses get their weight worth of messages, then writes theirs, and the other lane still gets its turn
+        assertPolled(backlog, REQUEST_RESPONSE, Lane.RESPONSE.weight);
+        assertPolled(backlog, MUTATION, Lane.WRITE.weight);
+        Assert.assertEquals(ECHO, backlog.poll().message.verb);
+
+        // and so on, until a lane is empty and the others get all the messages
+        assertPolled(backlog, REQUEST_RESPONSE, Lane.RESPONSE.weight);
+        assertPolled(backlog, MUTATION, Lane.WRITE.weight);
+        assertPolled(backlog, REQUEST_RESPONSE, 20 - 2 * Lane.RESPONSE.weight);
+        assertPolled(backlog, MUTATION, 20 - 2 * Lane.WRITE.weight);
+        Assert.assertNull(backlog.poll());
+
+        Assert.assertEquals(20, backlog.waitLatency(Lane.RESPONSE).getCount());
+        Assert.assertEquals(20, backlog.waitLatency(Lane.WRITE).getCount());
+        Assert.assertEquals(1, backlog.waitLatency(Lane.OTHER).getCount());
+    }
+
+    @Test
+    public void orderedMessagesAreNotReordered()
+    {
+        PriorityBacklog backlog = new PriorityBacklog();
+        for (int i = 0; i < 4; i++)
+            backlog.add(message(MUTATION));
+        backlog.add(message(DEFINITIONS_UPDATE));
+        for (int i = 0; i < 4; i++)
+            backlog.add(message(REQUEST_RESPONSE));
+        backlog.add(message(MUTATION));
+        Assert.assertEquals(1, backlog.size(Lane.ORDERED));
+
+        // the messages queued before the schema change go first, and the ones queued after it wait for it
+        assertPolled(backlog, MUTATION, 4);
+        assertPolled(backlog, DEFINITIONS_UPDATE, 1);
+        assertPolled(backlog, REQUEST_RESPONSE, 4);
+        assertPolled(backlog, MUTATION, 1);
+        Assert.assertNull(backlog.poll());
+    }
+
+    @Test
+    public void clear()
+    {
+        PriorityBacklog backlog = new PriorityBacklog();
+        backlog.add(message(MUTATION));
+        backlog.add(message(READ));
+        Assert.assertEquals(2, backlog.size());
+        backlog.clear();
+        Assert.assertTrue(backlog.isEmpty());
+        Assert.assertEquals(0, backlog.size(Lane.WRITE));
+        Assert.assertNull(backlog.poll());
+    }
+}
@@ -36,12 +36,14 @@ import org.apache.cassandra.cql3.statements.CreateTableStatement;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.Keyspace;
 import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.db.TrieMemtable;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.db.rows.UnfilteredRowIterators;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.utils.FBUtilities;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class SchemaKeyspaceTest
@@ -95,6 +97,42 @@ public class SchemaKeyspaceTest
         assertEquals(extensions, metadata.params.extensions);
     }
 
+    @Test
+    public void testMemtableParams()
+    {
+        String keyspace = "SandBox";
+
+        createTable(keyspace, "CREATE TABLE memtable_test (a text primary key, b int)");
+
+        // the default params aren't written, so that the schema digest doesn't change on upgrade
+        TableMetadata metadata = Schema.instance.getTableMetadata(keyspace, "memtable_test");
+        assertEquals(MemtableParams.DEFAULT, metadata.params.memtable);
+        assertFalse(readTableRow(keyspace, "memtable_test").has("memtable"));
+
+        MemtableParams trie = MemtableParams.create(TrieMemtable.class, ImmutableMap.of());
+        TableMetadata copy = metadata.unbuild().params(TableParams.builder(metadata.params).memtable(trie).build()).build();
+        updateTable(keyspace, metadata, copy);
+
+        metadata = Schema.instance.getTableMetadata(keyspace, "memtable_test");
+        assertEquals(trie, metadata.params.memtable);
+        assertTrue(readTableRow(keyspace, "memtable_test").has("memtable"));
+
+        // going back to the default params removes them
+        copy = metadata.unbuild().params(TableParams.builder(metadata.params).memtable(MemtableParams.DEFAULT).build()).build();
+        updateTable(keyspace, metadata, copy);
+
+        metadata = Schema.instance.getTableMetadata(keyspace, "memtable_test");
+        assertEquals(MemtableParams.DEFAULT, metadata.params.memtable);
+        assertFalse(readTableRow(keyspace, "memtable_test").has("memtable"));
+    }
+
+    private static UntypedResultSet.Row readTableRow(String keyspace, String table)
+    {
+        String query = String.format("SELECT * FROM %s.%s WHERE keyspace_name = '%s' AND table_name = '%s'",
+                                     SchemaConstants.SCHEMA_KEYSPACE_NAME, SchemaKeyspace.TABLES, keyspace, table);
+        return QueryProcessor.executeInternal(query).one();
+    }
+
     private static void updateTable(String keyspace, TableMetadata oldTable, TableMetadata newTable)
     {
         KeyspaceMetadata ksm = Schema.instance.getKeyspaceInstance(keyspace).getMetadata();
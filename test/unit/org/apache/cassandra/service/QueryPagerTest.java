@@ -27,6 +27,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import org.apache.cassandra.*;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.statements.CreateTableStatement;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.TableMetadata;
@@ -509,6 +510,63 @@ public class QueryPagerTest
         }
     }
 
+    @Test
+    public void pageSizeInBytesTest() throws Exception
+    {
+        String keyspace = "cql_keyspace";
+        String table = "table2";
+        ColumnFamilyStore cfs = Keyspace.open(keyspace).getColumnFamilyStore(table);
+        StorageService.instance.getTokenMetadata().updateNormalToken(cfs.getPartitioner().getMinimumToken(), FBUtilities.getBroadcastAddress());
+
+        // 20 rows of a bit more than 100 bytes each
+        String value = new String(new char[100]).replace('\0', 'a');
+        for (int i = 0; i < 20; i++)
+            executeInternal(String.format("INSERT INTO %s.%s (k, c, v) VALUES ('kbytes', 'c%02d', '%s')", keyspace, table, i, value));
+
+        ReadCommand command = SinglePartitionReadCommand.create(cfs.metadata(), nowInSec, Util.dk("kbytes"), Slice.ALL);
+        int maxPageSizeInKB = DatabaseDescriptor.getMaxPageSizeInKB();
+        DatabaseDescriptor.setMaxPageSizeInKB(1);
+        try
+        {
+            QueryPager pager = command.getPager(null, ProtocolVersion.CURRENT);
+            int first = 0;
+            int pages = 0;
+            while (!pager.isExhausted())
+            {
+                try (PartitionIterator partitions = pager.fetchPage(100, ConsistencyLevel.ONE, ClientState.forInternalCalls(), System.nanoTime()))
+                {
+                    if (!partitions.hasNext())
+                        break;
+
+                    try (RowIterator partition = partitions.next())
+                    {
+                        int rows = 0;
+                        while (partition.hasNext())
+                            assertEquals(String.format("c%02d", first + rows++), string(partition.next().clustering().get(0)));
+                        // The row reaching the limit is returned, so a page never has more than 1KB + 1 row of data
+                        assertTrue(rows > 0 && rows < 12);
+                        first += rows;
+                    }
+                }
+                pages++;
+
+                PagingState state = pager.state();
+                if (state != null)
+                {
+                    assertTrue(state.averageRowSize > 100);
+                    pager = command.getPager(PagingState.deserialize(state.serialize(ProtocolVersion.CURRENT), ProtocolVersion.CURRENT),
+                                             ProtocolVersion.CURRENT);
+                }
+            }
+            assertEquals(20, first);
+            assertTrue(pages > 1);
+        }
+        finally
+        {
+            DatabaseDescriptor.setMaxPageSizeInKB(maxPageSizeInKB);
+        }
+    }
+
     private void assertCell(Row row, ColumnMetadata column, int value)
     {
         Cell cell = row.getCell(column);
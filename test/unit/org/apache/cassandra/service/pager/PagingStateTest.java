@@ -81,4 +81,23 @@ public class PagingStateTest
         assertEquals(serialized.remaining(), state.serializedSize(ProtocolVersion.V4));
         assertEquals(state, PagingState.deserialize(serialized, ProtocolVersion.V4));
     }
+
+    @Test
+    public void testSerializeDeserializeWithAverageRowSize()
+    {
+        for (ProtocolVersion protocolVersion : new ProtocolVersion[]{ ProtocolVersion.V3, ProtocolVersion.V4 })
+        {
+            PagingState withoutSize = Util.makeSomePagingState(protocolVersion);
+            PagingState state = new PagingState(withoutSize.partitionKey, withoutSize.rowMark, withoutSize.remaining, withoutSize.remainingInPartition, 1234);
+            ByteBuffer serialized = state.serialize(protocolVersion);
+            assertEquals(serialized.remaining(), state.serializedSize(protocolVersion));
+            assertEquals(state, PagingState.deserialize(serialized, protocolVersion));
+
+            // The average row size is only appended to the paging state when known
+            ByteBuffer serializedWithoutSize = withoutSize.serialize(protocolVersion);
+            assertTrue(serializedWithoutSize.remaining() < serialized.remaining());
+            assertEquals(serializedWithoutSize, ByteBufferUtil.clone(serialized).limit(serializedWithoutSize.remaining()));
+            assertEquals(0, PagingState.deserialize(serializedWithoutSize, protocolVersion).averageRowSize);
+        }
+    }
 }
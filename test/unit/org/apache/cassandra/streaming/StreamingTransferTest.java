@@ -17,8 +17,10 @@
  */
 package org.apache.cassandra.streaming;
 
+import java.io.File;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
@@ -46,8 +48,11 @@ import org.apache.cassandra.db.partitions.*;
 import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.SSTable;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.service.ActiveRepairService;
 import org.apache.cassandra.service.StorageService;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
@@ -56,7 +61,10 @@ import org.apache.cassandra.utils.concurrent.Refs;
 import static org.apache.cassandra.SchemaLoader.compositeIndexCFMD;
 import static org.apache.cassandra.SchemaLoader.createKeyspace;
 import static org.apache.cassandra.SchemaLoader.standardCFMD;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 @RunWith(OrderedJUnit4ClassRunner.class)
@@ -75,6 +83,7 @@ public class StreamingTransferTest
     public static final String CF_COUNTER = "Counter1";
     public static final String CF_STANDARDINT = "StandardInteger1";
     public static final String CF_INDEX = "Indexed1";
+    public static final String CF_ENTIRE = "Entire1";
     public static final String KEYSPACE_CACHEKEY = "KeyStreamingTransferTestSpace";
     public static final String CF_STANDARD2 = "Standard2";
     public static final String CF_STANDARD3 = "Standard3";
@@ -96,7 +105,8 @@ public class StreamingTransferTest
                                     .addPartitionKeyColumn("key", AsciiType.instance)
                                     .addClusteringColumn("cols", Int32Type.instance)
                                     .addRegularColumn("val", BytesType.instance),
-                       compositeIndexCFMD(KEYSPACE1, CF_INDEX, true));
+                       compositeIndexCFMD(KEYSPACE1, CF_INDEX, true),
+                       standardCFMD(KEYSPACE1, CF_ENTIRE));
 
         createKeyspace(KEYSPACE2, KeyspaceParams.simple(1));
 
@@ -379,6 +389,64 @@ public class StreamingTransferTest
         doTransferTable(true);
     }
 
+    @Test
+    public void testTransferEntireSSTable() throws Exception
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_ENTIRE);
+        for (int i = 0; i < 100; i++)
+        {
+            new RowUpdateBuilder(cfs.metadata(), 1234, "key" + i)
+                .clustering("col")
+                .add("val", "value" + i)
+                .build()
+                .applyUnsafe();
+        }
+        cfs.forceBlockingFlush();
+        SSTableReader sstable = cfs.getLiveSSTables().iterator().next();
+        byte[] data = Files.readAllBytes(new File(sstable.getFilename()).toPath());
+        Set<Component> components = new HashSet<>(EntireSSTableStreamWriter.componentsToStream(sstable).keySet());
+        components.add(Component.TOC);
+
+        // only sstables lying entirely within the ranges are streamed as a whole
+        IPartitioner p = cfs.getPartitioner();
+        List<Range<Token>> fullRange = Collections.singletonList(new Range<>(p.getMinimumToken(), p.getMinimumToken()));
+        List<Range<Token>> partialRange = Collections.singletonList(new Range<>(p.getMinimumToken(), sstable.first.getToken()));
+        assertTrue(streamsEntireSSTable(cfs, fullRange));
+        assertFalse(streamsEntireSSTable(cfs, partialRange));
+        DatabaseDescriptor.setStreamEntireSSTables(false);
+        try
+        {
+            assertFalse(streamsEntireSSTable(cfs, fullRange));
+        }
+        finally
+        {
+            DatabaseDescriptor.setStreamEntireSSTables(true);
+        }
+
+        long beforeStreaming = System.currentTimeMillis();
+        new StreamPlan(StreamOperation.OTHER).transferRanges(LOCAL, KEYSPACE1, fullRange, CF_ENTIRE).execute().get();
+        cfs.discardSSTables(beforeStreaming);
+
+        // the received sstable is a copy of the sent one
+        assertEquals(1, cfs.getLiveSSTables().size());
+        SSTableReader streamed = cfs.getLiveSSTables().iterator().next();
+        assertTrue(streamed.descriptor.generation != sstable.descriptor.generation);
+        assertArrayEquals(data, Files.readAllBytes(new File(streamed.getFilename()).toPath()));
+        assertEquals(100, Util.getAll(Util.cmd(cfs).build()).size());
+
+
+        // the receiver writes the TOC of the components it got
+        assertEquals(components, SSTable.componentsFor(streamed.descriptor));
+    }
+
+    private static boolean streamsEntireSSTable(ColumnFamilyStore cfs, List<Range<Token>> ranges)
+    {
+        List<StreamSession.SSTableStreamingSections> sections = StreamSession.getSSTableSectionsForRanges(ranges, Collections.singleton(cfs), ActiveRepairService.NO_PENDING_REPAIR, PreviewKind.NONE);
+        assertEquals(1, sections.size());
+        sections.get(0).ref.release();
+        return sections.get(0).entireSSTable;
+    }
+
     /*
     @Test
     public void testTransferTableCounter() throws Exception
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.transport;
+
+import java.util.EnumSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.transport.messages.OptionsMessage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RequestBackpressureHandlerTest
+{
+    private static int maxRequests;
+    private static long maxBytes;
+
+    private EmbeddedChannel channel;
+    private RequestBackpressureHandler handler;
+
+    @BeforeClass
+    public static void setupDD()
+    {
+        DatabaseDescriptor.daemonInitialization();
+        maxRequests = DatabaseDescriptor.getNativeTransportMaxConcurrentRequestsPerConnection();
+        maxBytes = DatabaseDescriptor.getNativeTransportMaxConcurrentRequestsInBytesPerConnection();
+    }
+
+    @Before
+    public void setUp()
+    {
+        channel = new EmbeddedChannel();
+        handler = new RequestBackpressureHandler(channel);
+        channel.pipeline().addLast(handler);
+    }
+
+    @After
+    public void tearDown()
+    {
+        DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsPerConnection(maxRequests);
+        DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsInBytesPerConnection(maxBytes);
+        channel.finishAndReleaseAll();
+    }
+
+    private static Message.Request request(int bodySize)
+    {
+        Message.Request request = new OptionsMessage();
+        request.setSourceFrame(Frame.create(Message.Type.OPTIONS, 0, ProtocolVersion.CURRENT,
+                                            EnumSet.noneOf(Frame.Header.Flag.class), Unpooled.buffer(bodySize).writerIndex(bodySize)));
+        return request;
+    }
+
+    /**
+     * Reads the requests in a single read, like requests a client pipelined.
+     */
+    private void read(Message.Request... requests)
+    {
+        for (Message.Request request : requests)
+            channel.pipeline().fireChannelRead(request);
+        channel.pipeline().fireChannelReadComplete();
+    }
+
+    private void flush(Message.Request request)
+    {
+        RequestBackpressureHandler.onResponseFlushed(channel, request.getSourceFrame());
+    }
+
+    @Test
+    public void pausesOnTooManyRequests()
+    {
+        DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsPerConnection(2);
+        Message.Request first = request(10);
+        Message.Request second = request(10);
+        Message.Request third = request(10);
+
+        // the limit is only checked once all the requests of a read went through
+        read(first, second, third);
+        assertEquals(3, handler.inflightRequests());
+        assertEquals(3 * (Frame.Header.LENGTH + 10), handler.inflightBytes());
+        assertTrue(handler.isPaused());
+        assertFalse(channel.config().isAutoRead());
+
+        flush(first);
+        assertTrue(handler.isPaused());
+        flush(second);
+        assertFalse(handler.isPaused());
+        assertTrue(channel.config().isAutoRead());
+        assertEquals(1, handler.inflightRequests());
+    }
+
+    @Test
+    public void pausesOnTooManyBytes()
+    {
+        DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsInBytesPerConnection(1000);
+        Message.Request small = request(10);
+        read(small);
+        assertFalse(handler.isPaused());
+
+        Message.Request large = request(1000);
+        read(large);
+        assertTrue(handler.isPaused());
+        assertFalse(channel.config().isAutoRead());
+
+        flush(large);
+        assertFalse(handler.isPaused());
+        assertTrue(channel.config().isAutoRead());
+        assertEquals(Frame.Header.LENGTH + 10, handler.inflightBytes());
+    }
+
+    @Test
+    public void unlimited()
+    {
+        DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsPerConnection(0);
+        DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsInBytesPerConnection(0);
+        for (int i = 0; i < 100; i++)
+            read(request(100000));
+        assertFalse(handler.isPaused());
+        assertTrue(channel.config().isAutoRead());
+    }
+}
@@ -24,6 +24,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.utils.CoalescingStrategies.AdaptiveCoalescingStrategy;
 import org.apache.cassandra.utils.CoalescingStrategies.Coalescable;
 import org.apache.cassandra.utils.CoalescingStrategies.CoalescingStrategy;
 import org.apache.cassandra.utils.CoalescingStrategies.FixedCoalescingStrategy;
@@ -121,4 +122,103 @@ public class CoalescingStrategiesTest
         Assert.assertTrue(WINDOW_IN_NANOS >= CoalescingStrategies.determineCoalescingTime(1, WINDOW_IN_NANOS));
         Assert.assertEquals(WINDOW_IN_NANOS, CoalescingStrategies.determineCoalescingTime(0, WINDOW_IN_NANOS));
     }
+
+    private long clockMicros;
+
+    /**
+     * Feeds the strategy with a message every {@code gapMicros}, each flush taking {@code flushMicros} and each
+     * message being sent {@code latencyMicros} after its creation, then evaluates it.
+     */
+    private void feed(AdaptiveCoalescingStrategy cs, long gapMicros, long flushMicros, long latencyMicros)
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            clockMicros += gapMicros;
+            SimpleCoalescable message = new SimpleCoalescable(toNanos(clockMicros));
+            cs.newArrival(message);
+            cs.onFlush(0, toNanos(flushMicros));
+            cs.onMessageSent(message, message.timestampNanos() + toNanos(latencyMicros));
+        }
+        cs.evaluate();
+    }
+
+    @Test
+    public void testAdaptiveStrategy_DoNotCoalesceWhenIdle()
+    {
+        AdaptiveCoalescingStrategy cs = new AdaptiveCoalescingStrategy(WINDOW_IN_MICROS, logger, DISPLAY_NAME, 0);
+
+        // messages are close enough to coalesce, but flushing each of them is cheap
+        feed(cs, 10, 1, 20);
+        Assert.assertTrue(0 >= cs.currentCoalescingTimeNanos());
+
+        // messages are costly to flush, but too far apart to coalesce
+        feed(cs, WINDOW_IN_MICROS, WINDOW_IN_MICROS, 20);
+        Assert.assertTrue(0 >= cs.currentCoalescingTimeNanos());
+    }
+
+    @Test
+    public void testAdaptiveStrategy_CoalesceWhenBusy()
+    {
+        AdaptiveCoalescingStrategy cs = new AdaptiveCoalescingStrategy(WINDOW_IN_MICROS, logger, DISPLAY_NAME, 0);
+
+        feed(cs, 10, 10, 20);
+        long window = cs.windowNanos();
+        Assert.assertTrue(0 < window && window <= WINDOW_IN_NANOS);
+
+        // latency well within target: the window grows, but never above the target
+        for (int i = 0; i < 20; i++)
+        {
+            feed(cs, 10, 10, 20);
+            Assert.assertTrue(window <= cs.windowNanos());
+            window = cs.windowNanos();
+        }
+        Assert.assertEquals(WINDOW_IN_NANOS, window);
+        Assert.assertTrue(toNanos(20) <= cs.latencyP99Nanos());
+
+        // a backed up connection is worth coalescing even if flushes are cheap
+        cs = new AdaptiveCoalescingStrategy(WINDOW_IN_MICROS, logger, DISPLAY_NAME, 0);
+        for (int i = 0; i < 100; i++)
+        {
+            cs.newArrival(new SimpleCoalescable(toNanos(i * 10)));
+            cs.onFlush(10, toNanos(1));
+            cs.onMessageSent(new SimpleCoalescable(0), toNanos(20));
+        }
+        cs.evaluate();
+        Assert.assertTrue(0 < cs.windowNanos());
+    }
+
+    @Test
+    public void testAdaptiveStrategy_ShrinkWindowOverLatencyTarget()
+    {
+        AdaptiveCoalescingStrategy cs = new AdaptiveCoalescingStrategy(WINDOW_IN_MICROS, logger, DISPLAY_NAME, 0);
+
+        feed(cs, 10, 10, 20);
+        long window = cs.windowNanos();
+        Assert.assertTrue(0 < window);
+
+        // latency above target: the window halves until it's not worth coalescing anymore
+        feed(cs, 10, 10, WINDOW_IN_MICROS * 2);
+        Assert.assertEquals(window / 2, cs.windowNanos());
+        for (int i = 0; i < 10; i++)
+            feed(cs, 10, 10, WINDOW_IN_MICROS * 2);
+        Assert.assertTrue(0 >= cs.windowNanos());
+    }
+
+    @Test
+    public void testAdaptiveStrategy_EvaluatesPeriodically()
+    {
+        AdaptiveCoalescingStrategy cs = new AdaptiveCoalescingStrategy(WINDOW_IN_MICROS, logger, DISPLAY_NAME, 0);
+
+        for (int i = 1; i <= 100; i++)
+        {
+            SimpleCoalescable message = new SimpleCoalescable(toNanos(i * 10));
+            cs.newArrival(message);
+            cs.onFlush(0, toNanos(10));
+            cs.onMessageSent(message, message.timestampNanos() + toNanos(20));
+        }
+        cs.maybeEvaluate(AdaptiveCoalescingStrategy.EVALUATION_INTERVAL_NANOS - 1);
+        Assert.assertTrue(0 >= cs.windowNanos());
+        cs.maybeEvaluate(AdaptiveCoalescingStrategy.EVALUATION_INTERVAL_NANOS);
+        Assert.assertTrue(0 < cs.windowNanos());
+    }
 }
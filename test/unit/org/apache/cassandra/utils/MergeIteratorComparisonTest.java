@@ -467,23 +467,27 @@ public class MergeIteratorComparisonTest
     {
         {
             IMergeIterator<T,?> tested = MergeIterator.get(closeableIterators(lists), comparator, reducer);
+            IMergeIterator<T,?> batched = MergeIterator.getBatched(closeableIterators(lists), comparator, reducer);
             IMergeIterator<T,?> base = new MergeIteratorPQ<>(closeableIterators(lists), comparator, reducer);
             // If test fails, try the version below for improved reporting:
             Object[] basearr = Iterators.toArray(base, Object.class);
             Assert.assertArrayEquals(basearr, Iterators.toArray(tested, Object.class));
+            Assert.assertArrayEquals(basearr, Iterators.toArray(batched, Object.class));
             //Assert.assertTrue(Iterators.elementsEqual(base, tested));
             if (!BENCHMARK)
                 return;
         }
 
-        CountingComparator<T> cmp, cmpb;
-        cmp = new CountingComparator<>(comparator); cmpb = new CountingComparator<>(comparator);
+        CountingComparator<T> cmp, cmpb, cmpc;
+        cmp = new CountingComparator<>(comparator); cmpb = new CountingComparator<>(comparator); cmpc = new CountingComparator<>(comparator);
         System.out.println();
         for (int i=0; i<10; ++i) {
             benchmarkIterator(MergeIterator.get(closeableIterators(lists), cmp, reducer), cmp);
             benchmarkIterator(new MergeIteratorPQ<>(closeableIterators(lists), cmpb, reducer), cmpb);
+            benchmarkIterator(MergeIterator.getBatched(closeableIterators(lists), cmpc, reducer), cmpc);
         }
         System.out.format("MI: %.2f\n", cmp.count / (double) cmpb.count);
+        System.out.format("Batched: %.2f\n", cmpc.count / (double) cmpb.count);
     }
     
     public <T> void benchmarkIterator(IMergeIterator<T, ?> it, CountingComparator<T> comparator)
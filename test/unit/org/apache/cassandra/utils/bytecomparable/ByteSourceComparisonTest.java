@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils.bytecomparable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.ClusteringBoundOrBoundary;
+import org.apache.cassandra.db.ClusteringComparator;
+import org.apache.cassandra.db.ClusteringPrefix;
+import org.apache.cassandra.db.marshal.*;
+import org.apache.cassandra.dht.LocalPartitioner;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.UUIDGen;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the byte-comparable representations of values order them like their types' comparators.
+ */
+public class ByteSourceComparisonTest
+{
+    private static final int VALUES = 60;
+
+    private final Random random = new Random(42);
+
+    @BeforeClass
+    public static void setUp()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    @Test
+    public void testFixedLengthTypes()
+    {
+        testType(Int32Type.instance, values(() -> random.nextInt(), Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1, 1));
+        testType(LongType.instance, values(() -> random.nextLong(), Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L, 1L));
+        testType(ShortType.instance, values(() -> (short) random.nextInt(), Short.MIN_VALUE, Short.MAX_VALUE, (short) 0, (short) -1));
+        testType(ByteType.instance, values(() -> (byte) random.nextInt(), Byte.MIN_VALUE, Byte.MAX_VALUE, (byte) 0, (byte) -1));
+        testType(TimestampType.instance, values(() -> new Date(random.nextLong()), new Date(0), new Date(-1)));
+        testType(BooleanType.instance, values(() -> random.nextBoolean(), true, false));
+        testType(FloatType.instance, values(() -> (float) random.nextGaussian() * 1e10f,
+                                            Float.NaN, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, 0f, -0f,
+                                            Float.MIN_VALUE, -Float.MIN_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE));
+        testType(DoubleType.instance, values(() -> random.nextGaussian() * 1e100,
+                                             Double.NaN, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0d, -0d,
+                                             Double.MIN_VALUE, -Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE));
+    }
+
+    @Test
+    public void testBooleanNonCanonical()
+    {
+        // any non-zero byte is true
+        ByteBuffer two = ByteBuffer.wrap(new byte[]{ 2 });
+        testValues(BooleanType.instance, Arrays.asList(two, BooleanType.instance.decompose(true), BooleanType.instance.decompose(false)), true);
+    }
+
+    @Test
+    public void testVarint()
+    {
+        List<ByteBuffer> values = decompose(IntegerType.instance,
+                                            values(() -> new BigInteger(random.nextInt(2100), random).multiply(BigInteger.valueOf(random.nextInt(3) - 1)),
+                                                   BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE.negate(),
+                                                   BigInteger.valueOf(127), BigInteger.valueOf(128), BigInteger.valueOf(-128), BigInteger.valueOf(-129)));
+        // non-minimal encodings, padded with sign bytes
+        values.add(ByteBuffer.wrap(new byte[]{ 0, 0, 1 }));
+        values.add(ByteBuffer.wrap(new byte[]{ -1, -1, -2 }));
+        testValues(IntegerType.instance, values, true);
+    }
+
+    @Test
+    public void testDecimal()
+    {
+        testType(DecimalType.instance, values(() -> new BigDecimal(new BigInteger(random.nextInt(200), random).multiply(BigInteger.valueOf(random.nextInt(3) - 1)),
+                                                                   random.nextInt(100) - 50),
+                                              BigDecimal.ZERO, BigDecimal.ONE, new BigDecimal("1.00"), new BigDecimal("-1.0"),
+                                              new BigDecimal("0.1"), new BigDecimal("-0.12"), new BigDecimal("-0.123"),
+                                              new BigDecimal("10"), new BigDecimal("9.99"), new BigDecimal("1E+1000"), new BigDecimal("-1E-1000")));
+    }
+
+    @Test
+    public void testUUIDTypes()
+    {
+        Supplier<UUID> timeUUID = () -> UUIDGen.getTimeUUID(random.nextLong() & 0xFFFFFFFFFFFL, random.nextInt(10000), random.nextLong());
+        testType(TimeUUIDType.instance, values(timeUUID));
+        testType(LexicalUUIDType.instance, values(() -> new UUID(random.nextLong(), random.nextLong())));
+        testType(UUIDType.instance, values(() -> random.nextBoolean() ? timeUUID.get() : UUID.randomUUID(),
+                                           new UUID(0, 0), new UUID(-1, -1)));
+    }
+
+    @Test
+    public void testByteOrderTypes()
+    {
+        testType(UTF8Type.instance, values(this::randomString, "", "a", "a\0", "a\0b", "ab", "\uffff"));
+        testType(AsciiType.instance, values(() -> randomString().replaceAll("[^\\x00-\\x7f]", "")));
+        testType(BytesType.instance, values(this::randomBytes, ByteBuffer.wrap(new byte[]{ 0 }), ByteBuffer.wrap(new byte[]{ 0, 0 })));
+        testType(InetAddressType.instance, values(this::randomAddress));
+    }
+
+    @Test
+    public void testReversedTypes()
+    {
+        testType(ReversedType.getInstance(Int32Type.instance), values(() -> random.nextInt()));
+        testType(ReversedType.getInstance(UTF8Type.instance), values(() -> UTF8Type.instance.compose(randomValue(UTF8Type.instance)), "a", "a\0", "ab"));
+    }
+
+    @Test
+    public void testCollectionTypes()
+    {
+        testType(ListType.getInstance(Int32Type.instance, false),
+                 values(() -> randomList(() -> random.nextInt(4))));
+        testType(SetType.getInstance(UTF8Type.instance, false),
+                 values(() -> (Set<String>) new TreeSet<>(randomList(this::randomString))));
+        testType(MapType.getInstance(Int32Type.instance, ReversedType.getInstance(UTF8Type.instance), false),
+                 values(() -> {
+                     Map<Integer, String> map = new TreeMap<>();
+                     for (Integer key : randomList(() -> random.nextInt(4)))
+                         map.put(key, randomString());
+                     return map;
+                 }));
+    }
+
+    @Test
+    public void testTupleType()
+    {
+        TupleType type = new TupleType(Arrays.asList(Int32Type.instance, UTF8Type.instance, ReversedType.getInstance(LongType.instance)));
+        List<ByteBuffer> values = new ArrayList<>();
+        for (int i = 0; i < VALUES; i++)
+        {
+            // no empty fields: the tuple comparator ignores trailing empty fields like trailing nulls, but otherwise
+            // sorts them after nulls, which is not a total order
+            ByteBuffer[] components = new ByteBuffer[random.nextInt(4)];
+            for (int j = 0; j < components.length; j++)
+                components[j] = random.nextInt(4) == 0 ? null : randomValue(type.type(j), 3);
+            values.add(TupleType.buildValue(components));
+        }
+        testValues(type, values, true);
+    }
+
+    @Test
+    public void testCompositeType()
+    {
+        CompositeType type = CompositeType.getInstance(UTF8Type.instance, ReversedType.getInstance(Int32Type.instance));
+        List<ByteBuffer> values = new ArrayList<>();
+        for (int i = 0; i < VALUES; i++)
+        {
+            ByteBuffer[] components = new ByteBuffer[random.nextInt(3)];
+            for (int j = 0; j < components.length; j++)
+                components[j] = random.nextInt(5) == 0 ? ByteBufferUtil.EMPTY_BYTE_BUFFER : randomValue(type.types.get(j));
+            ByteBuffer value = CompositeType.build(random.nextInt(8) == 0, components);
+            // randomize the end-of-component byte of the last component
+            if (components.length > 0)
+                value.put(value.limit() - 1, (byte) (random.nextInt(3) - 1));
+            values.add(value);
+        }
+        testValues(type, values, true);
+    }
+
+    @Test
+    public void testDynamicCompositeType()
+    {
+        Map<Byte, AbstractType<?>> aliases = ImmutableMap.of((byte) 'i', Int32Type.instance,
+                                                             (byte) 'I', ReversedType.getInstance(Int32Type.instance),
+                                                             (byte) 'u', UTF8Type.instance,
+                                                             (byte) 'l', ReversedType.getInstance(LongType.instance));
+        List<Byte> aliasList = new ArrayList<>(aliases.keySet());
+        DynamicCompositeType type = DynamicCompositeType.getInstance(aliases);
+        List<ByteBuffer> values = new ArrayList<>();
+        for (int i = 0; i < VALUES; i++)
+        {
+            int size = random.nextInt(3);
+            ByteBuffer value = ByteBuffer.allocate(size * 64);
+            for (int j = 0; j < size; j++)
+            {
+                byte alias = aliasList.get(random.nextInt(aliasList.size()));
+                ByteBuffer component = randomValue(aliases.get(alias));
+                value.putShort((short) (0x8000 | alias));
+                ByteBufferUtil.writeShortLength(value, component.remaining());
+                value.put(component);
+                value.put(j == size - 1 ? (byte) (random.nextInt(3) - 1) : 0);
+            }
+            value.flip();
+            values.add(value);
+        }
+        testValues(type, values, true);
+    }
+
+    @Test
+    public void testClusterings()
+    {
+        ClusteringComparator comparator = new ClusteringComparator(Int32Type.instance, ReversedType.getInstance(UTF8Type.instance));
+        List<ClusteringPrefix> prefixes = new ArrayList<>();
+        prefixes.add(Clustering.STATIC_CLUSTERING);
+        for (int i = 0; i < VALUES * 2; i++)
+        {
+            ClusteringPrefix.Kind kind = ClusteringPrefix.Kind.values()[random.nextInt(ClusteringPrefix.Kind.values().length)];
+            if (kind == ClusteringPrefix.Kind.STATIC_CLUSTERING)
+                continue;
+            int size = kind == ClusteringPrefix.Kind.CLUSTERING || kind.isBoundary() ? 2 : random.nextInt(3);
+            ByteBuffer[] values = new ByteBuffer[size];
+            for (int j = 0; j < size; j++)
+                values[j] = random.nextInt(4) == 0 ? ByteBuffer.wrap(new byte[]{ 0, 0, 0, (byte) j })
+                                                   : randomValue(comparator.subtype(j), 3);
+            prefixes.add(kind == ClusteringPrefix.Kind.CLUSTERING ? Clustering.make(values)
+                                                                  : ClusteringBoundOrBoundary.create(kind, values));
+        }
+
+        for (ClusteringPrefix p1 : prefixes)
+            for (ClusteringPrefix p2 : prefixes)
+                assertEquals(describe(comparator, p1) + " vs " + describe(comparator, p2),
+                             Integer.signum(comparator.compare(p1, p2)),
+                             Integer.signum(ByteSource.compare(comparator.asComparableBytes(p1), comparator.asComparableBytes(p2))));
+    }
+
+    @Test
+    public void testLocalTokens()
+    {
+        LocalPartitioner partitioner = new LocalPartitioner(ReversedType.getInstance(UTF8Type.instance));
+        List<Token> tokens = new ArrayList<>();
+        tokens.add(partitioner.getMinimumToken());
+        for (int i = 0; i < VALUES; i++)
+            tokens.add(partitioner.getToken(randomValue(UTF8Type.instance)));
+
+        for (Token t1 : tokens)
+            for (Token t2 : tokens)
+                assertEquals(t1 + " vs " + t2,
+                             Integer.signum(t1.compareTo(t2)),
+                             Integer.signum(ByteSource.compare(t1.asComparableBytes(), t2.asComparableBytes())));
+    }
+
+    private static String describe(ClusteringComparator comparator, ClusteringPrefix prefix)
+    {
+        StringBuilder sb = new StringBuilder(prefix.kind().toString()).append('(');
+        for (int i = 0; i < prefix.size(); i++)
+            sb.append(i == 0 ? "" : ", ").append(prefix.get(i) == null ? "null" : ByteBufferUtil.bytesToHex(prefix.get(i)));
+        return sb.append(')').toString();
+    }
+
+    private <T> void testType(AbstractType<T> type, List<T> values)
+    {
+        // the short and tiny int comparators do not accept empty values
+        testValues(type, decompose(type, values), !(type instanceof ShortType || type instanceof ByteType));
+    }
+
+    /**
+     * Checks the order of the given values, and of the same values as components, with the empty value added if
+     * the type supports it.
+     */
+    private void testValues(AbstractType<?> type, List<ByteBuffer> values, boolean withEmpty)
+    {
+        // empty values only have a byte-comparable representation as components
+        List<ByteBuffer> nonEmpty = new ArrayList<>();
+        for (ByteBuffer value : values)
+            if (value.hasRemaining())
+                nonEmpty.add(value);
+
+        for (ByteBuffer v1 : nonEmpty)
+            for (ByteBuffer v2 : nonEmpty)
+                assertEquals(ByteBufferUtil.bytesToHex(v1) + " vs " + ByteBufferUtil.bytesToHex(v2) + " for " + type,
+                             Integer.signum(type.compare(v1, v2)),
+                             Integer.signum(ByteSource.compare(type.asComparableBytes(v1), type.asComparableBytes(v2))));
+
+        List<ByteBuffer> components = new ArrayList<>(values);
+        if (withEmpty)
+            components.add(ByteBufferUtil.EMPTY_BYTE_BUFFER);
+        for (ByteBuffer v1 : components)
+            for (ByteBuffer v2 : components)
+                assertEquals(ByteBufferUtil.bytesToHex(v1) + " vs " + ByteBufferUtil.bytesToHex(v2) + " as components of " + type,
+                             Integer.signum(type.compare(v1, v2)),
+                             Integer.signum(ByteSource.compare(componentFollowedByTerminator(type, v1),
+                                                               componentFollowedByTerminator(type, v2))));
+    }
+
+    private static ByteSource componentFollowedByTerminator(AbstractType<?> type, ByteBuffer value)
+    {
+        return ByteSource.concat(type.asComparableComponent(value), ByteSource.oneByte(ByteSource.TERMINATOR));
+    }
+
+    @SafeVarargs
+    private final <T> List<T> values(Supplier<T> generator, T... fixed)
+    {
+        List<T> values = new ArrayList<>(Arrays.asList(fixed));
+        for (int i = 0; i < VALUES; i++)
+            values.add(generator.get());
+        return values;
+    }
+
+    private static <T> List<ByteBuffer> decompose(AbstractType<T> type, List<T> values)
+    {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (T value : values)
+            buffers.add(type.decompose(value));
+        return buffers;
+    }
+
+    private <T> List<T> randomList(Supplier<T> generator)
+    {
+        List<T> list = new ArrayList<>();
+        for (int i = random.nextInt(4); i > 0; i--)
+            list.add(generator.get());
+        return list;
+    }
+
+    private String randomString()
+    {
+        char[] chars = new char[random.nextInt(6)];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = (char) (random.nextBoolean() ? 'a' + random.nextInt(3) : random.nextInt(0xD800));
+        return new String(chars);
+    }
+
+    private ByteBuffer randomBytes()
+    {
+        byte[] bytes = new byte[random.nextInt(6)];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) (random.nextBoolean() ? random.nextInt(2) : random.nextInt());
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private InetAddress randomAddress()
+    {
+        try
+        {
+            byte[] bytes = new byte[random.nextBoolean() ? 4 : 16];
+            random.nextBytes(bytes);
+            return InetAddress.getByAddress(bytes);
+        }
+        catch (UnknownHostException e)
+        {
+            throw new AssertionError(e);
+        }
+    }
+
+    private ByteBuffer randomValue(AbstractType<?> type)
+    {
+        return randomValue(type, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Generates a non-empty value of one of the base types used by the composite tests, out of {@code range}
+     * possible values for numeric types.
+     */
+    private ByteBuffer randomValue(AbstractType<?> type, int range)
+    {
+        AbstractType<?> base = type instanceof ReversedType ? ((ReversedType<?>) type).baseType : type;
+        if (base == Int32Type.instance)
+            return Int32Type.instance.decompose(range == Integer.MAX_VALUE ? random.nextInt() : random.nextInt(range));
+        if (base == LongType.instance)
+            return LongType.instance.decompose(random.nextLong());
+        if (base == UTF8Type.instance)
+        {
+            String s = randomString();
+            return UTF8Type.instance.decompose(s.isEmpty() ? "a" : s);
+        }
+        throw new AssertionError("Unexpected type " + type);
+    }
+}